@@ -0,0 +1,75 @@
+package edu.guilford;
+
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+
+import edu.guilford.chemtools.history.HistoryEntry;
+import edu.guilford.chemtools.history.HistoryLog;
+import edu.guilford.chemtools.history.HistoryWriter;
+
+/**
+ * The CalculationHistory class is the application-wide calculation history. Applications
+ * record each completed calculation here; entries are appended to the history log on a
+ * background thread, so recording never blocks the JavaFX thread. The log lives in
+ * ~/.chemistrymonkey/history.log unless -Dchemistrymonkey.history names another file.
+ */
+public final class CalculationHistory {
+
+    /** Calculation kinds recorded by the applications. */
+    public static final String MOLE = "mole";
+    public static final String EQUATION = "equation";
+
+    /** The history log file. */
+    private static final Path HISTORY_FILE = Path.of(System.getProperty("chemistrymonkey.history",
+            Path.of(System.getProperty("user.home"), ".chemistrymonkey", "history.log").toString()));
+
+    /** Background writer, started on first use. */
+    private static HistoryWriter writer;
+
+    /**
+     * Prevents instantiation; all methods are static.
+     */
+    private CalculationHistory() {
+    }
+
+    /**
+     * Gets the writer, starting it (and opening the log in the background) on first use.
+     *
+     * @return The shared history writer.
+     */
+    private static synchronized HistoryWriter getWriter() {
+        if (writer == null) {
+            writer = new HistoryWriter(HISTORY_FILE);
+        }
+        return writer;
+    }
+
+    /**
+     * Records a calculation, timestamped now.
+     *
+     * @param kind The calculation kind (e.g., {@link #MOLE}).
+     * @param input The inputs as text.
+     * @param output The results as text.
+     */
+    public static void record(String kind, String input, String output) {
+        getWriter().submit(new HistoryEntry(kind, input, output));
+    }
+
+    /**
+     * Gets the history log for reading entries back.
+     *
+     * @return A future completed with the log once it is open.
+     */
+    public static CompletableFuture<HistoryLog> getLog() {
+        return getWriter().getLog();
+    }
+
+    /**
+     * Writes any queued entries and closes the log, if it was ever opened.
+     */
+    public static synchronized void close() {
+        if (writer != null) {
+            writer.close();
+        }
+    }
+}
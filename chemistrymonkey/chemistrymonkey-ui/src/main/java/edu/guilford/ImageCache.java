@@ -0,0 +1,73 @@
+package edu.guilford;
+
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import edu.guilford.chemtools.metrics.Counter;
+import edu.guilford.chemtools.metrics.MetricsRegistry;
+import javafx.scene.image.Image;
+
+/**
+ * The ImageCache class loads images from the module's classpath resources and shares them
+ * across scenes. Images are decoded in the background at the size they are displayed at,
+ * and an ImageView shows the image once it is ready. Loading from the classpath works
+ * no matter which directory the application is launched from.
+ */
+public final class ImageCache {
+
+    /** Decoded images keyed by resource path and requested size. */
+    private static final Map<String, Image> IMAGES = new ConcurrentHashMap<>();
+
+    /** Lookups answered from the cache, and lookups that started a new decode. */
+    private static final Counter HITS = MetricsRegistry.shared().counter("ui.image.cache.hits");
+    private static final Counter MISSES = MetricsRegistry.shared().counter("ui.image.cache.misses");
+
+    /**
+     * Prevents instantiation; all methods are static.
+     */
+    private ImageCache() {
+    }
+
+    /**
+     * Gets an image decoded at its natural size.
+     *
+     * @param resourcePath The absolute resource path (e.g., "/edu/guilford/CM_LOGO.png").
+     * @return The shared image (possibly still loading), or null if the resource does not exist.
+     */
+    public static Image get(String resourcePath) {
+        return get(resourcePath, 0, 0, true);
+    }
+
+    /**
+     * Gets an image decoded at the requested display size. A width or height of 0 keeps
+     * the natural size in that dimension (or scales it with the other when preserving ratio).
+     *
+     * @param resourcePath The absolute resource path (e.g., "/edu/guilford/CM_LOGO.png").
+     * @param width The display width in pixels, or 0.
+     * @param height The display height in pixels, or 0.
+     * @param preserveRatio Whether to keep the image's aspect ratio.
+     * @return The shared image (possibly still loading), or null if the resource does not exist.
+     */
+    public static Image get(String resourcePath, double width, double height, boolean preserveRatio) {
+        // Round to whole pixels so nearby sizes share one decoded image
+        long requestedWidth = Math.max(0, Math.round(width));
+        long requestedHeight = Math.max(0, Math.round(height));
+        String key = resourcePath + "@" + requestedWidth + "x" + requestedHeight + (preserveRatio ? "r" : "");
+
+        Image image = IMAGES.get(key);
+        if (image != null) {
+            HITS.increment();
+            return image;
+        }
+        MISSES.increment();
+
+        URL url = ImageCache.class.getResource(resourcePath);
+        if (url == null) {
+            System.err.println("Error loading image: " + resourcePath);
+            return null;
+        }
+        return IMAGES.computeIfAbsent(key, k -> new Image(url.toExternalForm(),
+                requestedWidth, requestedHeight, preserveRatio, true, true));
+    }
+}
@@ -6,7 +6,6 @@ import edu.guilford.applications.BaseApplication;
 import javafx.scene.control.Label;
 import javafx.scene.control.ScrollPane;
 import javafx.scene.effect.DropShadow;
-import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.TilePane;
 import javafx.scene.layout.VBox;
@@ -19,8 +18,11 @@ import javafx.scene.text.Font;
  */
 public class MainPane extends VBox {
 
-    /** File path to the application logo image. */
-    private static final String LOGO_IMAGE_FILE = "file:chemistrymonkey/src/main/resources/edu/guilford/CM_LOGO.png";
+    /** Classpath resource path of the application logo image. */
+    static final String LOGO_IMAGE_RESOURCE = "/edu/guilford/CM_LOGO.png";
+
+    /** Displayed height of the logo in the header, in pixels; the image's natural height. */
+    static final double LOGO_HEIGHT = 250;
 
     /**
      * Constructs the main interface for the application, including a logo, header,
@@ -31,17 +33,11 @@ public class MainPane extends VBox {
     public MainPane(ArrayList<BaseApplication> applicationList) {
         super();
 
-        // Create logo image component with shadow effect
-        ImageView imageView;
-        try {
-            imageView = new ImageView(new Image(LOGO_IMAGE_FILE));
-            imageView.setFitWidth(USE_PREF_SIZE);
-            imageView.setPreserveRatio(true);
-            imageView.setEffect(new DropShadow(10, Color.BLACK)); // Add shadow to the logo
-        } catch (IllegalArgumentException e) {
-            System.err.println("Error loading image: " + LOGO_IMAGE_FILE);
-            imageView = new ImageView(); // Placeholder if image fails to load
-        }
+        // Create logo image component with shadow effect (decoded in the background at its displayed size)
+        ImageView imageView = new ImageView(ImageCache.get(LOGO_IMAGE_RESOURCE, 0, LOGO_HEIGHT, true)); // Empty if image fails to load
+        imageView.setFitHeight(LOGO_HEIGHT);
+        imageView.setPreserveRatio(true);
+        imageView.setEffect(new DropShadow(10, Color.BLACK)); // Add shadow to the logo
 
         // Create header label with a clean, bold look
         Label header = new Label("Launch Application");
@@ -0,0 +1,234 @@
+package edu.guilford;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.ServiceLoader;
+
+import edu.guilford.applications.BaseApplication;
+import edu.guilford.applications.DiagnosticsApplication;
+import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.fxml.FXMLLoader;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.scene.image.Image;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyCodeCombination;
+import javafx.scene.input.KeyCombination;
+import javafx.scene.input.KeyEvent;
+import javafx.stage.Screen;
+import javafx.stage.Stage;
+
+/**
+ * The main launcher class for the Chemistry Monkey JavaFX application.
+ * Initializes the application window, sets dimensions based on screen size, 
+ * and loads the main scene.
+ */
+public class MonkeyLauncher extends Application {
+
+    private static Scene mainScene;
+    
+    /** Factor for determining application width relative to screen size. */
+    private static final double WIDTH_FACTOR = 0.3; 
+    
+    /** Factor for determining application height relative to screen size. */
+    private static final double HEIGHT_FACTOR = 0.5; 
+
+    /** The calculated application width based on screen size. */
+    public static int applicationWidth;
+
+    /** The calculated application height based on screen size. */
+    public static int applicationHeight;
+
+    /** The main stage (window) for the application. */
+    private Stage stage;
+
+    /** Size the window icon is decoded at, in pixels; window managers scale it further. */
+    private static final double ICON_SIZE = 64;
+
+    /** Time the launcher class was initialized, the reference point for startup timing. */
+    private static final long LAUNCH_NANOS = System.nanoTime();
+
+    /** Whether to print the time from launch to the first rendered frame. */
+    private static final boolean REPORT_STARTUP_TIME =
+            Boolean.parseBoolean(System.getProperty("chemistrymonkey.timing", "false"));
+
+    /** Shortcut that opens the hidden diagnostics view from any scene. */
+    private static final KeyCombination DIAGNOSTICS_SHORTCUT =
+            new KeyCodeCombination(KeyCode.D, KeyCombination.SHORTCUT_DOWN, KeyCombination.SHIFT_DOWN);
+
+    /** The diagnostics view, created the first time the shortcut is pressed. */
+    private DiagnosticsApplication diagnosticsApplication;
+
+    /** Whether application scenes are built in the background after the main window is shown. */
+    private static final boolean PREWARM_SCENES =
+            Boolean.parseBoolean(System.getProperty("chemistrymonkey.prewarm", "true"));
+
+    /**
+     * The entry point of the application.
+     * 
+     * @param args Command-line arguments (not used).
+     */
+    public static void main(String[] args) {
+        launch();
+    }
+
+    /**
+     * Starts the JavaFX application by setting up the main window.
+     * 
+     * @param stage The primary stage for this application.
+     * @throws IOException If there is an issue loading resources.
+     */
+    @Override
+    public void start(Stage stage) throws IOException {
+        this.stage = stage;
+        
+        // Set application title and icon
+        stage.setTitle("Chemistry Monkey");
+        Image icon = ImageCache.get(MainPane.LOGO_IMAGE_RESOURCE, ICON_SIZE, ICON_SIZE, true);
+        if (icon != null) {
+            stage.getIcons().add(icon);
+        }
+
+        // Extract screen size components
+        Rectangle2D screenBounds = Screen.getPrimary().getBounds();
+        double screenWidth = screenBounds.getWidth();
+        double screenHeight = screenBounds.getHeight();
+
+        // Set application dimensions
+        applicationWidth = (int) (screenWidth * WIDTH_FACTOR);
+        applicationHeight = (int) (screenHeight * HEIGHT_FACTOR);
+
+        // Create and set the main scene
+        ArrayList<BaseApplication> applicationList = buildApplications();
+        MainPane mainPane = new MainPane(applicationList);
+        mainScene = new Scene(mainPane, applicationWidth, applicationHeight);
+        stage.setScene(mainScene);
+        stage.addEventFilter(KeyEvent.KEY_PRESSED, this::handleShortcut);
+        if (REPORT_STARTUP_TIME) {
+            reportTimeToFirstFrame();
+        }
+        stage.show();
+
+        // Build application scenes once the window is up, one per pulse
+        if (PREWARM_SCENES) {
+            prewarmScenes(applicationList.iterator());
+        }
+    }
+
+    /**
+     * Prints the time from launcher initialization to the end of the first layout pulse
+     * of the main scene, which is when the first frame is rendered. Enabled with
+     * -Dchemistrymonkey.timing=true to compare startup changes.
+     */
+    private void reportTimeToFirstFrame() {
+        Runnable firstPulse = new Runnable() {
+            @Override
+            public void run() {
+                mainScene.removePostLayoutPulseListener(this);
+                System.out.printf("Time to first frame: %.1f ms%n", (System.nanoTime() - LAUNCH_NANOS) / 1e6);
+            }
+        };
+        mainScene.addPostLayoutPulseListener(firstPulse);
+    }
+
+    /**
+     * Writes any pending calculation history before the application exits.
+     */
+    @Override
+    public void stop() {
+        CalculationHistory.close();
+    }
+
+    /**
+     * Discovers the chemistry-related applications to be included in the main interface
+     * through {@link ServiceLoader}, ordered by their menu order. Applications only
+     * build their menu box at this point; their scenes are built on first launch.
+     * 
+     * @return A list of {@link BaseApplication} instances.
+     */
+    private ArrayList<BaseApplication> buildApplications() {
+        ArrayList<BaseApplication> applicationList = new ArrayList<>();
+
+        for (BaseApplication application : ServiceLoader.load(BaseApplication.class)) {
+            application.setLauncher(this);
+            applicationList.add(application);
+        }
+        applicationList.sort(Comparator.comparingInt(BaseApplication::getMenuOrder));
+
+        return applicationList;
+    }
+
+    /**
+     * Builds the scene of each application in turn, yielding to the JavaFX event queue
+     * between applications so the main window stays responsive.
+     * 
+     * @param applications The applications whose scenes remain to be built.
+     */
+    private void prewarmScenes(Iterator<BaseApplication> applications) {
+        if (applications.hasNext()) {
+            Platform.runLater(() -> {
+                applications.next().prepareScene();
+                prewarmScenes(applications);
+            });
+        }
+    }
+
+    /**
+     * Opens the diagnostics view when its shortcut is pressed, whichever scene is showing.
+     * The diagnostics view is not in the menu, so this is the only way to reach it.
+     * 
+     * @param event The key event.
+     */
+    private void handleShortcut(KeyEvent event) {
+        if (DIAGNOSTICS_SHORTCUT.match(event)) {
+            if (diagnosticsApplication == null) {
+                diagnosticsApplication = new DiagnosticsApplication();
+                diagnosticsApplication.setLauncher(this);
+            }
+            switchScene(diagnosticsApplication.getApplicationScene());
+            event.consume();
+        }
+    }
+
+    /**
+     * Sets the root of the main scene to a new FXML layout.
+     * 
+     * @param fxml The name of the FXML file (without extension).
+     * @throws IOException If the FXML file cannot be loaded.
+     */
+    static void setRoot(String fxml) throws IOException {
+        mainScene.setRoot(loadFXML(fxml));
+    }
+
+    /**
+     * Loads an FXML file and returns its root node.
+     * 
+     * @param fxml The name of the FXML file (without extension).
+     * @return The root node of the loaded FXML file.
+     * @throws IOException If the FXML file cannot be loaded.
+     */
+    private static Parent loadFXML(String fxml) throws IOException {
+        FXMLLoader fxmlLoader = new FXMLLoader(MonkeyLauncher.class.getResource(fxml + ".fxml"));
+        return fxmlLoader.load();
+    }
+
+    /**
+     * Switches the application to a different scene.
+     * 
+     * @param scene The scene to be displayed.
+     */
+    public void switchScene(Scene scene) {
+        stage.setScene(scene);
+    }
+
+    /**
+     * Returns the application to the main scene.
+     */
+    public void goHome() {
+        stage.setScene(mainScene);
+    }
+}
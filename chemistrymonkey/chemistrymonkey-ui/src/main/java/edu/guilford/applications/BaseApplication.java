@@ -1,11 +1,11 @@
 package edu.guilford.applications;
 
+import edu.guilford.ImageCache;
 import edu.guilford.MonkeyLauncher;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
-import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.HBox;
@@ -15,6 +15,11 @@ import javafx.scene.layout.VBox;
  * BaseApplication is an abstract class representing the structure of an application within
  * the Monkey Launcher framework. It handles the scene generation, menu display, and 
  * launching functionality of an individual application.
+ * 
+ * Applications are discovered with {@link java.util.ServiceLoader}: each subclass needs a
+ * public no-argument constructor and a {@code provides} entry in module-info.java. Only the
+ * menu box is built at startup; the application scene is built the first time the
+ * application is launched (or earlier, if the launcher pre-warms it).
  */
 public abstract class BaseApplication {
 
@@ -31,23 +36,40 @@ public abstract class BaseApplication {
     /** The menu box containing the application logo and launch button */
     private HBox applicationMenuBox;
 
+    /** Default position of an application in the launcher menu */
+    protected static final int DEFAULT_MENU_ORDER = 100;
+
     /**
      * Abstract method to set the location of the menu image for each application.
      * 
-     * @return The file path of the menu image.
+     * @return The classpath resource path of the menu image (e.g., "/edu/guilford/MoleApplicationLogo.png").
      */
     protected abstract String setMenuImageLocation();
 
     /**
-     * Constructs a BaseApplication with the given MonkeyLauncher and initializes
-     * the menu box and application scene.
+     * Constructs a BaseApplication. Nothing is built here, so discovering an application
+     * costs no more than instantiating it.
+     */
+    public BaseApplication() {
+    }
+
+    /**
+     * Sets the MonkeyLauncher this application switches scenes with.
      * 
      * @param launcher The MonkeyLauncher used to switch scenes.
      */
-    public BaseApplication(MonkeyLauncher launcher) {
+    public void setLauncher(MonkeyLauncher launcher) {
         this.launcher = launcher;
-        generateMenuBox();
-        generateApplication();
+    }
+
+    /**
+     * Returns the position of the application in the launcher menu. Applications with a
+     * lower order are listed first.
+     * 
+     * @return The menu order.
+     */
+    public int getMenuOrder() {
+        return DEFAULT_MENU_ORDER;
     }
 
     /**
@@ -72,28 +94,23 @@ public abstract class BaseApplication {
         applicationMenuBox.getChildren().addAll(imageView, launchButton);
 
         // Button functionality: Launch the application when clicked
-        launchButton.setOnAction(e -> launcher.switchScene(applicationScene));
+        launchButton.setOnAction(e -> launcher.switchScene(getApplicationScene()));
     }
 
     /**
-     * Creates an ImageView for the application logo.
+     * Creates an ImageView for the application logo. The image is decoded in the
+     * background at the displayed size and shared through the ImageCache.
      * 
-     * @param imagePath The path to the image.
+     * @param imagePath The classpath resource path of the image.
      * @param width The desired width of the image.
      * @param height The desired height of the image.
      * @return The created ImageView.
      */
     private ImageView createImageView(String imagePath, double width, double height) {
-        ImageView imageView;
-        try {
-            imageView = new ImageView(new Image(imagePath));
-            imageView.setFitWidth(width);
-            imageView.setFitHeight(height);
-            imageView.setPreserveRatio(false);
-        } catch (IllegalArgumentException e) {
-            System.err.println("Error loading image: " + imagePath);
-            imageView = new ImageView(); // Placeholder if image fails to load
-        }
+        ImageView imageView = new ImageView(ImageCache.get(imagePath, width, height, false)); // Empty if image fails to load
+        imageView.setFitWidth(width);
+        imageView.setFitHeight(height);
+        imageView.setPreserveRatio(false);
         return imageView;
     }
 
@@ -249,10 +266,34 @@ public abstract class BaseApplication {
 
     /**
      * Returns the application menu box, which contains the application logo and launch button.
+     * The menu box is built on first request.
      * 
      * @return The HBox containing the application menu components.
      */
     public HBox getApplicationMenuBox() {
+        if (applicationMenuBox == null) {
+            generateMenuBox();
+        }
         return applicationMenuBox;
     }
+
+    /**
+     * Returns the application scene, building it on first request.
+     * 
+     * @return The application scene.
+     */
+    public Scene getApplicationScene() {
+        prepareScene();
+        return applicationScene;
+    }
+
+    /**
+     * Builds the application scene if it has not been built yet. The launcher calls this
+     * after the main window is shown to pre-warm applications before they are launched.
+     */
+    public void prepareScene() {
+        if (applicationScene == null) {
+            generateApplication();
+        }
+    }
 }
@@ -0,0 +1,181 @@
+package edu.guilford.applications;
+
+import java.util.Map;
+
+import edu.guilford.chemtools.metrics.Histogram;
+import edu.guilford.chemtools.metrics.MetricsRegistry;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.Scene;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.TextArea;
+import javafx.scene.input.Clipboard;
+import javafx.scene.input.ClipboardContent;
+import javafx.scene.layout.GridPane;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+import javafx.stage.Window;
+import javafx.util.Duration;
+
+/**
+ * The DiagnosticsApplication class shows the shared chemtools metrics, refreshed once a
+ * second while it is on screen: parse rates, balancing outcomes and latency percentiles,
+ * cache hit rate and heap usage, followed by the full plain-text export. It is not listed
+ * in the launcher menu; the launcher opens it with Ctrl+Shift+D (Cmd+Shift+D on macOS).
+ */
+public class DiagnosticsApplication extends BaseApplication {
+
+    private static final Duration REFRESH_INTERVAL = Duration.seconds(1); // Time between refreshes
+    private static final double NANOS_PER_MILLI = 1e6;
+    private static final double BYTES_PER_MEGABYTE = 1024 * 1024;
+
+    private final MetricsRegistry registry = MetricsRegistry.shared(); // Metrics shown
+
+    // Summary value labels
+    private Label parseRateLabel, failureRateLabel, balanceOutcomeLabel, balanceLatencyLabel;
+    private Label cacheHitLabel, heapLabel;
+    private TextArea exportArea; // Full plain-text export
+
+    // Previous refresh, for per-second rates
+    private long previousNanos;
+    private long previousParses, previousFailures;
+
+    /**
+     * Constructs the DiagnosticsApplication. The launcher creates it on first use.
+     */
+    public DiagnosticsApplication() {
+        super();
+    }
+
+    /**
+     * Sets the location of the menu image for the application, shown in its header.
+     *
+     * @return A string representing the classpath resource path of the menu image.
+     */
+    @Override
+    protected String setMenuImageLocation() {
+        return "/edu/guilford/CM_LOGO.png";
+    }
+
+    /**
+     * Constructs the diagnostics view and starts refreshing it whenever its scene is
+     * showing in a window.
+     *
+     * @return The GridPane layout containing the metrics.
+     */
+    @Override
+    protected GridPane getMainPane() {
+        GridPane diagnosticsPane = new GridPane();
+        diagnosticsPane.setAlignment(Pos.TOP_CENTER);
+        diagnosticsPane.setPadding(new Insets(10));
+        diagnosticsPane.setHgap(15);
+        diagnosticsPane.setVgap(6);
+
+        Label titleLabel = new Label("Diagnostics");
+        titleLabel.setFont(Font.font("Arial", FontWeight.BOLD, 24));
+        diagnosticsPane.add(titleLabel, 0, 0, 2, 1);
+
+        parseRateLabel = addSummaryRow(diagnosticsPane, 1, "Formula parses / s");
+        failureRateLabel = addSummaryRow(diagnosticsPane, 2, "Parse failures / s");
+        balanceOutcomeLabel = addSummaryRow(diagnosticsPane, 3, "Balances (ok / none / stopped)");
+        balanceLatencyLabel = addSummaryRow(diagnosticsPane, 4, "Balance p50 / p90 / p99");
+        cacheHitLabel = addSummaryRow(diagnosticsPane, 5, "Image cache hit rate");
+        heapLabel = addSummaryRow(diagnosticsPane, 6, "Heap used / max");
+
+        exportArea = new TextArea();
+        exportArea.setEditable(false);
+        exportArea.setFont(Font.font("Monospaced", 12));
+        exportArea.setPrefRowCount(14);
+        diagnosticsPane.add(exportArea, 0, 7, 2, 1);
+
+        Button copyButton = new Button("Copy Export");
+        copyButton.setOnAction(e -> {
+            ClipboardContent content = new ClipboardContent();
+            content.putString(registry.toString());
+            Clipboard.getSystemClipboard().setContent(content);
+        });
+        diagnosticsPane.add(copyButton, 0, 8);
+
+        // Refresh only while the scene is in a showing window
+        Timeline refreshTimeline = new Timeline(new KeyFrame(REFRESH_INTERVAL, e -> refresh()));
+        refreshTimeline.setCycleCount(Timeline.INDEFINITE);
+        diagnosticsPane.sceneProperty()
+                .flatMap(Scene::windowProperty)
+                .flatMap(Window::showingProperty)
+                .orElse(false)
+                .addListener((obs, wasShowing, showing) -> {
+                    if (showing) {
+                        refresh();
+                        refreshTimeline.play();
+                    } else {
+                        refreshTimeline.stop();
+                    }
+                });
+
+        return diagnosticsPane;
+    }
+
+    /**
+     * Adds a labelled summary value to the pane.
+     *
+     * @param pane The pane to add to
+     * @param row The grid row
+     * @param name The summary name
+     * @return The label that shows the value
+     */
+    private Label addSummaryRow(GridPane pane, int row, String name) {
+        Label nameLabel = new Label(name);
+        nameLabel.setFont(Font.font("Arial", FontWeight.BOLD, 14));
+        Label valueLabel = new Label("-");
+        valueLabel.setFont(Font.font("Arial", 14));
+        pane.add(nameLabel, 0, row);
+        pane.add(valueLabel, 1, row);
+        return valueLabel;
+    }
+
+    /**
+     * Reads the registry and updates the summary and export.
+     */
+    private void refresh() {
+        Map<String, Long> counters = registry.getCounterValues();
+        Map<String, Long> gauges = registry.getGaugeValues();
+        long now = System.nanoTime();
+
+        // Rates since the previous refresh
+        long parses = counters.getOrDefault("formula.parse.regex", 0L)
+                + counters.getOrDefault("formula.parse.incremental", 0L);
+        long failures = counters.getOrDefault("formula.parse.regex.failures", 0L)
+                + counters.getOrDefault("formula.parse.incremental.failures", 0L);
+        if (previousNanos != 0) {
+            double seconds = (now - previousNanos) / 1e9;
+            parseRateLabel.setText(String.format("%.1f", (parses - previousParses) / seconds));
+            failureRateLabel.setText(String.format("%.1f", (failures - previousFailures) / seconds));
+        }
+        previousNanos = now;
+        previousParses = parses;
+        previousFailures = failures;
+
+        balanceOutcomeLabel.setText(counters.getOrDefault("balance.outcome.balanced", 0L) + " / "
+                + counters.getOrDefault("balance.outcome.no_solution", 0L) + " / "
+                + counters.getOrDefault("balance.outcome.interrupted", 0L));
+
+        Histogram latency = registry.histogram("balance.latency.nanos");
+        balanceLatencyLabel.setText(String.format("%.2f / %.2f / %.2f ms",
+                latency.getValueAtPercentile(50) / NANOS_PER_MILLI,
+                latency.getValueAtPercentile(90) / NANOS_PER_MILLI,
+                latency.getValueAtPercentile(99) / NANOS_PER_MILLI));
+
+        long hits = counters.getOrDefault("ui.image.cache.hits", 0L);
+        long lookups = hits + counters.getOrDefault("ui.image.cache.misses", 0L);
+        cacheHitLabel.setText(lookups == 0 ? "-" : String.format("%.1f%% of %d", 100.0 * hits / lookups, lookups));
+
+        heapLabel.setText(String.format("%.1f / %.1f MB",
+                gauges.getOrDefault("jvm.heap.used.bytes", 0L) / BYTES_PER_MEGABYTE,
+                gauges.getOrDefault("jvm.heap.max.bytes", 0L) / BYTES_PER_MEGABYTE));
+
+        exportArea.setText(registry.toString());
+    }
+}
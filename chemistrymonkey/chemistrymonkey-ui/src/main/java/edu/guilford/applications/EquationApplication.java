@@ -0,0 +1,322 @@
+package edu.guilford.applications;
+
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import edu.guilford.CalculationHistory;
+import edu.guilford.chemtools.Equation;
+import edu.guilford.chemtools.Formula;
+import javafx.animation.PauseTransition;
+import javafx.concurrent.Task;
+import javafx.geometry.HPos;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.Node;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressIndicator;
+import javafx.scene.control.TextField;
+import javafx.scene.layout.ColumnConstraints;
+import javafx.scene.layout.GridPane;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.VBox;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+import javafx.util.Duration;
+
+/**
+ * The EquationApplication class provides a GUI for balancing chemical equations.
+ * It extends BaseApplication and allows the user to input chemical formulas for reactants and products,
+ * solve the equation, and display the balanced equation.
+ */
+public class EquationApplication extends BaseApplication {
+
+    /** Seconds a balancing search may run before it is cancelled */
+    private static final double BALANCE_TIMEOUT_SECONDS = 30;
+
+    /** Dedicated background thread for parsing and balancing equations */
+    private static final ExecutorService BALANCE_EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "equation-balancer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private Task<Equation> balanceTask; // In-flight balancing task, if any
+    private PauseTransition balanceTimeout; // Cancels the in-flight task when it fires
+
+    /**
+     * Constructs the EquationApplication for discovery by the launcher.
+     */
+    public EquationApplication() {
+        super();
+    }
+
+    /**
+     * Returns the position of the application in the launcher menu.
+     *
+     * @return The menu order.
+     */
+    @Override
+    public int getMenuOrder() {
+        return 20;
+    }
+
+    /**
+     * Returns the location of the menu image for the application.
+     *
+     * @return the image resource path as a string
+     */
+    @Override
+    protected String setMenuImageLocation() {
+        return "/edu/guilford/EquationBalancerLogo.png";
+    }
+
+    /**
+     * Generates the main content for the EquationApplication scene.
+     * This includes the input fields for reactants and products, buttons for adding formulas,
+     * solving the equation, and displaying the result.
+     *
+     * @return the GridPane containing the main layout for the application
+     */
+    @Override
+    protected GridPane getMainPane() {
+        GridPane mainPane = new GridPane();
+        mainPane.setHgap(20);
+        mainPane.setVgap(10);
+        mainPane.setPadding(new Insets(25));
+        mainPane.setAlignment(Pos.CENTER);
+        mainPane.setPrefWidth(600);
+
+        // Define column constraints to make the columns flexible
+        ColumnConstraints col1 = new ColumnConstraints(250, 250, Double.MAX_VALUE);
+        col1.setHgrow(Priority.ALWAYS);
+        ColumnConstraints col2 = new ColumnConstraints(250, 250, Double.MAX_VALUE);
+        col2.setHgrow(Priority.ALWAYS);
+        mainPane.getColumnConstraints().addAll(col1, col2);
+
+        // Create headers for the reactant and product columns
+        Font headerFont = Font.font("Arial", FontWeight.BOLD, 16);
+
+        Label leftHeader = new Label("Reactants");
+        leftHeader.setFont(headerFont);
+        leftHeader.setAlignment(Pos.CENTER);
+        GridPane.setHalignment(leftHeader, HPos.CENTER);
+
+        Label rightHeader = new Label("Products");
+        rightHeader.setFont(headerFont);
+        rightHeader.setAlignment(Pos.CENTER);
+        GridPane.setHalignment(rightHeader, HPos.CENTER);
+
+        // Create VBox containers for reactant and product formula fields
+        VBox leftBox = new VBox(10);
+        leftBox.setPrefWidth(250);
+        leftBox.setAlignment(Pos.TOP_CENTER);
+
+        VBox rightBox = new VBox(10);
+        rightBox.setPrefWidth(250);
+        rightBox.setAlignment(Pos.TOP_CENTER);
+
+        // Create buttons for adding formulas and solving the equation
+        Button addLeft = new Button("+ Add Reactant");
+        Button addRight = new Button("+ Add Product");
+        Button solveButton = new Button("Solve Equation");
+        solveButton.setMaxWidth(Double.MAX_VALUE);
+
+        // Create progress indicator and cancel button for the background search
+        ProgressIndicator progressIndicator = new ProgressIndicator();
+        progressIndicator.setPrefSize(40, 40);
+        progressIndicator.setVisible(false);
+        Button cancelButton = new Button("Cancel");
+        cancelButton.setDisable(true);
+        HBox progressBox = new HBox(15, progressIndicator, cancelButton);
+        progressBox.setAlignment(Pos.CENTER);
+
+        // Create label to display the result
+        Label resultLabel = new Label();
+        resultLabel.setFont(Font.font("Arial", FontWeight.BOLD, 14));
+        resultLabel.setWrapText(true);
+        resultLabel.setMaxWidth(550);
+        resultLabel.setAlignment(Pos.CENTER);
+        GridPane.setHalignment(resultLabel, HPos.CENTER);
+
+        // Set button actions
+        addLeft.setOnAction(e -> addFormulaField(leftBox));
+        addRight.setOnAction(e -> addFormulaField(rightBox));
+        solveButton.setOnAction(e -> solveEquation(leftBox, rightBox, resultLabel, progressIndicator, cancelButton));
+        cancelButton.setOnAction(e -> cancelBalancing());
+
+        // Add all components to the main layout
+        mainPane.add(leftHeader, 0, 0);
+        mainPane.add(rightHeader, 1, 0);
+        mainPane.add(leftBox, 0, 1);
+        mainPane.add(rightBox, 1, 1);
+        mainPane.add(addLeft, 0, 2);
+        mainPane.add(addRight, 1, 2);
+        mainPane.add(solveButton, 0, 3, 2, 1);
+        mainPane.add(progressBox, 0, 4, 2, 1);
+        mainPane.add(resultLabel, 0, 5, 2, 1);
+
+        return mainPane;
+    }
+
+    /**
+     * Adds a new formula input field to the specified VBox.
+     * Each formula field has a corresponding "remove" button.
+     *
+     * @param box the VBox to add the formula field to (either reactants or products)
+     */
+    private void addFormulaField(VBox box) {
+        HBox formulaRow = new HBox(10);
+        formulaRow.setAlignment(Pos.CENTER);
+        TextField formulaField = new TextField();
+        formulaField.setPrefWidth(180);
+        new SuggestionPopup(formulaField); // Compound name and formula autocomplete
+        Button removeButton = new Button("X");
+        removeButton.setOnAction(e -> box.getChildren().remove(formulaRow));
+        formulaRow.getChildren().addAll(formulaField, removeButton);
+        box.getChildren().add(formulaRow);
+    }
+
+    /**
+     * Solves the equation by balancing the formulas entered for reactants and products.
+     * The formulas are parsed and balanced by a background task so the window stays
+     * responsive; submitting again cancels the search that is still running. The result
+     * is displayed in the result label when the task finishes, fails, times out or is cancelled.
+     *
+     * @param leftBox the VBox containing the reactant formulas
+     * @param rightBox the VBox containing the product formulas
+     * @param resultLabel the label to display the result
+     * @param progressIndicator the indicator showing search progress
+     * @param cancelButton the button that cancels the search
+     */
+    private void solveEquation(VBox leftBox, VBox rightBox, Label resultLabel,
+            ProgressIndicator progressIndicator, Button cancelButton) {
+
+        // Read the formula text on the UI thread, parsing happens in the background
+        ArrayList<String> leftTexts = readFormulaFields(leftBox);
+        ArrayList<String> rightTexts = readFormulaFields(rightBox);
+
+        // Cancel the in-flight search rather than queueing behind it
+        cancelBalancing();
+
+        Task<Equation> task = new Task<>() {
+            @Override
+            protected Equation call() {
+                updateMessage("Parsing formulas...");
+                Equation equation = new Equation();
+                for (String text : leftTexts) {
+                    equation.addLeftFormula(new Formula(text));
+                }
+                for (String text : rightTexts) {
+                    equation.addRightFormula(new Formula(text));
+                }
+
+                updateMessage("Balancing...");
+                equation.balanceEquations((checked, total) -> updateProgress(checked, total));
+                return equation;
+            }
+        };
+
+        // Marshal state changes back to the UI thread
+        progressIndicator.progressProperty().bind(task.progressProperty());
+        resultLabel.textProperty().bind(task.messageProperty());
+        progressIndicator.setVisible(true);
+        cancelButton.setDisable(false);
+
+        task.setOnSucceeded(e -> {
+            // Record only the search whose result is shown, not one it superseded
+            if (task == balanceTask) {
+                CalculationHistory.record(CalculationHistory.EQUATION,
+                        String.join(" + ", leftTexts) + " = " + String.join(" + ", rightTexts),
+                        task.getValue().toString().replace('\n', ' '));
+            }
+            finishBalancing(task, resultLabel, progressIndicator, cancelButton,
+                    "(Max Coefficient Checked: " + Equation.MULTIPLIER_MAX + "): " + task.getValue().toString());
+        });
+        task.setOnCancelled(e -> finishBalancing(task, resultLabel, progressIndicator, cancelButton,
+                task == balanceTask && balanceTimeout == null
+                        ? "Balancing timed out after " + (int) BALANCE_TIMEOUT_SECONDS + " seconds."
+                        : "Balancing cancelled."));
+        task.setOnFailed(e -> finishBalancing(task, resultLabel, progressIndicator, cancelButton,
+                "Balancing failed: " + task.getException()));
+
+        // Cancel the search if it runs past the timeout
+        PauseTransition timeout = new PauseTransition(Duration.seconds(BALANCE_TIMEOUT_SECONDS));
+        timeout.setOnFinished(e -> {
+            if (balanceTask == task) {
+                balanceTimeout = null;
+                task.cancel(true);
+            }
+        });
+
+        balanceTask = task;
+        balanceTimeout = timeout;
+        timeout.play();
+        BALANCE_EXECUTOR.submit(task);
+    }
+
+    /**
+     * Cancels the in-flight balancing task, if any. The search notices the interrupt
+     * within a few thousand combinations and frees the background thread.
+     */
+    private void cancelBalancing() {
+        if (balanceTimeout != null) {
+            balanceTimeout.stop();
+        }
+        if (balanceTask != null && !balanceTask.isDone()) {
+            balanceTask.cancel(true);
+        }
+    }
+
+    /**
+     * Restores the idle controls and shows the final message once a task has finished.
+     * Tasks that were superseded by a newer submission are ignored.
+     *
+     * @param task the task that finished
+     * @param resultLabel the label to display the result
+     * @param progressIndicator the indicator showing search progress
+     * @param cancelButton the button that cancels the search
+     * @param message the message to display
+     */
+    private void finishBalancing(Task<Equation> task, Label resultLabel, ProgressIndicator progressIndicator,
+            Button cancelButton, String message) {
+        if (task != balanceTask) {
+            return;
+        }
+        if (balanceTimeout != null) {
+            balanceTimeout.stop();
+        }
+        balanceTask = null;
+        balanceTimeout = null;
+
+        progressIndicator.progressProperty().unbind();
+        progressIndicator.setVisible(false);
+        cancelButton.setDisable(true);
+        resultLabel.textProperty().unbind();
+        resultLabel.setText(message);
+    }
+
+    /**
+     * Reads the text of every formula field in the specified VBox.
+     *
+     * @param box the VBox containing formula rows (either reactants or products)
+     * @return the formula strings in display order
+     */
+    private ArrayList<String> readFormulaFields(VBox box) {
+        ArrayList<String> texts = new ArrayList<>();
+        for (Node node : box.getChildren()) {
+            if (node instanceof HBox) {
+                HBox hbox = (HBox) node;
+                for (Node innerNode : hbox.getChildren()) {
+                    if (innerNode instanceof TextField) {
+                        TextField textField = (TextField) innerNode;
+                        texts.add(textField.getText());
+                    }
+                }
+            }
+        }
+        return texts;
+    }
+}
@@ -0,0 +1,213 @@
+package edu.guilford.applications;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import edu.guilford.CalculationHistory;
+import edu.guilford.chemtools.history.HistoryEntry;
+import edu.guilford.chemtools.history.HistoryLog;
+import javafx.concurrent.Task;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.Scene;
+import javafx.scene.control.Button;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListView;
+import javafx.scene.layout.GridPane;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+import javafx.stage.Window;
+
+/**
+ * The HistoryApplication class lists past calculations from the calculation history,
+ * newest first. Entries are read a page at a time on a background thread: opening the
+ * application shows the newest page, and "Load Older" reads the next one. The time range
+ * filter uses the log's sparse time index to find where the range starts.
+ */
+public class HistoryApplication extends BaseApplication {
+
+    /** Entries read per page */
+    private static final int PAGE_SIZE = 50;
+
+    /** Time range choices and their length in milliseconds (0 for all time) */
+    private static final String[] RANGE_NAMES = {"All time", "Last hour", "Last 24 hours", "Last 7 days"};
+    private static final long[] RANGE_MILLIS = {0, 3_600_000L, 86_400_000L, 7 * 86_400_000L};
+
+    /** Format of entry timestamps */
+    private static final DateTimeFormatter TIME_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneId.systemDefault());
+
+    /** Dedicated background thread for reading history pages */
+    private static final ExecutorService READ_EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "history-reader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private ListView<String> entryList; // Loaded entries, newest first
+    private ComboBox<String> rangeBox; // Time range filter
+    private Button olderButton; // Loads the next older page
+    private Label statusLabel; // Count of loaded and matching entries
+
+    // Paging state, only touched on the JavaFX thread
+    private int nextEnd; // Entry number just past the next older page
+    private int rangeStart; // First entry number inside the time range
+    private int generation; // Incremented on refresh so stale pages are dropped
+
+    /**
+     * Constructs the HistoryApplication for discovery by the launcher.
+     */
+    public HistoryApplication() {
+        super();
+    }
+
+    /**
+     * Returns the position of the application in the launcher menu.
+     *
+     * @return The menu order.
+     */
+    @Override
+    public int getMenuOrder() {
+        return 30;
+    }
+
+    /**
+     * Returns the location of the menu image for the application.
+     *
+     * @return the image resource path as a string
+     */
+    @Override
+    protected String setMenuImageLocation() {
+        return "/edu/guilford/CM_LOGO.png";
+    }
+
+    /**
+     * Constructs the history view and reloads the newest entries each time it is shown.
+     *
+     * @return The GridPane layout containing the history list.
+     */
+    @Override
+    protected GridPane getMainPane() {
+        GridPane historyPane = new GridPane();
+        historyPane.setAlignment(Pos.TOP_CENTER);
+        historyPane.setPadding(new Insets(10));
+        historyPane.setVgap(10);
+
+        Label titleLabel = new Label("Calculation History");
+        titleLabel.setFont(Font.font("Arial", FontWeight.BOLD, 24));
+
+        rangeBox = new ComboBox<>();
+        rangeBox.getItems().addAll(RANGE_NAMES);
+        rangeBox.getSelectionModel().selectFirst();
+        rangeBox.setOnAction(event -> refresh());
+
+        Button refreshButton = new Button("Refresh");
+        refreshButton.setOnAction(event -> refresh());
+
+        olderButton = new Button("Load Older");
+        olderButton.setDisable(true);
+        olderButton.setOnAction(event -> loadPage(generation));
+
+        HBox controls = new HBox(10, rangeBox, refreshButton, olderButton);
+        controls.setAlignment(Pos.CENTER_LEFT);
+
+        entryList = new ListView<>();
+        entryList.setPrefHeight(400);
+        GridPane.setVgrow(entryList, Priority.ALWAYS);
+        GridPane.setHgrow(entryList, Priority.ALWAYS);
+
+        statusLabel = new Label();
+
+        historyPane.add(titleLabel, 0, 0);
+        historyPane.add(controls, 0, 1);
+        historyPane.add(entryList, 0, 2);
+        historyPane.add(statusLabel, 0, 3);
+
+        // Show the newest entries whenever the scene comes on screen
+        historyPane.sceneProperty()
+                .flatMap(Scene::windowProperty)
+                .flatMap(Window::showingProperty)
+                .orElse(false)
+                .addListener((obs, wasShowing, showing) -> {
+                    if (showing) {
+                        refresh();
+                    }
+                });
+
+        return historyPane;
+    }
+
+    /**
+     * Clears the list and loads the newest page within the selected time range.
+     */
+    private void refresh() {
+        int refreshGeneration = ++generation;
+        entryList.getItems().clear();
+        olderButton.setDisable(true);
+        statusLabel.setText("Loading...");
+
+        long rangeMillis = RANGE_MILLIS[Math.max(0, rangeBox.getSelectionModel().getSelectedIndex())];
+        long since = rangeMillis == 0 ? Long.MIN_VALUE : System.currentTimeMillis() - rangeMillis;
+
+        Task<int[]> task = new Task<>() {
+            @Override
+            protected int[] call() throws Exception {
+                HistoryLog log = CalculationHistory.getLog().get();
+                return new int[] {log.firstEntryAtOrAfter(since), log.size()};
+            }
+        };
+        task.setOnSucceeded(e -> {
+            if (refreshGeneration == generation) {
+                rangeStart = task.getValue()[0];
+                nextEnd = task.getValue()[1];
+                loadPage(refreshGeneration);
+            }
+        });
+        task.setOnFailed(e -> statusLabel.setText("History unavailable: " + task.getException().getMessage()));
+        READ_EXECUTOR.submit(task);
+    }
+
+    /**
+     * Loads the next older page of entries in the background and appends it to the list.
+     *
+     * @param pageGeneration The refresh generation the page belongs to.
+     */
+    private void loadPage(int pageGeneration) {
+        int end = nextEnd;
+        int start = Math.max(rangeStart, end - PAGE_SIZE);
+        olderButton.setDisable(true);
+
+        Task<List<HistoryEntry>> task = new Task<>() {
+            @Override
+            protected List<HistoryEntry> call() throws Exception {
+                List<HistoryEntry> page = new ArrayList<>(CalculationHistory.getLog().get().read(start, end - start));
+                Collections.reverse(page);
+                return page;
+            }
+        };
+        task.setOnSucceeded(e -> {
+            if (pageGeneration != generation) {
+                return;
+            }
+            for (HistoryEntry entry : task.getValue()) {
+                entryList.getItems().add(TIME_FORMAT.format(Instant.ofEpochMilli(entry.getTimestamp()))
+                        + "  " + entry);
+            }
+            nextEnd = start;
+            olderButton.setDisable(nextEnd <= rangeStart);
+            statusLabel.setText("Showing " + entryList.getItems().size() + " of "
+                    + (entryList.getItems().size() + nextEnd - rangeStart) + " entries");
+        });
+        task.setOnFailed(e -> statusLabel.setText("History unavailable: " + task.getException().getMessage()));
+        READ_EXECUTOR.submit(task);
+    }
+}
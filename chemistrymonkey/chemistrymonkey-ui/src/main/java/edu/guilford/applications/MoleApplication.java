@@ -0,0 +1,480 @@
+package edu.guilford.applications;
+
+import java.util.function.Consumer;
+
+import edu.guilford.CalculationHistory;
+import edu.guilford.applications.MoleCalculationModel.Quantity;
+import edu.guilford.chemtools.Sample;
+import edu.guilford.chemtools.Solution;
+import javafx.animation.PauseTransition;
+import javafx.geometry.HPos;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.geometry.VPos;
+import javafx.scene.control.Button;
+import javafx.scene.control.CheckBox;
+import javafx.scene.control.Label;
+import javafx.scene.control.TextField;
+import javafx.scene.layout.ColumnConstraints;
+import javafx.scene.layout.GridPane;
+import javafx.scene.layout.Priority;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+import javafx.util.Duration;
+
+/**
+ * The MoleApplication class provides a user interface for calculating molar mass,
+ * moles, molarity, and volume of a solution. It includes input fields for a compound's
+ * formula, sample mass, moles, and solution volume, and calculates the relevant quantities
+ * based on the user's input. In live update mode the quantities are recalculated shortly
+ * after the user stops typing; otherwise each field is applied when Enter is pressed.
+ */
+public class MoleApplication extends BaseApplication {
+
+    /** Delay after the last keystroke before live mode recalculates */
+    private static final Duration LIVE_UPDATE_DELAY = Duration.millis(50);
+
+    private Sample sample;
+    private Solution solution;
+    private MoleCalculationModel liveModel; // State behind live update mode
+    private boolean rendering; // True while live mode writes a result into a field
+
+    /**
+     * Constructs the MoleApplication for discovery by the launcher.
+     */
+    public MoleApplication() {
+        super();
+    }
+
+    /**
+     * Returns the position of the application in the launcher menu.
+     *
+     * @return The menu order.
+     */
+    @Override
+    public int getMenuOrder() {
+        return 10;
+    }
+
+    /**
+     * Sets the location of the menu image for the application.
+     *
+     * @return The classpath resource path of the image.
+     */
+    @Override
+    protected String setMenuImageLocation() {
+        return "/edu/guilford/MoleApplicationLogo.png";
+    }
+
+    /**
+     * Constructs the main user interface of the application, including input fields and labels
+     * for molar mass and molarity calculations.
+     *
+     * @return The GridPane layout containing the main user interface.
+     */
+    @Override
+    protected GridPane getMainPane() {
+        GridPane mainPane = new GridPane();
+        mainPane.setHgap(20);
+        mainPane.setVgap(10);
+        mainPane.setPadding(new Insets(25));
+        mainPane.setAlignment(Pos.CENTER);
+
+        // Define column constraints
+        ColumnConstraints col1 = new ColumnConstraints();
+        col1.setHgrow(Priority.ALWAYS);
+        ColumnConstraints col2 = new ColumnConstraints();
+        col2.setHgrow(Priority.ALWAYS);
+        mainPane.getColumnConstraints().addAll(col1, col2);
+
+        // Fonts for headers and labels
+        Font headerFont = Font.font("Arial", FontWeight.BOLD, 16);
+        Font labelFont = Font.font("Arial", FontWeight.NORMAL, 14);
+        Font molarMassFont = Font.font("Arial", FontWeight.BOLD, 14);
+
+        // Column 1: Molar Mass Calculations
+        Label molarMassHeader = new Label("Molar Mass Calculations");
+        molarMassHeader.setFont(headerFont);
+
+        Label molarMassLabel = new Label("Molar Mass of Compound (grams per mole): ");
+        molarMassLabel.setFont(molarMassFont);
+
+        Label formulaLabel = new Label("Compound Formula");
+        formulaLabel.setFont(labelFont);
+        TextField formulaField = new TextField();
+        new SuggestionPopup(formulaField); // Compound name and formula autocomplete
+
+        Label gramsLabel = new Label("Grams of Compound");
+        gramsLabel.setFont(labelFont);
+        TextField gramsField = new TextField();
+
+        Label molesLabel = new Label("Moles of Compound");
+        molesLabel.setFont(labelFont);
+        TextField molesField = new TextField();
+
+        // Column 2: Molarity Calculations
+        Label molarityHeader = new Label("Molarity Calculations");
+        molarityHeader.setFont(headerFont);
+
+        Label volumeLabel = new Label("Liters of Solution");
+        volumeLabel.setFont(labelFont);
+        TextField volumeField = new TextField();
+
+        Label molarityLabel = new Label("Molarity of Solution");
+        molarityLabel.setFont(labelFont);
+        TextField molarityField = new TextField();
+
+        // Clear Button with style
+        Button clearButton = new Button("Clear Fields");
+        clearButton.setStyle(
+                "-fx-font-size: 16px; "
+                + "-fx-font-weight: bold; "
+                + "-fx-font-family: 'Arial'; "
+                + "-fx-text-fill: white; "
+                + "-fx-background-color: #4CAF50; "
+                + "-fx-background-radius: 20px; "
+                + "-fx-padding: 10px 20px; "
+                + "-fx-border-color: #388E3C; "
+                + "-fx-border-width: 2px; "
+                + "-fx-border-radius: 20px;");
+
+        // Hover effects for the button
+        clearButton.setOnMouseEntered(e -> {
+            clearButton.setStyle(
+                    "-fx-font-size: 16px; "
+                    + "-fx-font-weight: bold; "
+                    + "-fx-font-family: 'Arial'; "
+                    + "-fx-text-fill: white; "
+                    + "-fx-background-color: #45a049; "
+                    + "-fx-background-radius: 20px; "
+                    + "-fx-padding: 10px 20px; "
+                    + "-fx-border-color: #388E3C; "
+                    + "-fx-border-width: 2px; "
+                    + "-fx-border-radius: 20px;");
+        });
+
+        clearButton.setOnMouseExited(e -> {
+            clearButton.setStyle(
+                    "-fx-font-size: 16px; "
+                    + "-fx-font-weight: bold; "
+                    + "-fx-font-family: 'Arial'; "
+                    + "-fx-text-fill: white; "
+                    + "-fx-background-color: #4CAF50; "
+                    + "-fx-background-radius: 20px; "
+                    + "-fx-padding: 10px 20px; "
+                    + "-fx-border-color: #388E3C; "
+                    + "-fx-border-width: 2px; "
+                    + "-fx-border-radius: 20px;");
+        });
+
+        // Live update toggle: recalculate while typing instead of on Enter
+        CheckBox liveUpdateBox = new CheckBox("Live update");
+        liveUpdateBox.setFont(labelFont);
+        liveUpdateBox.setSelected(true);
+
+        // Clear button logic
+        clearButton.setOnAction(event -> {
+            if (sample != null) {
+                sample.clear();
+                solution.clear();
+            }
+            rendering = true;
+            formulaField.clear();
+            gramsField.clear();
+            molesField.clear();
+            volumeField.clear();
+            molarityField.clear();
+            rendering = false;
+            liveModel.clear();
+            molarMassLabel.setText("Molar Mass of Compound (grams per mole): ");
+        });
+
+        // Adding components to the main grid
+        mainPane.add(molarMassHeader, 0, 0);
+        mainPane.add(molarMassLabel, 0, 1);
+        mainPane.add(formulaLabel, 0, 2);
+        mainPane.add(formulaField, 0, 3);
+        mainPane.add(gramsLabel, 0, 4);
+        mainPane.add(gramsField, 0, 5);
+        mainPane.add(molesLabel, 0, 6);
+        mainPane.add(molesField, 0, 7);
+
+        mainPane.add(molarityHeader, 1, 0);
+        mainPane.add(volumeLabel, 1, 1);
+        mainPane.add(volumeField, 1, 2);
+        mainPane.add(molarityLabel, 1, 3);
+        mainPane.add(molarityField, 1, 4);
+        mainPane.add(liveUpdateBox, 1, 5);
+        mainPane.add(clearButton, 1, 7);
+
+        // Center the button horizontally and vertically in the grid cell
+        GridPane.setHalignment(clearButton, HPos.CENTER);  // Horizontally center
+        GridPane.setValignment(clearButton, VPos.CENTER);  // Vertically center
+
+        // Live update mode: debounced recalculation bound to the model's properties
+        liveModel = new MoleCalculationModel();
+        PauseTransition formulaDebounce = debounce(formulaField, liveUpdateBox,
+                () -> liveModel.setFormula(formulaField.getText()));
+        PauseTransition gramsDebounce = debounce(gramsField, liveUpdateBox,
+                () -> liveModel.setInput(Quantity.GRAMS, parseInput(gramsField)));
+        PauseTransition molesDebounce = debounce(molesField, liveUpdateBox,
+                () -> liveModel.setInput(Quantity.MOLES, parseInput(molesField)));
+        PauseTransition volumeDebounce = debounce(volumeField, liveUpdateBox,
+                () -> liveModel.setInput(Quantity.VOLUME, parseInput(volumeField)));
+        PauseTransition molarityDebounce = debounce(molarityField, liveUpdateBox,
+                () -> liveModel.setInput(Quantity.MOLARITY, parseInput(molarityField)));
+
+        renderLive(gramsField, Quantity.GRAMS);
+        renderLive(molesField, Quantity.MOLES);
+        renderLive(volumeField, Quantity.VOLUME);
+        renderLive(molarityField, Quantity.MOLARITY);
+        liveModel.molarMassProperty().addListener((observable, oldMass, newMass) -> {
+            double mass = newMass.doubleValue();
+            molarMassLabel.setText("Molar Mass of Compound (grams per mole): "
+                    + (Double.isNaN(mass) ? "" : String.valueOf(mass)));
+        });
+
+        // Start live mode from the formula already typed; leaving it, rebuild the sample
+        // and solution the Enter handlers use from what the fields show, since live mode
+        // only updates its own model
+        liveUpdateBox.selectedProperty().addListener((observable, wasLive, isLive) -> {
+            if (isLive) {
+                liveModel.clear();
+                liveModel.setFormula(formulaField.getText());
+            } else {
+                commitFields(formulaField, gramsField, molesField, volumeField, molarityField);
+            }
+        });
+
+        // Record each calculation committed with Enter, naming the field that was entered;
+        // live mode skips input that did not parse
+        Consumer<String> recordCalculation = enteredField -> CalculationHistory.record(
+                CalculationHistory.MOLE,
+                formulaField.getText().trim() + (enteredField.isEmpty() ? "" : ", " + enteredField),
+                molarMassLabel.getText().replace("Molar Mass of Compound (grams per mole): ", "M = ")
+                        + ", grams = " + gramsField.getText()
+                        + ", moles = " + molesField.getText()
+                        + ", volume = " + volumeField.getText()
+                        + ", molarity = " + molarityField.getText());
+
+        // Action listeners for the input fields
+        formulaField.setOnAction(event -> {
+            if (liveUpdateBox.isSelected()) {
+                flush(formulaDebounce);
+                if (isLiveCalculationValid(null)) {
+                    recordCalculation.accept("");
+                }
+                return;
+            }
+            sample = new Sample(formulaField.getText());
+            solution = new Solution(sample);
+            molarMassLabel.setText("Molar Mass of Compound (grams per mole): " + String.valueOf(sample.getMolarMass()));
+
+            // Clear other fields
+            gramsField.clear();
+            molesField.clear();
+            volumeField.clear();
+            molarityField.clear();
+            recordCalculation.accept("");
+        });
+
+        gramsField.setOnAction(event -> {
+            if (liveUpdateBox.isSelected()) {
+                flush(gramsDebounce);
+                if (isLiveCalculationValid(gramsField)) {
+                    recordCalculation.accept("grams = " + gramsField.getText());
+                }
+                return;
+            }
+            try {
+                double mass = Double.parseDouble(gramsField.getText());
+                sample.setSampleMass(mass);
+            } catch (NumberFormatException e) {
+                gramsField.setText("Invalid input");
+            }
+
+            solution.clear();
+            gramsField.setText(String.valueOf(sample.getSampleMass()));
+            molesField.setText(String.valueOf(sample.getSampleMoles()));
+            volumeField.setText(String.valueOf(solution.getVolume()));
+            molarityField.setText(String.valueOf(solution.getMolarity()));
+            recordCalculation.accept("grams = " + gramsField.getText());
+        });
+
+        molesField.setOnAction(event -> {
+            if (liveUpdateBox.isSelected()) {
+                flush(molesDebounce);
+                if (isLiveCalculationValid(molesField)) {
+                    recordCalculation.accept("moles = " + molesField.getText());
+                }
+                return;
+            }
+            try {
+                double moles = Double.parseDouble(molesField.getText());
+                sample.setSampleMoles(moles);
+            } catch (NumberFormatException e) {
+                molesField.setText("Invalid input");
+            }
+
+            solution.clear();
+            gramsField.setText(String.valueOf(sample.getSampleMass()));
+            molesField.setText(String.valueOf(sample.getSampleMoles()));
+            volumeField.setText(String.valueOf(solution.getVolume()));
+            molarityField.setText(String.valueOf(solution.getMolarity()));
+            recordCalculation.accept("moles = " + molesField.getText());
+        });
+
+        volumeField.setOnAction(event -> {
+            if (liveUpdateBox.isSelected()) {
+                flush(volumeDebounce);
+                if (isLiveCalculationValid(volumeField)) {
+                    recordCalculation.accept("volume = " + volumeField.getText());
+                }
+                return;
+            }
+            try {
+                double volume = Double.parseDouble(volumeField.getText());
+                solution.setVolume(volume);
+            } catch (NumberFormatException e) {
+                volumeField.setText("Invalid input");
+            }
+
+            gramsField.setText(String.valueOf(sample.getSampleMass()));
+            molesField.setText(String.valueOf(sample.getSampleMoles()));
+            volumeField.setText(String.valueOf(solution.getVolume()));
+            molarityField.setText(String.valueOf(solution.getMolarity()));
+            recordCalculation.accept("volume = " + volumeField.getText());
+        });
+
+        molarityField.setOnAction(event -> {
+            if (liveUpdateBox.isSelected()) {
+                flush(molarityDebounce);
+                if (isLiveCalculationValid(molarityField)) {
+                    recordCalculation.accept("molarity = " + molarityField.getText());
+                }
+                return;
+            }
+            try {
+                double molarity = Double.parseDouble(molarityField.getText());
+                solution.setMolarity(molarity);
+            } catch (NumberFormatException e) {
+                molarityField.setText("Invalid input");
+            }
+
+            gramsField.setText(String.valueOf(sample.getSampleMass()));
+            molesField.setText(String.valueOf(sample.getSampleMoles()));
+            volumeField.setText(String.valueOf(solution.getVolume()));
+            molarityField.setText(String.valueOf(solution.getMolarity()));
+            recordCalculation.accept("molarity = " + molarityField.getText());
+        });
+
+        return mainPane;
+    }
+
+    /**
+     * Builds the sample and solution used outside live mode from the fields' text: the
+     * formula, then the grams or else the moles, then the volume, and the molarity if
+     * the moles are still unknown.
+     *
+     * @param formulaField The compound formula field.
+     * @param gramsField The grams field.
+     * @param molesField The moles field.
+     * @param volumeField The volume field.
+     * @param molarityField The molarity field.
+     */
+    private void commitFields(TextField formulaField, TextField gramsField, TextField molesField,
+            TextField volumeField, TextField molarityField) {
+        sample = new Sample(formulaField.getText());
+        solution = new Solution(sample);
+        double grams = parseInput(gramsField);
+        double moles = parseInput(molesField);
+        double volume = parseInput(volumeField);
+        double molarity = parseInput(molarityField);
+        if (!Double.isNaN(grams)) {
+            sample.setSampleMass(grams);
+        } else if (!Double.isNaN(moles)) {
+            sample.setSampleMoles(moles);
+        }
+        if (!Double.isNaN(volume)) {
+            solution.setVolume(volume);
+        }
+        if (sample.isEmpty() && !Double.isNaN(molarity)) {
+            solution.setMolarity(molarity);
+        }
+    }
+
+    /**
+     * Creates a debounce timer that applies a field's text to the live model once the
+     * user stops typing for LIVE_UPDATE_DELAY. Text written by live mode itself is ignored.
+     *
+     * @param field The field to watch.
+     * @param liveUpdateBox The toggle enabling live mode.
+     * @param apply The action applying the field's text to the model.
+     * @return The debounce timer.
+     */
+    private PauseTransition debounce(TextField field, CheckBox liveUpdateBox, Runnable apply) {
+        PauseTransition pause = new PauseTransition(LIVE_UPDATE_DELAY);
+        pause.setOnFinished(event -> apply.run());
+        field.textProperty().addListener((observable, oldText, newText) -> {
+            if (!rendering && liveUpdateBox.isSelected()) {
+                pause.playFromStart();
+            }
+        });
+        return pause;
+    }
+
+    /**
+     * Applies a pending debounced update immediately.
+     *
+     * @param pause The debounce timer to flush.
+     */
+    private void flush(PauseTransition pause) {
+        pause.stop();
+        pause.getOnFinished().handle(null);
+    }
+
+    /**
+     * Writes a quantity into its field whenever the live model derives a new value for it.
+     * Fields holding a value the user typed are left untouched.
+     *
+     * @param field The field displaying the quantity.
+     * @param quantity The quantity to display.
+     */
+    private void renderLive(TextField field, Quantity quantity) {
+        liveModel.valueProperty(quantity).addListener((observable, oldValue, newValue) -> {
+            if (liveModel.isSource(quantity)) {
+                return;
+            }
+            double value = newValue.doubleValue();
+            rendering = true;
+            field.setText(Double.isNaN(value) ? "" : String.valueOf(value));
+            rendering = false;
+        });
+    }
+
+    /**
+     * Checks whether live mode holds a calculation worth recording in the history: the
+     * formula parsed and the entered field, if any, holds a number.
+     *
+     * @param enteredField The quantity field Enter was pressed in, or null for the formula.
+     * @return true if the calculation succeeded.
+     */
+    private boolean isLiveCalculationValid(TextField enteredField) {
+        return liveModel.formulaValidProperty().get()
+                && (enteredField == null || !Double.isNaN(parseInput(enteredField)));
+    }
+
+    /**
+     * Parses a numeric field for live mode.
+     *
+     * @param field The field to parse.
+     * @return The value, or NaN if the field is blank or not a number.
+     */
+    private static double parseInput(TextField field) {
+        try {
+            return Double.parseDouble(field.getText().trim());
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+}
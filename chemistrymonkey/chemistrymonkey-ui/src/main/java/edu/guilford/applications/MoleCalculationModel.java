@@ -0,0 +1,225 @@
+package edu.guilford.applications;
+
+import edu.guilford.chemtools.IncrementalFormula;
+import edu.guilford.chemtools.Sample;
+import edu.guilford.chemtools.Solution;
+import javafx.beans.property.ReadOnlyBooleanProperty;
+import javafx.beans.property.ReadOnlyBooleanWrapper;
+import javafx.beans.property.ReadOnlyDoubleProperty;
+import javafx.beans.property.ReadOnlyDoubleWrapper;
+
+/**
+ * The MoleCalculationModel class holds the state behind MoleApplication's live update mode.
+ * The formula, grams, moles, volume and molarity are exposed as observable properties.
+ * Values the user typed are the sources; the others are derived from them through a
+ * {@link Sample} and {@link Solution}. Because a property only notifies its listeners
+ * when its value actually changes, only the dependent fields are re-rendered.
+ * Blank or invalid values are represented by NaN.
+ */
+public class MoleCalculationModel {
+
+    /**
+     * The quantities that can be typed into MoleApplication.
+     */
+    public enum Quantity {
+        GRAMS, MOLES, VOLUME, MOLARITY
+    }
+
+    private final IncrementalFormula parser = new IncrementalFormula(); // Reuses the previous parse while typing
+    private Sample sample; // Sample for the current formula, null when the formula is invalid
+    private Solution solution; // Solution of the current sample
+
+    // Values typed by the user, NaN when blank
+    private final double[] inputs = { Double.NaN, Double.NaN, Double.NaN, Double.NaN };
+
+    private Quantity massSource; // GRAMS or MOLES, whichever was typed last (null for neither)
+    private Quantity lastSolutionEdit; // VOLUME or MOLARITY, whichever was typed last
+    private Quantity previousSolutionEdit; // The other of VOLUME or MOLARITY, if it was typed too
+
+    // Observable results
+    private final ReadOnlyBooleanWrapper formulaValid = new ReadOnlyBooleanWrapper(false);
+    private final ReadOnlyDoubleWrapper molarMass = new ReadOnlyDoubleWrapper(Double.NaN);
+    private final ReadOnlyDoubleWrapper[] values = {
+        new ReadOnlyDoubleWrapper(Double.NaN), new ReadOnlyDoubleWrapper(Double.NaN),
+        new ReadOnlyDoubleWrapper(Double.NaN), new ReadOnlyDoubleWrapper(Double.NaN)
+    };
+
+    /**
+     * Updates the compound formula and recalculates the derived quantities. Only the
+     * part of the text after the first edited character is parsed again.
+     *
+     * @param formulaText The formula text
+     */
+    public void setFormula(String formulaText) {
+        if (parser.update(formulaText)) {
+            sample = new Sample(parser.toFormula());
+            solution = new Solution(sample);
+            molarMass.set(sample.getMolarMass());
+            formulaValid.set(true);
+        } else {
+            sample = null;
+            solution = null;
+            molarMass.set(Double.NaN);
+            formulaValid.set(false);
+        }
+        recalculate();
+    }
+
+    /**
+     * Records a value typed by the user and recalculates the quantities depending on it.
+     *
+     * @param quantity The quantity that was typed
+     * @param value The typed value, or NaN if the field is blank or invalid
+     */
+    public void setInput(Quantity quantity, double value) {
+        inputs[quantity.ordinal()] = value;
+        boolean present = !Double.isNaN(value);
+
+        if (quantity == Quantity.GRAMS || quantity == Quantity.MOLES) {
+            if (present) {
+                massSource = quantity;
+            } else if (massSource == quantity) {
+                massSource = null;
+            }
+        } else if (present) {
+            if (lastSolutionEdit != quantity) {
+                previousSolutionEdit = lastSolutionEdit;
+                lastSolutionEdit = quantity;
+            }
+        } else if (lastSolutionEdit == quantity) {
+            lastSolutionEdit = previousSolutionEdit;
+            previousSolutionEdit = null;
+        } else if (previousSolutionEdit == quantity) {
+            previousSolutionEdit = null;
+        }
+
+        recalculate();
+    }
+
+    /**
+     * Recomputes the derived quantities from the source values using the same rules
+     * as Sample and Solution: the mass source fixes the moles, then the last solution
+     * value typed fixes the other. Without a mass source, a volume and molarity
+     * together fix the moles.
+     */
+    private void recalculate() {
+        if (sample == null) {
+            for (Quantity quantity : Quantity.values()) {
+                publish(quantity, isSource(quantity) ? inputs[quantity.ordinal()] : Double.NaN);
+            }
+            return;
+        }
+
+        sample.clear();
+        solution.clear();
+        if (massSource == Quantity.GRAMS) {
+            sample.setSampleMass(inputs[Quantity.GRAMS.ordinal()]);
+        } else if (massSource == Quantity.MOLES) {
+            sample.setSampleMoles(inputs[Quantity.MOLES.ordinal()]);
+        }
+
+        if (massSource == null && previousSolutionEdit != null) {
+            applySolutionInput(previousSolutionEdit);
+        }
+        if (lastSolutionEdit != null) {
+            applySolutionInput(lastSolutionEdit);
+        }
+
+        boolean hasMoles = !sample.isEmpty();
+        boolean solved = hasMoles && lastSolutionEdit != null;
+        publish(Quantity.GRAMS, hasMoles ? sample.getSampleMass() : Double.NaN);
+        publish(Quantity.MOLES, hasMoles ? sample.getSampleMoles() : Double.NaN);
+        publish(Quantity.VOLUME, solved || lastSolutionEdit == Quantity.VOLUME || previousSolutionEdit == Quantity.VOLUME
+                ? solution.getVolume() : Double.NaN);
+        publish(Quantity.MOLARITY, solved || lastSolutionEdit == Quantity.MOLARITY || previousSolutionEdit == Quantity.MOLARITY
+                ? solution.getMolarity() : Double.NaN);
+    }
+
+    /**
+     * Passes a typed volume or molarity to the solution.
+     *
+     * @param quantity VOLUME or MOLARITY
+     */
+    private void applySolutionInput(Quantity quantity) {
+        double value = inputs[quantity.ordinal()];
+        if (quantity == Quantity.VOLUME) {
+            solution.setVolume(value);
+        } else {
+            solution.setMolarity(value);
+        }
+    }
+
+    /**
+     * Publishes a value, notifying listeners only if it changed.
+     *
+     * @param quantity The quantity to publish
+     * @param value The new value
+     */
+    private void publish(Quantity quantity, double value) {
+        values[quantity.ordinal()].set(value);
+    }
+
+    /**
+     * Checks whether a quantity currently holds a value typed by the user, as opposed
+     * to one derived from other inputs.
+     *
+     * @param quantity The quantity to check
+     * @return true if the quantity is a source value
+     */
+    public boolean isSource(Quantity quantity) {
+        return quantity == massSource || quantity == lastSolutionEdit
+                || (massSource == null && quantity == previousSolutionEdit);
+    }
+
+    /**
+     * Clears the formula and every typed value.
+     */
+    public void clear() {
+        for (Quantity quantity : Quantity.values()) {
+            inputs[quantity.ordinal()] = Double.NaN;
+        }
+        massSource = null;
+        lastSolutionEdit = null;
+        previousSolutionEdit = null;
+        setFormula("");
+    }
+
+    // Properties
+
+    /**
+     * Gets the property holding whether the current formula text is valid.
+     *
+     * @return The formula validity property
+     */
+    public ReadOnlyBooleanProperty formulaValidProperty() {
+        return formulaValid.getReadOnlyProperty();
+    }
+
+    /**
+     * Gets the property holding the molar mass of the current formula.
+     *
+     * @return The molar mass property (NaN when the formula is invalid)
+     */
+    public ReadOnlyDoubleProperty molarMassProperty() {
+        return molarMass.getReadOnlyProperty();
+    }
+
+    /**
+     * Gets the property holding the current value of a quantity.
+     *
+     * @param quantity The quantity
+     * @return The value property (NaN when blank)
+     */
+    public ReadOnlyDoubleProperty valueProperty(Quantity quantity) {
+        return values[quantity.ordinal()].getReadOnlyProperty();
+    }
+
+    /**
+     * Gets the sample for the current formula.
+     *
+     * @return The sample, or null when the formula is invalid
+     */
+    public Sample getSample() {
+        return sample;
+    }
+}
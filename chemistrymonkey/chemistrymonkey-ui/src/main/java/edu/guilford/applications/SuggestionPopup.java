@@ -0,0 +1,97 @@
+package edu.guilford.applications;
+
+import java.util.List;
+
+import edu.guilford.chemtools.Compound;
+import edu.guilford.chemtools.CompoundDictionary;
+import javafx.event.ActionEvent;
+import javafx.geometry.Side;
+import javafx.scene.control.ContextMenu;
+import javafx.scene.control.MenuItem;
+import javafx.scene.control.TextField;
+
+/**
+ * The SuggestionPopup class attaches compound autocomplete to a formula TextField.
+ * As the user types, it queries the shared {@link CompoundDictionary} and shows
+ * matching names and formulas below the field; choosing one replaces the text with
+ * the compound's formula and fires the field's action.
+ */
+public class SuggestionPopup {
+
+    /** Maximum number of suggestions shown at once */
+    private static final int MAX_SUGGESTIONS = 8;
+
+    private final TextField field; // Field the suggestions are attached to
+    private final ContextMenu popup = new ContextMenu(); // Popup listing the suggestions
+    private boolean applyingSuggestion = false; // True while the field text is set from a suggestion
+
+    /**
+     * Constructs a SuggestionPopup for the given field. The dictionary is requested the
+     * first time the field gains focus, so it never loads during launcher startup.
+     *
+     * @param field The TextField to attach suggestions to
+     */
+    public SuggestionPopup(TextField field) {
+        this.field = field;
+
+        field.focusedProperty().addListener((observable, wasFocused, isFocused) -> {
+            if (isFocused) {
+                CompoundDictionary.loadAsync();
+            } else {
+                popup.hide();
+            }
+        });
+
+        field.textProperty().addListener((observable, oldText, newText) -> {
+            if (!applyingSuggestion && field.isFocused()) {
+                updateSuggestions(newText);
+            }
+        });
+    }
+
+    /**
+     * Refreshes the popup with suggestions for the current text. Nothing is shown
+     * until the dictionary has finished loading.
+     *
+     * @param text The text currently in the field
+     */
+    private void updateSuggestions(String text) {
+        CompoundDictionary dictionary = CompoundDictionary.getIfLoaded();
+        if (dictionary == null || text == null || text.isBlank()) {
+            popup.hide();
+            return;
+        }
+
+        List<Compound> suggestions = dictionary.suggest(text, MAX_SUGGESTIONS);
+        if (suggestions.isEmpty()) {
+            popup.hide();
+            return;
+        }
+
+        popup.getItems().clear();
+        for (Compound compound : suggestions) {
+            MenuItem item = new MenuItem(compound.toString());
+            item.setOnAction(e -> applySuggestion(compound));
+            popup.getItems().add(item);
+        }
+
+        if (!popup.isShowing()) {
+            popup.show(field, Side.BOTTOM, 0, 0);
+        }
+    }
+
+    /**
+     * Replaces the field text with the compound's formula and fires the field's action.
+     *
+     * @param compound The chosen compound
+     */
+    private void applySuggestion(Compound compound) {
+        applyingSuggestion = true;
+        field.setText(compound.getFormula());
+        field.positionCaret(field.getText().length());
+        applyingSuggestion = false;
+
+        popup.hide();
+        field.fireEvent(new ActionEvent());
+    }
+}
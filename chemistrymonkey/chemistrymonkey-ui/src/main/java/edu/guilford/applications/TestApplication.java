@@ -1,6 +1,6 @@
 package edu.guilford.applications;
 
-import edu.guilford.MonkeyLauncher;
+import edu.guilford.ImageCache;
 import javafx.geometry.HPos;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
@@ -19,28 +19,36 @@ import javafx.scene.text.FontWeight;
 public class TestApplication extends BaseApplication {
 
     /**
-     * Constructor for the TestApplication.
-     * 
-     * @param launcher The MonkeyLauncher instance, used to launch the application.
+     * Constructs the TestApplication for discovery by the launcher.
      */
-    public TestApplication(MonkeyLauncher launcher) {
-        super(launcher);
+    public TestApplication() {
+        super();
+    }
+
+    /**
+     * Returns the position of the application in the launcher menu.
+     *
+     * @return The menu order.
+     */
+    @Override
+    public int getMenuOrder() {
+        return 90;
     }
 
     /**
      * Sets the location of the menu image for the application.
      *
-     * @return A string representing the file path to the menu image.
+     * @return A string representing the classpath resource path of the menu image.
      */
     @Override
     protected String setMenuImageLocation() {
-        return "file:chemistrymonkey/src/main/resources/edu/guilford/TestApplicationPNG.png";
+        return "/edu/guilford/TestApplicationPNG.png";
     }
 
     /**
      * Constructs the main user interface of the TestApplication, including a label
      * and an image. The label displays the title "TEST APPLICATION", and the image 
-     * is loaded from a file and displayed with a fixed width while preserving its aspect ratio.
+     * is loaded from the classpath and displayed with a fixed width while preserving its aspect ratio.
      *
      * @return The GridPane layout containing the label and image.
      */
@@ -58,8 +66,8 @@ public class TestApplication extends BaseApplication {
         testLabel.setAlignment(Pos.CENTER);
         GridPane.setHalignment(testLabel, HPos.CENTER); // Centers the label horizontally
         
-        // Load an image and create an ImageView to display it
-        Image image = new Image("file:chemistrymonkey/src/main/resources/edu/guilford/warningSignPNG.png"); // Replace with actual image path
+        // Load the image in the background at its display width and create an ImageView to display it
+        Image image = ImageCache.get("/edu/guilford/warningSignPNG.png", 400, 0, true);
         ImageView imageView = new ImageView(image);
         imageView.setFitWidth(400); // Sets the width of the image (doubles the original size)
         imageView.setPreserveRatio(true); // Preserves the aspect ratio of the image
@@ -0,0 +1,340 @@
+package edu.guilford.applications;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import edu.guilford.chemtools.Sample;
+import edu.guilford.chemtools.Solution;
+import edu.guilford.chemtools.equilibrium.TitrationCurve;
+import javafx.animation.AnimationTimer;
+import javafx.concurrent.Task;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.Scene;
+import javafx.scene.chart.LineChart;
+import javafx.scene.chart.NumberAxis;
+import javafx.scene.chart.XYChart;
+import javafx.scene.control.Button;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.Label;
+import javafx.scene.control.TextField;
+import javafx.scene.layout.GridPane;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+import javafx.stage.Window;
+
+/**
+ * The TitrationApplication class plots acid-base titration curves: the pH of an analyte
+ * solution against the volume of strong titrant added. The curve is calculated by a
+ * {@link TitrationCurve} on a background thread, which hands over points in chunks as it
+ * finds them; the JavaFX thread adds whatever has arrived once per frame, up to a fixed
+ * number of points, so the chart fills in smoothly and the window never stalls.
+ * Plotting again cancels the curve still being calculated. The pH axis shows 0 to 14,
+ * widened to whole pH units as points arrive outside that range, as they do for
+ * concentrated strong titrants.
+ */
+public class TitrationApplication extends BaseApplication {
+
+    /** Analyte choices: an acid titrated with base, or a base titrated with acid */
+    private static final String[] MODE_NAMES = {"Acid titrated with strong base", "Base titrated with strong acid"};
+
+    /** Points handed over by the calculation at a time */
+    private static final int CHUNK_SIZE = 256;
+
+    /** Most points added to the chart per frame */
+    private static final int POINTS_PER_FRAME = 2048;
+
+    /** pH range shown before any point falls outside it */
+    private static final double PH_AXIS_LOW = 0;
+    private static final double PH_AXIS_HIGH = 14;
+
+    /** Default largest titrant volume, as a multiple of the last equivalence volume */
+    private static final double DEFAULT_RANGE_FACTOR = 1.5;
+
+    /** Dedicated background thread for calculating curves */
+    private static final ExecutorService CURVE_EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "titration-curve");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final ConcurrentLinkedQueue<Chunk> pendingChunks = new ConcurrentLinkedQueue<>(); // Chunks not yet charted
+    private XYChart.Series<Number, Number> series; // Points charted so far
+    private NumberAxis pHAxis; // pH axis, widened to fit the points charted
+    private TitrationCurve runningCurve; // Curve being calculated, if any
+    private int generation; // Incremented on each plot so stale chunks are dropped
+    private int chunkOffset; // Points of the head chunk already charted
+
+    /**
+     * Constructs the TitrationApplication for discovery by the launcher.
+     */
+    public TitrationApplication() {
+        super();
+    }
+
+    /**
+     * Returns the position of the application in the launcher menu.
+     *
+     * @return The menu order.
+     */
+    @Override
+    public int getMenuOrder() {
+        return 40;
+    }
+
+    /**
+     * Returns the location of the menu image for the application.
+     *
+     * @return the image resource path as a string
+     */
+    @Override
+    protected String setMenuImageLocation() {
+        return "/edu/guilford/CM_LOGO.png";
+    }
+
+    /**
+     * Constructs the titration inputs and chart.
+     *
+     * @return The GridPane layout containing the inputs and chart.
+     */
+    @Override
+    protected GridPane getMainPane() {
+        GridPane titrationPane = new GridPane();
+        titrationPane.setAlignment(Pos.TOP_CENTER);
+        titrationPane.setPadding(new Insets(10));
+        titrationPane.setHgap(10);
+        titrationPane.setVgap(8);
+
+        Label titleLabel = new Label("Titration Curve");
+        titleLabel.setFont(Font.font("Arial", FontWeight.BOLD, 24));
+        titrationPane.add(titleLabel, 0, 0, 4, 1);
+
+        ComboBox<String> modeBox = new ComboBox<>();
+        modeBox.getItems().addAll(MODE_NAMES);
+        modeBox.getSelectionModel().selectFirst();
+        titrationPane.add(modeBox, 0, 1, 2, 1);
+
+        TextField pKaField = addInput(titrationPane, 2, 0, "pKa values", "4.74");
+        TextField molarityField = addInput(titrationPane, 2, 2, "Analyte molarity (M)", "0.1");
+        TextField volumeField = addInput(titrationPane, 3, 0, "Analyte volume (mL)", "25");
+        TextField titrantField = addInput(titrationPane, 3, 2, "Titrant molarity (M)", "0.1");
+        TextField maxVolumeField = addInput(titrationPane, 4, 0, "Titrant up to (mL)", "");
+        maxVolumeField.setPromptText("auto");
+
+        Button plotButton = new Button("Plot");
+        Label statusLabel = new Label();
+        HBox controls = new HBox(15, plotButton, statusLabel);
+        controls.setAlignment(Pos.CENTER_LEFT);
+        titrationPane.add(controls, 0, 5, 4, 1);
+
+        NumberAxis volumeAxis = new NumberAxis();
+        volumeAxis.setLabel("Titrant volume (mL)");
+        pHAxis = new NumberAxis(PH_AXIS_LOW, PH_AXIS_HIGH, 1);
+        pHAxis.setLabel("pH");
+        LineChart<Number, Number> chart = new LineChart<>(volumeAxis, pHAxis);
+        chart.setAnimated(false);
+        chart.setCreateSymbols(false);
+        chart.setLegendVisible(false);
+        chart.setPrefHeight(420);
+        GridPane.setHgrow(chart, Priority.ALWAYS);
+        GridPane.setVgrow(chart, Priority.ALWAYS);
+        titrationPane.add(chart, 0, 6, 4, 1);
+
+        // Move arrived points onto the chart, a bounded number per frame, while on screen
+        AnimationTimer drainTimer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                drainChunks();
+            }
+        };
+        titrationPane.sceneProperty()
+                .flatMap(Scene::windowProperty)
+                .flatMap(Window::showingProperty)
+                .orElse(false)
+                .addListener((obs, wasShowing, showing) -> {
+                    if (showing) {
+                        drainTimer.start();
+                    } else {
+                        drainTimer.stop();
+                    }
+                });
+
+        plotButton.setOnAction(e -> {
+            try {
+                // Only the analyte's molarity and volume shape the curve; the acid is described by its pKa values
+                Solution analyte = new Solution(new Sample(""));
+                analyte.setVolume(Double.parseDouble(volumeField.getText().strip()) / 1000);
+                analyte.setMolarity(Double.parseDouble(molarityField.getText().strip()));
+                double[] acidConstants = parseAcidConstants(pKaField.getText());
+                double titrantMolarity = Double.parseDouble(titrantField.getText().strip());
+                boolean acidAnalyte = modeBox.getSelectionModel().getSelectedIndex() != 1;
+                TitrationCurve curve = new TitrationCurve(analyte, acidConstants, titrantMolarity, acidAnalyte);
+                double maxVolume = maxVolumeField.getText().isBlank()
+                        ? DEFAULT_RANGE_FACTOR * curve.getEquivalenceVolume(curve.getProtonCount())
+                        : Double.parseDouble(maxVolumeField.getText().strip()) / 1000;
+                plot(chart, curve, maxVolume, statusLabel);
+            } catch (IllegalArgumentException ex) {
+                statusLabel.setText("Check the inputs: " + ex.getMessage());
+            }
+        });
+
+        return titrationPane;
+    }
+
+    /**
+     * Adds a labelled text field to the pane.
+     *
+     * @param pane The pane to add to
+     * @param row The grid row
+     * @param column The grid column of the label; the field goes in the next one
+     * @param name The field name
+     * @param value The starting value
+     * @return The text field
+     */
+    private TextField addInput(GridPane pane, int row, int column, String name, String value) {
+        Label nameLabel = new Label(name);
+        nameLabel.setFont(Font.font("Arial", FontWeight.BOLD, 14));
+        TextField field = new TextField(value);
+        field.setPrefWidth(140);
+        pane.add(nameLabel, column, row);
+        pane.add(field, column + 1, row);
+        return field;
+    }
+
+    /**
+     * Parses comma or space separated pKa values into acid constants.
+     *
+     * @param text The pKa values, first dissociation first
+     * @return The acid constants
+     * @throws IllegalArgumentException If a value is not a number or there are none
+     */
+    private static double[] parseAcidConstants(String text) {
+        List<Double> constants = new ArrayList<>();
+        for (String value : text.split("[,\\s]+")) {
+            if (!value.isEmpty()) {
+                constants.add(Math.pow(10, -Double.parseDouble(value)));
+            }
+        }
+        if (constants.isEmpty()) {
+            throw new IllegalArgumentException("Enter at least one pKa");
+        }
+        return constants.stream().mapToDouble(Double::doubleValue).toArray();
+    }
+
+    /**
+     * Starts calculating a curve in the background, replacing the one on the chart and
+     * cancelling any still being calculated.
+     *
+     * @param chart The chart
+     * @param curve The titration
+     * @param maxVolume The largest titrant volume in liters
+     * @param statusLabel The label for the point count or error
+     */
+    private void plot(LineChart<Number, Number> chart, TitrationCurve curve, double maxVolume, Label statusLabel) {
+        if (runningCurve != null) {
+            runningCurve.cancel();
+        }
+        int plotGeneration = ++generation;
+        pendingChunks.clear();
+        chunkOffset = 0;
+        series = new XYChart.Series<>();
+        chart.getData().setAll(List.of(series));
+        pHAxis.setLowerBound(PH_AXIS_LOW);
+        pHAxis.setUpperBound(PH_AXIS_HIGH);
+        statusLabel.setText("Calculating...");
+
+        Task<String> task = new Task<>() {
+            @Override
+            protected String call() {
+                long start = System.nanoTime();
+                int points = curve.generate(maxVolume, CHUNK_SIZE,
+                        (volumes, pHs) -> pendingChunks.add(new Chunk(volumes, pHs, plotGeneration)));
+                return points + " points from " + curve.getSolveCount() + " pH solves in "
+                        + String.format("%.1f", (System.nanoTime() - start) / 1e6) + " ms";
+            }
+        };
+        task.setOnSucceeded(e -> {
+            if (plotGeneration == generation) {
+                statusLabel.setText(task.getValue());
+                runningCurve = null;
+            }
+        });
+        task.setOnFailed(e -> {
+            if (plotGeneration == generation) {
+                statusLabel.setText("Calculation failed: " + task.getException().getMessage());
+                runningCurve = null;
+            }
+        });
+        runningCurve = curve;
+        CURVE_EXECUTOR.submit(task);
+    }
+
+    /**
+     * Adds points that have arrived from the calculation to the chart, in one batch of at
+     * most POINTS_PER_FRAME points, dropping chunks from a replaced curve, and widens the
+     * pH axis to take in any that fall outside it.
+     */
+    private void drainChunks() {
+        if (pendingChunks.isEmpty()) {
+            return;
+        }
+        List<XYChart.Data<Number, Number>> batch = new ArrayList<>();
+        double lowest = pHAxis.getLowerBound();
+        double highest = pHAxis.getUpperBound();
+        while (batch.size() < POINTS_PER_FRAME) {
+            Chunk chunk = pendingChunks.peek();
+            if (chunk == null) {
+                break;
+            }
+            if (chunk.generation != generation) {
+                pendingChunks.poll();
+                continue;
+            }
+            int end = Math.min(chunk.volumes.length, chunkOffset + POINTS_PER_FRAME - batch.size());
+            for (int i = chunkOffset; i < end; i++) {
+                batch.add(new XYChart.Data<>(chunk.volumes[i] * 1000, chunk.pHs[i]));
+                lowest = Math.min(lowest, Math.floor(chunk.pHs[i]));
+                highest = Math.max(highest, Math.ceil(chunk.pHs[i]));
+            }
+            if (end == chunk.volumes.length) {
+                pendingChunks.poll();
+                chunkOffset = 0;
+            } else {
+                chunkOffset = end;
+            }
+        }
+        if (!batch.isEmpty()) {
+            pHAxis.setLowerBound(lowest);
+            pHAxis.setUpperBound(highest);
+            series.getData().addAll(batch);
+        }
+    }
+
+    /**
+     * The Chunk class is one chunk of curve points on its way to the JavaFX thread.
+     */
+    private static final class Chunk {
+
+        private final double[] volumes; // Titrant volumes in liters
+        private final double[] pHs; // pH at each volume
+        private final int generation; // Plot the chunk belongs to
+
+        /**
+         * Constructor that wraps a chunk.
+         *
+         * @param volumes The titrant volumes in liters
+         * @param pHs The pH at each volume
+         * @param generation The plot the chunk belongs to
+         */
+        Chunk(double[] volumes, double[] pHs, int generation) {
+            this.volumes = volumes;
+            this.pHs = pHs;
+            this.generation = generation;
+        }
+    }
+}
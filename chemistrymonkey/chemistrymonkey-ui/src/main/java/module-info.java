@@ -0,0 +1,16 @@
+module edu.guilford {
+    requires edu.guilford.chemtools;
+    requires javafx.controls;
+    requires javafx.fxml;
+
+    opens edu.guilford to javafx.fxml;
+    exports edu.guilford;
+
+    uses edu.guilford.applications.BaseApplication;
+    provides edu.guilford.applications.BaseApplication with
+        edu.guilford.applications.MoleApplication,
+        edu.guilford.applications.EquationApplication,
+        edu.guilford.applications.HistoryApplication,
+        edu.guilford.applications.TitrationApplication,
+        edu.guilford.applications.TestApplication;
+}
@@ -0,0 +1,91 @@
+package edu.guilford.chemtools.benchmarks;
+
+import edu.guilford.chemtools.BinaryCodec;
+import edu.guilford.chemtools.Formula;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The CodecBenchmark class measures encoding and decoding formulas with
+ * {@link BinaryCodec}, for comparison with the text parsers in {@link FormulaBenchmark}.
+ * Each invocation handles one formula, so scores are per formula.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class CodecBenchmark {
+
+    @Param
+    public Corpora.FormulaSet set;
+
+    private Formula[] formulas; // Parsed formulas of the selected set
+    private ByteBuffer[] encoded; // Encoding of each formula
+    private ByteBuffer scratch; // Reused destination for encoding
+    private int next; // Index of the next formula to use
+
+    /**
+     * Parses and encodes the selected formula set.
+     */
+    @Setup
+    public void setUp() {
+        String[] texts = set.formulas();
+        formulas = new Formula[texts.length];
+        encoded = new ByteBuffer[texts.length];
+        int largest = 0;
+        for (int i = 0; i < texts.length; i++) {
+            formulas[i] = new Formula(texts[i]);
+            encoded[i] = ByteBuffer.wrap(BinaryCodec.encode(formulas[i]));
+            largest = Math.max(largest, encoded[i].capacity());
+        }
+        scratch = ByteBuffer.allocate(largest);
+    }
+
+    /**
+     * Gets the index of the next formula, cycling through the set.
+     *
+     * @return The formula index
+     */
+    private int nextIndex() {
+        int index = next;
+        next = next + 1 == formulas.length ? 0 : next + 1;
+        return index;
+    }
+
+    /**
+     * Encodes a formula into a reused buffer.
+     *
+     * @return The encoded size, consumed by JMH
+     */
+    @Benchmark
+    public int encode() {
+        scratch.clear();
+        BinaryCodec.write(scratch, formulas[nextIndex()]);
+        return scratch.position();
+    }
+
+    /**
+     * Decodes a formula and reads its molar mass, the counterpart of the parse benchmarks.
+     *
+     * @return The molar mass, consumed by JMH
+     */
+    @Benchmark
+    public double decode() {
+        ByteBuffer in = encoded[nextIndex()];
+        in.rewind();
+        return BinaryCodec.readFormula(in).getMolarMass();
+    }
+}
@@ -0,0 +1,95 @@
+package edu.guilford.chemtools.benchmarks;
+
+import edu.guilford.chemtools.ConversionSweep;
+import edu.guilford.chemtools.Formula;
+import edu.guilford.chemtools.Sample;
+import edu.guilford.chemtools.Solution;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The ConversionBenchmark class compares filling a prep sheet of 2,000 solutions (20
+ * compounds, 10 molarities and 10 volumes) with a {@link ConversionSweep} against
+ * making up each one as a {@link Sample} and {@link Solution}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class ConversionBenchmark {
+
+    private static final String[] COMPOUNDS = {
+        "NaCl", "KCl", "C_6H_12O_6", "CuSO_4", "NaOH", "HCl", "KMnO_4", "H_2SO_4", "CaCl_2", "MgSO_4",
+        "NaHCO_3", "K_2Cr_2O_7", "AgNO_3", "NH_4Cl", "Na_2CO_3", "KI", "FeCl_3", "ZnSO_4", "KNO_3", "BaCl_2"
+    };
+
+    private List<Formula> compounds; // Parsed COMPOUNDS
+    private double[] molarities; // 0.01 M to 0.1 M
+    private double[] volumes; // 0.1 L to 1 L
+    private ConversionSweep sweep; // Sweep over compounds and volumes
+    private double[] out; // Reused result array
+
+    /**
+     * Parses the compounds and prepares the sweep.
+     */
+    @Setup
+    public void setUp() {
+        compounds = new ArrayList<>();
+        for (String compound : COMPOUNDS) {
+            compounds.add(new Formula(compound));
+        }
+        molarities = new double[10];
+        volumes = new double[10];
+        for (int i = 0; i < 10; i++) {
+            molarities[i] = 0.01 * (i + 1);
+            volumes[i] = 0.1 * (i + 1);
+        }
+        sweep = new ConversionSweep(compounds, volumes);
+        out = new double[compounds.size() * molarities.length * volumes.length];
+    }
+
+    /**
+     * Fills the masses to weigh out with the sweep.
+     *
+     * @return The result array, consumed by JMH
+     */
+    @Benchmark
+    public double[] sweep() {
+        sweep.requiredMasses(molarities, out);
+        return out;
+    }
+
+    /**
+     * Fills the same masses one solution at a time.
+     *
+     * @return The result array, consumed by JMH
+     */
+    @Benchmark
+    public double[] perSolution() {
+        int cell = 0;
+        for (Formula compound : compounds) {
+            for (double molarity : molarities) {
+                for (double volume : volumes) {
+                    Solution solution = new Solution(new Sample(compound));
+                    solution.setMolarity(molarity);
+                    solution.setVolume(volume);
+                    out[cell++] = solution.getSample().getSampleMass();
+                }
+            }
+        }
+        return out;
+    }
+}
@@ -0,0 +1,83 @@
+package edu.guilford.chemtools.benchmarks;
+
+/**
+ * The Corpora class holds the formula and equation inputs shared by the benchmarks.
+ * Formulas are grouped by shape, since the regex parser's cost grows with the number of
+ * atoms and the token parser's with the number of element tokens, and equations are
+ * grouped by how many species they contain, since the balancing search grows as 20 to
+ * that power.
+ */
+public final class Corpora {
+
+    /**
+     * The FormulaSet enum names a group of realistic formulas of similar shape.
+     */
+    public enum FormulaSet {
+        // Short salts, acids and ions
+        SMALL_INORGANIC(new String[] {
+            "H_2O", "NaCl", "CO_2", "NH_3", "H_2SO_4", "HNO_3", "CaCO_3", "KMnO_4",
+            "Fe_2O_3", "NaOH", "SO_4^2-", "NH_4^+", "PO_4^3-", "MgCl_2", "Al_2O_3", "CuSO_4"
+        }),
+        // Drug-sized organics written in condensed form
+        LARGE_ORGANIC(new String[] {
+            "C_6H_12O_6", "C_8H_10N_4O_2", "C_9H_8O_4", "C_12H_22O_11", "C_20H_25N_3O",
+            "C_27H_46O", "C_17H_19NO_3", "C_21H_30O_2", "C_43H_66N_12O_12S_2", "C_55H_72MgN_4O_5",
+            "C_63H_88CoN_14O_14P", "C_16H_18N_2O_4S"
+        }),
+        // Polymer chains written out repeat unit by repeat unit, and in condensed form
+        POLYMER(new String[] {
+            "C_2H_4".repeat(50),
+            "C_2H_3Cl".repeat(40),
+            "C_8H_8".repeat(25),
+            "C_3H_6".repeat(60),
+            "C_6H_10O_5".repeat(30),
+            "C_2000H_4002",
+            "C_10H_8O_4".repeat(20)
+        });
+
+        private final String[] formulas; // Formula strings in this set
+
+        /**
+         * Constructor that stores the formulas of a set.
+         *
+         * @param formulas The formula strings
+         */
+        FormulaSet(String[] formulas) {
+            this.formulas = formulas;
+        }
+
+        /**
+         * Gets the formula strings in this set.
+         *
+         * @return The formula strings
+         */
+        String[] formulas() {
+            return formulas;
+        }
+    }
+
+    /**
+     * Gets an unbalanced equation with the given number of species, from 2 to 6.
+     * Each one balances with coefficients of at most 20.
+     *
+     * @param species The number of formulas in the equation
+     * @return The equation text
+     * @throws IllegalArgumentException If there is no equation of that size
+     */
+    static String equation(int species) {
+        return switch (species) {
+            case 2 -> "O_3 = O_2";
+            case 3 -> "H_2 + O_2 = H_2O";
+            case 4 -> "C_3H_8 + O_2 = CO_2 + H_2O";
+            case 5 -> "Zn + HNO_3 = ZnN_2O_6 + NH_4NO_3 + H_2O";
+            case 6 -> "KMnO_4 + HCl = KCl + MnCl_2 + H_2O + Cl_2";
+            default -> throw new IllegalArgumentException("No equation with " + species + " species");
+        };
+    }
+
+    /**
+     * Private constructor; this class only holds static data.
+     */
+    private Corpora() {
+    }
+}
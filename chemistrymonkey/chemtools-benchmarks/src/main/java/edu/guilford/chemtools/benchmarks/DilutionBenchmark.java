@@ -0,0 +1,105 @@
+package edu.guilford.chemtools.benchmarks;
+
+import edu.guilford.chemtools.DilutionPlanner;
+import edu.guilford.chemtools.Formula;
+import edu.guilford.chemtools.Mixture;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The DilutionBenchmark class compares planning a 384-well plate from three stocks in
+ * one bulk call with planning each well as its own target {@link Mixture}. Every well
+ * can be made, so both plan the same wells.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class DilutionBenchmark {
+
+    private static final int WELLS = 384; // Wells on the plate
+    private static final double WELL_VOLUME = 50e-6; // 50 µL per well
+
+    private DilutionPlanner planner; // Planner over NaCl, KCl and a glucose-NaCl buffer
+    private Formula[] solutes; // Solutes in the planner's order
+    private double[] targets; // Random reachable target molarities, wells by solutes
+    private double[] volumes; // Reused stock and solvent volumes
+    private int[] outcomes; // Reused well outcomes
+
+    /**
+     * Makes the stocks and a plate of random targets.
+     */
+    @Setup
+    public void setUp() {
+        Mixture sodium = new Mixture();
+        sodium.addSolvent(1.0);
+        sodium.addSolute(new Formula("NaCl"), 1.0);
+        Mixture potassium = new Mixture();
+        potassium.addSolvent(1.0);
+        potassium.addSolute(new Formula("KCl"), 2.0);
+        Mixture buffer = new Mixture();
+        buffer.addSolvent(1.0);
+        buffer.addSolute(new Formula("C_6H_12O_6"), 0.5);
+        buffer.addSolute(new Formula("NaCl"), 0.25);
+        planner = new DilutionPlanner(List.of(sodium, potassium, buffer));
+
+        int soluteCount = planner.getSolutes().size();
+        solutes = new Formula[soluteCount];
+        for (int j = 0; j < soluteCount; j++) {
+            solutes[j] = planner.getSolutes().getFormula(j);
+        }
+        Random random = new Random(42);
+        targets = new double[WELLS * soluteCount];
+        for (int w = 0; w < WELLS; w++) {
+            // Solutes are NaCl, KCl, glucose; the buffer brings half as much NaCl as glucose
+            double glucose = 0.01 * random.nextDouble();
+            targets[w * soluteCount] = 0.5 * glucose + 0.1 * random.nextDouble();
+            targets[w * soluteCount + 1] = 0.1 * random.nextDouble();
+            targets[w * soluteCount + 2] = glucose;
+        }
+        volumes = new double[WELLS * (planner.getStockCount() + 1)];
+        outcomes = new int[WELLS];
+    }
+
+    /**
+     * Plans the plate in one call.
+     *
+     * @return The number of wells planned, consumed by JMH
+     */
+    @Benchmark
+    public int bulk() {
+        return planner.plan(targets, WELL_VOLUME, volumes, outcomes);
+    }
+
+    /**
+     * Plans the plate one target mixture at a time.
+     *
+     * @return The last well's volumes, consumed by JMH
+     */
+    @Benchmark
+    public double[] perWell() {
+        double[] last = null;
+        for (int w = 0; w < WELLS; w++) {
+            Mixture target = new Mixture();
+            target.addSolvent(WELL_VOLUME);
+            for (int j = 0; j < solutes.length; j++) {
+                target.addSolute(solutes[j], targets[w * solutes.length + j] * WELL_VOLUME);
+            }
+            last = planner.plan(target);
+        }
+        return last;
+    }
+}
@@ -0,0 +1,41 @@
+package edu.guilford.chemtools.benchmarks;
+
+import edu.guilford.chemtools.Element;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The ElementBenchmark class measures constructing an {@link Element} from its symbol,
+ * which every formula parse does once per atom.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class ElementBenchmark {
+
+    // Light, transition-metal and superheavy elements
+    @Param({"H", "Fe", "Og"})
+    public String symbol;
+
+    /**
+     * Constructs one element.
+     *
+     * @return The element, consumed by JMH
+     */
+    @Benchmark
+    public Element construct() {
+        return new Element(symbol);
+    }
+}
@@ -0,0 +1,89 @@
+package edu.guilford.chemtools.benchmarks;
+
+import edu.guilford.chemtools.Equation;
+import edu.guilford.chemtools.Formula;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The EquationBenchmark class measures checking and balancing equations with 2 to 6
+ * species. Balancing time grows steeply with the species count, so the 5 and 6 species
+ * cases take hundreds of milliseconds per operation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+@State(Scope.Thread)
+public class EquationBenchmark {
+
+    @Param({"2", "3", "4", "5", "6"})
+    public int species;
+
+    private Equation unbalanced; // Equation with all multipliers reset before each search
+    private Equation balanced; // Equation already balanced, for the check benchmark
+    private final ArrayList<Formula> formulas = new ArrayList<>(); // Formulas of unbalanced, both sides
+
+    /**
+     * Parses the equation for the selected species count, and balances a second copy.
+     */
+    @Setup
+    public void setUp() {
+        String text = Corpora.equation(species);
+        unbalanced = Equation.parse(text);
+        formulas.addAll(unbalanced.getLeftFormulas());
+        formulas.addAll(unbalanced.getRightFormulas());
+
+        balanced = Equation.parse(text);
+        balanced.balanceEquations();
+        if (!balanced.isBalanced()) {
+            throw new IllegalStateException("Benchmark equation does not balance: " + text);
+        }
+    }
+
+    /**
+     * Checks a balanced equation, the inner step of every balancing search.
+     *
+     * @return Whether the equation is balanced, consumed by JMH
+     */
+    @Benchmark
+    public boolean isBalanced() {
+        return balanced.isBalanced();
+    }
+
+    /**
+     * Balances the equation from all multipliers at 1.
+     *
+     * @return Whether a balance was found, consumed by JMH
+     */
+    @Benchmark
+    public boolean balanceEquations() {
+        for (Formula formula : formulas) {
+            formula.setMultiplier(1);
+        }
+        unbalanced.balanceEquations();
+        return unbalanced.isBalanced();
+    }
+
+    /**
+     * Parses the equation text into formulas.
+     *
+     * @return The parsed equation, consumed by JMH
+     */
+    @Benchmark
+    public Equation parse() {
+        return Equation.parse(Corpora.equation(species));
+    }
+}
@@ -0,0 +1,113 @@
+package edu.guilford.chemtools.benchmarks;
+
+import edu.guilford.chemtools.Formula;
+import edu.guilford.chemtools.IncrementalFormula;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The FormulaBenchmark class measures parsing a formula and computing its molar mass
+ * with both parsers, cycling through one formula set per trial. Each invocation handles
+ * one formula, so scores are per formula.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class FormulaBenchmark {
+
+    @Param
+    public Corpora.FormulaSet set;
+
+    private String[] formulas; // Formula strings of the selected set
+    private int next; // Index of the next formula to parse
+    private Formula parsed; // Pre-parsed formula for the getter benchmarks
+
+    /**
+     * Loads the selected formula set and pre-parses its first formula.
+     */
+    @Setup
+    public void setUp() {
+        formulas = set.formulas();
+        parsed = new Formula(formulas[0]);
+    }
+
+    /**
+     * Gets the next formula string, cycling through the set.
+     *
+     * @return The formula string
+     */
+    private String nextFormula() {
+        String formula = formulas[next];
+        next = next + 1 == formulas.length ? 0 : next + 1;
+        return formula;
+    }
+
+    /**
+     * Parses a formula with the regex parser, which builds one Element per atom and
+     * sums the molar mass over them.
+     *
+     * @return The molar mass, consumed by JMH
+     */
+    @Benchmark
+    public double regexParse() {
+        return new Formula(nextFormula()).getMolarMass();
+    }
+
+    /**
+     * Parses a formula from scratch with the token parser, summing the molar mass per token.
+     *
+     * @return The molar mass, consumed by JMH
+     */
+    @Benchmark
+    public double incrementalParse() {
+        IncrementalFormula parser = new IncrementalFormula();
+        parser.update(nextFormula());
+        return parser.getMolarMass();
+    }
+
+    /**
+     * Parses a formula with the token parser and converts it to a Formula.
+     *
+     * @return The formula, consumed by JMH
+     */
+    @Benchmark
+    public Formula incrementalToFormula() {
+        IncrementalFormula parser = new IncrementalFormula();
+        parser.update(nextFormula());
+        return parser.toFormula();
+    }
+
+    /**
+     * Gets the molar mass of an already parsed formula, which checks the cached value
+     * against the current periodic table version.
+     *
+     * @return The molar mass, consumed by JMH
+     */
+    @Benchmark
+    public double cachedMolarMass() {
+        return parsed.getMolarMass();
+    }
+
+    /**
+     * Builds the Hill-order string of an already parsed formula.
+     *
+     * @return The Hill formula, consumed by JMH
+     */
+    @Benchmark
+    public String hillFormula() {
+        return parsed.getHillFormula();
+    }
+}
@@ -0,0 +1,66 @@
+package edu.guilford.chemtools.benchmarks;
+
+import edu.guilford.chemtools.Equation;
+import edu.guilford.chemtools.Formula;
+import edu.guilford.chemtools.kinetics.KineticsSolver;
+import edu.guilford.chemtools.kinetics.Mechanism;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The KineticsBenchmark class measures a full {@link KineticsSolver} run of a stiff
+ * mechanism: ethylene adding step by step to a chain of alkanes, C_2nH_4n+2 + C_2H_4 =
+ * C_2n+2H_4n+6, reversibly, with forward rate constants spanning eight orders of
+ * magnitude. The chain length sets the species count.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+@State(Scope.Thread)
+public class KineticsBenchmark {
+
+    @Param({"10", "50", "300"})
+    public int chainLength;
+
+    private KineticsSolver solver; // Solver reused across runs, as in an interactive view
+    private double[] initial; // Starting concentrations
+
+    /**
+     * Builds the mechanism, its solver and the starting concentrations.
+     */
+    @Setup
+    public void setUp() {
+        Mechanism mechanism = new Mechanism();
+        for (int k = 1; k <= chainLength; k++) {
+            Equation step = Equation.parse("C_" + 2 * k + "H_" + (4 * k + 2) + " + C_2H_4 = C_"
+                    + (2 * k + 2) + "H_" + (4 * k + 6));
+            mechanism.addReversibleReaction(step, Math.pow(10, 4 - 8.0 * k / chainLength), 1e-3);
+        }
+        initial = new double[mechanism.getSpecies().size()];
+        initial[mechanism.getSpecies().indexOf(new Formula("C_2H_6"))] = 1.0;
+        initial[mechanism.getSpecies().indexOf(new Formula("C_2H_4"))] = 5.0;
+        solver = new KineticsSolver(mechanism);
+    }
+
+    /**
+     * Integrates the chain from zero to 10,000 seconds.
+     *
+     * @return The final concentrations, consumed by JMH
+     */
+    @Benchmark
+    public double[] integrate() {
+        return solver.integrate(initial, 1e4, null);
+    }
+}
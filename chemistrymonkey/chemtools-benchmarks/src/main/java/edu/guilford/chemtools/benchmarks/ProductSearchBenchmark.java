@@ -0,0 +1,83 @@
+package edu.guilford.chemtools.benchmarks;
+
+import edu.guilford.chemtools.Equation;
+import edu.guilford.chemtools.Formula;
+import edu.guilford.chemtools.ProductSearch;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The ProductSearchBenchmark class measures finding every product set that balances
+ * propane and oxygen, from a library of about 3,700 formulas: every C_aH_bO_c with
+ * a up to 6, b up to 14 and c up to 6, each also with N, S, Cl or Na added (which the
+ * element bitsets prune), and a few ions.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+@State(Scope.Thread)
+public class ProductSearchBenchmark {
+
+    private List<Formula> reactants; // Propane and oxygen
+    private List<Formula> library; // Candidate products
+
+    /**
+     * Builds the library.
+     */
+    @Setup
+    public void setUp() {
+        reactants = List.of(new Formula("C_3H_8"), new Formula("O_2"));
+        library = new ArrayList<>();
+        for (int c = 0; c <= 6; c++) {
+            for (int h = 0; h <= 14; h++) {
+                for (int o = 0; o <= 6; o++) {
+                    if (c + h + o == 0) {
+                        continue;
+                    }
+                    String formula = part("C", c) + part("H", h) + part("O", o);
+                    library.add(new Formula(formula));
+                    for (String extra : new String[] {"N", "S", "Cl", "Na"}) {
+                        library.add(new Formula(formula + extra));
+                    }
+                }
+            }
+        }
+        for (String ion : new String[] {"OH^-", "H^+", "CO_3^2-", "HCO_3^-"}) {
+            library.add(new Formula(ion));
+        }
+    }
+
+    /**
+     * Writes one element of a formula.
+     *
+     * @param symbol The atomic symbol
+     * @param count The atom count
+     * @return The symbol with its subscript, or an empty string for a count of 0
+     */
+    private static String part(String symbol, int count) {
+        return count == 0 ? "" : count == 1 ? symbol : symbol + "_" + count;
+    }
+
+    /**
+     * Finds every minimal balancing product set of up to three products.
+     *
+     * @return The balanced equations, consumed by JMH
+     */
+    @Benchmark
+    public List<Equation> search() {
+        return new ProductSearch(reactants, library).search();
+    }
+}
@@ -0,0 +1,107 @@
+package edu.guilford.chemtools.benchmarks;
+
+import edu.guilford.chemtools.Equation;
+import edu.guilford.chemtools.Formula;
+import edu.guilford.chemtools.ReactionNetwork;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The ReactionNetworkBenchmark class measures building and analyzing a mechanism of
+ * random hydrogen and oxygen transfers between C_aH_bO_c species (a up to 8, b up to
+ * 17, c up to 4, about 700 species at 5,000 reactions), the shape of a large
+ * combustion mechanism.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+@State(Scope.Thread)
+public class ReactionNetworkBenchmark {
+
+    @Param({"500", "5000"})
+    public int reactions;
+
+    private final List<Equation> equations = new ArrayList<>(); // Mechanism reactions
+
+    /**
+     * Generates the reactions with a fixed seed.
+     */
+    @Setup
+    public void setUp() {
+        Random random = new Random(1);
+        for (int r = 0; r < reactions; r++) {
+            int c1 = random.nextInt(8) + 1;
+            int h1 = random.nextInt(16) + 1;
+            int o1 = random.nextInt(4);
+            int c2 = random.nextInt(8) + 1;
+            int h2 = random.nextInt(16);
+            int o2 = random.nextInt(4);
+            Equation equation = new Equation();
+            if (random.nextBoolean()) {
+                // Hydrogen moves from the first species to the second
+                equation.addLeftFormula(formula(c1, h1, o1));
+                equation.addLeftFormula(formula(c2, h2, o2));
+                equation.addRightFormula(formula(c1, h1 - 1, o1));
+                equation.addRightFormula(formula(c2, h2 + 1, o2));
+            } else {
+                // Oxygen moves from the first species to the second
+                equation.addLeftFormula(formula(c1, h1, o1 + 1));
+                equation.addLeftFormula(formula(c2, h2, o2));
+                equation.addRightFormula(formula(c1, h1, o1));
+                equation.addRightFormula(formula(c2, h2, o2 + 1));
+            }
+            equations.add(equation);
+        }
+    }
+
+    /**
+     * Builds a C_aH_bO_c formula.
+     *
+     * @param c The carbon count
+     * @param h The hydrogen count
+     * @param o The oxygen count
+     * @return The formula
+     */
+    private static Formula formula(int c, int h, int o) {
+        StringBuilder text = new StringBuilder("C").append(c > 1 ? "_" + c : "");
+        if (h > 0) {
+            text.append('H').append(h > 1 ? "_" + h : "");
+        }
+        if (o > 0) {
+            text.append('O').append(o > 1 ? "_" + o : "");
+        }
+        return new Formula(text.toString());
+    }
+
+    /**
+     * Builds the network, checks every reaction's balance and finds the rank, the
+     * dependent reactions and the conservation laws.
+     *
+     * @return The number of conservation laws, consumed by JMH
+     */
+    @Benchmark
+    public int analyze() {
+        ReactionNetwork network = new ReactionNetwork();
+        for (Equation equation : equations) {
+            network.addReaction(equation);
+        }
+        network.findUnbalancedReactions();
+        network.getDependentReactions();
+        return network.getConservationLaws().length;
+    }
+}
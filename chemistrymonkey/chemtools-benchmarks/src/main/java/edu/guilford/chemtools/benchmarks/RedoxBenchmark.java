@@ -0,0 +1,46 @@
+package edu.guilford.chemtools.benchmarks;
+
+import edu.guilford.chemtools.Equation;
+import edu.guilford.chemtools.RedoxBalancer;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The RedoxBenchmark class measures balancing redox equations in solution, from parsing
+ * the skeleton to the balanced equation with water and ions added. Balancing the same
+ * equations by multiplier search, with the water and ions written in, takes hundreds of
+ * milliseconds.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class RedoxBenchmark {
+
+    @Param({"MnO_4^- + Fe^2+ = Mn^2+ + Fe^3+", "Cr_2O_7^2- + I^- = Cr^3+ + I_2",
+            "H_2O_2 + MnO_4^- = O_2 + Mn^2+", "KMnO_4 + HCl = KCl + MnCl_2 + Cl_2 + H_2O"})
+    public String skeleton;
+
+    /**
+     * Parses and balances the skeleton in acidic solution.
+     *
+     * @return The balanced equation, consumed by JMH
+     */
+    @Benchmark
+    public Equation balanceRedox() {
+        Equation equation = Equation.parse(skeleton);
+        equation.balanceRedox(RedoxBalancer.Medium.ACIDIC);
+        return equation;
+    }
+}
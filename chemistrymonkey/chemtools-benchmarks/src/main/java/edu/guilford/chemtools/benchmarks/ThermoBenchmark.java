@@ -0,0 +1,89 @@
+package edu.guilford.chemtools.benchmarks;
+
+import edu.guilford.chemtools.Equation;
+import edu.guilford.chemtools.ReactionThermo;
+import edu.guilford.chemtools.ThermoSweep;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The ThermoBenchmark class compares a {@link ThermoSweep} of Gibbs energies over 100
+ * reactions and 2,000 temperatures with calling
+ * {@link ReactionThermo#getGibbsEnergyChange(double)} for each point.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class ThermoBenchmark {
+
+    private static final String[] EQUATIONS = {
+        "C_3H_8 + O_2 = CO_2 + H_2O", "CH_4 + O_2 = CO_2 + H_2O", "N_2 + H_2 = NH_3",
+        "CaCO_3 = CaO + CO_2", "SO_2 + O_2 = SO_3", "NO + O_2 = NO_2", "N_2O_4 = NO_2",
+        "CO + H_2 = CH_4O", "Fe_2O_3 + CO = Fe + CO_2", "C_2H_4 + H_2 = C_2H_6"
+    };
+
+    private List<ReactionThermo> reactions; // 100 reactions, cycling through EQUATIONS
+    private double[] temperatures; // 200 K to 1200 K
+    private ThermoSweep sweep; // Sweep over reactions and temperatures
+    private double[] out; // Reused result array
+
+    /**
+     * Balances the equations and prepares the sweep.
+     */
+    @Setup
+    public void setUp() {
+        reactions = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Equation equation = Equation.parse(EQUATIONS[i % EQUATIONS.length]);
+            equation.balanceEquations();
+            reactions.add(new ReactionThermo(equation));
+        }
+        temperatures = new double[2000];
+        for (int t = 0; t < temperatures.length; t++) {
+            temperatures[t] = 200 + t * 0.5;
+        }
+        sweep = new ThermoSweep(reactions, temperatures);
+        out = new double[reactions.size() * temperatures.length];
+    }
+
+    /**
+     * Fills the Gibbs energy table with the sweep.
+     *
+     * @return The result array, consumed by JMH
+     */
+    @Benchmark
+    public double[] sweep() {
+        sweep.gibbsEnergyChanges(out);
+        return out;
+    }
+
+    /**
+     * Fills the same table one call at a time.
+     *
+     * @return The result array, consumed by JMH
+     */
+    @Benchmark
+    public double[] perCall() {
+        for (int r = 0; r < reactions.size(); r++) {
+            ReactionThermo reaction = reactions.get(r);
+            for (int t = 0; t < temperatures.length; t++) {
+                out[r * temperatures.length + t] = reaction.getGibbsEnergyChange(temperatures[t]);
+            }
+        }
+        return out;
+    }
+}
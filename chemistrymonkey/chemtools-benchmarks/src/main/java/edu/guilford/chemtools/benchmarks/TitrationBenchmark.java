@@ -0,0 +1,71 @@
+package edu.guilford.chemtools.benchmarks;
+
+import edu.guilford.chemtools.Sample;
+import edu.guilford.chemtools.Solution;
+import edu.guilford.chemtools.equilibrium.TitrationCurve;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The TitrationBenchmark class compares an adaptively sampled {@link TitrationCurve} of
+ * 0.1 M phosphoric acid titrated with 0.1 M NaOH with the same curve solved at 10,000
+ * evenly spaced volumes, which still resolves the equivalence jumps less finely.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class TitrationBenchmark {
+
+    private static final int EVEN_POINTS = 10_000; // Points of the evenly sampled curve
+    private static final double MAX_VOLUME = 0.1; // 100 mL of titrant
+
+    private TitrationCurve curve; // Phosphoric acid titration
+    private double[] pHs; // Reused result array for even sampling
+
+    /**
+     * Prepares the titration.
+     */
+    @Setup
+    public void setUp() {
+        Solution acid = new Solution(new Sample("H_3PO_4"));
+        acid.setVolume(0.025);
+        acid.setMolarity(0.1);
+        curve = new TitrationCurve(acid, new double[] {7.1e-3, 6.3e-8, 4.5e-13}, 0.1, true);
+        pHs = new double[EVEN_POINTS + 1];
+    }
+
+    /**
+     * Samples the curve adaptively.
+     *
+     * @return The volumes and pH values, consumed by JMH
+     */
+    @Benchmark
+    public double[][] adaptive() {
+        return curve.generate(MAX_VOLUME);
+    }
+
+    /**
+     * Samples the curve at evenly spaced volumes.
+     *
+     * @return The pH values, consumed by JMH
+     */
+    @Benchmark
+    public double[] even() {
+        for (int i = 0; i <= EVEN_POINTS; i++) {
+            pHs[i] = curve.pH(MAX_VOLUME * i / EVEN_POINTS);
+        }
+        return pHs;
+    }
+}
@@ -0,0 +1,30 @@
+package edu.guilford.chemtools;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The BalanceEvent class is a Flight Recorder event covering one balancing search in
+ * Equation, recording how much of the multiplier space it tried and how it ended.
+ */
+@Name("edu.guilford.chemtools.Balance")
+@Label("Equation Balance")
+@Category("ChemTools")
+@Description("Searches multiplier combinations to balance an equation")
+final class BalanceEvent extends Event {
+
+    @Label("Species")
+    int species; // Formulas on both sides of the equation
+
+    @Label("Candidates Tried")
+    long candidatesTried; // Multiplier combinations tested
+
+    @Label("Candidate Space")
+    long candidateSpace; // Multiplier combinations that could be tested
+
+    @Label("Result")
+    String result; // "already balanced", "balanced", "no solution" or "interrupted"
+}
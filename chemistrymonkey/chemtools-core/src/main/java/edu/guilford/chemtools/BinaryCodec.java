@@ -0,0 +1,596 @@
+package edu.guilford.chemtools;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+
+/**
+ * The BinaryCodec class encodes formulas, samples, solutions and equations in a compact
+ * binary format, so parsed values can be stored or sent between services without being
+ * written out as text and parsed again. Values are read and written in place through a
+ * {@link ByteBuffer}, which may be a heap buffer, a direct or memory-mapped buffer, or a
+ * view of a {@code MemorySegment} from {@code segment.asByteBuffer()}; nothing is copied
+ * into an intermediate array.
+ *
+ * Every value starts with one header byte: the format version in the high four bits and
+ * the value type in the low four. The rest uses unsigned LEB128 varints, with zig-zag
+ * encoding for the charge:
+ *
+ * <pre>
+ * formula  = varint(distinctElements &lt;&lt; 1 | extra)
+ *            { varint(atomicNumberDelta &lt;&lt; 1 | single) [varint(count) if !single] }
+ *            [varint(zigzag(charge)) varint(multiplier) if extra]
+ * sample   = formula | double mass | double moles
+ * solution = sample | double volume | double molarity
+ * equation = varint(leftCount) | varint(rightCount) | formula ...
+ * </pre>
+ *
+ * Elements are written in ascending atomic number as the difference from the previous
+ * one, so they almost always fit in one byte; "single" marks a count of 1 and "extra"
+ * marks a charge or a multiplier other than 1. Doubles are 8 bytes, big-endian,
+ * whatever the buffer's byte order. Water takes 5 bytes and the balanced propane
+ * combustion "1C_3H_8 + 5O_2 = 3CO_2 + 4H_2O" 25. Decoded formulas print as their Hill
+ * formula, and their molar mass is recalculated from the element table. Formulas with
+ * a symbol that is not in the element table cannot be encoded.
+ */
+public final class BinaryCodec {
+
+    /** Version written in the header byte of every value */
+    public static final int VERSION = 1;
+
+    /** Value types in the low bits of the header byte */
+    public static final int FORMULA = 1;
+    public static final int SAMPLE = 2;
+    public static final int SOLUTION = 3;
+    public static final int EQUATION = 4;
+
+    private static final int MAX_ATOMIC_NUMBER = 118; // Largest element in the table
+
+    /**
+     * Prevents instantiation; all methods are static.
+     */
+    private BinaryCodec() {
+    }
+
+    // Encoding
+
+    /**
+     * Writes a formula, including its multiplier, at the buffer's position.
+     *
+     * @param out The destination buffer
+     * @param formula The formula to write
+     * @throws java.nio.BufferOverflowException If the buffer has less than {@link #sizeOf(Formula)} bytes left
+     * @throws IllegalArgumentException If the formula has an element that is not in the periodic table
+     */
+    public static void write(ByteBuffer out, Formula formula) {
+        checkElements(formula);
+        out.put(header(FORMULA));
+        writeFormulaBody(out, formula);
+    }
+
+    /**
+     * Writes a sample: its formula, mass and moles.
+     *
+     * @param out The destination buffer
+     * @param sample The sample to write
+     * @throws java.nio.BufferOverflowException If the buffer has less than {@link #sizeOf(Sample)} bytes left
+     * @throws IllegalArgumentException If the formula has an element that is not in the periodic table
+     */
+    public static void write(ByteBuffer out, Sample sample) {
+        checkElements(sample);
+        out.put(header(SAMPLE));
+        writeSampleBody(out, sample);
+    }
+
+    /**
+     * Writes a solution: its sample, volume and molarity.
+     *
+     * @param out The destination buffer
+     * @param solution The solution to write
+     * @throws java.nio.BufferOverflowException If the buffer has less than {@link #sizeOf(Solution)} bytes left
+     * @throws IllegalArgumentException If the formula has an element that is not in the periodic table
+     */
+    public static void write(ByteBuffer out, Solution solution) {
+        checkElements(solution.getSample());
+        out.put(header(SOLUTION));
+        writeSampleBody(out, solution.getSample());
+        writeDouble(out, solution.getVolume());
+        writeDouble(out, solution.getMolarity());
+    }
+
+    /**
+     * Writes an equation: both sides' formulas with their multipliers (coefficients).
+     *
+     * @param out The destination buffer
+     * @param equation The equation to write
+     * @throws java.nio.BufferOverflowException If the buffer has less than {@link #sizeOf(Equation)} bytes left
+     * @throws IllegalArgumentException If a formula has an element that is not in the periodic table
+     */
+    public static void write(ByteBuffer out, Equation equation) {
+        // Check every formula first, so a bad one leaves the buffer untouched
+        for (Formula formula : equation.getLeftFormulas()) {
+            checkElements(formula);
+        }
+        for (Formula formula : equation.getRightFormulas()) {
+            checkElements(formula);
+        }
+        out.put(header(EQUATION));
+        writeVarint(out, equation.getLeftFormulas().size());
+        writeVarint(out, equation.getRightFormulas().size());
+        for (Formula formula : equation.getLeftFormulas()) {
+            writeFormulaBody(out, formula);
+        }
+        for (Formula formula : equation.getRightFormulas()) {
+            writeFormulaBody(out, formula);
+        }
+    }
+
+    /**
+     * Encodes a formula into a new array of exactly the encoded size.
+     *
+     * @param formula The formula to encode
+     * @return The encoded bytes
+     * @throws IllegalArgumentException If the formula has an element that is not in the periodic table
+     */
+    public static byte[] encode(Formula formula) {
+        ByteBuffer out = ByteBuffer.allocate(sizeOf(formula));
+        write(out, formula);
+        return out.array();
+    }
+
+    /**
+     * Encodes an equation into a new array of exactly the encoded size.
+     *
+     * @param equation The equation to encode
+     * @return The encoded bytes
+     * @throws IllegalArgumentException If a formula has an element that is not in the periodic table
+     */
+    public static byte[] encode(Equation equation) {
+        ByteBuffer out = ByteBuffer.allocate(sizeOf(equation));
+        write(out, equation);
+        return out.array();
+    }
+
+    /**
+     * Checks a formula can be read back. The parser keeps symbols it does not know with
+     * atomic number 0, which the format has no way to write.
+     *
+     * @param formula The formula to check
+     * @throws IllegalArgumentException If the formula has an element that is not in the periodic table
+     */
+    private static void checkElements(Formula formula) {
+        for (int number : formula.getCompositionNumbers()) {
+            if (number < 1 || number > MAX_ATOMIC_NUMBER) {
+                throw new IllegalArgumentException("Cannot encode \"" + formula
+                        + "\": it has an element that is not in the periodic table");
+            }
+        }
+    }
+
+    /**
+     * Writes the formula fields that follow a header.
+     *
+     * @param out The destination buffer
+     * @param formula The formula to write
+     */
+    private static void writeFormulaBody(ByteBuffer out, Formula formula) {
+        int[] numbers = formula.getCompositionNumbers();
+        int[] counts = formula.getCompositionCounts();
+        boolean extra = hasExtra(formula);
+        writeVarint(out, numbers.length << 1 | (extra ? 1 : 0));
+
+        int previous = 0;
+        for (int i = 0; i < numbers.length; i++) {
+            boolean single = counts[i] == 1;
+            writeVarint(out, (numbers[i] - previous) << 1 | (single ? 1 : 0));
+            if (!single) {
+                writeVarint(out, counts[i]);
+            }
+            previous = numbers[i];
+        }
+
+        if (extra) {
+            writeVarint(out, zigZag(formula.getCharge()));
+            writeVarint(out, formula.getMultiplier());
+        }
+    }
+
+    /**
+     * Writes the sample fields that follow a header.
+     *
+     * @param out The destination buffer
+     * @param sample The sample to write
+     */
+    private static void writeSampleBody(ByteBuffer out, Sample sample) {
+        writeFormulaBody(out, sample);
+        writeDouble(out, sample.getSampleMass());
+        writeDouble(out, sample.getSampleMoles());
+    }
+
+    // Sizes
+
+    /**
+     * Calculates the exact encoded size of a formula.
+     *
+     * @param formula The formula
+     * @return The size in bytes, including the header
+     */
+    public static int sizeOf(Formula formula) {
+        return 1 + formulaBodySize(formula);
+    }
+
+    /**
+     * Calculates the exact encoded size of a sample.
+     *
+     * @param sample The sample
+     * @return The size in bytes, including the header
+     */
+    public static int sizeOf(Sample sample) {
+        return 1 + formulaBodySize(sample) + 2 * Double.BYTES;
+    }
+
+    /**
+     * Calculates the exact encoded size of a solution.
+     *
+     * @param solution The solution
+     * @return The size in bytes, including the header
+     */
+    public static int sizeOf(Solution solution) {
+        return sizeOf(solution.getSample()) + 2 * Double.BYTES;
+    }
+
+    /**
+     * Calculates the exact encoded size of an equation.
+     *
+     * @param equation The equation
+     * @return The size in bytes, including the header
+     */
+    public static int sizeOf(Equation equation) {
+        int size = 1 + varintSize(equation.getLeftFormulas().size()) + varintSize(equation.getRightFormulas().size());
+        for (Formula formula : equation.getLeftFormulas()) {
+            size += formulaBodySize(formula);
+        }
+        for (Formula formula : equation.getRightFormulas()) {
+            size += formulaBodySize(formula);
+        }
+        return size;
+    }
+
+    /**
+     * Calculates the encoded size of the formula fields that follow a header.
+     *
+     * @param formula The formula
+     * @return The size in bytes
+     */
+    private static int formulaBodySize(Formula formula) {
+        int[] numbers = formula.getCompositionNumbers();
+        int[] counts = formula.getCompositionCounts();
+        boolean extra = hasExtra(formula);
+        int size = varintSize(numbers.length << 1 | (extra ? 1 : 0));
+
+        int previous = 0;
+        for (int i = 0; i < numbers.length; i++) {
+            size += varintSize((numbers[i] - previous) << 1);
+            if (counts[i] != 1) {
+                size += varintSize(counts[i]);
+            }
+            previous = numbers[i];
+        }
+
+        if (extra) {
+            size += varintSize(zigZag(formula.getCharge())) + varintSize(formula.getMultiplier());
+        }
+        return size;
+    }
+
+    // Decoding
+
+    /**
+     * Gets the type of the value at the buffer's position without consuming it.
+     *
+     * @param in The source buffer
+     * @return The value type ({@link #FORMULA}, {@link #SAMPLE}, {@link #SOLUTION} or {@link #EQUATION})
+     * @throws IllegalArgumentException If the value was written by an unsupported format version
+     */
+    public static int peekType(ByteBuffer in) {
+        int header = in.get(in.position()) & 0xFF;
+        if (header >>> 4 != VERSION) {
+            throw new IllegalArgumentException("Unsupported binary format version: " + (header >>> 4));
+        }
+        return header & 0x0F;
+    }
+
+    /**
+     * Reads whichever value is at the buffer's position.
+     *
+     * @param in The source buffer
+     * @return The decoded Formula, Sample, Solution or Equation
+     * @throws IllegalArgumentException If the bytes are not a valid encoded value
+     * @throws java.nio.BufferUnderflowException If the value is truncated
+     */
+    public static Object read(ByteBuffer in) {
+        int type = peekType(in);
+        return switch (type) {
+            case FORMULA -> readFormula(in);
+            case SAMPLE -> readSample(in);
+            case SOLUTION -> readSolution(in);
+            case EQUATION -> readEquation(in);
+            default -> throw new IllegalArgumentException("Unknown binary value type: " + type);
+        };
+    }
+
+    /**
+     * Reads a formula written by {@link #write(ByteBuffer, Formula)}.
+     *
+     * @param in The source buffer
+     * @return The decoded formula
+     * @throws IllegalArgumentException If the bytes are not a valid encoded formula
+     * @throws java.nio.BufferUnderflowException If the value is truncated
+     */
+    public static Formula readFormula(ByteBuffer in) {
+        readHeader(in, FORMULA);
+        return readFormulaBody(in);
+    }
+
+    /**
+     * Reads a sample written by {@link #write(ByteBuffer, Sample)}.
+     *
+     * @param in The source buffer
+     * @return The decoded sample
+     * @throws IllegalArgumentException If the bytes are not a valid encoded sample
+     * @throws java.nio.BufferUnderflowException If the value is truncated
+     */
+    public static Sample readSample(ByteBuffer in) {
+        readHeader(in, SAMPLE);
+        return readSampleBody(in);
+    }
+
+    /**
+     * Reads a solution written by {@link #write(ByteBuffer, Solution)}.
+     *
+     * @param in The source buffer
+     * @return The decoded solution
+     * @throws IllegalArgumentException If the bytes are not a valid encoded solution
+     * @throws java.nio.BufferUnderflowException If the value is truncated
+     */
+    public static Solution readSolution(ByteBuffer in) {
+        readHeader(in, SOLUTION);
+        Sample sample = readSampleBody(in);
+        double volume = readDouble(in);
+        double molarity = readDouble(in);
+        return new Solution(sample, volume, molarity);
+    }
+
+    /**
+     * Reads an equation written by {@link #write(ByteBuffer, Equation)}.
+     *
+     * @param in The source buffer
+     * @return The decoded equation, with the stored multipliers
+     * @throws IllegalArgumentException If the bytes are not a valid encoded equation
+     * @throws java.nio.BufferUnderflowException If the value is truncated
+     */
+    public static Equation readEquation(ByteBuffer in) {
+        readHeader(in, EQUATION);
+        int leftCount = readVarint(in);
+        int rightCount = readVarint(in);
+        if (leftCount < 0 || rightCount < 0 || (long) leftCount + rightCount > in.remaining()) {
+            throw new IllegalArgumentException("Invalid formula counts: " + leftCount + ", " + rightCount);
+        }
+
+        ArrayList<Formula> left = new ArrayList<>(leftCount);
+        for (int i = 0; i < leftCount; i++) {
+            left.add(readFormulaBody(in));
+        }
+        ArrayList<Formula> right = new ArrayList<>(rightCount);
+        for (int i = 0; i < rightCount; i++) {
+            right.add(readFormulaBody(in));
+        }
+        return new Equation(left, right);
+    }
+
+    /**
+     * Decodes a formula from bytes produced by {@link #encode(Formula)}.
+     *
+     * @param bytes The encoded bytes
+     * @return The decoded formula
+     */
+    public static Formula decodeFormula(byte[] bytes) {
+        return readFormula(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Decodes an equation from bytes produced by {@link #encode(Equation)}.
+     *
+     * @param bytes The encoded bytes
+     * @return The decoded equation
+     */
+    public static Equation decodeEquation(byte[] bytes) {
+        return readEquation(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Reads and checks a header byte.
+     *
+     * @param in The source buffer
+     * @param type The expected value type
+     * @throws IllegalArgumentException If the version or type does not match
+     */
+    private static void readHeader(ByteBuffer in, int type) {
+        int actual = peekType(in);
+        if (actual != type) {
+            throw new IllegalArgumentException("Expected binary value type " + type + " but found " + actual);
+        }
+        in.get();
+    }
+
+    /**
+     * Reads the formula fields that follow a header, summing the molar mass from the
+     * element table as each element is read.
+     *
+     * @param in The source buffer
+     * @return The decoded formula
+     */
+    private static Formula readFormulaBody(ByteBuffer in) {
+        int first = readVarint(in);
+        int distinct = first >>> 1;
+        if (distinct > MAX_ATOMIC_NUMBER) {
+            throw new IllegalArgumentException("Invalid element count: " + distinct);
+        }
+
+        int[] numbers = new int[distinct];
+        int[] counts = new int[distinct];
+        String[] symbols = new String[distinct];
+        PeriodicTable table = PeriodicTable.current(); // One snapshot for every element
+        double molarMass = 0;
+        int number = 0;
+        for (int i = 0; i < distinct; i++) {
+            int element = readVarint(in);
+            int delta = element >>> 1;
+            if (delta == 0 || delta > MAX_ATOMIC_NUMBER - number) {
+                throw new IllegalArgumentException("Invalid atomic number after " + number);
+            }
+            number += delta;
+            int count = (element & 1) != 0 ? 1 : readVarint(in);
+            if (count <= 0) {
+                throw new IllegalArgumentException("Invalid atom count for element " + number + ": " + count);
+            }
+            numbers[i] = number;
+            counts[i] = count;
+            symbols[i] = table.atomicSymbolOf(number);
+            molarMass += count * table.atomicMassOf(number);
+        }
+
+        int charge = 0;
+        int multiplier = 1;
+        if ((first & 1) != 0) {
+            charge = unZigZag(readVarint(in));
+            multiplier = readVarint(in);
+        }
+        return new Formula(multiplier, charge, numbers, counts, symbols, molarMass, table.getVersion());
+    }
+
+    /**
+     * Reads the sample fields that follow a header.
+     *
+     * @param in The source buffer
+     * @return The decoded sample
+     */
+    private static Sample readSampleBody(ByteBuffer in) {
+        Formula formula = readFormulaBody(in);
+        double mass = readDouble(in);
+        double moles = readDouble(in);
+        return new Sample(formula, mass, moles);
+    }
+
+    // Primitives
+
+    /**
+     * Builds the header byte for a value type.
+     *
+     * @param type The value type
+     * @return The header byte
+     */
+    private static byte header(int type) {
+        return (byte) (VERSION << 4 | type);
+    }
+
+    /**
+     * Checks whether a formula needs its charge and multiplier written.
+     *
+     * @param formula The formula
+     * @return true if the charge is not 0 or the multiplier is not 1
+     */
+    private static boolean hasExtra(Formula formula) {
+        return formula.getCharge() != 0 || formula.getMultiplier() != 1;
+    }
+
+    /**
+     * Writes an int as an unsigned LEB128 varint (1 to 5 bytes).
+     *
+     * @param out The destination buffer
+     * @param value The value, treated as unsigned
+     */
+    static void writeVarint(ByteBuffer out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.put((byte) (value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    /**
+     * Reads an unsigned LEB128 varint written by {@link #writeVarint(ByteBuffer, int)}.
+     *
+     * @param in The source buffer
+     * @return The value
+     * @throws IllegalArgumentException If the varint is longer than 5 bytes
+     */
+    static int readVarint(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Varint is longer than 5 bytes");
+    }
+
+    /**
+     * Calculates the encoded size of a varint.
+     *
+     * @param value The value, treated as unsigned
+     * @return The size in bytes (1 to 5)
+     */
+    static int varintSize(int value) {
+        return (31 - Integer.numberOfLeadingZeros(value | 1)) / 7 + 1;
+    }
+
+    /**
+     * Maps a signed int to an unsigned one so small magnitudes of either sign encode
+     * in few bytes (0, -1, 1, -2, ... become 0, 1, 2, 3, ...).
+     *
+     * @param value The signed value
+     * @return The zig-zag encoded value
+     */
+    static int zigZag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    /**
+     * Reverses {@link #zigZag(int)}.
+     *
+     * @param value The zig-zag encoded value
+     * @return The signed value
+     */
+    static int unZigZag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Writes a double as 8 big-endian bytes, regardless of the buffer's byte order.
+     *
+     * @param out The destination buffer
+     * @param value The value
+     */
+    private static void writeDouble(ByteBuffer out, double value) {
+        long bits = Double.doubleToRawLongBits(value);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            out.put((byte) (bits >>> shift));
+        }
+    }
+
+    /**
+     * Reads a double written by {@link #writeDouble(ByteBuffer, double)}.
+     *
+     * @param in The source buffer
+     * @return The value
+     */
+    private static double readDouble(ByteBuffer in) {
+        long bits = 0;
+        for (int i = 0; i < Double.BYTES; i++) {
+            bits = bits << 8 | (in.get() & 0xFF);
+        }
+        return Double.longBitsToDouble(bits);
+    }
+}
@@ -0,0 +1,64 @@
+package edu.guilford.chemtools;
+
+/**
+ * The Compound class is an entry of the compound dictionary, pairing a common name
+ * with its formula (in the syntax accepted by {@link Formula}) and any synonyms.
+ */
+public class Compound {
+
+    private final String name; // Common name of the compound
+    private final String formula; // Formula string of the compound
+    private final String[] synonyms; // Alternative names of the compound
+
+    /**
+     * Constructor that creates a Compound entry.
+     *
+     * @param name The common name of the compound (e.g., "Water")
+     * @param formula The formula string of the compound (e.g., "H_2O")
+     * @param synonyms Alternative names of the compound
+     */
+    public Compound(String name, String formula, String[] synonyms) {
+        this.name = name;
+        this.formula = formula;
+        this.synonyms = synonyms;
+    }
+
+    // Getters
+
+    /**
+     * Gets the common name of the compound.
+     *
+     * @return The common name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the formula string of the compound.
+     *
+     * @return The formula string
+     */
+    public String getFormula() {
+        return formula;
+    }
+
+    /**
+     * Gets the alternative names of the compound.
+     *
+     * @return The synonyms (may be empty)
+     */
+    public String[] getSynonyms() {
+        return synonyms.clone();
+    }
+
+    /**
+     * Returns a string representation of the compound for display in suggestion lists.
+     *
+     * @return The name and formula of the compound
+     */
+    @Override
+    public String toString() {
+        return name + " (" + formula + ")";
+    }
+}
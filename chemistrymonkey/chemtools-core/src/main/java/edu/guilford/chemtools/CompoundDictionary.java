@@ -0,0 +1,193 @@
+package edu.guilford.chemtools;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The CompoundDictionary class maps common compound names, synonyms and formulas to
+ * {@link Compound} entries. The bundled dictionary is loaded into a {@link CompoundTrie}
+ * so that prefix and fuzzy lookups for autocomplete take microseconds. The shared
+ * instance is built lazily on a background thread the first time it is requested.
+ */
+public class CompoundDictionary {
+
+    // Bundled dictionary resource (Name, Formula, Synonyms separated by ';')
+    private static final String COMPOUNDS_FILE = "compounds.csv";
+
+    // Shared dictionary, loaded on first request
+    private static CompletableFuture<CompoundDictionary> sharedDictionary;
+
+    private final ArrayList<Compound> compounds = new ArrayList<>(); // All entries, indexed by id
+    private final CompoundTrie trie = new CompoundTrie(); // Lowercase keys to compound ids
+
+    /**
+     * Constructor that creates a dictionary from a list of compounds.
+     *
+     * @param entries The compounds to index
+     */
+    public CompoundDictionary(List<Compound> entries) {
+        for (Compound compound : entries) {
+            addCompound(compound);
+        }
+        trie.trim();
+    }
+
+    /**
+     * Starts loading the bundled dictionary on a background thread if it has not been
+     * requested yet, and returns the pending or completed result.
+     *
+     * @return A future completed with the shared dictionary
+     */
+    public static synchronized CompletableFuture<CompoundDictionary> loadAsync() {
+        if (sharedDictionary == null) {
+            sharedDictionary = new CompletableFuture<>();
+            Thread loader = new Thread(() -> {
+                try {
+                    sharedDictionary.complete(new CompoundDictionary(readBundledCompounds()));
+                } catch (Exception e) {
+                    sharedDictionary.completeExceptionally(e);
+                }
+            }, "compound-dictionary-loader");
+            loader.setDaemon(true);
+            loader.start();
+        }
+        return sharedDictionary;
+    }
+
+    /**
+     * Gets the shared dictionary if it has finished loading, without blocking.
+     *
+     * @return The shared dictionary, or null if it is not loaded yet
+     */
+    public static synchronized CompoundDictionary getIfLoaded() {
+        if (sharedDictionary == null || !sharedDictionary.isDone()
+                || sharedDictionary.isCompletedExceptionally()) {
+            return null;
+        }
+        return sharedDictionary.join();
+    }
+
+    /**
+     * Reads the bundled compound dictionary from the classpath.
+     *
+     * @return The list of compounds
+     * @throws Exception If the resource cannot be read
+     */
+    private static List<Compound> readBundledCompounds() throws Exception {
+        List<Compound> entries = new ArrayList<>();
+        for (String[] line : CsvLines.readResource(COMPOUNDS_FILE)) {
+            if (line.length < 2 || line[0].isBlank()) {
+                continue;
+            }
+            String[] synonyms = (line.length > 2 && !line[2].isBlank()) ? line[2].split(";") : new String[0];
+            entries.add(new Compound(line[0].trim(), line[1].trim(), synonyms));
+        }
+        return entries;
+    }
+
+    /**
+     * Adds a compound and indexes its name, synonyms and formula.
+     *
+     * @param compound The compound to add
+     */
+    private void addCompound(Compound compound) {
+        int id = compounds.size();
+        compounds.add(compound);
+
+        trie.insert(normalize(compound.getName()), id);
+        for (String synonym : compound.getSynonyms()) {
+            trie.insert(normalize(synonym), id);
+        }
+
+        // Index the formula both as written and without subscript markers ("h_2o" and "h2o")
+        String formula = normalize(compound.getFormula());
+        trie.insert(formula, id);
+        trie.insert(formula.replace("_", ""), id);
+    }
+
+    /**
+     * Finds compounds whose name, synonym or formula starts with the text.
+     *
+     * @param text The text typed so far
+     * @param limit The maximum number of results
+     * @return The matching compounds, shortest keys first
+     */
+    public List<Compound> prefixSearch(String text, int limit) {
+        return toCompounds(trie.prefixSearch(normalize(text), limit));
+    }
+
+    /**
+     * Finds compounds whose name, synonym or formula starts with a string within
+     * a number of typing mistakes of the text.
+     *
+     * @param text The text typed so far
+     * @param maxEdits The maximum number of insertions, deletions or substitutions
+     * @param limit The maximum number of results
+     * @return The matching compounds, closest matches first
+     */
+    public List<Compound> fuzzySearch(String text, int maxEdits, int limit) {
+        return toCompounds(trie.fuzzySearch(normalize(text), maxEdits, limit));
+    }
+
+    /**
+     * Suggests compounds for autocomplete. Exact prefix matches come first; the
+     * remaining slots are filled with fuzzy matches, allowing one mistake for short
+     * text and two for longer text.
+     *
+     * @param text The text typed so far
+     * @param limit The maximum number of suggestions
+     * @return The suggested compounds
+     */
+    public List<Compound> suggest(String text, int limit) {
+        String key = normalize(text);
+        if (key.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<Compound> suggestions = prefixSearch(key, limit);
+        if (suggestions.size() < limit && key.length() >= 3) {
+            int maxEdits = key.length() >= 6 ? 2 : 1;
+            for (Compound compound : fuzzySearch(key, maxEdits, limit)) {
+                if (suggestions.size() < limit && !suggestions.contains(compound)) {
+                    suggestions.add(compound);
+                }
+            }
+        }
+        return suggestions;
+    }
+
+    /**
+     * Gets the number of compounds in the dictionary.
+     *
+     * @return The number of compounds
+     */
+    public int size() {
+        return compounds.size();
+    }
+
+    /**
+     * Converts trie results into compound entries.
+     *
+     * @param ids The compound ids
+     * @return The compounds
+     */
+    private List<Compound> toCompounds(int[] ids) {
+        List<Compound> result = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            result.add(compounds.get(id));
+        }
+        return result;
+    }
+
+    /**
+     * Normalizes text into a trie key.
+     *
+     * @param text The text to normalize
+     * @return The trimmed, lowercase key
+     */
+    private static String normalize(String text) {
+        return text.trim().toLowerCase(Locale.ROOT);
+    }
+}
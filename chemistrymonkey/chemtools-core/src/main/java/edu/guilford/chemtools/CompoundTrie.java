@@ -0,0 +1,320 @@
+package edu.guilford.chemtools;
+
+import java.util.Arrays;
+
+/**
+ * The CompoundTrie class is a compact, array-backed prefix trie mapping lowercase
+ * keys to compound ids. Nodes are stored in parallel primitive arrays (label, first
+ * child, next sibling) rather than as objects, so a dictionary of a few thousand keys
+ * fits in a handful of arrays and lookups do not chase object pointers.
+ */
+class CompoundTrie {
+
+    private static final int NONE = -1; // Marker for a missing node or posting
+
+    // Node arrays, node 0 is the root
+    private char[] labels = new char[64];
+    private int[] firstChild = new int[64];
+    private int[] nextSibling = new int[64];
+    private int[] postingHead = new int[64];
+    private int nodeCount = 1;
+
+    // Posting lists (compound ids stored at the node where a key ends)
+    private int[] postingCompound = new int[32];
+    private int[] postingNext = new int[32];
+    private int postingCount = 0;
+
+    private int maxDepth = 0; // Length of the longest key
+
+    /**
+     * Default constructor that creates an empty trie.
+     */
+    CompoundTrie() {
+        firstChild[0] = NONE;
+        nextSibling[0] = NONE;
+        postingHead[0] = NONE;
+    }
+
+    /**
+     * Inserts a key for a compound id. Keys are expected to be lowercase already.
+     *
+     * @param key The key to insert
+     * @param compoundId The compound id the key resolves to
+     */
+    void insert(String key, int compoundId) {
+        int node = 0;
+        for (int i = 0; i < key.length(); i++) {
+            node = childFor(node, key.charAt(i), true);
+        }
+        maxDepth = Math.max(maxDepth, key.length());
+
+        // Skip duplicate postings of the same compound on one key
+        for (int p = postingHead[node]; p != NONE; p = postingNext[p]) {
+            if (postingCompound[p] == compoundId) {
+                return;
+            }
+        }
+
+        if (postingCount == postingCompound.length) {
+            postingCompound = Arrays.copyOf(postingCompound, postingCount * 2);
+            postingNext = Arrays.copyOf(postingNext, postingCount * 2);
+        }
+        postingCompound[postingCount] = compoundId;
+        postingNext[postingCount] = postingHead[node];
+        postingHead[node] = postingCount++;
+    }
+
+    /**
+     * Shrinks the backing arrays to their used size once all keys have been inserted.
+     */
+    void trim() {
+        labels = Arrays.copyOf(labels, nodeCount);
+        firstChild = Arrays.copyOf(firstChild, nodeCount);
+        nextSibling = Arrays.copyOf(nextSibling, nodeCount);
+        postingHead = Arrays.copyOf(postingHead, nodeCount);
+        postingCompound = Arrays.copyOf(postingCompound, postingCount);
+        postingNext = Arrays.copyOf(postingNext, postingCount);
+    }
+
+    /**
+     * Finds the compounds with a key starting with the prefix. Shorter keys are
+     * returned first.
+     *
+     * @param prefix The lowercase prefix
+     * @param limit The maximum number of compound ids to return
+     * @return The matching compound ids without duplicates
+     */
+    int[] prefixSearch(String prefix, int limit) {
+        int node = 0;
+        for (int i = 0; i < prefix.length() && node != NONE; i++) {
+            node = childFor(node, prefix.charAt(i), false);
+        }
+        Results results = new Results(limit);
+        if (node != NONE) {
+            collectSubtree(node, results);
+        }
+        return results.toArray();
+    }
+
+    /**
+     * Finds the compounds with a key starting with a string within a number of
+     * edits (insertions, deletions or substitutions) of the query. Closer matches
+     * are returned first.
+     *
+     * @param query The lowercase query
+     * @param maxEdits The maximum edit distance allowed
+     * @param limit The maximum number of compound ids to return
+     * @return The matching compound ids without duplicates
+     */
+    int[] fuzzySearch(String query, int maxEdits, int limit) {
+        int columns = query.length() + 1;
+        int[][] rows = new int[maxDepth + 1][columns];
+        for (int j = 0; j < columns; j++) {
+            rows[0][j] = j;
+        }
+
+        // Collect prefix nodes grouped by edit distance so closer matches come first
+        int[][] matches = new int[maxEdits + 1][16];
+        int[] matchCounts = new int[maxEdits + 1];
+        if (rows[0][columns - 1] <= maxEdits) {
+            addMatch(matches, matchCounts, rows[0][columns - 1], 0);
+        } else {
+            fuzzyDescend(0, 1, query, maxEdits, rows, matches, matchCounts);
+        }
+
+        Results results = new Results(limit);
+        for (int distance = 0; distance <= maxEdits && !results.isFull(); distance++) {
+            for (int i = 0; i < matchCounts[distance] && !results.isFull(); i++) {
+                collectSubtree(matches[distance][i], results);
+            }
+        }
+        return results.toArray();
+    }
+
+    /**
+     * Walks the children of a node, extending the edit-distance table one row per level.
+     * A child whose key prefix is within the edit budget of the whole query is recorded
+     * as a match, and the walk continues while any cell is still within budget.
+     *
+     * @param parent The node whose children are visited
+     * @param depth The depth of the children
+     * @param query The lowercase query
+     * @param maxEdits The maximum edit distance allowed
+     * @param rows Edit-distance rows, one per depth
+     * @param matches Matched nodes grouped by distance
+     * @param matchCounts Number of matched nodes per distance
+     */
+    private void fuzzyDescend(int parent, int depth, String query, int maxEdits, int[][] rows,
+            int[][] matches, int[] matchCounts) {
+        int[] previous = rows[depth - 1];
+        int[] current = rows[depth];
+        int columns = previous.length;
+
+        for (int child = firstChild[parent]; child != NONE; child = nextSibling[child]) {
+            char label = labels[child];
+            current[0] = depth;
+            int rowMin = current[0];
+            for (int j = 1; j < columns; j++) {
+                int substitution = previous[j - 1] + (query.charAt(j - 1) == label ? 0 : 1);
+                int cost = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+                current[j] = cost;
+                rowMin = Math.min(rowMin, cost);
+            }
+
+            // Keep descending past an inexact match, a deeper node may match more closely
+            if (current[columns - 1] <= maxEdits) {
+                addMatch(matches, matchCounts, current[columns - 1], child);
+            }
+            if (current[columns - 1] > 0 && rowMin <= maxEdits && depth < maxDepth) {
+                fuzzyDescend(child, depth + 1, query, maxEdits, rows, matches, matchCounts);
+            }
+        }
+    }
+
+    /**
+     * Records a matched node for a given edit distance.
+     *
+     * @param matches Matched nodes grouped by distance
+     * @param matchCounts Number of matched nodes per distance
+     * @param distance The edit distance of the match
+     * @param node The matched node
+     */
+    private static void addMatch(int[][] matches, int[] matchCounts, int distance, int node) {
+        if (matchCounts[distance] == matches[distance].length) {
+            matches[distance] = Arrays.copyOf(matches[distance], matchCounts[distance] * 2);
+        }
+        matches[distance][matchCounts[distance]++] = node;
+    }
+
+    /**
+     * Adds the compounds stored in a node's subtree in breadth-first order, so that
+     * shorter keys are reported before longer ones.
+     *
+     * @param start The root of the subtree
+     * @param results The result collector
+     */
+    private void collectSubtree(int start, Results results) {
+        int[] queue = new int[16];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = start;
+
+        while (head < tail && !results.isFull()) {
+            int node = queue[head++];
+            for (int p = postingHead[node]; p != NONE && !results.isFull(); p = postingNext[p]) {
+                results.add(postingCompound[p]);
+            }
+            for (int child = firstChild[node]; child != NONE; child = nextSibling[child]) {
+                if (tail == queue.length) {
+                    queue = Arrays.copyOf(queue, tail * 2);
+                }
+                queue[tail++] = child;
+            }
+        }
+    }
+
+    /**
+     * Finds the child of a node with the given label, optionally creating it.
+     * Siblings are kept sorted by label.
+     *
+     * @param parent The parent node
+     * @param label The label of the child
+     * @param create Whether to create the child if it is missing
+     * @return The child node, or NONE if it is missing and create is false
+     */
+    private int childFor(int parent, char label, boolean create) {
+        int previous = NONE;
+        int child = firstChild[parent];
+        while (child != NONE && labels[child] < label) {
+            previous = child;
+            child = nextSibling[child];
+        }
+        if (child != NONE && labels[child] == label) {
+            return child;
+        }
+        if (!create) {
+            return NONE;
+        }
+
+        // Create the node and link it between previous and child
+        if (nodeCount == labels.length) {
+            int capacity = nodeCount * 2;
+            labels = Arrays.copyOf(labels, capacity);
+            firstChild = Arrays.copyOf(firstChild, capacity);
+            nextSibling = Arrays.copyOf(nextSibling, capacity);
+            postingHead = Arrays.copyOf(postingHead, capacity);
+        }
+        int node = nodeCount++;
+        labels[node] = label;
+        firstChild[node] = NONE;
+        postingHead[node] = NONE;
+        nextSibling[node] = child;
+        if (previous == NONE) {
+            firstChild[parent] = node;
+        } else {
+            nextSibling[previous] = node;
+        }
+        return node;
+    }
+
+    /**
+     * Gets the number of nodes in the trie.
+     *
+     * @return The node count
+     */
+    int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * The Results class collects distinct compound ids up to a limit.
+     */
+    private static class Results {
+
+        private final int[] ids;
+        private int count = 0;
+
+        /**
+         * Constructor that creates a collector for up to limit ids.
+         *
+         * @param limit The maximum number of ids
+         */
+        Results(int limit) {
+            ids = new int[Math.max(0, limit)];
+        }
+
+        /**
+         * Adds an id if it is not already present and the collector is not full.
+         *
+         * @param id The compound id
+         */
+        void add(int id) {
+            for (int i = 0; i < count; i++) {
+                if (ids[i] == id) {
+                    return;
+                }
+            }
+            if (count < ids.length) {
+                ids[count++] = id;
+            }
+        }
+
+        /**
+         * Checks whether the collector has reached its limit.
+         *
+         * @return true if no more ids can be added
+         */
+        boolean isFull() {
+            return count == ids.length;
+        }
+
+        /**
+         * Returns the collected ids.
+         *
+         * @return The ids in insertion order
+         */
+        int[] toArray() {
+            return Arrays.copyOf(ids, count);
+        }
+    }
+}
@@ -0,0 +1,476 @@
+package edu.guilford.chemtools;
+
+import com.opencsv.CSVReader;
+import com.opencsv.CSVWriter;
+import com.opencsv.exceptions.CsvValidationException;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+/**
+ * The ConversionJob class fills in the missing quantities of a CSV file of samples and
+ * solutions, one per row, the way {@link Sample} and {@link Solution} do for one. The
+ * input needs a Formula column and any of Mass (g), Moles (mol), Volume (L) and
+ * Molarity (mol/L); headers are matched ignoring case, spaces and anything from a
+ * parenthesis on. Each row needs an amount (mass or moles), or a volume and a molarity:
+ *
+ * <ul>
+ * <li>a mass gives the moles, or moles the mass, through the molar mass,</li>
+ * <li>an amount and a volume give the molarity, an amount and a molarity the volume,
+ *     and</li>
+ * <li>a volume and a molarity give the amount, which makes a prep sheet: a list of
+ *     solutions to make up, completed with the mass of each compound to weigh out.</li>
+ * </ul>
+ *
+ * The output has every input column, then any of the quantity columns and Molar Mass
+ * (g/mol) the input lacks, then Error, which explains rows that could not be completed.
+ * Only blank cells are filled, with calculated values rounded to six significant
+ * figures by default. A row that gives more quantities than it needs (both a mass and
+ * moles, or an amount with both a volume and a molarity) must be consistent: values
+ * that disagree by more than 0.1%, more than rounding explains, are reported as an
+ * error rather than one of them being silently ignored.
+ *
+ * Rows are streamed through opencsv a block at a time, so memory stays bounded however
+ * long the file is. Each block is read into primitive columns, completed, and formatted
+ * back, with the parsing and formatting spread across threads by row and the rows
+ * written in their input order. Parsed formulas are cached from block to block, so
+ * rows sharing a formula parse it once; the cache is emptied between blocks once it
+ * holds 65,536 formulas, so a file of mostly distinct compounds
+ * does not grow it without limit.
+ *
+ * opencsv is an optional dependency of the core module, so it must be on the class or
+ * module path to use this class.
+ *
+ * <pre>
+ * ConversionJob &lt;input.csv&gt; &lt;output.csv&gt;
+ * </pre>
+ */
+public class ConversionJob {
+
+    public static final int DEFAULT_BLOCK_SIZE = 4096; // Rows held in memory at once
+    public static final int DEFAULT_SIGNIFICANT_FIGURES = 6; // Digits kept in calculated values
+    private static final int PARALLEL_ROWS = 256; // Block size from which rows are split across threads
+    private static final double TOLERANCE = 1e-3; // Relative disagreement allowed between given quantities
+    private static final int MAX_CACHED_FORMULAS = 1 << 16; // Parsed formulas kept before the cache is emptied
+
+    // Quantity columns, in the order of QUANTITY_KEYS and QUANTITY_HEADERS
+    private static final int MASS = 0;
+    private static final int MOLES = 1;
+    private static final int VOLUME = 2;
+    private static final int MOLARITY = 3;
+    private static final int MOLAR_MASS = 4;
+    private static final String[] QUANTITY_KEYS = {"mass", "moles", "volume", "molarity", "molarmass"};
+    private static final String[] QUANTITY_HEADERS = {"Mass (g)", "Moles (mol)", "Volume (L)", "Molarity (mol/L)",
+            "Molar Mass (g/mol)"};
+
+    private final Map<String, Formula> formulas = new ConcurrentHashMap<>(); // Parsed formulas, by text
+    private int blockSize = DEFAULT_BLOCK_SIZE; // Rows held in memory at once
+    private MathContext precision = new MathContext(DEFAULT_SIGNIFICANT_FIGURES); // Rounding of calculated values
+    private long rowCount; // Rows written by the last run
+    private long failureCount; // Rows with an error in the last run
+
+    /**
+     * Converts a CSV file.
+     *
+     * @param args The input and output file names
+     * @throws IOException If a file cannot be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: ConversionJob <input.csv> <output.csv>");
+            System.exit(2);
+        }
+        ConversionJob job = new ConversionJob();
+        try (Reader input = Files.newBufferedReader(Path.of(args[0]), StandardCharsets.UTF_8);
+                Writer output = Files.newBufferedWriter(Path.of(args[1]), StandardCharsets.UTF_8)) {
+            job.run(input, output);
+        }
+        System.out.println("Wrote " + job.getRowCount() + " rows to " + args[1] + " (" + job.getFailureCount()
+                + " with errors)");
+    }
+
+    /**
+     * Reads rows from a CSV input, completes them, and writes them to a CSV output. The
+     * streams are left open.
+     *
+     * @param input The input, with a header row
+     * @param output The output
+     * @return The number of rows written, not counting the header
+     * @throws IOException If the input cannot be read or the output written
+     * @throws IllegalArgumentException If the input has no Formula column
+     */
+    public long run(Reader input, Writer output) throws IOException {
+        rowCount = 0;
+        failureCount = 0;
+        CSVReader reader = new CSVReader(input);
+        CSVWriter writer = new CSVWriter(output);
+        String[] header = readNext(reader);
+        if (header == null) {
+            return 0;
+        }
+
+        // Find the input columns, and add the missing ones after them
+        int formulaColumn = -1;
+        int[] columns = new int[QUANTITY_KEYS.length];
+        Arrays.fill(columns, -1);
+        for (int i = 0; i < header.length; i++) {
+            String key = key(header[i]);
+            if (key.equals("formula")) {
+                formulaColumn = i;
+            }
+            for (int q = 0; q < QUANTITY_KEYS.length; q++) {
+                if (key.equals(QUANTITY_KEYS[q]) && columns[q] < 0) {
+                    columns[q] = i;
+                }
+            }
+        }
+        if (formulaColumn < 0) {
+            throw new IllegalArgumentException("Input needs a Formula column");
+        }
+        List<String> outputHeader = new ArrayList<>(Arrays.asList(header));
+        for (int q = 0; q < QUANTITY_KEYS.length; q++) {
+            if (columns[q] < 0) {
+                columns[q] = outputHeader.size();
+                outputHeader.add(QUANTITY_HEADERS[q]);
+            }
+        }
+        int errorColumn = outputHeader.size();
+        outputHeader.add("Error");
+        writer.writeNext(outputHeader.toArray(new String[0]), false);
+
+        Block block = new Block(blockSize, outputHeader.size(), formulaColumn, columns, errorColumn);
+        while (block.read(reader) > 0) {
+            block.convert();
+            for (int i = 0; i < block.size; i++) {
+                writer.writeNext(block.rows[i], false);
+                if (block.errors[i] != null) {
+                    failureCount++;
+                }
+            }
+            rowCount += block.size;
+            if (formulas.size() > MAX_CACHED_FORMULAS) {
+                formulas.clear(); // No block is being converted, so nothing reads the cache
+            }
+        }
+        writer.flush();
+        CoreMetrics.CONVERSION_ROWS.add(rowCount);
+        CoreMetrics.CONVERSION_FAILURES.add(failureCount);
+        return rowCount;
+    }
+
+    /**
+     * Reads the next row, treating malformed CSV as an I/O failure.
+     *
+     * @param reader The reader
+     * @return The row, or null at the end of the input
+     * @throws IOException If the input cannot be read or is malformed
+     */
+    private static String[] readNext(CSVReader reader) throws IOException {
+        try {
+            return reader.readNext();
+        } catch (CsvValidationException e) {
+            throw new IOException("Malformed CSV near line " + reader.getLinesRead(), e);
+        }
+    }
+
+    /**
+     * Normalizes a header for matching: lowercase, without spaces, and without anything
+     * from a parenthesis on.
+     *
+     * @param header The header
+     * @return The key
+     */
+    private static String key(String header) {
+        int unit = header.indexOf('(');
+        String name = unit < 0 ? header : header.substring(0, unit);
+        return name.replace(" ", "").strip().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Gets a formula, parsing it the first time it is seen in the job.
+     *
+     * @param text The formula text
+     * @return The formula
+     * @throws IllegalArgumentException If the text is not a valid formula
+     */
+    private Formula formula(String text) {
+        return formulas.computeIfAbsent(text, Formula::new);
+    }
+
+    /**
+     * The Block class holds one block of rows, as the input strings and as primitive
+     * columns of the quantities, with NaN for a blank. It is reused for every block of
+     * a run.
+     */
+    private class Block {
+
+        private final int width; // Output columns
+        private final int formulaColumn; // Column of the formula
+        private final int[] columns; // Output column of each quantity
+        private final int errorColumn; // Column of the error message
+        private final String[][] rows; // Rows, padded to the output width
+        private final double[][] values; // Values of each quantity, by quantity then row
+        private final String[] errors; // Error of each row, or null
+        private int size; // Rows in the block
+
+        /**
+         * Constructor that creates an empty block.
+         *
+         * @param capacity The most rows the block holds
+         * @param width The number of output columns
+         * @param formulaColumn The column of the formula
+         * @param columns The output column of each quantity
+         * @param errorColumn The column of the error message
+         */
+        Block(int capacity, int width, int formulaColumn, int[] columns, int errorColumn) {
+            this.width = width;
+            this.formulaColumn = formulaColumn;
+            this.columns = columns;
+            this.errorColumn = errorColumn;
+            rows = new String[capacity][];
+            values = new double[QUANTITY_KEYS.length][capacity];
+            errors = new String[capacity];
+        }
+
+        /**
+         * Reads the next block of rows, skipping blank lines.
+         *
+         * @param reader The reader
+         * @return The number of rows read; 0 at the end of the input
+         * @throws IOException If the input cannot be read or is malformed
+         */
+        int read(CSVReader reader) throws IOException {
+            Arrays.fill(rows, null);
+            size = 0;
+            String[] row;
+            while (size < rows.length && (row = readNext(reader)) != null) {
+                if (row.length > 1 || !row[0].isBlank()) {
+                    rows[size++] = Arrays.copyOf(row, Math.max(width, row.length));
+                }
+            }
+            return size;
+        }
+
+        /**
+         * Parses, completes and formats every row of the block.
+         */
+        void convert() {
+            rowRange().forEach(this::parse);
+            complete();
+            rowRange().forEach(this::format);
+        }
+
+        /**
+         * Gets the rows of the block as a stream, in parallel when the block is large
+         * enough for that to pay.
+         *
+         * @return The row indices
+         */
+        private IntStream rowRange() {
+            IntStream range = IntStream.range(0, size);
+            return size >= PARALLEL_ROWS ? range.parallel() : range;
+        }
+
+        /**
+         * Parses a row's formula and quantities into the columns.
+         *
+         * @param i The row
+         */
+        private void parse(int i) {
+            String[] row = rows[i];
+            errors[i] = null;
+            for (int q = 0; q < QUANTITY_KEYS.length; q++) {
+                values[q][i] = Double.NaN;
+            }
+            try {
+                String text = row[formulaColumn] == null ? "" : row[formulaColumn].strip();
+                if (text.isEmpty()) {
+                    throw new IllegalArgumentException("Missing formula");
+                }
+                double molarMass = formula(text).getMolarMass();
+                if (!(molarMass > 0)) {
+                    throw new IllegalArgumentException("Not a formula: " + text); // The parser leaves invalid text empty
+                }
+                values[MOLAR_MASS][i] = molarMass;
+                for (int q = MASS; q <= MOLARITY; q++) {
+                    values[q][i] = number(row[columns[q]], q);
+                }
+            } catch (IllegalArgumentException e) {
+                errors[i] = e.getMessage();
+            }
+        }
+
+        /**
+         * Parses a quantity cell.
+         *
+         * @param cell The cell, which may be null or blank
+         * @param quantity The quantity, for error messages
+         * @return The value, or NaN for a blank
+         * @throws IllegalArgumentException If the cell is not a positive number
+         */
+        private double number(String cell, int quantity) {
+            if (cell == null || cell.isBlank()) {
+                return Double.NaN;
+            }
+            double value;
+            try {
+                value = Double.parseDouble(cell.strip());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Not a number in " + QUANTITY_HEADERS[quantity] + ": " + cell);
+            }
+            if (!(value > 0) || Double.isInfinite(value)) {
+                throw new IllegalArgumentException(QUANTITY_HEADERS[quantity] + " must be positive: " + cell);
+            }
+            return value;
+        }
+
+        /**
+         * Fills in the missing quantities of every row from the ones it has. A mass gives
+         * the moles and an amount and volume the molarity; a row that also gives the
+         * quantity being calculated is checked against it, and is an error if they
+         * disagree.
+         */
+        private void complete() {
+            double[] mass = values[MASS];
+            double[] moles = values[MOLES];
+            double[] volume = values[VOLUME];
+            double[] molarity = values[MOLARITY];
+            double[] molarMass = values[MOLAR_MASS];
+            for (int i = 0; i < size; i++) {
+                if (errors[i] != null) {
+                    continue;
+                }
+                if (!Double.isNaN(mass[i])) {
+                    double fromMass = mass[i] / molarMass[i];
+                    if (!Double.isNaN(moles[i]) && !agree(moles[i], fromMass)) {
+                        errors[i] = "Mass and moles disagree: " + text(mass[i]) + " g is " + text(fromMass)
+                                + " mol";
+                        continue;
+                    }
+                    moles[i] = fromMass;
+                } else if (!Double.isNaN(moles[i])) {
+                    mass[i] = moles[i] * molarMass[i];
+                } else if (!Double.isNaN(volume[i]) && !Double.isNaN(molarity[i])) {
+                    moles[i] = volume[i] * molarity[i];
+                    mass[i] = moles[i] * molarMass[i];
+                    continue;
+                } else {
+                    errors[i] = "Needs a mass or moles, or a volume and molarity";
+                    continue;
+                }
+                if (!Double.isNaN(volume[i])) {
+                    double fromVolume = moles[i] / volume[i];
+                    if (!Double.isNaN(molarity[i]) && !agree(molarity[i], fromVolume)) {
+                        errors[i] = "Volume and molarity disagree: " + text(moles[i]) + " mol in " + text(volume[i])
+                                + " L is " + text(fromVolume) + " mol/L";
+                        continue;
+                    }
+                    molarity[i] = fromVolume;
+                } else if (!Double.isNaN(molarity[i])) {
+                    volume[i] = moles[i] / molarity[i];
+                }
+            }
+        }
+
+        /**
+         * Checks whether a given value agrees with the one calculated from the rest of
+         * its row, to within TOLERANCE.
+         *
+         * @param given The value from the input
+         * @param calculated The value calculated from other quantities
+         * @return true if they agree
+         */
+        private boolean agree(double given, double calculated) {
+            return Math.abs(given - calculated) <= TOLERANCE * Math.max(given, calculated);
+        }
+
+        /**
+         * Formats a value rounded to the job's significant figures.
+         *
+         * @param value The value
+         * @return The text, without trailing zeros or an exponent
+         */
+        private String text(double value) {
+            return BigDecimal.valueOf(value).round(precision).stripTrailingZeros().toPlainString();
+        }
+
+        /**
+         * Writes a row's calculated quantities and error into its blank cells, rounded
+         * to the job's significant figures. Cells from the input are left as written, and
+         * a row with an error gets only its molar mass.
+         *
+         * @param i The row
+         */
+        private void format(int i) {
+            String[] row = rows[i];
+            for (int q = 0; q < QUANTITY_KEYS.length; q++) {
+                double value = errors[i] != null && q != MOLAR_MASS ? Double.NaN : values[q][i];
+                String cell = row[columns[q]];
+                if (!Double.isNaN(value) && (cell == null || cell.isBlank())) {
+                    row[columns[q]] = text(value);
+                }
+            }
+            row[errorColumn] = errors[i];
+        }
+    }
+
+    // Setters
+
+    /**
+     * Sets the number of rows held in memory at once.
+     *
+     * @param blockSize The block size
+     * @throws IllegalArgumentException If it is not positive
+     */
+    public void setBlockSize(int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Block size must be positive: " + blockSize);
+        }
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Sets the number of significant figures calculated values are written with.
+     *
+     * @param significantFigures The number of significant figures
+     * @throws IllegalArgumentException If it is not positive
+     */
+    public void setSignificantFigures(int significantFigures) {
+        if (significantFigures < 1) {
+            throw new IllegalArgumentException("Significant figures must be positive: " + significantFigures);
+        }
+        precision = new MathContext(significantFigures);
+    }
+
+    // Getters
+
+    /**
+     * Gets the number of rows the last run wrote.
+     *
+     * @return The row count
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Gets the number of rows the last run could not complete.
+     *
+     * @return The number of rows with an error
+     */
+    public long getFailureCount() {
+        return failureCount;
+    }
+}
@@ -0,0 +1,197 @@
+package edu.guilford.chemtools;
+
+import java.util.List;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * The ConversionSweep class does the {@link Sample} and {@link Solution} conversions
+ * for a grid of compounds, amounts and volumes at once, such as the rows of a lab prep
+ * sheet. Each compound's molar mass and each volume's reciprocal are calculated once,
+ * when the sweep is created, so every grid cell is one or two multiplies over primitive
+ * arrays, which the JIT compiles to vector instructions. Large grids are split across
+ * threads by compound.
+ *
+ * Results are flat arrays with one block per compound. For a grid over n amounts, the
+ * value for compound c, amount a and volume v is at
+ * {@code (c * n + a) * volumeCount + v}, and per-compound values without a volume are
+ * at {@code c * n + a}.
+ */
+public class ConversionSweep {
+
+    private static final int PARALLEL_CELLS = 1 << 15; // Grid size from which work is split across threads
+
+    private final int compoundCount; // Number of compounds
+    private final int volumeCount; // Number of volumes
+    private final Formula[] compounds; // Compounds, in grid order
+    private final double[] molarMasses; // Molar mass of each compound, g/mol
+    private final double[] inverseMolarMasses; // 1 / molar mass, mol/g
+    private final double[] volumes; // Volumes, L
+    private final double[] inverseVolumes; // 1 / volume, 1/L
+
+    /**
+     * Constructor that prepares a sweep.
+     *
+     * @param compounds The compounds
+     * @param volumes The solution volumes, in liters
+     * @throws IllegalArgumentException If a compound has no positive molar mass (such as
+     *         an empty or unparsed formula), or a volume is not positive
+     */
+    public ConversionSweep(List<? extends Formula> compounds, double[] volumes) {
+        compoundCount = compounds.size();
+        volumeCount = volumes.length;
+        this.compounds = compounds.toArray(new Formula[0]);
+        molarMasses = new double[compoundCount];
+        inverseMolarMasses = new double[compoundCount];
+        for (int c = 0; c < compoundCount; c++) {
+            molarMasses[c] = this.compounds[c].getMolarMass();
+            if (!(molarMasses[c] > 0) || Double.isInfinite(molarMasses[c])) {
+                throw new IllegalArgumentException("Molar mass of compound " + c + " must be positive: "
+                        + molarMasses[c]);
+            }
+            inverseMolarMasses[c] = 1.0 / molarMasses[c];
+        }
+
+        this.volumes = volumes.clone();
+        inverseVolumes = new double[volumeCount];
+        for (int v = 0; v < volumeCount; v++) {
+            if (!(volumes[v] > 0)) {
+                throw new IllegalArgumentException("Volume must be positive: " + volumes[v]);
+            }
+            inverseVolumes[v] = 1.0 / volumes[v];
+        }
+    }
+
+    /**
+     * Calculates the moles in each mass of each compound, as {@link Sample#setSampleMass}
+     * does.
+     *
+     * @param masses The sample masses, in grams
+     * @param out Filled with moles; at least compoundCount * masses.length long
+     */
+    public void moles(double[] masses, double[] out) {
+        checkOutput(out, masses.length);
+        for (int c = 0; c < compoundCount; c++) {
+            double inverseMolarMass = inverseMolarMasses[c];
+            int row = c * masses.length;
+            for (int m = 0; m < masses.length; m++) {
+                out[row + m] = masses[m] * inverseMolarMass;
+            }
+        }
+    }
+
+    /**
+     * Calculates the molarity of each mass of each compound dissolved to each volume, as
+     * {@link Solution#setVolume} does for a sample with a known mass.
+     *
+     * @param masses The sample masses, in grams
+     * @param out Filled with molarities in mol/L; at least
+     *        compoundCount * masses.length * volumeCount long
+     */
+    public void molarities(double[] masses, double[] out) {
+        checkOutput(out, masses.length * volumeCount);
+        forEachCompound(masses.length, c -> {
+            double inverseMolarMass = inverseMolarMasses[c];
+            int row = c * masses.length * volumeCount;
+            for (int m = 0; m < masses.length; m++) {
+                double moles = masses[m] * inverseMolarMass;
+                int cell = row + m * volumeCount;
+                for (int v = 0; v < volumeCount; v++) {
+                    out[cell + v] = moles * inverseVolumes[v];
+                }
+            }
+        });
+    }
+
+    /**
+     * Calculates the mass of each compound to weigh out for each molarity at each
+     * volume, as {@link Solution#setVolume} followed by {@link Sample#getSampleMass} does
+     * for a solution with a known molarity. This is the weighing column of a prep sheet.
+     *
+     * @param molarities The target molarities, in mol/L
+     * @param out Filled with masses in grams; at least
+     *        compoundCount * molarities.length * volumeCount long
+     */
+    public void requiredMasses(double[] molarities, double[] out) {
+        checkOutput(out, molarities.length * volumeCount);
+        forEachCompound(molarities.length, c -> {
+            double molarMass = molarMasses[c];
+            int row = c * molarities.length * volumeCount;
+            for (int m = 0; m < molarities.length; m++) {
+                double gramsPerLiter = molarities[m] * molarMass;
+                int cell = row + m * volumeCount;
+                for (int v = 0; v < volumeCount; v++) {
+                    out[cell + v] = gramsPerLiter * volumes[v];
+                }
+            }
+        });
+    }
+
+    /**
+     * Runs a calculation for every compound, across threads when the grid is large
+     * enough for that to pay. Compounds write disjoint blocks of the output.
+     *
+     * @param amountCount The number of amounts per compound
+     * @param block The calculation for one compound's block
+     */
+    private void forEachCompound(int amountCount, IntConsumer block) {
+        IntStream compounds = IntStream.range(0, compoundCount);
+        if ((long) compoundCount * amountCount * volumeCount >= PARALLEL_CELLS) {
+            compounds = compounds.parallel();
+        }
+        compounds.forEach(block);
+    }
+
+    /**
+     * Checks that an output array is large enough.
+     *
+     * @param out The output array
+     * @param cellsPerCompound The number of results per compound
+     * @throws IllegalArgumentException If it is too short
+     */
+    private void checkOutput(double[] out, int cellsPerCompound) {
+        if (out.length < (long) compoundCount * cellsPerCompound) {
+            throw new IllegalArgumentException("Output needs " + (long) compoundCount * cellsPerCompound + " entries");
+        }
+    }
+
+    // Getters
+
+    /**
+     * Gets the number of compounds, the number of blocks in each result.
+     *
+     * @return The compound count
+     */
+    public int getCompoundCount() {
+        return compoundCount;
+    }
+
+    /**
+     * Gets the number of volumes, the length of each result row.
+     *
+     * @return The volume count
+     */
+    public int getVolumeCount() {
+        return volumeCount;
+    }
+
+    /**
+     * Gets a compound of the sweep.
+     *
+     * @param index The compound index
+     * @return The compound
+     */
+    public Formula getCompound(int index) {
+        return compounds[index];
+    }
+
+    /**
+     * Gets a volume of the sweep.
+     *
+     * @param index The volume index
+     * @return The volume, in liters
+     */
+    public double getVolume(int index) {
+        return volumes[index];
+    }
+}
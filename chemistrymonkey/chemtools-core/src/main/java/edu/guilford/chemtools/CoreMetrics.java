@@ -0,0 +1,55 @@
+package edu.guilford.chemtools;
+
+import edu.guilford.chemtools.metrics.Counter;
+import edu.guilford.chemtools.metrics.Histogram;
+import edu.guilford.chemtools.metrics.MetricsRegistry;
+
+/**
+ * The CoreMetrics class holds the instruments that chemtools records into the shared
+ * {@link MetricsRegistry}, looked up once so the hot paths only touch striped adders.
+ */
+final class CoreMetrics {
+
+    private static final MetricsRegistry REGISTRY = MetricsRegistry.shared();
+
+    // Formula parsing, by parser
+    static final Counter REGEX_PARSES = REGISTRY.counter("formula.parse.regex");
+    static final Counter REGEX_PARSE_FAILURES = REGISTRY.counter("formula.parse.regex.failures");
+    static final Counter INCREMENTAL_PARSES = REGISTRY.counter("formula.parse.incremental");
+    static final Counter INCREMENTAL_PARSE_FAILURES = REGISTRY.counter("formula.parse.incremental.failures");
+    static final Histogram INCREMENTAL_REUSED_TOKENS = REGISTRY.histogram("formula.parse.incremental.reused.tokens");
+
+    // Equation balancing, by outcome
+    static final Counter BALANCE_ALREADY_BALANCED = REGISTRY.counter("balance.outcome.already_balanced");
+    static final Counter BALANCE_BALANCED = REGISTRY.counter("balance.outcome.balanced");
+    static final Counter BALANCE_NO_SOLUTION = REGISTRY.counter("balance.outcome.no_solution");
+    static final Counter BALANCE_INTERRUPTED = REGISTRY.counter("balance.outcome.interrupted");
+    static final Histogram BALANCE_LATENCY = REGISTRY.histogram("balance.latency.nanos");
+    static final Histogram BALANCE_CANDIDATES = REGISTRY.histogram("balance.candidates");
+
+    // Redox balancing, by method
+    static final Counter REDOX_HALF_REACTIONS = REGISTRY.counter("balance.redox.half_reactions");
+    static final Counter REDOX_COMBINED = REGISTRY.counter("balance.redox.combined");
+    static final Counter REDOX_FAILURES = REGISTRY.counter("balance.redox.failures");
+    static final Histogram REDOX_LATENCY = REGISTRY.histogram("balance.redox.latency.nanos");
+
+    // Batch sample and solution conversions
+    static final Counter CONVERSION_ROWS = REGISTRY.counter("conversion.rows");
+    static final Counter CONVERSION_FAILURES = REGISTRY.counter("conversion.rows.failures");
+
+    // Bundled data files
+    static final Counter DATA_LOADS = REGISTRY.counter("data.load");
+    static final Counter DATA_LOAD_FAILURES = REGISTRY.counter("data.load.failures");
+    static final Histogram DATA_LOAD_LATENCY = REGISTRY.histogram("data.load.latency.nanos");
+
+    // Periodic table snapshots put in use after startup, rejected reloads, and startup fallbacks
+    static final Counter PERIODIC_TABLE_RELOADS = REGISTRY.counter("periodic_table.reloads");
+    static final Counter PERIODIC_TABLE_RELOAD_FAILURES = REGISTRY.counter("periodic_table.reloads.failures");
+    static final Counter PERIODIC_TABLE_LOAD_FAILURES = REGISTRY.counter("periodic_table.load.failures");
+
+    /**
+     * Prevents instantiation; all fields are static.
+     */
+    private CoreMetrics() {
+    }
+}
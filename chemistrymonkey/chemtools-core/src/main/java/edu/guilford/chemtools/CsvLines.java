@@ -0,0 +1,149 @@
+package edu.guilford.chemtools;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The CsvLines class reads the small CSV data files bundled with chemtools, and
+ * replacements for them kept on disk. It handles
+ * quoted fields (including commas and doubled quotes inside quotes) but not line breaks
+ * inside fields, which the bundled files never contain. Reading them this way keeps
+ * opencsv an optional dependency of the core module.
+ */
+final class CsvLines {
+
+    /**
+     * Prevents instantiation; all methods are static.
+     */
+    private CsvLines() {
+    }
+
+    /**
+     * Reads every non-empty line of a bundled resource, skipping the header line.
+     *
+     * @param resourceName The resource name relative to this package
+     * @return The parsed rows
+     * @throws IOException If the resource is missing or cannot be read
+     */
+    static List<String[]> readResource(String resourceName) throws IOException {
+        DataLoadEvent event = new DataLoadEvent();
+        event.begin();
+        long start = System.nanoTime();
+        List<String[]> rows = null;
+        try {
+            InputStream stream = CsvLines.class.getResourceAsStream(resourceName);
+            if (stream == null) {
+                throw new IOException("Missing resource: " + resourceName);
+            }
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+                rows = read(reader);
+            }
+            return rows;
+        } finally {
+            recordLoad(event, resourceName, start, rows);
+        }
+    }
+
+    /**
+     * Reads every non-empty line of a data file, skipping the header line.
+     *
+     * @param file The file to read
+     * @return The parsed rows
+     * @throws IOException If the file is missing or cannot be read
+     */
+    static List<String[]> readFile(Path file) throws IOException {
+        DataLoadEvent event = new DataLoadEvent();
+        event.begin();
+        long start = System.nanoTime();
+        List<String[]> rows = null;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            rows = read(reader);
+            return rows;
+        } finally {
+            recordLoad(event, file.toString(), start, rows);
+        }
+    }
+
+    /**
+     * Records the metrics and Flight Recorder event for one data file read.
+     *
+     * @param event The event begun before the read
+     * @param name The resource or file name
+     * @param start The System.nanoTime() value before the read
+     * @param rows The rows read, or null if the read failed
+     */
+    private static void recordLoad(DataLoadEvent event, String name, long start, List<String[]> rows) {
+        CoreMetrics.DATA_LOADS.increment();
+        CoreMetrics.DATA_LOAD_LATENCY.recordNanosSince(start);
+        if (rows == null) {
+            CoreMetrics.DATA_LOAD_FAILURES.increment();
+        }
+        if (event.shouldCommit()) {
+            event.resource = name;
+            event.rows = rows == null ? 0 : rows.size();
+            event.succeeded = rows != null;
+            event.commit();
+        }
+    }
+
+    /**
+     * Reads every non-empty line from a reader, skipping the header line.
+     *
+     * @param reader The reader to read from
+     * @return The parsed rows
+     * @throws IOException If the reader fails
+     */
+    static List<String[]> read(BufferedReader reader) throws IOException {
+        List<String[]> rows = new ArrayList<>();
+        reader.readLine(); // Skip header
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (!line.isEmpty()) {
+                rows.add(parseLine(line));
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Splits one CSV line into fields.
+     *
+     * @param line The line to split
+     * @return The fields, with surrounding quotes removed
+     */
+    static String[] parseLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"'); // Escaped quote
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields.toArray(new String[0]);
+    }
+}
@@ -0,0 +1,30 @@
+package edu.guilford.chemtools;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The DataLoadEvent class is a Flight Recorder event covering one read of a bundled
+ * data file or a replacement on disk, such as the periodic table read on the first
+ * Element lookup or a reload of an edited element file.
+ */
+@Name("edu.guilford.chemtools.DataLoad")
+@Label("Data Load")
+@Category("ChemTools")
+@Description("Reads a CSV data file")
+@StackTrace(false)
+final class DataLoadEvent extends Event {
+
+    @Label("Resource")
+    String resource; // Resource name or path of the file read
+
+    @Label("Rows")
+    int rows; // Data rows read, excluding the header
+
+    @Label("Succeeded")
+    boolean succeeded; // Whether the file was read completely
+}
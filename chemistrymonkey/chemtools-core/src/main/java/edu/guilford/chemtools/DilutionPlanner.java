@@ -0,0 +1,248 @@
+package edu.guilford.chemtools;
+
+import edu.guilford.chemtools.math.DenseLU;
+import edu.guilford.chemtools.math.Matrices;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The DilutionPlanner class works out how much of each stock solution, topped up with
+ * solvent, makes up target molarities in a target volume. Stocks are {@link Mixture}s
+ * and may each hold several solutes, so the stock volumes v of a well solve
+ *
+ * <pre>
+ * C^T v = b,  with b[j] = target molarity of solute j times the well volume,
+ * </pre>
+ *
+ * where C holds the molarity of each solute (column) in each stock (row). The system
+ * is solved by least squares, v = (C C^T)^-1 C b, so stocks with more solutes than
+ * there are stocks still work when the targets are in the right proportions. The
+ * matrix (C C^T)^-1 C depends only on the stocks, so it is calculated once, when the
+ * planner is created, and each well is then one small matrix-vector product over
+ * primitive arrays. A 384-well plate is planned in microseconds, with no object per
+ * well.
+ *
+ * Plates are flat arrays with one row per well: targets are at
+ * {@code well * soluteCount + solute}, in the order of {@link #getSolutes()}, and
+ * planned volumes at {@code well * (stockCount + 1) + stock}, with the solvent to add
+ * in the last column of each row.
+ */
+public class DilutionPlanner {
+
+    // Well outcomes
+    public static final int PLANNED = 0; // Made up from the stocks and solvent
+    public static final int UNREACHABLE = 1; // Targets are not a combination of the stocks
+    public static final int NEGATIVE_VOLUME = 2; // Would need a negative volume of some stock
+    public static final int OVERFILLED = 3; // Stocks alone would exceed the well volume
+
+    private static final double TOLERANCE = 1e-9; // Relative error allowed in planned moles and volumes
+
+    private final SpeciesIndex solutes = new SpeciesIndex(); // Solutes of all stocks
+    private final int stockCount; // Number of stocks
+    private final int soluteCount; // Number of solutes
+    private final double[] molarities; // Molarity of each solute in each stock, stocks by solutes
+    private final double[] solveMatrix; // (C C^T)^-1 C, stocks by solutes
+
+    /**
+     * Constructor that prepares a planner for a set of stocks.
+     *
+     * @param stocks The stock solutions
+     * @throws IllegalArgumentException If a stock has no volume, or the stocks are not
+     *         independent (one is a dilution or mix of the others)
+     */
+    public DilutionPlanner(List<Mixture> stocks) {
+        stockCount = stocks.size();
+        for (Mixture stock : stocks) {
+            if (!(stock.getVolume() > 0)) {
+                throw new IllegalArgumentException("Stock has no volume");
+            }
+            for (int i = 0; i < stock.getSoluteCount(); i++) {
+                solutes.add(stock.getSolutes().getFormula(i));
+            }
+        }
+        soluteCount = solutes.size();
+        molarities = new double[stockCount * soluteCount];
+        for (int s = 0; s < stockCount; s++) {
+            Mixture stock = stocks.get(s);
+            for (int j = 0; j < soluteCount; j++) {
+                molarities[s * soluteCount + j] = stock.getMolarity(solutes.getFormula(j));
+            }
+        }
+
+        // C C^T is singular apart from rounding when one stock is a dilution or mix of
+        // the others, so check the rank with a tolerance rather than trusting the pivots
+        if (Matrices.rank(molarities, stockCount, soluteCount) < stockCount) {
+            throw new IllegalArgumentException("Stocks are not independent");
+        }
+
+        // Factor C C^T once, then solve it against each column of C
+        DenseLU lu = new DenseLU(stockCount);
+        double[] gram = lu.getMatrix();
+        for (int a = 0; a < stockCount; a++) {
+            for (int b = 0; b < stockCount; b++) {
+                double sum = 0;
+                for (int j = 0; j < soluteCount; j++) {
+                    sum += molarities[a * soluteCount + j] * molarities[b * soluteCount + j];
+                }
+                gram[a * stockCount + b] = sum;
+            }
+        }
+        if (!lu.factor()) {
+            throw new IllegalArgumentException("Stocks are not independent");
+        }
+        solveMatrix = new double[stockCount * soluteCount];
+        double[] column = new double[stockCount];
+        for (int j = 0; j < soluteCount; j++) {
+            for (int s = 0; s < stockCount; s++) {
+                column[s] = molarities[s * soluteCount + j];
+            }
+            lu.solve(column);
+            for (int s = 0; s < stockCount; s++) {
+                solveMatrix[s * soluteCount + j] = column[s];
+            }
+        }
+    }
+
+    /**
+     * Plans a plate of wells that all have the same volume.
+     *
+     * @param targets The target molarity of each solute in each well, wells by solutes
+     * @param wellVolume The volume of every well in liters
+     * @param volumes Filled with the stock and solvent volumes of each well in liters,
+     *        or NaN for wells that cannot be made; wells by (stockCount + 1)
+     * @param outcomes Filled with the outcome of each well, such as {@link #PLANNED}
+     * @return The number of wells planned
+     * @throws IllegalArgumentException If the arrays do not match in size
+     */
+    public int plan(double[] targets, double wellVolume, double[] volumes, int[] outcomes) {
+        double[] wellVolumes = new double[soluteCount == 0 ? 0 : targets.length / soluteCount];
+        Arrays.fill(wellVolumes, wellVolume);
+        return plan(targets, wellVolumes, volumes, outcomes);
+    }
+
+    /**
+     * Plans a plate of wells.
+     *
+     * @param targets The target molarity of each solute in each well, wells by solutes
+     * @param wellVolumes The volume of each well in liters
+     * @param volumes Filled with the stock and solvent volumes of each well in liters,
+     *        or NaN for wells that cannot be made; wells by (stockCount + 1)
+     * @param outcomes Filled with the outcome of each well, such as {@link #PLANNED}
+     * @return The number of wells planned
+     * @throws IllegalArgumentException If the arrays do not match in size
+     */
+    public int plan(double[] targets, double[] wellVolumes, double[] volumes, int[] outcomes) {
+        int wellCount = wellVolumes.length;
+        int width = stockCount + 1;
+        if (targets.length != wellCount * soluteCount || volumes.length < wellCount * width
+                || outcomes.length < wellCount) {
+            throw new IllegalArgumentException("Plate arrays do not match " + wellCount + " wells of "
+                    + soluteCount + " solutes and " + stockCount + " stocks");
+        }
+
+        double[] needed = new double[soluteCount]; // Moles of each solute in the current well
+        int planned = 0;
+        for (int w = 0; w < wellCount; w++) {
+            double wellVolume = wellVolumes[w];
+            int targetRow = w * soluteCount;
+            int volumeRow = w * width;
+            double largest = 0;
+            for (int j = 0; j < soluteCount; j++) {
+                needed[j] = targets[targetRow + j] * wellVolume;
+                largest = Math.max(largest, Math.abs(needed[j]));
+            }
+
+            // v = (C C^T)^-1 C b
+            for (int s = 0; s < stockCount; s++) {
+                double sum = 0;
+                int row = s * soluteCount;
+                for (int j = 0; j < soluteCount; j++) {
+                    sum += solveMatrix[row + j] * needed[j];
+                }
+                volumes[volumeRow + s] = sum;
+            }
+
+            // Least squares always gives an answer, so check it makes the targets
+            boolean reached = true;
+            for (int j = 0; j < soluteCount && reached; j++) {
+                double made = 0;
+                for (int s = 0; s < stockCount; s++) {
+                    made += molarities[s * soluteCount + j] * volumes[volumeRow + s];
+                }
+                reached = Math.abs(made - needed[j]) <= TOLERANCE * Math.max(largest, Double.MIN_NORMAL);
+            }
+
+            // Round away tiny negative volumes left by the solve
+            double total = 0;
+            boolean negative = false;
+            for (int s = 0; s < stockCount; s++) {
+                double volume = volumes[volumeRow + s];
+                negative |= volume < -TOLERANCE * wellVolume;
+                volumes[volumeRow + s] = Math.max(volume, 0.0);
+                total += volumes[volumeRow + s];
+            }
+
+            int outcome = !reached ? UNREACHABLE : negative ? NEGATIVE_VOLUME
+                    : total > wellVolume * (1 + TOLERANCE) ? OVERFILLED : PLANNED;
+            outcomes[w] = outcome;
+            if (outcome == PLANNED) {
+                volumes[volumeRow + stockCount] = Math.max(wellVolume - total, 0.0);
+                planned++;
+            } else {
+                Arrays.fill(volumes, volumeRow, volumeRow + width, Double.NaN);
+            }
+        }
+        return planned;
+    }
+
+    /**
+     * Plans a single target mixture.
+     *
+     * @param target The mixture to make, with its volume and molarities
+     * @return The volume of each stock, then of solvent, in liters
+     * @throws IllegalArgumentException If the target cannot be made from the stocks
+     */
+    public double[] plan(Mixture target) {
+        double[] targets = new double[soluteCount];
+        for (int i = 0; i < target.getSoluteCount(); i++) {
+            Formula solute = target.getSolutes().getFormula(i);
+            int j = solutes.indexOf(solute);
+            if (j < 0) {
+                if (target.getMoles(i) > 0) {
+                    throw new IllegalArgumentException(solute + " is not in any stock");
+                }
+                continue;
+            }
+            targets[j] = target.getMolarity(i);
+        }
+        double[] volumes = new double[stockCount + 1];
+        int[] outcome = new int[1];
+        plan(targets, new double[] {target.getVolume()}, volumes, outcome);
+        return switch (outcome[0]) {
+            case PLANNED -> volumes;
+            case UNREACHABLE -> throw new IllegalArgumentException("Target is not a combination of the stocks");
+            case NEGATIVE_VOLUME -> throw new IllegalArgumentException("Target would need a negative stock volume");
+            default -> throw new IllegalArgumentException("Stocks are too dilute for the target volume");
+        };
+    }
+
+    // Getters
+
+    /**
+     * Gets the solutes of all stocks, in the order of the target columns.
+     *
+     * @return The solute index
+     */
+    public SpeciesIndex getSolutes() {
+        return solutes;
+    }
+
+    /**
+     * Gets the number of stocks.
+     *
+     * @return The stock count
+     */
+    public int getStockCount() {
+        return stockCount;
+    }
+}
@@ -0,0 +1,181 @@
+package edu.guilford.chemtools;
+
+/**
+ * The Element class represents a chemical element, storing its atomic symbol,
+ * name, atomic number, atomic mass, and valence electrons. It reads this 
+ * information from a {@link PeriodicTable} snapshot when it is created.
+ */
+public class Element {
+
+    // Element attributes
+    private final String atomicSymbol;
+    private String elementName;
+    private int atomicNumber;
+    private double atomicMass;
+    private int valenceElectrons;
+
+    /**
+     * Constructor that creates an Element object with the provided atomic symbol, using
+     * the current {@link PeriodicTable}.
+     * 
+     * @param atomicSymbol The atomic symbol of the element (e.g., "H" for Hydrogen).
+     */
+    public Element(String atomicSymbol) {
+        this(atomicSymbol, PeriodicTable.current());
+    }
+
+    /**
+     * Constructor that creates an Element object from a given periodic table snapshot,
+     * so the elements of one formula all come from the same table.
+     * 
+     * @param atomicSymbol The atomic symbol of the element
+     * @param table The periodic table snapshot to read
+     */
+    Element(String atomicSymbol, PeriodicTable table) {
+        this.atomicSymbol = atomicSymbol;
+        buildElement(table);
+    }
+
+    /**
+     * Builds the element attributes from a periodic table snapshot: the atomic number,
+     * element name, atomic mass, and valence electrons for the atomic symbol.
+     * 
+     * @param table The periodic table snapshot to read
+     */
+    private void buildElement(PeriodicTable table) {
+        int number = table.atomicNumberOf(atomicSymbol);
+        if (number != 0) {
+            // Set element properties
+            atomicNumber = number;
+            elementName = table.elementNameOf(number);
+            atomicMass = table.atomicMassOf(number);
+            calculateValenceElectrons();
+        }
+    }
+
+    /**
+     * Looks up the atomic number for an atomic symbol without creating an Element.
+     * 
+     * @param atomicSymbol The atomic symbol (e.g., "H")
+     * @return The atomic number, or 0 if the symbol is unknown
+     */
+    static int atomicNumberOf(String atomicSymbol) {
+        return PeriodicTable.current().atomicNumberOf(atomicSymbol);
+    }
+
+    /**
+     * Looks up the atomic mass for an atomic symbol without creating an Element.
+     * 
+     * @param atomicSymbol The atomic symbol (e.g., "H")
+     * @return The atomic mass in AMU, or 0 if the symbol is unknown
+     */
+    static double atomicMassOf(String atomicSymbol) {
+        return PeriodicTable.current().atomicMassOf(atomicSymbol);
+    }
+
+    /**
+     * Looks up the atomic symbol for an atomic number without creating an Element.
+     * 
+     * @param atomicNumber The atomic number (e.g., 1)
+     * @return The atomic symbol, or null if the number is unknown
+     */
+    static String atomicSymbolOf(int atomicNumber) {
+        return PeriodicTable.current().atomicSymbolOf(atomicNumber);
+    }
+
+    /**
+     * Looks up the atomic mass for an atomic number without creating an Element.
+     * 
+     * @param atomicNumber The atomic number (e.g., 1)
+     * @return The atomic mass in AMU, or 0 if the number is unknown
+     */
+    static double atomicMassOf(int atomicNumber) {
+        return PeriodicTable.current().atomicMassOf(atomicNumber);
+    }
+
+    /**
+     * Looks up the periodic table group for an atomic number without creating an Element.
+     * 
+     * @param atomicNumber The atomic number (e.g., 8)
+     * @return The group from 1 to 18, or 0 if the number is unknown or has no group
+     *         (lanthanides and actinides)
+     */
+    static int groupOf(int atomicNumber) {
+        return PeriodicTable.current().groupOf(atomicNumber);
+    }
+
+    /**
+     * Looks up the Pauling electronegativity for an atomic number without creating an Element.
+     * 
+     * @param atomicNumber The atomic number (e.g., 8)
+     * @return The electronegativity, or 0 if the number is unknown or has no value (noble gases)
+     */
+    static double electronegativityOf(int atomicNumber) {
+        return PeriodicTable.current().electronegativityOf(atomicNumber);
+    }
+
+    /**
+     * Calculates the number of valence electrons based on the atomic number. 
+     * This method uses a simple model based on the periodic table.
+     */
+    private void calculateValenceElectrons() {
+        // First shell case (Hydrogen and Helium)
+        if (atomicNumber <= 2) {
+            valenceElectrons = atomicNumber;
+        } else {
+            // Remaining shells
+            valenceElectrons = (atomicNumber - 2) % 8;
+            if (valenceElectrons == 0) {
+                valenceElectrons = 8;
+            }
+        }
+    }
+
+    // Getters
+
+    /**
+     * Gets the atomic symbol of the element.
+     * 
+     * @return The atomic symbol (e.g., "H" for Hydrogen).
+     */
+    public String getAtomicSymbol() {
+        return atomicSymbol;
+    }
+
+    /**
+     * Gets the name of the element.
+     * 
+     * @return The name of the element (e.g., "Hydrogen").
+     */
+    public String getElementName() {
+        return elementName;
+    }
+
+    /**
+     * Gets the atomic number of the element.
+     * 
+     * @return The atomic number of the element.
+     */
+    public int getAtomicNumber() {
+        return atomicNumber;
+    }
+
+    /**
+     * Gets the atomic mass of the element.
+     * 
+     * @return The atomic mass of the element in atomic mass units (AMU).
+     */
+    public double getAtomicMass() {
+        return atomicMass;
+    }
+
+    /**
+     * Gets the number of valence electrons of the element.
+     * 
+     * @return The number of valence electrons.
+     */
+    public int getValenceElectrons() {
+        return valenceElectrons;
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,403 @@
+package edu.guilford.chemtools;
+
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The Equation class represents a chemical equation, consisting of left and right side formulas.
+ * It provides methods to balance the equation and calculate the element and charge totals for both sides.
+ */
+public class Equation {
+
+    private int[] leftElementTotals = new int[119]; // Element totals for the left side (118 elements, index 0 is ignored)
+    private int[] rightElementTotals = new int[119]; // Element totals for the right side
+    private AtomicInteger leftChargeTotal = new AtomicInteger(0); // Total charge for the left side
+    private AtomicInteger rightChargeTotal = new AtomicInteger(0); // Total charge for the right side
+    public static final int MULTIPLIER_MAX = 20; // Max multiplier checked
+    private static final long PROGRESS_INTERVAL_MASK = 0xFFF; // Report progress every 4096 combinations
+
+    // Formula lists for left and right sides of the equation
+    private ArrayList<Formula> leftFormulas, rightFormulas;
+
+    /**
+     * Constructor that initializes an Equation with provided left and right formulas.
+     * 
+     * @param leftFormulas List of formulas for the left side of the equation
+     * @param rightFormulas List of formulas for the right side of the equation
+     */
+    public Equation(ArrayList<Formula> leftFormulas, ArrayList<Formula> rightFormulas) {
+        this.leftFormulas = leftFormulas;
+        this.rightFormulas = rightFormulas;
+    }
+
+    /**
+     * Default constructor that initializes the left and right formulas lists and element totals arrays.
+     */
+    public Equation() {
+        leftFormulas = new ArrayList<>();
+        rightFormulas = new ArrayList<>();
+    }
+
+    /**
+     * Parses an equation written as formulas separated by " + ", with the two sides
+     * separated by "=" or "->" (e.g., "C_3H_8 + O_2 = CO_2 + H_2O"). The plus signs
+     * between formulas must be surrounded by spaces so they are not read as charges.
+     * 
+     * @param equationText The text of the equation
+     * @return A new unbalanced Equation
+     * @throws IllegalArgumentException If the text is not a valid equation
+     */
+    public static Equation parse(String equationText) {
+        String[] sides = equationText.trim().split("\\s*(?:->|=)\\s*", -1);
+        if (sides.length != 2) {
+            throw new IllegalArgumentException("Equation must have exactly one '=' or '->': " + equationText);
+        }
+
+        Equation equation = new Equation();
+        IncrementalFormula parser = new IncrementalFormula();
+        for (int side = 0; side < 2; side++) {
+            for (String formulaText : sides[side].split("\\s+\\+\\s+")) {
+                if (!parser.update(formulaText)) {
+                    throw new IllegalArgumentException("Invalid formula format: " + formulaText.trim());
+                }
+                if (side == 0) {
+                    equation.addLeftFormula(parser.toFormula());
+                } else {
+                    equation.addRightFormula(parser.toFormula());
+                }
+            }
+        }
+        return equation;
+    }
+
+    /**
+     * Adds a formula to the left side of the equation.
+     * 
+     * @param formula Formula to be added to the left side
+     */
+    public void addLeftFormula(Formula formula) {
+        leftFormulas.add(formula);
+    }
+
+    /**
+     * Adds a formula to the right side of the equation.
+     * 
+     * @param formula Formula to be added to the right side
+     */
+    public void addRightFormula(Formula formula) {
+        rightFormulas.add(formula);
+    }
+
+    /**
+     * Automatically balances the equation by adjusting multipliers for the formulas.
+     * It tests different combinations of multipliers to find a balanced equation.
+     */
+    public void balanceEquations() {
+        balanceEquations(null);
+    }
+
+    /**
+     * Automatically balances the equation by adjusting multipliers for the formulas,
+     * reporting progress as combinations are tested. The search stops early, leaving
+     * the equation unbalanced, if the calling thread is interrupted.
+     * 
+     * @param listener Listener notified of search progress, or null for none
+     */
+    public void balanceEquations(ProgressListener listener) {
+        BalanceEvent event = new BalanceEvent();
+        event.begin();
+        long start = System.nanoTime();
+
+        long candidatesTried = searchMultipliers(listener);
+
+        CoreMetrics.BALANCE_LATENCY.recordNanosSince(start);
+        CoreMetrics.BALANCE_CANDIDATES.record(candidatesTried);
+        boolean balanced = isBalanced();
+        String result;
+        if (balanced && candidatesTried == 0) {
+            result = "already balanced";
+            CoreMetrics.BALANCE_ALREADY_BALANCED.increment();
+        } else if (balanced) {
+            result = "balanced";
+            CoreMetrics.BALANCE_BALANCED.increment();
+        } else if (Thread.currentThread().isInterrupted()) {
+            result = "interrupted";
+            CoreMetrics.BALANCE_INTERRUPTED.increment();
+        } else {
+            result = "no solution";
+            CoreMetrics.BALANCE_NO_SOLUTION.increment();
+        }
+
+        if (event.shouldCommit()) {
+            int species = leftFormulas.size() + rightFormulas.size();
+            event.species = species;
+            event.candidatesTried = candidatesTried;
+            event.candidateSpace = getCombinationCount(species);
+            event.result = result;
+            event.commit();
+        }
+    }
+
+    /**
+     * Balances the equation as an oxidation-reduction in solution, adding water and
+     * hydrogen or hydroxide ions where they are needed. The coefficients are solved for
+     * exactly instead of searched, so they are not limited to {@link #MULTIPLIER_MAX}.
+     *
+     * @param medium The solution the reaction takes place in
+     * @throws IllegalArgumentException If the equation has no unique balance
+     * @see RedoxBalancer
+     */
+    public void balanceRedox(RedoxBalancer.Medium medium) {
+        RedoxBalancer.balance(this, medium);
+    }
+
+    /**
+     * Steps through the multiplier combinations until the equation balances, every
+     * combination has been tested, or the calling thread is interrupted.
+     * 
+     * @param listener Listener notified of search progress, or null for none
+     * @return The number of combinations tested (0 if the equation was already balanced)
+     */
+    private long searchMultipliers(ProgressListener listener) {
+        // Check if the equation is already balanced
+        if (isBalanced()) {
+            return 0;
+        }
+        int formulaCount = leftFormulas.size() + rightFormulas.size();
+        return searchCombinations(0, getCombinationCount(formulaCount), listener);
+    }
+
+    /**
+     * Tests part of the multiplier space, for splitting one long search across threads
+     * or processes. Combinations are numbered in the order {@link #balanceEquations()}
+     * tests them, so the first balance found by searching consecutive ranges in order
+     * is the one a single search would find. The search stops early if the calling
+     * thread is interrupted.
+     * 
+     * @param first The number of the first combination to test
+     * @param end The number just past the last combination to test, capped at
+     *        {@link #getCombinationCount(int)}
+     * @param listener Listener notified of progress within the range, or null for none
+     * @return The number of the balancing combination, with the multipliers left set to
+     *         it, or -1 if none in the range balances or the search was interrupted
+     * @throws IllegalArgumentException If first is negative
+     */
+    public long balanceCombinations(long first, long end, ProgressListener listener) {
+        if (first < 0) {
+            throw new IllegalArgumentException("First combination must not be negative: " + first);
+        }
+        end = Math.min(end, getCombinationCount(leftFormulas.size() + rightFormulas.size()));
+        if (first >= end) {
+            return -1;
+        }
+        long tested = searchCombinations(first, end, listener);
+        return tested > 0 && isBalanced() ? first + tested - 1 : -1;
+    }
+
+    /**
+     * Steps through a range of multiplier combinations until the equation balances,
+     * the range is exhausted, or the calling thread is interrupted.
+     * 
+     * @param first The number of the first combination to test
+     * @param end The number just past the last combination to test
+     * @param listener Listener notified of search progress, or null for none
+     * @return The number of combinations tested
+     */
+    private long searchCombinations(long first, long end, ProgressListener listener) {
+        // Combine left and right formulas for testing
+        ArrayList<Formula> combinedFormulas = new ArrayList<>();
+        combinedFormulas.addAll(leftFormulas);
+        combinedFormulas.addAll(rightFormulas);
+
+        // Set the multipliers for the first combination: its number written in base
+        // MULTIPLIER_MAX, one digit per formula with the last formula least significant
+        int formulaCount = combinedFormulas.size();
+        int[] multipliers = new int[formulaCount];
+        long digits = first;
+        for (int j = formulaCount - 1; j >= 0; j--) {
+            multipliers[j] = (int) (digits % MULTIPLIER_MAX) + 1;
+            digits /= MULTIPLIER_MAX;
+            combinedFormulas.get(j).setMultiplier(multipliers[j]);
+        }
+
+        // Try each combination in turn, stepping the multipliers like an odometer
+        // (last formula fastest) instead of materializing every combination up front
+        long combinationSets = end - first;
+        for (long i = 0; i < combinationSets; i++) {
+            if (i > 0) {
+                int j = formulaCount - 1;
+                while (multipliers[j] == MULTIPLIER_MAX) {
+                    multipliers[j] = 1;
+                    combinedFormulas.get(j).setMultiplier(1);
+                    j--;
+                }
+                multipliers[j]++;
+                combinedFormulas.get(j).setMultiplier(multipliers[j]);
+            }
+            if (isBalanced()) {
+                return i + 1;
+            }
+
+            if ((i & PROGRESS_INTERVAL_MASK) == PROGRESS_INTERVAL_MASK) {
+                if (listener != null) {
+                    listener.progress(i + 1, combinationSets);
+                }
+                if (Thread.currentThread().isInterrupted()) {
+                    return i + 1;
+                }
+            }
+        }
+        return combinationSets;
+    }
+
+    /**
+     * Calculates how many multiplier combinations the balancing search may test.
+     * 
+     * @param formulaCount The total number of formulas in the equation
+     * @return MULTIPLIER_MAX raised to the number of formulas (saturating at Long.MAX_VALUE)
+     */
+    public static long getCombinationCount(int formulaCount) {
+        long combinationSets = 1;
+        for (int j = 0; j < formulaCount; j++) {
+            if (combinationSets > Long.MAX_VALUE / MULTIPLIER_MAX) {
+                return Long.MAX_VALUE;
+            }
+            combinationSets *= MULTIPLIER_MAX;
+        }
+        return combinationSets;
+    }
+
+    /**
+     * Checks whether the equation is balanced by comparing the element and charge totals on both sides.
+     * 
+     * @return true if the equation is balanced, false otherwise
+     */
+    public boolean isBalanced() {
+        resetCounters();
+
+        // Calculate element and charge totals for both sides
+        sumCounters(leftFormulas, leftElementTotals, leftChargeTotal);
+        sumCounters(rightFormulas, rightElementTotals, rightChargeTotal);
+
+        // Check charge balance
+        if (leftChargeTotal.get() != rightChargeTotal.get()) {
+            return false;
+        }
+
+        // Check element balance
+        for (int i = 0; i < 119; i++) {
+            if (leftElementTotals[i] != rightElementTotals[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Sums the element and charge totals for the given formulas.
+     * 
+     * @param formulas List of formulas to process
+     * @param elementTotals Array to store element totals
+     * @param chargeTotal AtomicInteger to store the total charge
+     */
+    private void sumCounters(ArrayList<Formula> formulas, int[] elementTotals, AtomicInteger chargeTotal) {
+        for (Formula formula : formulas) {
+            // Calculate element totals
+            for (Element element : formula.getElementComponents()) {
+                elementTotals[element.getAtomicNumber()] += formula.getMultiplier();
+            }
+
+            // Calculate charge totals
+            chargeTotal.addAndGet(formula.getCharge() * formula.getMultiplier());
+        }
+    }
+
+    /**
+     * Resets the element and charge counters to zero.
+     */
+    private void resetCounters() {
+        for (int i = 0; i < 119; i++) {
+            leftElementTotals[i] = 0;
+            rightElementTotals[i] = 0;
+        }
+
+        leftChargeTotal.set(0);
+        rightChargeTotal.set(0);
+    }
+
+    // Getters
+
+    /**
+     * Gets the formulas on the left side of the equation.
+     * 
+     * @return List of formulas for the left side
+     */
+    public ArrayList<Formula> getLeftFormulas() {
+        return leftFormulas;
+    }
+
+    /**
+     * Gets the formulas on the right side of the equation.
+     * 
+     * @return List of formulas for the right side
+     */
+    public ArrayList<Formula> getRightFormulas() {
+        return rightFormulas;
+    }
+
+    /**
+     * Clears all formulas from both the left and right sides of the equation.
+     */
+    public void clear() {
+        leftFormulas.clear();
+        rightFormulas.clear();
+    }
+
+    /**
+     * Returns a string representation of the equation, showing the formulas and their multipliers.
+     * 
+     * @return A string representing the equation
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("The equation is ").append(isBalanced() ? "balanced" : "not balanced").append("\n");
+
+        // Left side of the equation
+        for (Formula formula : leftFormulas) {
+            sb.append(formula.getMultiplier()).append(formula.toString());
+            if (formula != leftFormulas.get(leftFormulas.size() - 1)) {
+                sb.append(" + ");
+            } else {
+                sb.append(" = ");
+            }
+        }
+
+        // Right side of the equation
+        for (Formula formula : rightFormulas) {
+            sb.append(formula.getMultiplier()).append(formula.toString());
+            if (formula != rightFormulas.get(rightFormulas.size() - 1)) {
+                sb.append(" + ");
+            }
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * The ProgressListener interface receives progress updates from the balancing search.
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+
+        /**
+         * Called periodically while multiplier combinations are being tested.
+         * 
+         * @param checked The number of combinations tested so far
+         * @param total The total number of combinations that may be tested
+         */
+        void progress(long checked, long total);
+    }
+
+}
@@ -0,0 +1,474 @@
+package edu.guilford.chemtools;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The Formula class represents a chemical formula consisting of elements, their counts, 
+ * charge, multiplier, and molar mass. It parses a string representation of the formula and 
+ * calculates the necessary attributes.
+ */
+public class Formula {
+
+    private ArrayList<Element> elementComponents = new ArrayList<>(); // List of all elements (built lazily when null)
+    private int charge; // Charge of formula without multiplier
+    private double molarMass; // Molar mass of formula without multiplier
+    private volatile long massVersion; // PeriodicTable version molarMass was calculated with
+    private int multiplier; // Formula multiplier
+    private String formatString; // Formatted formula string without multiplier (built lazily when null)
+    private int[] compositionNumbers = new int[0]; // Distinct atomic numbers in ascending order
+    private int[] compositionCounts = new int[0]; // Atom count for each entry of compositionNumbers
+    private String[] compositionSymbols = new String[0]; // Atomic symbol for each entry of compositionNumbers
+    private long compositionHash; // 64-bit hash of the composition and charge
+
+    /**
+     * Constructor that creates a Formula object from a string representation of the formula.
+     * It parses the formula and calculates the components, charge, and molar mass.
+     * 
+     * @param formulaString The string representation of the chemical formula
+     */
+    public Formula(String formulaString) {
+        buildFormula(formulaString);
+        // Remove the multiplier from the formula string to create formatString
+        formatString = formulaString.replaceFirst("^\\d+", "");
+    }
+
+    /**
+     * Constructor that creates a Formula object from an already parsed composition,
+     * skipping the text parser. The element components are built on first request.
+     * 
+     * @param formatString The formula string without the multiplier
+     * @param multiplier The formula multiplier
+     * @param charge The charge of the formula without multiplier
+     * @param totals Atom counts indexed by atomic number (119 entries)
+     * @param symbols Atomic symbols indexed by atomic number (119 entries)
+     * @param molarMass The molar mass of the formula without multiplier
+     * @param massVersion The PeriodicTable version the molar mass was calculated with
+     */
+    Formula(String formatString, int multiplier, int charge, int[] totals, String[] symbols, double molarMass,
+            long massVersion) {
+        this.formatString = formatString;
+        this.multiplier = multiplier;
+        this.charge = charge;
+        this.molarMass = molarMass;
+        this.massVersion = massVersion;
+        elementComponents = null;
+        buildComposition(totals, symbols);
+    }
+
+    /**
+     * Constructor that creates a Formula object from a composition already ordered by
+     * atomic number, such as one decoded by {@link BinaryCodec}. The arrays are kept,
+     * not copied. The formatted string is the Hill formula.
+     * 
+     * @param multiplier The formula multiplier
+     * @param charge The charge of the formula without multiplier
+     * @param numbers Distinct atomic numbers in ascending order
+     * @param counts Atom count for each atomic number
+     * @param symbols Atomic symbol for each atomic number
+     * @param molarMass The molar mass of the formula without multiplier
+     * @param massVersion The PeriodicTable version the molar mass was calculated with
+     */
+    Formula(int multiplier, int charge, int[] numbers, int[] counts, String[] symbols, double molarMass,
+            long massVersion) {
+        this.multiplier = multiplier;
+        this.charge = charge;
+        this.molarMass = molarMass;
+        this.massVersion = massVersion;
+        elementComponents = null;
+        compositionNumbers = numbers;
+        compositionCounts = counts;
+        compositionSymbols = symbols;
+        compositionHash = compositionHash(numbers, counts, numbers.length, charge);
+    }
+
+    /**
+     * Copy constructor that creates a Formula object with the same composition, charge,
+     * molar mass, multiplier and formatted string as another formula.
+     * 
+     * @param other The formula to copy
+     */
+    protected Formula(Formula other) {
+        formatString = other.formatString;
+        multiplier = other.multiplier;
+        charge = other.charge;
+        molarMass = other.molarMass;
+        massVersion = other.massVersion;
+        elementComponents = other.elementComponents == null ? null : new ArrayList<>(other.elementComponents);
+        compositionNumbers = other.compositionNumbers;
+        compositionCounts = other.compositionCounts;
+        compositionSymbols = other.compositionSymbols;
+        compositionHash = other.compositionHash;
+    }
+
+    /**
+     * Parses the formula string to extract the multiplier, elements, and charge.
+     * It also calculates the molar mass based on the element components.
+     * 
+     * @param formulaString The string representation of the chemical formula
+     */
+    private void buildFormula(String formulaString) {
+        FormulaParseEvent event = new FormulaParseEvent();
+        event.begin();
+
+        formulaString = formulaString.trim(); // Remove leading/trailing spaces
+        PeriodicTable table = PeriodicTable.current(); // One snapshot for every element
+
+        // Pattern to match optional multiplier, chemical symbols with optional subscripts, and optional charge
+        Pattern pattern = Pattern.compile("^(\\d+)?([A-Z][a-z]?(?:_\\d+)?)+(?:\\^([+-]?\\d*[+-]?\\d*))?$");
+        Matcher matcher = pattern.matcher(formulaString);
+
+        boolean valid = matcher.matches();
+        if (valid) {
+            // Extract multiplier (default to 1 if missing)
+            multiplier = (matcher.group(1) != null) ? Integer.parseInt(matcher.group(1)) : 1;
+
+            // Extract charge (default to 0 if missing)
+            String chargeStr = matcher.group(3);
+
+            // Determine the charge
+            charge = parseCharge(chargeStr);
+
+            // Extract elements and their counts from the formula
+            List<String> elements = new ArrayList<>();
+            List<Integer> counts = new ArrayList<>();
+
+            // Find all element-count pairs using regex
+            Pattern elementPattern = Pattern.compile("([A-Z][a-z]?)(?:_(\\d+))?");
+            Matcher elementMatcher = elementPattern.matcher(formulaString);
+
+            while (elementMatcher.find()) {
+                String element = elementMatcher.group(1); // Element symbol
+                int count = (elementMatcher.group(2) != null) ? Integer.parseInt(elementMatcher.group(2)) : 1; // Default count is 1
+
+                elements.add(element);
+                counts.add(count);
+            }
+
+            // Add elements to elementComponents list based on their counts
+            for (int j = 0; j < elements.size(); j++) {
+                for (int k = 0; k < counts.get(j); k++) {
+                    elementComponents.add(new Element(elements.get(j), table));
+                }
+            }
+
+            // Calculate molar mass based on the element components
+            calculateMolarMass();
+        } else {
+            // Invalid formula format: leave the formula empty and count the failure
+            CoreMetrics.REGEX_PARSE_FAILURES.increment();
+        }
+        massVersion = table.getVersion();
+        CoreMetrics.REGEX_PARSES.increment();
+
+        // Collapse the element components into per-element totals
+        int[] totals = new int[119];
+        String[] symbols = new String[119];
+        for (Element element : elementComponents) {
+            int number = element.getAtomicNumber();
+            if (totals[number]++ == 0) {
+                symbols[number] = element.getAtomicSymbol();
+            }
+        }
+        buildComposition(totals, symbols);
+
+        if (event.shouldCommit()) {
+            event.parser = "regex";
+            event.formulaLength = formulaString.length();
+            event.atoms = elementComponents.size();
+            event.valid = valid;
+            event.commit();
+        }
+    }
+
+    /**
+     * Parses the charge portion of a formula (the text after '^').
+     * 
+     * @param chargeStr The charge text (e.g., "+", "2-", "-3"), or null if there is none
+     * @return The charge
+     * @throws NumberFormatException If the charge text is not a number
+     */
+    static int parseCharge(String chargeStr) {
+        if (chargeStr == null) {
+            return 0;
+        } else if (chargeStr.equals("+")) {
+            return 1;
+        } else if (chargeStr.equals("-")) {
+            return -1;
+        }
+
+        // Handle reversed charge format
+        if (chargeStr.endsWith("+") || chargeStr.endsWith("-")) {
+            chargeStr = chargeStr.charAt(chargeStr.length() - 1) + chargeStr.substring(0, chargeStr.length() - 1);
+        }
+        return Integer.parseInt(chargeStr);
+    }
+
+    /**
+     * Stores per-element totals as distinct atomic numbers with counts and computes
+     * the composition hash. The arrays are ordered by atomic number, so two formulas
+     * written in a different order share the same composition.
+     * 
+     * @param totals Atom counts indexed by atomic number (119 entries)
+     * @param symbols Atomic symbols indexed by atomic number (119 entries)
+     */
+    private void buildComposition(int[] totals, String[] symbols) {
+        int distinct = 0;
+        for (int total : totals) {
+            if (total > 0) {
+                distinct++;
+            }
+        }
+
+        compositionNumbers = new int[distinct];
+        compositionCounts = new int[distinct];
+        compositionSymbols = new String[distinct];
+        int index = 0;
+        for (int number = 0; number < totals.length; number++) {
+            if (totals[number] > 0) {
+                compositionNumbers[index] = number;
+                compositionCounts[index] = totals[number];
+                compositionSymbols[index] = symbols[number];
+                index++;
+            }
+        }
+
+        compositionHash = compositionHash(compositionNumbers, compositionCounts, distinct, charge);
+    }
+
+    /**
+     * Computes a 64-bit hash of a composition directly from atomic numbers and counts.
+     * Each (atomic number, count) pair is mixed independently and the results are summed,
+     * so the hash does not depend on the order of the pairs. Each atomic number must
+     * appear at most once. No objects are allocated, which makes the method suitable for
+     * hashing large catalogues straight from parsed arrays.
+     * 
+     * @param atomicNumbers Atomic numbers of the composition
+     * @param counts Atom count for each atomic number
+     * @param length Number of pairs to read from the arrays
+     * @param charge Net charge of the compound
+     * @return The 64-bit composition hash
+     */
+    public static long compositionHash(int[] atomicNumbers, int[] counts, int length, int charge) {
+        long hash = 0;
+        for (int i = 0; i < length; i++) {
+            hash += mix64(((long) atomicNumbers[i] << 32) | (counts[i] & 0xFFFFFFFFL));
+        }
+        return mix64(hash ^ (charge * 0xC2B2AE3D27D4EB4FL));
+    }
+
+    /**
+     * Scrambles the bits of a 64-bit value (SplitMix64 finalizer).
+     * 
+     * @param value The value to mix
+     * @return The mixed value
+     */
+    private static long mix64(long value) {
+        value += 0x9E3779B97F4A7C15L;
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+
+    /**
+     * Calculates the molar mass of the formula by summing the atomic masses of the elements.
+     */
+    private void calculateMolarMass() {
+        molarMass = 0;
+        for (Element element : elementComponents) {
+            molarMass += element.getAtomicMass();
+        }
+    }
+
+    // Setters
+
+    /**
+     * Sets the multiplier for the formula.
+     * 
+     * @param k The multiplier value
+     */
+    public void setMultiplier(int k) {
+        multiplier = k;
+    }
+
+    // Getters
+
+    /**
+     * Gets the list of element components in the formula.
+     * 
+     * @return List of Element objects representing the elements in the formula
+     */
+    public ArrayList<Element> getElementComponents() {
+        if (elementComponents == null) {
+            PeriodicTable table = PeriodicTable.current();
+            ArrayList<Element> components = new ArrayList<>();
+            for (int i = 0; i < compositionNumbers.length; i++) {
+                for (int k = 0; k < compositionCounts[i]; k++) {
+                    components.add(new Element(compositionSymbols[i], table));
+                }
+            }
+            elementComponents = components;
+        }
+        return elementComponents;
+    }
+
+    /**
+     * Gets the charge of the formula.
+     * 
+     * @return The charge of the formula
+     */
+    public int getCharge() {
+        return charge;
+    }
+
+    /**
+     * Gets the molar mass of the formula. If the {@link PeriodicTable} has been reloaded
+     * since the molar mass was calculated, it is recalculated from the composition with
+     * the current table, and the element components are rebuilt on their next request.
+     * 
+     * @return The molar mass of the formula
+     */
+    public double getMolarMass() {
+        PeriodicTable table = PeriodicTable.current();
+        if (table.getVersion() != massVersion) {
+            double mass = 0;
+            for (int i = 0; i < compositionNumbers.length; i++) {
+                mass += compositionCounts[i] * table.atomicMassOf(compositionNumbers[i]);
+            }
+            molarMass = mass;
+            elementComponents = null;
+            massVersion = table.getVersion(); // Written last, so a reader seeing it sees the mass
+            return mass;
+        }
+        return molarMass;
+    }
+
+    /**
+     * Gets the multiplier for the formula.
+     * 
+     * @return The multiplier value
+     */
+    public int getMultiplier() {
+        return multiplier;
+    }
+
+    /**
+     * Gets the distinct atomic numbers of the formula in ascending order. The array is
+     * shared with the formula and must not be modified.
+     * 
+     * @return The atomic numbers
+     */
+    int[] getCompositionNumbers() {
+        return compositionNumbers;
+    }
+
+    /**
+     * Gets the atom count for each entry of {@link #getCompositionNumbers()}. The array
+     * is shared with the formula and must not be modified.
+     * 
+     * @return The atom counts
+     */
+    int[] getCompositionCounts() {
+        return compositionCounts;
+    }
+
+    /**
+     * Gets the 64-bit hash of the formula's composition and charge. Formulas describing
+     * the same compound (e.g. "H_2O" and "OH_2") have the same hash.
+     * 
+     * @return The composition hash
+     */
+    public long getCompositionHash() {
+        return compositionHash;
+    }
+
+    /**
+     * Checks whether another formula has exactly the same composition and charge,
+     * regardless of the order its elements were written in or its multiplier.
+     * 
+     * @param other The formula to compare against
+     * @return true if both formulas describe the same compound, false otherwise
+     */
+    public boolean isSameCompound(Formula other) {
+        return compositionHash == other.compositionHash
+                && charge == other.charge
+                && Arrays.equals(compositionNumbers, other.compositionNumbers)
+                && Arrays.equals(compositionCounts, other.compositionCounts);
+    }
+
+    /**
+     * Returns the canonical Hill-notation form of the formula without the multiplier.
+     * Carbon comes first, then hydrogen, then the remaining elements alphabetically;
+     * without carbon, all elements (including hydrogen) are alphabetical. The result
+     * uses the same syntax the constructor accepts (e.g. "C_2H_6O", "SO_4^2-").
+     * 
+     * @return The Hill-notation formula string
+     */
+    public String getHillFormula() {
+        Integer[] order = new Integer[compositionNumbers.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        boolean hasCarbon = Arrays.binarySearch(compositionNumbers, 6) >= 0;
+        Arrays.sort(order, (a, b) -> {
+            if (hasCarbon) {
+                int rankA = hillRank(compositionNumbers[a]);
+                int rankB = hillRank(compositionNumbers[b]);
+                if (rankA != rankB) {
+                    return Integer.compare(rankA, rankB);
+                }
+            }
+            return compositionSymbols[a].compareTo(compositionSymbols[b]);
+        });
+
+        StringBuilder sb = new StringBuilder();
+        for (int i : order) {
+            sb.append(compositionSymbols[i]);
+            if (compositionCounts[i] > 1) {
+                sb.append('_').append(compositionCounts[i]);
+            }
+        }
+
+        // Append the charge in the same format the parser accepts
+        if (charge != 0) {
+            sb.append('^');
+            if (Math.abs(charge) > 1) {
+                sb.append(Math.abs(charge));
+            }
+            sb.append(charge > 0 ? '+' : '-');
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Ranks an element for Hill ordering when carbon is present.
+     * 
+     * @param atomicNumber The atomic number of the element
+     * @return 0 for carbon, 1 for hydrogen, 2 for every other element
+     */
+    private static int hillRank(int atomicNumber) {
+        if (atomicNumber == 6) {
+            return 0;
+        }
+        return atomicNumber == 1 ? 1 : 2;
+    }
+
+    /**
+     * Returns a string representation of the formula without the multiplier. Formulas
+     * built without formula text (e.g., decoded by {@link BinaryCodec}) use the Hill formula.
+     * 
+     * @return The formatted formula string
+     */
+    @Override
+    public String toString() {
+        if (formatString == null) {
+            formatString = getHillFormula();
+        }
+        return formatString;
+    }
+
+}
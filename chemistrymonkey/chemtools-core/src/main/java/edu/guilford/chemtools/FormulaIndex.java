@@ -0,0 +1,329 @@
+package edu.guilford.chemtools;
+
+import java.util.Arrays;
+
+/**
+ * The FormulaIndex class is an open-addressing hash index that maps 64-bit composition
+ * hashes (see {@link Formula#getCompositionHash()}) to integer ids. Keys and values are
+ * stored in flat arrays with linear probing, so inserting or looking up an entry
+ * allocates nothing. It is intended for deduplicating and joining large compound
+ * sets in a single pass: assign each distinct compound an id with {@link #putIfAbsent},
+ * then probe a second set with {@link #get}.
+ *
+ * Entries added by formula keep a compact copy of the composition and charge in one
+ * shared int array (two ints, plus two per element), not the formula itself, so the
+ * formulas can be collected as soon as they are indexed. A lookup by formula only
+ * matches an entry whose composition and charge are equal (as
+ * {@link Formula#isSameCompound(Formula)} compares them), so two compounds whose hashes
+ * collide get separate entries. Each table slot takes 16 bytes and the table is kept
+ * at most half full; an entry added by formula also takes about 40 bytes of
+ * composition for a typical organic formula.
+ *
+ * Entries added by raw key store nothing else and have nothing to compare: equal keys
+ * are the same entry. For bulk dedupe where a 64-bit collision is an acceptable risk,
+ * {@link #putIfAbsent(long, int)} with {@link Formula#getCompositionHash()} keeps the
+ * memory to the table slots alone.
+ */
+public class FormulaIndex {
+
+    /** Value returned when a key is not present in the index. */
+    public static final int NOT_FOUND = -1;
+
+    private static final float LOAD_FACTOR = 0.5f; // Max fill ratio before the table grows
+
+    private static final long ZERO_HASH_KEY = 0x9E3779B97F4A7C15L; // Stands in for a formula hash of 0
+
+    private long[] keys; // Composition hashes, 0 marks an empty slot
+    private int[] values; // Id stored for each occupied slot
+    private int[] compositionRefs; // Offset in compositions plus one for slots added by formula, 0 for raw keys
+    private int[] compositions = new int[0]; // Charge, element count, atomic numbers and atom counts per formula entry
+    private int compositionsUsed; // Ints of compositions in use
+    private int mask; // Table capacity minus one (capacity is a power of two)
+    private int size; // Number of keys stored in the table arrays
+    private int resizeThreshold; // Size at which the table doubles
+
+    // The key 0 is the empty-slot marker, so it is stored outside the table
+    private boolean hasZeroKey;
+    private int zeroValue;
+
+    /**
+     * Default constructor that creates an index sized for a small number of entries.
+     */
+    public FormulaIndex() {
+        this(16);
+    }
+
+    /**
+     * Constructor that creates an index able to hold the expected number of entries
+     * without resizing.
+     *
+     * @param expectedSize The number of distinct keys expected
+     */
+    public FormulaIndex(int expectedSize) {
+        long capacity = Long.highestOneBit(Math.max(2, (long) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        if (capacity > (1 << 30)) {
+            throw new IllegalArgumentException("Expected size too large: " + expectedSize);
+        }
+        allocate((int) capacity);
+    }
+
+    /**
+     * Stores the id for a key if the key is not already present. Keys are compared as
+     * they are, so two different compositions whose hashes collide share one entry; with
+     * 64-bit composition hashes the chance of any collision among n keys is about
+     * n * n / 2^65 (below one in a million for six million keys). Use
+     * {@link #putIfAbsent(Formula, int)} to tell colliding compounds apart.
+     *
+     * @param key The composition hash
+     * @param value The id to store (must not be negative)
+     * @return The id already stored for the key, or NOT_FOUND if the value was inserted
+     */
+    public int putIfAbsent(long key, int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Ids must not be negative: " + value);
+        }
+        if (key == 0) {
+            if (hasZeroKey) {
+                return zeroValue;
+            }
+            hasZeroKey = true;
+            zeroValue = value;
+            return NOT_FOUND;
+        }
+
+        int slot = slotOf(key);
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        keys[slot] = key;
+        values[slot] = value;
+        compositionRefs[slot] = 0;
+        if (++size >= resizeThreshold) {
+            resize();
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * Stores the id for a formula's composition if an equivalent compound is not already
+     * present. A stored entry with the same hash but a different composition or charge
+     * is not a match, so a hash collision never merges two compounds.
+     *
+     * @param formula The formula to index
+     * @param value The id to store (must not be negative)
+     * @return The id already stored for the compound, or NOT_FOUND if the value was inserted
+     */
+    public int putIfAbsent(Formula formula, int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Ids must not be negative: " + value);
+        }
+        long key = keyOf(formula);
+        int slot = slotOf(key);
+        while (keys[slot] != 0) {
+            if (matches(slot, key, formula)) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        keys[slot] = key;
+        values[slot] = value;
+        compositionRefs[slot] = storeComposition(formula);
+        if (++size >= resizeThreshold) {
+            resize();
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * Looks up the id stored for a key. As with {@link #putIfAbsent(long, int)}, an entry
+     * whose hash collides with the key is returned as a match.
+     *
+     * @param key The composition hash
+     * @return The stored id, or NOT_FOUND if the key is not present
+     */
+    public int get(long key) {
+        if (key == 0) {
+            return hasZeroKey ? zeroValue : NOT_FOUND;
+        }
+
+        int slot = slotOf(key);
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * Looks up the id stored for a formula's composition. Only an entry for the same
+     * compound matches, even if another compound's hash collides with it.
+     *
+     * @param formula The formula to look up
+     * @return The stored id, or NOT_FOUND if no equivalent compound is present
+     */
+    public int get(Formula formula) {
+        long key = keyOf(formula);
+        int slot = slotOf(key);
+        while (keys[slot] != 0) {
+            if (matches(slot, key, formula)) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * Gets the table key for a formula. A hash of 0 would mark an empty slot, so it is
+     * replaced by a fixed non-zero key; the formula comparison keeps that key unambiguous.
+     *
+     * @param formula The formula
+     * @return The non-zero key
+     */
+    private static long keyOf(Formula formula) {
+        long hash = formula.getCompositionHash();
+        return hash == 0 ? ZERO_HASH_KEY : hash;
+    }
+
+    /**
+     * Checks whether an occupied slot holds a formula's compound.
+     *
+     * @param slot The occupied slot
+     * @param key The formula's table key
+     * @param formula The formula
+     * @return true if the keys are equal and the slot was added by raw key or for the
+     *         same compound
+     */
+    private boolean matches(int slot, long key, Formula formula) {
+        if (keys[slot] != key) {
+            return false;
+        }
+        int ref = compositionRefs[slot];
+        if (ref == 0) {
+            return true;
+        }
+        int[] numbers = formula.getCompositionNumbers();
+        int[] counts = formula.getCompositionCounts();
+        int length = numbers.length;
+        int start = ref + 1; // After the charge and element count
+        return compositions[ref - 1] == formula.getCharge() && compositions[ref] == length
+                && Arrays.equals(compositions, start, start + length, numbers, 0, length)
+                && Arrays.equals(compositions, start + length, start + 2 * length, counts, 0, length);
+    }
+
+    /**
+     * Copies a formula's charge and composition to the end of the shared composition
+     * array, growing it if needed.
+     *
+     * @param formula The formula
+     * @return The offset of the copy plus one
+     * @throws IllegalStateException If the composition array cannot grow any further
+     */
+    private int storeComposition(Formula formula) {
+        int[] numbers = formula.getCompositionNumbers();
+        int[] counts = formula.getCompositionCounts();
+        int length = numbers.length;
+        long needed = (long) compositionsUsed + 2 + 2L * length;
+        if (needed > compositions.length) {
+            long capacity = Math.max(needed, Math.max(64L, 2L * compositions.length));
+            if (needed > Integer.MAX_VALUE - 8) {
+                throw new IllegalStateException("FormulaIndex is full");
+            }
+            compositions = Arrays.copyOf(compositions, (int) Math.min(capacity, Integer.MAX_VALUE - 8));
+        }
+
+        int offset = compositionsUsed;
+        compositions[offset] = formula.getCharge();
+        compositions[offset + 1] = length;
+        System.arraycopy(numbers, 0, compositions, offset + 2, length);
+        System.arraycopy(counts, 0, compositions, offset + 2 + length, length);
+        compositionsUsed = (int) needed;
+        return offset + 1;
+    }
+
+    /**
+     * Checks whether a key is present in the index.
+     *
+     * @param key The composition hash
+     * @return true if the key is present, false otherwise
+     */
+    public boolean contains(long key) {
+        return get(key) != NOT_FOUND;
+    }
+
+    /**
+     * Gets the number of distinct keys in the index.
+     *
+     * @return The number of keys
+     */
+    public int size() {
+        return size + (hasZeroKey ? 1 : 0);
+    }
+
+    /**
+     * Removes all keys from the index while keeping its capacity.
+     */
+    public void clear() {
+        Arrays.fill(keys, 0);
+        compositionsUsed = 0;
+        size = 0;
+        hasZeroKey = false;
+    }
+
+    /**
+     * Finds the home slot for a key. Composition hashes are already well mixed,
+     * so the low bits are used directly.
+     *
+     * @param key The composition hash
+     * @return The slot index
+     */
+    private int slotOf(long key) {
+        return (int) (key ^ (key >>> 32)) & mask;
+    }
+
+    /**
+     * Allocates empty table arrays with the given capacity.
+     *
+     * @param capacity The table capacity (a power of two)
+     */
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        compositionRefs = new int[capacity];
+        mask = capacity - 1;
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    /**
+     * Doubles the table capacity and reinserts every key.
+     */
+    private void resize() {
+        if (keys.length == (1 << 30)) {
+            throw new IllegalStateException("FormulaIndex is full");
+        }
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        int[] oldCompositionRefs = compositionRefs;
+        allocate(keys.length << 1);
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key != 0) {
+                int slot = slotOf(key);
+                while (keys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+                values[slot] = oldValues[i];
+                compositionRefs[slot] = oldCompositionRefs[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package edu.guilford.chemtools;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The FormulaParseEvent class is a Flight Recorder event covering one parse of formula
+ * text, by either the regex parser in Formula or the token parser in IncrementalFormula.
+ */
+@Name("edu.guilford.chemtools.FormulaParse")
+@Label("Formula Parse")
+@Category("ChemTools")
+@Description("Parses formula text into elements, charge and molar mass")
+@StackTrace(false)
+final class FormulaParseEvent extends Event {
+
+    @Label("Parser")
+    String parser; // "regex" or "incremental"
+
+    @Label("Formula Length")
+    int formulaLength; // Length of the trimmed formula text
+
+    @Label("Atoms")
+    int atoms; // Atoms in the formula, without multiplier (the regex parser builds one Element each)
+
+    @Label("Reused Tokens")
+    int reusedTokens; // Tokens kept from the previous text (incremental parser only)
+
+    @Label("Valid")
+    boolean valid; // Whether the text was a valid formula
+}
@@ -0,0 +1,315 @@
+package edu.guilford.chemtools;
+
+import java.util.Arrays;
+
+/**
+ * The IncrementalFormula class parses formula text that is edited a keystroke at a time.
+ * It remembers the element tokens of the previous text along with a running molar mass,
+ * so when only the end of the text changes (the usual case while typing) the unchanged
+ * tokens are reused and only the edited suffix is scanned again. It accepts the same
+ * syntax as {@link Formula}. Tokens and masses come from one {@link PeriodicTable}
+ * snapshot; after a reload the next update scans the whole text again.
+ */
+public class IncrementalFormula {
+
+    private String text = ""; // Trimmed text of the last update
+    private boolean valid = false; // Whether the last update was a valid formula
+    private int multiplier = 1; // Leading multiplier of the last update
+    private int charge = 0; // Charge of the last update
+    private int bodyStart = 0; // Index of the first element token in text
+    private PeriodicTable table = PeriodicTable.current(); // Snapshot the tokens were scanned with
+
+    // Element tokens of the last update
+    private int tokenCount = 0;
+    private int[] tokenEnd = new int[16]; // Index just past each token in text
+    private String[] tokenSymbol = new String[16]; // Atomic symbol of each token
+    private int[] tokenAtoms = new int[16]; // Subscript of each token
+    private double[] massPrefix = new double[16]; // Molar mass of tokens 0..i inclusive
+
+    private int reusedTokens = 0; // Tokens kept from the previous update
+
+    /**
+     * Parses new formula text, reusing the tokens shared with the previous text.
+     *
+     * @param newText The full formula text
+     * @return true if the text is a valid formula, false otherwise
+     */
+    public boolean update(String newText) {
+        FormulaParseEvent event = new FormulaParseEvent();
+        event.begin();
+        String trimmed = newText == null ? "" : newText.trim();
+
+        // Tokens ending strictly before the first changed character are unaffected,
+        // since the character right after them (which ends the token) is unchanged too
+        int common = commonPrefixLength(text, trimmed);
+        int keep = 0;
+        PeriodicTable latest = PeriodicTable.current();
+        if (latest != table) {
+            table = latest; // Reloaded: the running masses are stale, so keep no tokens
+        } else if (common > bodyStart && tokenCount > 0) {
+            // Token ends are ascending, so binary search for the first one not before common
+            int low = 0;
+            int high = tokenCount;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (tokenEnd[middle] < common) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            keep = low;
+        }
+        reusedTokens = keep;
+        text = trimmed;
+
+        valid = parse(keep);
+        CoreMetrics.INCREMENTAL_PARSES.increment();
+        CoreMetrics.INCREMENTAL_REUSED_TOKENS.record(keep);
+        if (!valid) {
+            CoreMetrics.INCREMENTAL_PARSE_FAILURES.increment();
+        }
+
+        if (event.shouldCommit()) {
+            event.parser = "incremental";
+            event.formulaLength = text.length();
+            int atoms = 0;
+            for (int i = 0; i < tokenCount; i++) {
+                atoms += tokenAtoms[i];
+            }
+            event.atoms = atoms;
+            event.reusedTokens = keep;
+            event.valid = valid;
+            event.commit();
+        }
+        return valid;
+    }
+
+    /**
+     * Scans the text from the end of the kept tokens.
+     *
+     * @param keep The number of leading tokens to keep
+     * @return true if the text is a valid formula, false otherwise
+     */
+    private boolean parse(int keep) {
+        int length = text.length();
+        int position;
+
+        if (keep == 0) {
+            // Leading multiplier
+            position = 0;
+            while (position < length && isDigit(text.charAt(position))) {
+                position++;
+            }
+            try {
+                multiplier = position > 0 ? Integer.parseInt(text.substring(0, position)) : 1;
+            } catch (NumberFormatException e) {
+                tokenCount = 0;
+                return false;
+            }
+            bodyStart = position;
+        } else {
+            position = tokenEnd[keep - 1];
+        }
+        tokenCount = keep;
+
+        // Element tokens: symbol with an optional "_count" subscript
+        while (position < length && isUpper(text.charAt(position))) {
+            int symbolEnd = position + 1;
+            if (symbolEnd < length && isLower(text.charAt(symbolEnd))) {
+                symbolEnd++;
+            }
+            String symbol = text.substring(position, symbolEnd);
+            if (table.atomicNumberOf(symbol) == 0) {
+                return false; // Not an element symbol
+            }
+            position = symbolEnd;
+
+            int atoms = 1;
+            if (position < length && text.charAt(position) == '_') {
+                int digitsEnd = position + 1;
+                while (digitsEnd < length && isDigit(text.charAt(digitsEnd))) {
+                    digitsEnd++;
+                }
+                if (digitsEnd == position + 1) {
+                    return false; // "_" without a count
+                }
+                try {
+                    atoms = Integer.parseInt(text.substring(position + 1, digitsEnd));
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+                position = digitsEnd;
+            }
+            addToken(position, symbol, atoms);
+        }
+
+        if (tokenCount == 0) {
+            return false;
+        }
+
+        // Optional charge suffix
+        charge = 0;
+        if (position < length) {
+            if (text.charAt(position) != '^') {
+                return false;
+            }
+            String chargeText = text.substring(position + 1);
+            if (!chargeText.matches("[+-]?\\d*[+-]?\\d*")) {
+                return false;
+            }
+            try {
+                charge = Formula.parseCharge(chargeText);
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Appends a token and extends the running molar mass.
+     *
+     * @param end Index just past the token
+     * @param symbol Atomic symbol of the token
+     * @param atoms Subscript of the token
+     */
+    private void addToken(int end, String symbol, int atoms) {
+        if (tokenCount == tokenEnd.length) {
+            int capacity = tokenCount * 2;
+            tokenEnd = Arrays.copyOf(tokenEnd, capacity);
+            tokenSymbol = Arrays.copyOf(tokenSymbol, capacity);
+            tokenAtoms = Arrays.copyOf(tokenAtoms, capacity);
+            massPrefix = Arrays.copyOf(massPrefix, capacity);
+        }
+        double previousMass = tokenCount == 0 ? 0 : massPrefix[tokenCount - 1];
+        tokenEnd[tokenCount] = end;
+        tokenSymbol[tokenCount] = symbol;
+        tokenAtoms[tokenCount] = atoms;
+        massPrefix[tokenCount] = previousMass + atoms * table.atomicMassOf(symbol);
+        tokenCount++;
+    }
+
+    /**
+     * Builds a Formula from the last valid update without parsing the text again.
+     *
+     * @return The parsed formula
+     * @throws IllegalStateException If the last update was not a valid formula
+     */
+    public Formula toFormula() {
+        if (!valid) {
+            throw new IllegalStateException("Invalid formula format: " + text);
+        }
+        int[] totals = new int[119];
+        String[] symbols = new String[119];
+        for (int i = 0; i < tokenCount; i++) {
+            int number = table.atomicNumberOf(tokenSymbol[i]);
+            totals[number] += tokenAtoms[i];
+            symbols[number] = tokenSymbol[i];
+        }
+        return new Formula(text.substring(bodyStart), multiplier, charge, totals, symbols, getMolarMass(),
+                table.getVersion());
+    }
+
+    // Getters
+
+    /**
+     * Checks whether the last update was a valid formula.
+     *
+     * @return true if the last text parsed successfully
+     */
+    public boolean isValid() {
+        return valid;
+    }
+
+    /**
+     * Gets the molar mass of the last valid update, without multiplier.
+     *
+     * @return The molar mass, or 0 if the text is not valid
+     */
+    public double getMolarMass() {
+        return valid ? massPrefix[tokenCount - 1] : 0;
+    }
+
+    /**
+     * Gets the charge of the last valid update.
+     *
+     * @return The charge
+     */
+    public int getCharge() {
+        return charge;
+    }
+
+    /**
+     * Gets the multiplier of the last valid update.
+     *
+     * @return The multiplier
+     */
+    public int getMultiplier() {
+        return multiplier;
+    }
+
+    /**
+     * Gets how many element tokens the last update reused from the one before it.
+     *
+     * @return The number of reused tokens
+     */
+    public int getReusedTokenCount() {
+        return reusedTokens;
+    }
+
+    /**
+     * Gets the text of the last update.
+     *
+     * @return The trimmed formula text
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Finds how many leading characters two strings share.
+     *
+     * @param a The first string
+     * @param b The second string
+     * @return The length of the common prefix
+     */
+    private static int commonPrefixLength(String a, String b) {
+        int limit = Math.min(a.length(), b.length());
+        int i = 0;
+        while (i < limit && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Checks whether a character is a digit.
+     *
+     * @param c The character to check
+     * @return true if it is a digit
+     */
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * Checks whether a character is an uppercase ASCII letter.
+     *
+     * @param c The character to check
+     * @return true if it is an uppercase ASCII letter
+     */
+    private static boolean isUpper(char c) {
+        return c >= 'A' && c <= 'Z';
+    }
+
+    /**
+     * Checks whether a character is a lowercase ASCII letter.
+     *
+     * @param c The character to check
+     * @return true if it is a lowercase ASCII letter
+     */
+    private static boolean isLower(char c) {
+        return c >= 'a' && c <= 'z';
+    }
+}
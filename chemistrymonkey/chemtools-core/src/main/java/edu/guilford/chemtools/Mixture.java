@@ -0,0 +1,244 @@
+package edu.guilford.chemtools;
+
+import java.util.Arrays;
+
+/**
+ * The Mixture class represents a solution of any number of solutes sharing one volume
+ * of solvent, where a {@link Solution} holds a single sample. It supports the bench
+ * operations that change a solution's make-up: mixing in another mixture, diluting,
+ * taking an aliquot and evaporating solvent. Volumes are taken to be additive.
+ *
+ * Solutes are numbered by a {@link SpeciesIndex}, so the same compound added twice,
+ * however it is written, is one solute, and the moles of each are kept in a plain
+ * array indexed the same way.
+ */
+public class Mixture {
+
+    private final SpeciesIndex solutes = new SpeciesIndex(); // Solutes, in the order first added
+    private double[] moles = new double[4]; // Moles of each solute
+    private double volume; // Volume of the mixture in liters
+
+    /**
+     * Constructor that creates an empty mixture, with no solutes and no volume.
+     */
+    public Mixture() {
+    }
+
+    /**
+     * Constructor that creates a mixture holding the contents of a solution.
+     *
+     * @param solution The solution; its sample's moles and its volume are copied
+     */
+    public Mixture(Solution solution) {
+        volume = solution.getVolume();
+        addMoles(solution.getSample(), solution.getSample().getSampleMoles());
+    }
+
+    /**
+     * Constructor that creates a copy of another mixture.
+     *
+     * @param other The mixture to copy
+     */
+    public Mixture(Mixture other) {
+        for (int i = 0; i < other.solutes.size(); i++) {
+            addMoles(other.solutes.getFormula(i), other.moles[i]);
+        }
+        volume = other.volume;
+    }
+
+    // Operations
+
+    /**
+     * Dissolves an amount of a solute without changing the volume.
+     *
+     * @param solute The solute; its multiplier is ignored
+     * @param amount The moles to add
+     * @return The solute index
+     * @throws IllegalArgumentException If the amount is negative
+     */
+    public int addSolute(Formula solute, double amount) {
+        if (!(amount >= 0)) {
+            throw new IllegalArgumentException("Amount must not be negative: " + amount);
+        }
+        return addMoles(solute, amount);
+    }
+
+    /**
+     * Adds moles of a solute, adding the solute if it is new.
+     *
+     * @param solute The solute
+     * @param amount The moles to add
+     * @return The solute index
+     */
+    private int addMoles(Formula solute, double amount) {
+        int index = solutes.add(solute);
+        if (index == moles.length) {
+            moles = Arrays.copyOf(moles, moles.length * 2);
+        }
+        moles[index] += amount;
+        return index;
+    }
+
+    /**
+     * Adds pure solvent, lowering every molarity.
+     *
+     * @param solventVolume The volume of solvent to add in liters
+     * @throws IllegalArgumentException If the volume is negative
+     */
+    public void addSolvent(double solventVolume) {
+        if (!(solventVolume >= 0)) {
+            throw new IllegalArgumentException("Volume must not be negative: " + solventVolume);
+        }
+        volume += solventVolume;
+    }
+
+    /**
+     * Dilutes the mixture with solvent up to a final volume, as C1 V1 = C2 V2.
+     *
+     * @param finalVolume The volume after dilution in liters
+     * @throws IllegalArgumentException If the final volume is less than the current one
+     */
+    public void dilute(double finalVolume) {
+        if (!(finalVolume >= volume)) {
+            throw new IllegalArgumentException("Cannot dilute " + volume + " L to " + finalVolume + " L");
+        }
+        volume = finalVolume;
+    }
+
+    /**
+     * Evaporates solvent, leaving every solute behind.
+     *
+     * @param volumeLost The volume of solvent removed in liters
+     * @throws IllegalArgumentException If the volume is negative or not less than the
+     *         current volume
+     */
+    public void evaporate(double volumeLost) {
+        if (!(volumeLost >= 0) || volumeLost >= volume) {
+            throw new IllegalArgumentException("Cannot evaporate " + volumeLost + " L from " + volume + " L");
+        }
+        volume -= volumeLost;
+    }
+
+    /**
+     * Pours another mixture into this one. The other mixture is left empty, so the
+     * moles of every solute are conserved; mix in a copy or an aliquot to keep it.
+     *
+     * @param other The mixture to pour in
+     * @throws IllegalArgumentException If the other mixture is this one
+     */
+    public void mix(Mixture other) {
+        if (other == this) {
+            throw new IllegalArgumentException("Cannot mix a mixture into itself");
+        }
+        for (int i = 0; i < other.solutes.size(); i++) {
+            addMoles(other.solutes.getFormula(i), other.moles[i]);
+        }
+        volume += other.volume;
+        other.clear();
+    }
+
+    /**
+     * Takes out part of the mixture, with the same molarities.
+     *
+     * @param aliquotVolume The volume to take in liters
+     * @return The aliquot
+     * @throws IllegalArgumentException If the volume is negative or more than the mixture
+     */
+    public Mixture aliquot(double aliquotVolume) {
+        if (!(aliquotVolume >= 0) || aliquotVolume > volume) {
+            throw new IllegalArgumentException("Cannot take " + aliquotVolume + " L from " + volume + " L");
+        }
+        double fraction = volume == 0 ? 0 : aliquotVolume / volume;
+        Mixture aliquot = new Mixture();
+        for (int i = 0; i < solutes.size(); i++) {
+            double taken = moles[i] * fraction;
+            aliquot.addMoles(solutes.getFormula(i), taken);
+            moles[i] -= taken;
+        }
+        aliquot.volume = aliquotVolume;
+        volume -= aliquotVolume;
+        return aliquot;
+    }
+
+    /**
+     * Clears the mixture by resetting every solute amount and the volume to zero. The
+     * solutes keep their indices.
+     */
+    public void clear() {
+        Arrays.fill(moles, 0);
+        volume = 0;
+    }
+
+    // Getters
+
+    /**
+     * Gets the solutes of the mixture, indexed as in {@link #getMoles(int)}.
+     *
+     * @return The solute index
+     */
+    public SpeciesIndex getSolutes() {
+        return solutes;
+    }
+
+    /**
+     * Gets the number of solutes.
+     *
+     * @return The solute count
+     */
+    public int getSoluteCount() {
+        return solutes.size();
+    }
+
+    /**
+     * Gets the volume of the mixture.
+     *
+     * @return The volume in liters
+     */
+    public double getVolume() {
+        return volume;
+    }
+
+    /**
+     * Gets the moles of a solute.
+     *
+     * @param soluteIndex The solute index
+     * @return The moles
+     */
+    public double getMoles(int soluteIndex) {
+        if (soluteIndex < 0 || soluteIndex >= solutes.size()) {
+            throw new IndexOutOfBoundsException(soluteIndex);
+        }
+        return moles[soluteIndex];
+    }
+
+    /**
+     * Gets the moles of a solute.
+     *
+     * @param solute The solute formula
+     * @return The moles, or 0 if the solute is not in the mixture
+     */
+    public double getMoles(Formula solute) {
+        int index = solutes.indexOf(solute);
+        return index < 0 ? 0 : moles[index];
+    }
+
+    /**
+     * Gets the molarity of a solute.
+     *
+     * @param soluteIndex The solute index
+     * @return The molarity in mol/L
+     */
+    public double getMolarity(int soluteIndex) {
+        return getMoles(soluteIndex) / volume;
+    }
+
+    /**
+     * Gets the molarity of a solute.
+     *
+     * @param solute The solute formula
+     * @return The molarity in mol/L, or 0 if the solute is not in the mixture
+     */
+    public double getMolarity(Formula solute) {
+        return getMoles(solute) / volume;
+    }
+}
@@ -0,0 +1,130 @@
+package edu.guilford.chemtools;
+
+import java.util.Arrays;
+
+/**
+ * The OxidationStates class infers the oxidation state of each element in a formula
+ * from the usual textbook rules, applied in order of priority: fluorine is -1, group 1
+ * metals +1, group 2 metals +2, hydrogen +1 (or -1 bonded only to metals) and oxygen -2
+ * (unless bonded to fluorine). The elements those rules do not cover take their most
+ * negative common state in order of decreasing electronegativity, and the least
+ * electronegative one takes whatever is left of the charge. When every element is
+ * covered by a rule, the lowest priority one takes the remainder instead, which gives
+ * -1 for oxygen in peroxides.
+ *
+ * States are kept as a total per element (state times atom count), which is always a
+ * whole number even when the average state is not, as for iron in Fe_3O_4.
+ */
+public final class OxidationStates {
+
+    private static final int FLUORINE = 9; // Atomic number of fluorine
+    private static final int HYDROGEN = 1; // Atomic number of hydrogen
+    private static final int OXYGEN = 8; // Atomic number of oxygen
+    private static final double METAL_ELECTRONEGATIVITY = 1.9; // Electronegativity below which an element is a metal
+
+    /**
+     * Prevents instantiation; all methods are static.
+     */
+    private OxidationStates() {
+    }
+
+    /**
+     * Gets the average oxidation state of an element in a formula.
+     *
+     * @param formula The formula
+     * @param atomicSymbol The element's symbol (e.g., "Mn")
+     * @return The oxidation state, averaged over the element's atoms
+     * @throws IllegalArgumentException If the element is not in the formula
+     */
+    public static double getOxidationState(Formula formula, String atomicSymbol) {
+        int index = Arrays.binarySearch(formula.getCompositionNumbers(), Element.atomicNumberOf(atomicSymbol));
+        if (index < 0) {
+            throw new IllegalArgumentException(atomicSymbol + " is not in " + formula);
+        }
+        return (double) totals(formula)[index] / formula.getCompositionCounts()[index];
+    }
+
+    /**
+     * Infers the total oxidation state of each element in a formula.
+     *
+     * @param formula The formula
+     * @return The state times the atom count, for each entry of
+     *         {@link Formula#getCompositionNumbers()}
+     */
+    static int[] totals(Formula formula) {
+        int[] numbers = formula.getCompositionNumbers();
+        int[] counts = formula.getCompositionCounts();
+        int[] totals = new int[numbers.length];
+        int remainder = formula.getCharge();
+        PeriodicTable table = PeriodicTable.current(); // One snapshot, so the sort below stays consistent
+        if (numbers.length == 1) {
+            totals[0] = remainder;
+            return totals;
+        }
+
+        // Apply the fixed rules in order of priority
+        boolean[] assigned = new boolean[numbers.length];
+        boolean hasFluorine = Arrays.binarySearch(numbers, FLUORINE) >= 0;
+        boolean hydride = true; // Whether hydrogen is bonded only to metals
+        for (int number : numbers) {
+            if (number != HYDROGEN && table.electronegativityOf(number) >= METAL_ELECTRONEGATIVITY) {
+                hydride = false;
+            }
+        }
+        int lastFixed = -1;
+        for (int rule = 0; rule < 5; rule++) {
+            for (int k = 0; k < numbers.length; k++) {
+                int state = assigned[k] ? 0 : fixedState(table, rule, numbers[k], hasFluorine, hydride);
+                if (state != 0) {
+                    totals[k] = state * counts[k];
+                    remainder -= totals[k];
+                    assigned[k] = true;
+                    lastFixed = k;
+                }
+            }
+        }
+
+        // Give the other elements their common negative states, most electronegative first
+        Integer[] free = new Integer[numbers.length];
+        int freeCount = 0;
+        for (int k = 0; k < numbers.length; k++) {
+            if (!assigned[k]) {
+                free[freeCount++] = k;
+            }
+        }
+        if (freeCount == 0) {
+            totals[lastFixed] += remainder;
+            return totals;
+        }
+        Arrays.sort(free, 0, freeCount, (a, b) -> Double.compare(table.electronegativityOf(numbers[b]),
+                table.electronegativityOf(numbers[a])));
+        for (int i = 0; i < freeCount - 1; i++) {
+            int k = free[i];
+            int group = table.groupOf(numbers[k]);
+            totals[k] = group >= 14 && group <= 17 ? (group - 18) * counts[k] : 0;
+            remainder -= totals[k];
+        }
+        totals[free[freeCount - 1]] = remainder;
+        return totals;
+    }
+
+    /**
+     * Gets the state a fixed rule gives an element.
+     *
+     * @param table The periodic table snapshot to read
+     * @param rule The rule, 0 (highest priority) to 4
+     * @param atomicNumber The element's atomic number
+     * @param hasFluorine Whether the formula contains fluorine
+     * @param hydride Whether every element other than hydrogen is a metal
+     * @return The oxidation state, or 0 if the rule does not cover the element
+     */
+    private static int fixedState(PeriodicTable table, int rule, int atomicNumber, boolean hasFluorine, boolean hydride) {
+        return switch (rule) {
+            case 0 -> atomicNumber == FLUORINE ? -1 : 0;
+            case 1 -> atomicNumber != HYDROGEN && table.groupOf(atomicNumber) == 1 ? 1 : 0;
+            case 2 -> table.groupOf(atomicNumber) == 2 ? 2 : 0;
+            case 3 -> atomicNumber != HYDROGEN ? 0 : hydride ? -1 : 1;
+            default -> atomicNumber == OXYGEN && !hasFluorine ? -2 : 0;
+        };
+    }
+}
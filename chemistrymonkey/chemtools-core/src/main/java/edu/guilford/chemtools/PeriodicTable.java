@@ -0,0 +1,353 @@
+package edu.guilford.chemtools;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The PeriodicTable class is an immutable snapshot of the element data that every
+ * {@link Element}, {@link Formula} and molar mass calculation reads. The snapshot in use
+ * is published through a single volatile reference, so a reader takes one snapshot and
+ * sees a complete, consistent table without locking, and a reload swaps in a new one
+ * atomically. Each snapshot has a version, increasing with every load, which caches
+ * derived from element data (such as a formula's molar mass) compare to notice that
+ * they are out of date.
+ *
+ * The first snapshot is read from the file named by the {@code chemtools.elements}
+ * system property when it is set and readable, and from the bundled
+ * {@code elementInformation.csv} otherwise. Files use the bundled layout: a header line,
+ * then one row per element starting with its atomic number, name, symbol and atomic
+ * mass, with the group in column 9 and the electronegativity in column 18 when present.
+ * Each atomic number and symbol may appear once, and a reload must keep every element
+ * of the snapshot it replaces, so formulas that parsed before a reload still parse.
+ * If the first snapshot cannot be read, the failure is counted and kept for
+ * {@link #getLoadFailure()}.
+ */
+public final class PeriodicTable {
+
+    /** Periodic table resource, bundled next to this class */
+    public static final String BUNDLED_FILE = "elementInformation.csv";
+
+    /** System property naming a replacement element file to load at startup */
+    public static final String FILE_PROPERTY = "chemtools.elements";
+
+    private static final int SIZE = 119; // Array length indexed by atomic number
+    private static final int GROUP_COLUMN = 8; // Zero-based column of the group
+    private static final int ELECTRONEGATIVITY_COLUMN = 17; // Zero-based column of the electronegativity
+
+    private static final AtomicLong VERSIONS = new AtomicLong(); // Source of snapshot versions
+    private static volatile Exception loadFailure; // Why the first snapshot fell back, or null
+    private static volatile PeriodicTable current = loadInitial(); // Snapshot in use
+
+    private final long version; // Version of this snapshot
+    private final String source; // File or resource the snapshot was read from
+    private final Map<String, Integer> numbersBySymbol; // Atomic number keyed by atomic symbol
+    private final String[] symbols = new String[SIZE]; // Atomic symbols indexed by atomic number
+    private final String[] names = new String[SIZE]; // Element names indexed by atomic number
+    private final double[] masses = new double[SIZE]; // Atomic masses indexed by atomic number
+    private final int[] groups = new int[SIZE]; // Groups indexed by atomic number
+    private final double[] electronegativities = new double[SIZE]; // Electronegativities indexed by atomic number
+
+    /**
+     * Constructor that builds a snapshot from element file rows.
+     *
+     * @param rows The rows, without the header line
+     * @param source The file or resource the rows came from
+     * @throws IllegalArgumentException If a row is malformed, repeats an atomic number or
+     *         symbol, or there are no rows
+     */
+    private PeriodicTable(List<String[]> rows, String source) {
+        this.source = source;
+        Map<String, Integer> bySymbol = new HashMap<>();
+        for (int r = 0; r < rows.size(); r++) {
+            String[] row = rows.get(r);
+            try {
+                if (row.length < 4) {
+                    throw new IllegalArgumentException("expected at least 4 columns");
+                }
+                int number = Integer.parseInt(row[0].trim());
+                if (number <= 0 || number >= SIZE) {
+                    throw new IllegalArgumentException("atomic number out of range: " + number);
+                }
+                String symbol = row[2].trim();
+                double mass = Double.parseDouble(row[3].trim());
+                if (symbol.isEmpty() || !(mass > 0)) {
+                    throw new IllegalArgumentException("missing symbol or atomic mass");
+                }
+                if (symbols[number] != null) {
+                    throw new IllegalArgumentException("atomic number " + number + " already used by "
+                            + symbols[number]);
+                }
+                Integer previous = bySymbol.put(symbol, number);
+                if (previous != null) {
+                    throw new IllegalArgumentException("symbol " + symbol + " already used by atomic number "
+                            + previous);
+                }
+                symbols[number] = symbol;
+                names[number] = row[1];
+                masses[number] = mass;
+                groups[number] = optionalColumn(row, GROUP_COLUMN).isEmpty()
+                        ? 0 : Integer.parseInt(row[GROUP_COLUMN].trim());
+                electronegativities[number] = optionalColumn(row, ELECTRONEGATIVITY_COLUMN).isEmpty()
+                        ? 0 : Double.parseDouble(row[ELECTRONEGATIVITY_COLUMN].trim());
+            } catch (IllegalArgumentException e) {
+                // NumberFormatException is an IllegalArgumentException too
+                throw new IllegalArgumentException(source + " row " + (r + 2) + ": " + e.getMessage(), e);
+            }
+        }
+        if (bySymbol.isEmpty()) {
+            throw new IllegalArgumentException(source + " has no elements");
+        }
+        numbersBySymbol = Collections.unmodifiableMap(bySymbol);
+        version = VERSIONS.incrementAndGet();
+    }
+
+    /**
+     * Constructor that builds the empty snapshot used when no element data can be read.
+     */
+    private PeriodicTable() {
+        source = "";
+        numbersBySymbol = Map.of();
+        version = VERSIONS.incrementAndGet();
+    }
+
+    /**
+     * Gets a column of a row, trimmed.
+     *
+     * @param row The row
+     * @param column The zero-based column
+     * @return The value, or an empty string if the row is too short
+     */
+    private static String optionalColumn(String[] row, int column) {
+        return column < row.length ? row[column].trim() : "";
+    }
+
+    /**
+     * Loads the first snapshot from the file named by FILE_PROPERTY, falling back to the
+     * bundled file, and to an empty table if that cannot be read either. Each failure is
+     * counted, and the last one is kept for {@link #getLoadFailure()}.
+     *
+     * @return The first snapshot
+     */
+    private static PeriodicTable loadInitial() {
+        String file = System.getProperty(FILE_PROPERTY);
+        if (file != null && !file.isBlank()) {
+            try {
+                return load(Path.of(file));
+            } catch (IOException | IllegalArgumentException e) {
+                // InvalidPathException is an IllegalArgumentException too
+                recordLoadFailure(e);
+            }
+        }
+        try {
+            return new PeriodicTable(CsvLines.readResource(BUNDLED_FILE), BUNDLED_FILE);
+        } catch (IOException | IllegalArgumentException e) {
+            recordLoadFailure(e);
+            return new PeriodicTable();
+        }
+    }
+
+    /**
+     * Counts a failed load of the first snapshot and keeps it for {@link #getLoadFailure()}.
+     *
+     * @param failure The exception
+     */
+    private static void recordLoadFailure(Exception failure) {
+        CoreMetrics.PERIODIC_TABLE_LOAD_FAILURES.increment();
+        loadFailure = failure;
+    }
+
+    /**
+     * Checks that a snapshot keeps every element of another, under the same atomic
+     * number and symbol.
+     *
+     * @param previous The snapshot being replaced
+     * @throws IllegalArgumentException If an element is missing or has a different symbol
+     */
+    private void checkKeepsElementsOf(PeriodicTable previous) {
+        for (int number = 1; number < SIZE; number++) {
+            String symbol = previous.symbols[number];
+            if (symbol != null && !symbol.equals(symbols[number])) {
+                throw new IllegalArgumentException(source + " drops element " + number + " (" + symbol + ")"
+                        + (symbols[number] == null ? "" : ", now " + symbols[number]));
+            }
+        }
+    }
+
+    /**
+     * Gets the failure that made the first snapshot fall back to the bundled file or to
+     * the empty table.
+     *
+     * @return The last exception, or null if the first snapshot loaded as configured
+     */
+    public static Exception getLoadFailure() {
+        return loadFailure;
+    }
+
+    /**
+     * Gets the snapshot in use. Callers making several lookups that must agree should
+     * take the snapshot once and use it for all of them.
+     *
+     * @return The current snapshot
+     */
+    public static PeriodicTable current() {
+        return current;
+    }
+
+    /**
+     * Reads an element file into a new snapshot without putting it in use.
+     *
+     * @param file The element file
+     * @return The snapshot
+     * @throws IOException If the file cannot be read
+     * @throws IllegalArgumentException If a row is malformed, an atomic number or symbol
+     *         is repeated, or the file has no elements
+     */
+    public static PeriodicTable load(Path file) throws IOException {
+        return new PeriodicTable(CsvLines.readFile(file), file.toString());
+    }
+
+    /**
+     * Reads an element file and puts it in use. If the file cannot be read, is
+     * malformed or drops an element of the current snapshot, the current snapshot stays
+     * in use.
+     *
+     * @param file The element file
+     * @return The new snapshot
+     * @throws IOException If the file cannot be read
+     * @throws IllegalArgumentException If a row is malformed, an atomic number or symbol
+     *         is repeated, the file has no elements, or it drops an element
+     */
+    public static PeriodicTable reload(Path file) throws IOException {
+        try {
+            PeriodicTable table = load(file);
+            install(table);
+            return table;
+        } catch (IOException | IllegalArgumentException e) {
+            CoreMetrics.PERIODIC_TABLE_RELOAD_FAILURES.increment();
+            throw e;
+        }
+    }
+
+    /**
+     * Puts a snapshot in use. Readers already holding the previous snapshot finish with
+     * it; every later lookup sees the new one.
+     *
+     * @param table The snapshot
+     * @throws IllegalArgumentException If the table is null or drops an element of the
+     *         current snapshot
+     */
+    public static synchronized void install(PeriodicTable table) {
+        if (table == null) {
+            throw new IllegalArgumentException("Periodic table must not be null");
+        }
+        table.checkKeepsElementsOf(current);
+        current = table;
+        CoreMetrics.PERIODIC_TABLE_RELOADS.increment();
+    }
+
+    // Getters
+
+    /**
+     * Gets the version of the snapshot. Later loads have larger versions.
+     *
+     * @return The version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Gets where the snapshot was read from.
+     *
+     * @return The file path or resource name, or an empty string for the empty table
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * Gets the number of elements in the snapshot.
+     *
+     * @return The element count
+     */
+    public int getElementCount() {
+        return numbersBySymbol.size();
+    }
+
+    /**
+     * Looks up the atomic number for an atomic symbol.
+     *
+     * @param atomicSymbol The atomic symbol (e.g., "H")
+     * @return The atomic number, or 0 if the symbol is unknown
+     */
+    public int atomicNumberOf(String atomicSymbol) {
+        Integer number = numbersBySymbol.get(atomicSymbol);
+        return number == null ? 0 : number;
+    }
+
+    /**
+     * Looks up the atomic symbol for an atomic number.
+     *
+     * @param atomicNumber The atomic number (e.g., 1)
+     * @return The atomic symbol, or null if the number is unknown
+     */
+    public String atomicSymbolOf(int atomicNumber) {
+        return atomicNumber > 0 && atomicNumber < SIZE ? symbols[atomicNumber] : null;
+    }
+
+    /**
+     * Looks up the element name for an atomic number.
+     *
+     * @param atomicNumber The atomic number (e.g., 1)
+     * @return The element name, or null if the number is unknown
+     */
+    public String elementNameOf(int atomicNumber) {
+        return atomicNumber > 0 && atomicNumber < SIZE ? names[atomicNumber] : null;
+    }
+
+    /**
+     * Looks up the atomic mass for an atomic number.
+     *
+     * @param atomicNumber The atomic number (e.g., 1)
+     * @return The atomic mass in AMU, or 0 if the number is unknown
+     */
+    public double atomicMassOf(int atomicNumber) {
+        return atomicNumber > 0 && atomicNumber < SIZE ? masses[atomicNumber] : 0;
+    }
+
+    /**
+     * Looks up the atomic mass for an atomic symbol.
+     *
+     * @param atomicSymbol The atomic symbol (e.g., "H")
+     * @return The atomic mass in AMU, or 0 if the symbol is unknown
+     */
+    public double atomicMassOf(String atomicSymbol) {
+        return masses[atomicNumberOf(atomicSymbol)];
+    }
+
+    /**
+     * Looks up the periodic table group for an atomic number.
+     *
+     * @param atomicNumber The atomic number (e.g., 8)
+     * @return The group from 1 to 18, or 0 if the number is unknown or has no group
+     *         (lanthanides and actinides)
+     */
+    public int groupOf(int atomicNumber) {
+        return atomicNumber > 0 && atomicNumber < SIZE ? groups[atomicNumber] : 0;
+    }
+
+    /**
+     * Looks up the Pauling electronegativity for an atomic number.
+     *
+     * @param atomicNumber The atomic number (e.g., 8)
+     * @return The electronegativity, or 0 if the number is unknown or has no value (noble gases)
+     */
+    public double electronegativityOf(int atomicNumber) {
+        return atomicNumber > 0 && atomicNumber < SIZE ? electronegativities[atomicNumber] : 0;
+    }
+}
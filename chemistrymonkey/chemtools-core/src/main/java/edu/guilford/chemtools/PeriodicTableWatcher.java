@@ -0,0 +1,165 @@
+package edu.guilford.chemtools;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The PeriodicTableWatcher class keeps the {@link PeriodicTable} in step with an element
+ * file on disk, such as a copy of the bundled table with site-specific corrections.
+ * A daemon thread waits on a {@link WatchService} for changes to the file, waits for
+ * writes to settle, parses the file in the background and swaps the new snapshot in
+ * atomically. A file that cannot be read or parsed, repeats an element or drops one
+ * the current snapshot has leaves the current snapshot in use, so a half-saved edit is
+ * never seen by readers; the reason is kept for {@link #getLastFailure()} and the next
+ * good save is picked up.
+ */
+public class PeriodicTableWatcher implements AutoCloseable {
+
+    /** Quiet time after the last change event before reloading, in milliseconds */
+    public static final long DEFAULT_SETTLE_MILLIS = 200;
+
+    private final Path file; // Element file watched
+    private final WatchService watchService; // Watches the file's directory
+    private final Thread thread; // Background thread waiting for changes
+    private volatile long settleMillis = DEFAULT_SETTLE_MILLIS; // Quiet time before reloading
+    private volatile int reloadCount; // Snapshots put in use by this watcher
+    private volatile Exception lastFailure; // Failure of the latest reload, or null
+
+    /**
+     * Constructor that prepares to watch an element file. Call {@link #start()} to begin.
+     *
+     * @param file The element file; its directory must exist
+     * @throws IOException If the directory cannot be watched
+     */
+    public PeriodicTableWatcher(Path file) throws IOException {
+        this.file = file.toAbsolutePath();
+        watchService = this.file.getFileSystem().newWatchService();
+        this.file.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+        thread = new Thread(this::watch, "periodic-table-watcher");
+        thread.setDaemon(true);
+    }
+
+    /**
+     * Starts watching. Changes made before the call are not picked up; call
+     * {@link PeriodicTable#reload(Path)} first to load the file as it is now.
+     */
+    public void start() {
+        thread.start();
+    }
+
+    /**
+     * Stops watching. A reload already parsing finishes first.
+     *
+     * @throws IOException If the watch service cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+        thread.interrupt();
+    }
+
+    /**
+     * Waits for changes to the file and reloads it after each burst of changes, until
+     * closed.
+     */
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = isFileChanged(key);
+                if (changed) {
+                    // Editors often save in several writes; wait until they stop
+                    WatchKey more;
+                    while ((more = watchService.poll(settleMillis, TimeUnit.MILLISECONDS)) != null) {
+                        isFileChanged(more);
+                    }
+                    reload();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Closed
+        }
+    }
+
+    /**
+     * Drains a watch key's events and resets it.
+     *
+     * @param key The signalled key
+     * @return true if any event may concern the watched file
+     */
+    private boolean isFileChanged(WatchKey key) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || file.getFileName().equals(event.context())) {
+                changed = true;
+            }
+        }
+        key.reset();
+        return changed;
+    }
+
+    /**
+     * Parses the file and puts it in use, keeping the current snapshot on failure.
+     */
+    private void reload() {
+        try {
+            PeriodicTable.reload(file);
+            reloadCount++;
+            lastFailure = null;
+        } catch (IOException | IllegalArgumentException e) {
+            lastFailure = e;
+        }
+    }
+
+    // Setters
+
+    /**
+     * Sets how long the file must go unchanged before it is reloaded.
+     *
+     * @param settleMillis The quiet time in milliseconds
+     * @throws IllegalArgumentException If the time is negative
+     */
+    public void setSettleMillis(long settleMillis) {
+        if (settleMillis < 0) {
+            throw new IllegalArgumentException("Settle time must not be negative: " + settleMillis);
+        }
+        this.settleMillis = settleMillis;
+    }
+
+    // Getters
+
+    /**
+     * Gets the element file watched.
+     *
+     * @return The absolute path of the file
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Gets the number of snapshots this watcher has put in use.
+     *
+     * @return The reload count
+     */
+    public int getReloadCount() {
+        return reloadCount;
+    }
+
+    /**
+     * Gets the failure of the latest reload, if it failed.
+     *
+     * @return The IOException or IllegalArgumentException, or null if the latest reload
+     *         succeeded or none has run
+     */
+    public Exception getLastFailure() {
+        return lastFailure;
+    }
+}
@@ -0,0 +1,48 @@
+package edu.guilford.chemtools;
+
+/**
+ * The Phase enum lists the physical states used to key thermochemical data, with the
+ * short codes written after a formula in chemistry texts (e.g., H_2O(l)).
+ */
+public enum Phase {
+    SOLID("s"),
+    LIQUID("l"),
+    GAS("g"),
+    AQUEOUS("aq");
+
+    private final String code; // Short code (e.g., "aq")
+
+    /**
+     * Constructor that sets the phase code.
+     *
+     * @param code The short code
+     */
+    Phase(String code) {
+        this.code = code;
+    }
+
+    /**
+     * Finds the phase for a short code.
+     *
+     * @param code The short code, in any case (e.g., "g" or "AQ")
+     * @return The phase
+     * @throws IllegalArgumentException If the code is not a known phase
+     */
+    public static Phase fromCode(String code) {
+        for (Phase phase : values()) {
+            if (phase.code.equalsIgnoreCase(code.trim())) {
+                return phase;
+            }
+        }
+        throw new IllegalArgumentException("Unknown phase: " + code);
+    }
+
+    /**
+     * Gets the short code.
+     *
+     * @return The code (e.g., "s")
+     */
+    public String getCode() {
+        return code;
+    }
+}
@@ -0,0 +1,526 @@
+package edu.guilford.chemtools;
+
+import edu.guilford.chemtools.math.Matrices;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+/**
+ * The ProductSearch class finds which sets of candidate products, drawn from a library
+ * of compounds, balance a given set of reactants. A set is reported when the reactants
+ * and products together have exactly one balance (up to scale) and it uses every
+ * species, which makes the set minimal: no smaller set of the same products balances
+ * the same reactants.
+ *
+ * Candidates are pruned before any arithmetic. Each formula's elements are kept as a
+ * bitset over atomic numbers, so a candidate with an element the reactants lack is
+ * dropped up front, and a partial set is abandoned as soon as the candidates left
+ * cannot supply the elements still missing. Sets whose charges cannot sum to the
+ * reactants' are skipped the same way. Each species' composition is also reduced into
+ * an echelon form as the set grows, so the rank is known after every step: a set only
+ * has one balance using every species if it is the first step to make the species
+ * dependent, so the search tests a set when that happens and never extends it. Only
+ * those sets, when they cover exactly the reactants' elements, reach the exact null
+ * space test of {@link Matrices#integerNullSpace(long[], int, int)}. This also bounds
+ * the set size by the number of elements, plus one if any species is charged.
+ *
+ * Sets are explored in parallel on the common fork-join pool, one task per first
+ * candidate, and each balance is passed to the listener as soon as it is found.
+ */
+public class ProductSearch {
+
+    public static final int DEFAULT_MAX_PRODUCTS = 3; // Largest product set tried unless set otherwise
+
+    private static final int POSITIVE = 1; // Charge sign bit: a species has positive charge
+    private static final int NEGATIVE = 2; // Charge sign bit: a species has negative charge
+
+    private final List<Formula> reactants; // Reactants, all used in every balance
+    private final Formula[] candidates; // Library entries made only of the reactants' elements
+    private final long[] candidateLow; // Elements 0-63 of each candidate, one bit per atomic number
+    private final long[] candidateHigh; // Elements 64-127 of each candidate
+    private final long[] suffixLow; // Elements 0-63 of the candidates from each index on
+    private final long[] suffixHigh; // Elements 64-127 of the candidates from each index on
+    private final int[] candidateSigns; // Charge sign bits of each candidate
+    private final long reactantLow; // Elements 0-63 of the reactants
+    private final long reactantHigh; // Elements 64-127 of the reactants
+    private final int reactantSigns; // Charge sign bits of the reactants together
+    private final int[] rowOf = new int[128]; // Matrix row of each reactant element
+    private final int rows; // Reactant elements plus one row for charge
+
+    private int maxProducts = DEFAULT_MAX_PRODUCTS; // Largest product set tried
+    private final LongAdder setsTested = new LongAdder(); // Sets given the null space test
+    private volatile boolean cancelled; // Whether the running search should stop
+
+    /**
+     * Constructor that prepares a search.
+     *
+     * @param reactants The reactants
+     * @param library The candidate products; entries with an element the reactants lack,
+     *        entries that are themselves a reactant, and repeated entries are dropped
+     * @throws IllegalArgumentException If there are no reactants
+     */
+    public ProductSearch(List<Formula> reactants, List<Formula> library) {
+        if (reactants.isEmpty()) {
+            throw new IllegalArgumentException("At least one reactant is required");
+        }
+        this.reactants = new ArrayList<>(reactants);
+        long low = 0;
+        long high = 0;
+        int signs = 0;
+        for (Formula reactant : reactants) {
+            low |= elementBits(reactant, 0);
+            high |= elementBits(reactant, 64);
+            signs |= chargeSign(reactant);
+        }
+        reactantLow = low;
+        reactantHigh = high;
+        reactantSigns = signs;
+
+        Arrays.fill(rowOf, -1);
+        int row = 0;
+        for (int number = 1; number < 128; number++) {
+            if (((number < 64 ? low >>> number : high >>> (number - 64)) & 1) != 0) {
+                rowOf[number] = row++;
+            }
+        }
+        rows = row + 1;
+
+        List<Formula> kept = new ArrayList<>();
+        FormulaIndex seen = new FormulaIndex(); // Compounds kept, so duplicates are dropped
+        for (Formula formula : library) {
+            if ((elementBits(formula, 0) & ~low) == 0 && (elementBits(formula, 64) & ~high) == 0
+                    && !isReactant(formula) && seen.putIfAbsent(formula, kept.size()) == FormulaIndex.NOT_FOUND) {
+                kept.add(formula);
+            }
+        }
+        int count = kept.size();
+        candidates = kept.toArray(new Formula[0]);
+        candidateLow = new long[count];
+        candidateHigh = new long[count];
+        candidateSigns = new int[count];
+        suffixLow = new long[count + 1];
+        suffixHigh = new long[count + 1];
+        for (int i = count - 1; i >= 0; i--) {
+            candidateLow[i] = elementBits(candidates[i], 0);
+            candidateHigh[i] = elementBits(candidates[i], 64);
+            candidateSigns[i] = chargeSign(candidates[i]);
+            suffixLow[i] = suffixLow[i + 1] | candidateLow[i];
+            suffixHigh[i] = suffixHigh[i + 1] | candidateHigh[i];
+        }
+    }
+
+    /**
+     * Gets the bits of a formula's elements within a block of 64 atomic numbers.
+     *
+     * @param formula The formula
+     * @param base The first atomic number of the block, 0 or 64
+     * @return One bit per element present, bit n for atomic number base + n
+     */
+    private static long elementBits(Formula formula, int base) {
+        long bits = 0;
+        for (int number : formula.getCompositionNumbers()) {
+            if (number >= base && number < base + 64) {
+                bits |= 1L << (number - base);
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * Gets the charge sign bit of a formula.
+     *
+     * @param formula The formula
+     * @return POSITIVE, NEGATIVE, or 0 for a neutral formula
+     */
+    private static int chargeSign(Formula formula) {
+        return formula.getCharge() > 0 ? POSITIVE : formula.getCharge() < 0 ? NEGATIVE : 0;
+    }
+
+    /**
+     * Gets the signs a sum of positive multiples of some charges can have.
+     *
+     * @param signs The charge sign bits of the species
+     * @return Bit 0 if the sum can be positive, bit 1 if negative, bit 2 if zero
+     */
+    private static int possibleSums(int signs) {
+        return signs | (signs == 0 || signs == (POSITIVE | NEGATIVE) ? 4 : 0);
+    }
+
+    /**
+     * Checks whether a formula is the same compound as one of the reactants.
+     *
+     * @param formula The formula
+     * @return true if it is a reactant
+     */
+    private boolean isReactant(Formula formula) {
+        for (Formula reactant : reactants) {
+            if (reactant.isSameCompound(formula)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Finds every minimal balancing product set, without reporting them as found.
+     *
+     * @return The balanced equations, ordered by product count, then library order
+     */
+    public List<Equation> search() {
+        return search(null);
+    }
+
+    /**
+     * Finds every minimal balancing product set. The listener is called from the worker
+     * threads as each set is found, so it must be thread-safe.
+     *
+     * @param listener Listener given each balanced equation as it is found, or null for none
+     * @return The balanced equations, ordered by product count, then library order;
+     *         those found so far if the search was cancelled; empty if the reactants
+     *         balance among themselves
+     */
+    public List<Equation> search(ResultListener listener) {
+        cancelled = false;
+        List<Found> found = new ArrayList<>();
+        Echelon start = new Echelon(reactants.size() + maxProducts, rows);
+        for (Formula reactant : reactants) {
+            if (!start.add(column(reactant))) {
+                return new ArrayList<>();
+            }
+        }
+        IntStream.range(0, candidates.length).parallel().forEach(first -> {
+            Echelon echelon = new Echelon(start);
+            int[] chosen = new int[maxProducts];
+            chosen[0] = first;
+            extend(echelon, chosen, 1, candidateLow[first], candidateHigh[first], candidateSigns[first], found,
+                    listener);
+        });
+        found.sort(null);
+        List<Equation> equations = new ArrayList<>(found.size());
+        for (Found set : found) {
+            equations.add(set.equation);
+        }
+        return equations;
+    }
+
+    /**
+     * Adds the last chosen candidate to a product set. If that makes the species
+     * linearly dependent, the set is tested as a balance and not extended, since any
+     * larger set would hold this dependence and so have more than one balance.
+     * Otherwise each way of adding one more candidate from later in the library is tried.
+     *
+     * @param echelon The reduced columns of the reactants and the other chosen candidates
+     * @param chosen The candidate indices chosen so far
+     * @param size The number chosen
+     * @param low Elements 0-63 of the chosen candidates
+     * @param high Elements 64-127 of the chosen candidates
+     * @param signs Charge sign bits of the chosen candidates
+     * @param found Collects the sets found
+     * @param listener Listener given each balanced equation, or null for none
+     */
+    private void extend(Echelon echelon, int[] chosen, int size, long low, long high, int signs, List<Found> found,
+            ResultListener listener) {
+        if (cancelled) {
+            return;
+        }
+        int depth = echelon.size();
+        boolean independent;
+        try {
+            independent = echelon.add(column(candidates[chosen[size - 1]]));
+        } catch (ArithmeticException e) {
+            return;
+        }
+        if (!independent) {
+            if (low == reactantLow && high == reactantHigh
+                    && (possibleSums(signs) & possibleSums(reactantSigns)) != 0) {
+                Equation equation = balance(chosen, size);
+                if (equation != null) {
+                    synchronized (found) {
+                        found.add(new Found(Arrays.copyOf(chosen, size), equation));
+                    }
+                    if (listener != null) {
+                        listener.found(equation);
+                    }
+                }
+            }
+            return;
+        }
+        if (size < maxProducts) {
+            for (int next = chosen[size - 1] + 1; next < candidates.length; next++) {
+                // The suffix unions only shrink, so once they miss an element every later one does
+                if ((low | suffixLow[next]) != reactantLow || (high | suffixHigh[next]) != reactantHigh) {
+                    break;
+                }
+                chosen[size] = next;
+                extend(echelon, chosen, size + 1, low | candidateLow[next], high | candidateHigh[next],
+                        signs | candidateSigns[next], found, listener);
+            }
+        }
+        echelon.truncate(depth);
+    }
+
+    /**
+     * Gets a formula's composition and charge as a column over the matrix rows.
+     *
+     * @param formula The formula
+     * @return The atom count of each reactant element, then the charge
+     */
+    private long[] column(Formula formula) {
+        long[] column = new long[rows];
+        int[] numbers = formula.getCompositionNumbers();
+        int[] counts = formula.getCompositionCounts();
+        for (int e = 0; e < numbers.length; e++) {
+            column[rowOf[numbers[e]]] = counts[e];
+        }
+        column[rows - 1] = formula.getCharge();
+        return column;
+    }
+
+    /**
+     * Solves for the balance of the reactants with a product set.
+     *
+     * @param chosen The candidate indices
+     * @param size The number of candidates chosen
+     * @return The balanced equation, with copies of the formulas, or null unless there is
+     *         exactly one balance and it uses every species
+     */
+    private Equation balance(int[] chosen, int size) {
+        setsTested.increment();
+        int columns = reactants.size() + size;
+        long[] matrix = new long[rows * columns];
+        for (int k = 0; k < columns; k++) {
+            Formula formula = k < reactants.size() ? reactants.get(k) : candidates[chosen[k - reactants.size()]];
+            int sign = k < reactants.size() ? -1 : 1;
+            int[] numbers = formula.getCompositionNumbers();
+            int[] counts = formula.getCompositionCounts();
+            for (int e = 0; e < numbers.length; e++) {
+                matrix[rowOf[numbers[e]] * columns + k] = sign * counts[e];
+            }
+            matrix[(rows - 1) * columns + k] = sign * formula.getCharge();
+        }
+
+        long[][] basis;
+        try {
+            basis = Matrices.integerNullSpace(matrix, rows, columns);
+        } catch (ArithmeticException e) {
+            return null;
+        }
+        if (basis.length != 1) {
+            return null;
+        }
+        long[] coefficients = basis[0];
+        long sign = Long.signum(coefficients[0]);
+        for (long coefficient : coefficients) {
+            if (Long.signum(coefficient) != sign || Math.abs(coefficient) > Integer.MAX_VALUE) {
+                return null;
+            }
+        }
+
+        Equation equation = new Equation();
+        for (int k = 0; k < columns; k++) {
+            Formula formula = new Formula(k < reactants.size() ? reactants.get(k)
+                    : candidates[chosen[k - reactants.size()]]);
+            formula.setMultiplier((int) Math.abs(coefficients[k]));
+            if (k < reactants.size()) {
+                equation.addLeftFormula(formula);
+            } else {
+                equation.addRightFormula(formula);
+            }
+        }
+        return equation;
+    }
+
+    /**
+     * Stops a running search. Sets already found are still returned.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    // Setters
+
+    /**
+     * Sets the largest product set tried. The work grows roughly as the candidate count
+     * to this power.
+     *
+     * @param maxProducts The most products in a set
+     * @throws IllegalArgumentException If it is less than 1
+     */
+    public void setMaxProducts(int maxProducts) {
+        if (maxProducts < 1) {
+            throw new IllegalArgumentException("Max products must be at least 1: " + maxProducts);
+        }
+        this.maxProducts = maxProducts;
+    }
+
+    // Getters
+
+    /**
+     * Gets the largest product set tried.
+     *
+     * @return The most products in a set
+     */
+    public int getMaxProducts() {
+        return maxProducts;
+    }
+
+    /**
+     * Gets the number of library entries left after pruning by element.
+     *
+     * @return The candidate count
+     */
+    public int getCandidateCount() {
+        return candidates.length;
+    }
+
+    /**
+     * Gets the number of sets that reached the null space test, over all searches.
+     *
+     * @return The sets tested
+     */
+    public long getSetsTested() {
+        return setsTested.sum();
+    }
+
+    /**
+     * The ResultListener interface receives balancing product sets as they are found.
+     */
+    @FunctionalInterface
+    public interface ResultListener {
+
+        /**
+         * Called from a worker thread for each balancing product set.
+         *
+         * @param equation The balanced equation, reactants on the left
+         */
+        void found(Equation equation);
+    }
+
+    /**
+     * The Echelon class holds linearly independent columns in echelon form, reduced in
+     * whole numbers as they are added, so each added column costs one pass over those
+     * before it. Columns are removed last in, first out, as the search backs up.
+     */
+    private static final class Echelon {
+
+        private final long[][] vectors; // Reduced columns, each nonzero at its pivot row
+        private final int[] pivots; // Pivot row of each reduced column
+        private int size; // Number of columns held
+
+        /**
+         * Constructor that creates an empty echelon form.
+         *
+         * @param capacity The most columns held
+         * @param rows The length of each column
+         */
+        Echelon(int capacity, int rows) {
+            vectors = new long[capacity][rows];
+            pivots = new int[capacity];
+        }
+
+        /**
+         * Copy constructor, for a worker to extend a shared starting form.
+         *
+         * @param other The form to copy
+         */
+        Echelon(Echelon other) {
+            vectors = new long[other.vectors.length][];
+            for (int j = 0; j < vectors.length; j++) {
+                vectors[j] = other.vectors[j].clone();
+            }
+            pivots = other.pivots.clone();
+            size = other.size;
+        }
+
+        /**
+         * Reduces a column against those held and keeps it if anything is left.
+         *
+         * @param column The column; not modified
+         * @return true if the column was independent of those held and was added
+         * @throws ArithmeticException If an intermediate value overflows a long
+         */
+        boolean add(long[] column) {
+            long[] vector = vectors[size];
+            System.arraycopy(column, 0, vector, 0, column.length);
+            for (int j = 0; j < size; j++) {
+                long factor = vector[pivots[j]];
+                if (factor == 0) {
+                    continue;
+                }
+                long[] basis = vectors[j];
+                long pivotValue = basis[pivots[j]];
+                long divisor = 0;
+                for (int i = 0; i < vector.length; i++) {
+                    vector[i] = Math.subtractExact(Math.multiplyExact(vector[i], pivotValue),
+                            Math.multiplyExact(basis[i], factor));
+                    divisor = Matrices.gcd(divisor, vector[i]);
+                }
+                if (divisor > 1) {
+                    for (int i = 0; i < vector.length; i++) {
+                        vector[i] /= divisor;
+                    }
+                }
+            }
+            for (int i = 0; i < vector.length; i++) {
+                if (vector[i] != 0) {
+                    pivots[size++] = i;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Removes the columns added after a given count.
+         *
+         * @param count The number of columns to keep
+         */
+        void truncate(int count) {
+            size = count;
+        }
+
+        /**
+         * Gets the number of columns held.
+         *
+         * @return The column count
+         */
+        int size() {
+            return size;
+        }
+    }
+
+    /**
+     * The Found class pairs a balancing product set with its equation, ordered by
+     * product count and then by the candidates' library order.
+     */
+    private static final class Found implements Comparable<Found> {
+
+        private final int[] products; // Candidate indices, ascending
+        private final Equation equation; // Balanced equation
+
+        /**
+         * Constructor that records a product set.
+         *
+         * @param products The candidate indices
+         * @param equation The balanced equation
+         */
+        Found(int[] products, Equation equation) {
+            this.products = products;
+            this.equation = equation;
+        }
+
+        /**
+         * Compares by product count, then by candidate indices.
+         *
+         * @param other The set to compare with
+         * @return Negative, zero or positive as this set comes first, equal or later
+         */
+        @Override
+        public int compareTo(Found other) {
+            int bySize = Integer.compare(products.length, other.products.length);
+            return bySize != 0 ? bySize : Arrays.compare(products, other.products);
+        }
+    }
+}
@@ -0,0 +1,370 @@
+package edu.guilford.chemtools;
+
+import java.util.Arrays;
+
+/**
+ * The ReactionNetwork class holds many reactions over one shared {@link SpeciesIndex},
+ * as a sparse stoichiometric matrix in compressed sparse row form: one row per
+ * reaction, with an entry for each species the reaction changes, holding its net
+ * coefficient (products minus reactants). A network of thousands of reactions takes a
+ * few arrays, where each {@link Equation} keeps two 119-slot element tables and a list
+ * per side.
+ *
+ * The network answers three questions about a mechanism:
+ * <ul>
+ * <li>which reactions do not conserve every element and charge,</li>
+ * <li>which reactions are linear combinations of reactions added before them, and so
+ *     add no new direction of change, and</li>
+ * <li>its conservation laws: weightings of the species whose total no reaction changes,
+ *     which include the element and charge totals and any other invariants.</li>
+ * </ul>
+ *
+ * The last two come from one pass over the rows that keeps the reactions seen so far in
+ * reduced row echelon form. A new row only needs subtracting the basis rows at its own
+ * species, since reduced basis rows are zero at each other's pivots. The reduction
+ * works on dense rows, though: each reaction is expanded to a row over all n species,
+ * each subtraction and each update of the basis for a new pivot costs O(n), and the
+ * basis holds up to min(R, n) dense rows, so the analysis takes O(R n) memory and up to
+ * O(R n rank) time for R reactions. That is quick for mechanisms of thousands of
+ * species; only the stored matrix is sparse. The conservation laws span the complement
+ * of the basis and are read off it directly.
+ *
+ * Results are calculated on first request and kept until a reaction is added. They are
+ * published through a volatile field as one immutable object, so once no more reactions
+ * are added, any number of threads may read them.
+ */
+public class ReactionNetwork {
+
+    private static final double TOLERANCE = 1e-9; // Size below which a reduced entry counts as zero
+    private static final int MAX_DENOMINATOR = 1000; // Largest scale tried to make a law whole
+
+    private final SpeciesIndex species = new SpeciesIndex(); // Species of all reactions
+    private int reactionCount; // Number of reactions
+
+    // Entries of reaction r are rowStart[r] until rowStart[r + 1]
+    private int[] rowStart = new int[17];
+    private int[] entrySpecies = new int[64]; // Species index of each entry
+    private int[] entryAmounts = new int[64]; // Net coefficient of each entry
+
+    private volatile Analysis analysis; // Results for the current reactions, or null until requested
+
+    /**
+     * Adds a reaction. The equation does not have to be balanced, so unbalanced entries
+     * in a mechanism can be found with {@link #findUnbalancedReactions()}.
+     *
+     * @param equation The equation; its multipliers are the coefficients
+     * @return The reaction index
+     */
+    public int addReaction(Equation equation) {
+        int r = reactionCount;
+        if (r + 1 == rowStart.length) {
+            rowStart = Arrays.copyOf(rowStart, rowStart.length * 2);
+        }
+        int start = rowStart[r];
+        int end = start;
+        for (Formula formula : equation.getLeftFormulas()) {
+            end = addEntry(start, end, species.add(formula), -formula.getMultiplier());
+        }
+        for (Formula formula : equation.getRightFormulas()) {
+            end = addEntry(start, end, species.add(formula), formula.getMultiplier());
+        }
+
+        // Drop species that cancel, such as catalysts
+        int kept = start;
+        for (int i = start; i < end; i++) {
+            if (entryAmounts[i] != 0) {
+                entrySpecies[kept] = entrySpecies[i];
+                entryAmounts[kept] = entryAmounts[i];
+                kept++;
+            }
+        }
+        rowStart[r + 1] = kept;
+        reactionCount++;
+        analysis = null;
+        return r;
+    }
+
+    /**
+     * Adds an amount to a species' entry in the current reaction, creating the entry if
+     * the species has none yet.
+     *
+     * @param start The first entry of the current reaction
+     * @param end The entry just past the current reaction's last entry
+     * @param speciesIndex The species
+     * @param amount The amount to add
+     * @return The new end of the current reaction's entries
+     */
+    private int addEntry(int start, int end, int speciesIndex, int amount) {
+        for (int i = start; i < end; i++) {
+            if (entrySpecies[i] == speciesIndex) {
+                entryAmounts[i] += amount;
+                return end;
+            }
+        }
+        if (end == entrySpecies.length) {
+            entrySpecies = Arrays.copyOf(entrySpecies, end * 2);
+            entryAmounts = Arrays.copyOf(entryAmounts, end * 2);
+        }
+        entrySpecies[end] = speciesIndex;
+        entryAmounts[end] = amount;
+        return end + 1;
+    }
+
+    /**
+     * Finds the reactions that do not conserve every element and the charge.
+     *
+     * @return The indices of the unbalanced reactions, in ascending order
+     */
+    public int[] findUnbalancedReactions() {
+        int[] totals = new int[119]; // Net atoms of each element in the current reaction
+        int[] unbalanced = new int[reactionCount];
+        int count = 0;
+        for (int r = 0; r < reactionCount; r++) {
+            int charge = 0;
+            for (int i = rowStart[r]; i < rowStart[r + 1]; i++) {
+                Formula formula = species.getFormula(entrySpecies[i]);
+                int[] numbers = formula.getCompositionNumbers();
+                int[] counts = formula.getCompositionCounts();
+                for (int e = 0; e < numbers.length; e++) {
+                    totals[numbers[e]] += entryAmounts[i] * counts[e];
+                }
+                charge += entryAmounts[i] * formula.getCharge();
+            }
+
+            // Check and clear only the elements this reaction touched
+            boolean balanced = charge == 0;
+            for (int i = rowStart[r]; i < rowStart[r + 1]; i++) {
+                for (int number : species.getFormula(entrySpecies[i]).getCompositionNumbers()) {
+                    balanced &= totals[number] == 0;
+                    totals[number] = 0;
+                }
+            }
+            if (!balanced) {
+                unbalanced[count++] = r;
+            }
+        }
+        return Arrays.copyOf(unbalanced, count);
+    }
+
+    /**
+     * Gets the results for the current reactions, calculating them on first request.
+     *
+     * @return The analysis
+     */
+    private Analysis analysis() {
+        Analysis current = analysis;
+        if (current == null) {
+            current = analyze();
+            analysis = current;
+        }
+        return current;
+    }
+
+    /**
+     * Reduces every reaction into the echelon basis, recording the rank, the dependent
+     * reactions and the conservation laws.
+     *
+     * @return The analysis
+     */
+    private Analysis analyze() {
+        int n = species.size();
+        double[][] basis = new double[Math.min(n, reactionCount)][]; // Reduced rows, 1 at their pivot
+        int[] basisOf = new int[n]; // Basis row pivoting on each species, or -1
+        Arrays.fill(basisOf, -1);
+        int[] dependent = new int[reactionCount];
+        int dependentCount = 0;
+        int basisSize = 0;
+
+        double[] row = new double[n];
+        int[] pivotRows = new int[n];
+        double[] pivotAmounts = new double[n];
+        for (int r = 0; r < reactionCount; r++) {
+            Arrays.fill(row, 0.0);
+            int pivotCount = 0;
+            for (int i = rowStart[r]; i < rowStart[r + 1]; i++) {
+                row[entrySpecies[i]] = entryAmounts[i];
+                if (basisOf[entrySpecies[i]] >= 0) {
+                    pivotRows[pivotCount] = basisOf[entrySpecies[i]];
+                    pivotAmounts[pivotCount++] = entryAmounts[i];
+                }
+            }
+            // Basis rows are zero at each other's pivots, so their amounts can be read up front
+            for (int k = 0; k < pivotCount; k++) {
+                double[] basisRow = basis[pivotRows[k]];
+                double amount = pivotAmounts[k];
+                for (int j = 0; j < n; j++) {
+                    row[j] -= amount * basisRow[j];
+                }
+            }
+
+            int pivot = -1;
+            for (int j = 0; j < n; j++) {
+                if (Math.abs(row[j]) > TOLERANCE && (pivot < 0 || Math.abs(row[j]) > Math.abs(row[pivot]))) {
+                    pivot = j;
+                }
+            }
+            if (pivot < 0) {
+                dependent[dependentCount++] = r;
+                continue;
+            }
+
+            // Keep the basis reduced: scale the new row, then clear its pivot from the others
+            double[] added = new double[n];
+            double scale = 1.0 / row[pivot];
+            for (int j = 0; j < n; j++) {
+                double value = row[j] * scale;
+                added[j] = Math.abs(value) > TOLERANCE ? value : 0.0;
+            }
+            added[pivot] = 1.0;
+            for (int b = 0; b < basisSize; b++) {
+                double[] basisRow = basis[b];
+                double amount = basisRow[pivot];
+                if (amount != 0) {
+                    for (int j = 0; j < n; j++) {
+                        basisRow[j] -= amount * added[j];
+                    }
+                    basisRow[pivot] = 0.0;
+                }
+            }
+            basis[basisSize] = added;
+            basisOf[pivot] = basisSize++;
+        }
+
+        // Each species without a pivot gives one law: itself, less each pivot's share of it
+        double[][] laws = new double[n - basisSize][];
+        int next = 0;
+        for (int free = 0; free < n; free++) {
+            if (basisOf[free] >= 0) {
+                continue;
+            }
+            double[] law = new double[n];
+            law[free] = 1.0;
+            for (int p = 0; p < n; p++) {
+                if (basisOf[p] >= 0) {
+                    law[p] = -basis[basisOf[p]][free];
+                }
+            }
+            laws[next++] = toWholeNumbers(law);
+        }
+
+        return new Analysis(basisSize, Arrays.copyOf(dependent, dependentCount), laws);
+    }
+
+    /**
+     * Scales a law by the smallest whole number that makes every entry whole, if one up
+     * to MAX_DENOMINATOR does, and rounds away the remaining error.
+     *
+     * @param law The law; scaled in place
+     * @return The same array
+     */
+    private static double[] toWholeNumbers(double[] law) {
+        for (int scale = 1; scale <= MAX_DENOMINATOR; scale++) {
+            boolean whole = true;
+            for (double value : law) {
+                double scaled = value * scale;
+                if (Math.abs(scaled - Math.rint(scaled)) > 1e-6 * scale) {
+                    whole = false;
+                    break;
+                }
+            }
+            if (whole) {
+                for (int j = 0; j < law.length; j++) {
+                    law[j] = Math.rint(law[j] * scale) + 0.0; // + 0.0 turns -0.0 into 0.0
+                }
+                break;
+            }
+        }
+        return law;
+    }
+
+    // Getters
+
+    /**
+     * Gets the number of reactions.
+     *
+     * @return The reaction count
+     */
+    public int getReactionCount() {
+        return reactionCount;
+    }
+
+    /**
+     * Gets the species of all reactions, indexed as in the conservation laws.
+     *
+     * @return The species index
+     */
+    public SpeciesIndex getSpecies() {
+        return species;
+    }
+
+    /**
+     * Gets the number of nonzero entries in the stoichiometric matrix.
+     *
+     * @return The entry count
+     */
+    public int getEntryCount() {
+        return rowStart[reactionCount];
+    }
+
+    /**
+     * Gets the rank of the stoichiometric matrix: the number of independent reactions.
+     *
+     * @return The rank
+     */
+    public int getRank() {
+        return analysis().rank;
+    }
+
+    /**
+     * Gets the reactions whose net change is a linear combination of the reactions added
+     * before them. A reaction added once forward and once reversed, for example, makes
+     * the second one dependent.
+     *
+     * @return The indices of the dependent reactions, in ascending order
+     */
+    public int[] getDependentReactions() {
+        return analysis().dependentReactions.clone();
+    }
+
+    /**
+     * Gets a basis for the conservation laws: weightings w of the species such that the
+     * sum of w[i] times the amount of species i is the same before and after every
+     * reaction. With one row per reaction and one column per species, these are the
+     * right null space of the stoichiometric matrix N: the vectors w with N w = 0. Each
+     * law is scaled to whole numbers where a scale up to 1000 does so.
+     *
+     * @return The laws, each with one weight per species
+     */
+    public double[][] getConservationLaws() {
+        double[][] conservationLaws = analysis().conservationLaws;
+        double[][] copy = new double[conservationLaws.length][];
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = conservationLaws[i].clone();
+        }
+        return copy;
+    }
+
+    /**
+     * The Analysis class holds the results of one analysis of the network. It is never
+     * changed after construction, so it can be shared between threads.
+     */
+    private static final class Analysis {
+
+        private final int rank; // Number of independent reactions
+        private final int[] dependentReactions; // Reactions in the span of those before them
+        private final double[][] conservationLaws; // Species weightings no reaction changes
+
+        /**
+         * Constructor that records the results.
+         *
+         * @param rank The number of independent reactions
+         * @param dependentReactions The dependent reactions, in ascending order
+         * @param conservationLaws The conservation law basis
+         */
+        Analysis(int rank, int[] dependentReactions, double[][] conservationLaws) {
+            this.rank = rank;
+            this.dependentReactions = dependentReactions;
+            this.conservationLaws = conservationLaws;
+        }
+    }
+}
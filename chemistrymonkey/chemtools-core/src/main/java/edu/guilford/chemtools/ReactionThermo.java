@@ -0,0 +1,240 @@
+package edu.guilford.chemtools;
+
+import java.util.List;
+
+/**
+ * The ReactionThermo class calculates the standard enthalpy, entropy and Gibbs energy
+ * changes of a balanced equation by Hess's law: the sum over products minus the sum
+ * over reactants of each coefficient times the compound's standard value from a
+ * {@link ThermoTable}. Away from 298.15 K the enthalpy and entropy changes are
+ * corrected with the reaction's heat capacity change, taken as constant:
+ *
+ * <pre>
+ * ΔH(T) = ΔH° + ΔCp (T - 298.15) / 1000
+ * ΔS(T) = ΔS° + ΔCp ln(T / 298.15)
+ * ΔG(T) = ΔH(T) - T ΔS(T) / 1000
+ * </pre>
+ *
+ * Enthalpies and Gibbs energies are in kJ/mol of reaction as written, entropies and
+ * heat capacities in J/(mol·K). When the table has no heat capacity for a compound
+ * (common for aqueous ions), ΔCp is unknown: the standard values are still given, but
+ * asking for a value at any other temperature throws rather than silently dropping the
+ * correction. For many reactions over many temperatures, use {@link ThermoSweep}.
+ */
+public class ReactionThermo {
+
+    public static final double STANDARD_TEMPERATURE = 298.15; // Reference temperature, K
+    public static final double GAS_CONSTANT = 8.314462618; // J/(mol·K)
+
+    private final Equation equation; // Reaction described
+    private final double enthalpyChange; // ΔH° at 298.15 K, kJ/mol
+    private final double entropyChange; // ΔS° at 298.15 K, J/(mol·K)
+    private final double heatCapacityChange; // ΔCp, J/(mol·K), or NaN if a compound has no Cp
+    private final String missingHeatCapacity; // First compound without a Cp, or null
+
+    /**
+     * Constructor that looks up every compound in its standard phase in the bundled table.
+     *
+     * @param equation The balanced equation
+     * @throws IllegalArgumentException If the equation is not balanced or a compound is
+     *         not in the table
+     */
+    public ReactionThermo(Equation equation) {
+        this(equation, null, ThermoTable.shared());
+    }
+
+    /**
+     * Constructor that looks up compounds in given phases.
+     *
+     * @param equation The balanced equation
+     * @param phases The phase of each formula, reactants then products, with null for a
+     *        compound's standard phase; or null for standard phases throughout
+     * @param table The data table
+     * @throws IllegalArgumentException If the equation is not balanced, the phase list
+     *         has the wrong length, or a compound is not in the table in its phase
+     */
+    public ReactionThermo(Equation equation, List<Phase> phases, ThermoTable table) {
+        if (!equation.isBalanced()) {
+            throw new IllegalArgumentException("Equation is not balanced");
+        }
+        List<Formula> left = equation.getLeftFormulas();
+        List<Formula> right = equation.getRightFormulas();
+        if (phases != null && phases.size() != left.size() + right.size()) {
+            throw new IllegalArgumentException("Expected " + (left.size() + right.size()) + " phases, got "
+                    + phases.size());
+        }
+
+        double enthalpy = 0;
+        double entropy = 0;
+        double heatCapacity = 0;
+        String missing = null;
+        for (int i = 0; i < left.size() + right.size(); i++) {
+            boolean product = i >= left.size();
+            Formula formula = product ? right.get(i - left.size()) : left.get(i);
+            Phase phase = phases == null ? null : phases.get(i);
+            int entry = table.indexOf(formula, phase);
+            if (entry < 0) {
+                throw new IllegalArgumentException("No thermochemical data for " + formula.getHillFormula()
+                        + (phase == null ? "" : "(" + phase.getCode() + ")"));
+            }
+            double coefficient = product ? formula.getMultiplier() : -formula.getMultiplier();
+            enthalpy += coefficient * table.getEnthalpy(entry);
+            entropy += coefficient * table.getEntropy(entry);
+            heatCapacity += coefficient * table.getHeatCapacity(entry);
+            if (missing == null && !table.hasHeatCapacity(entry)) {
+                missing = formula.getHillFormula() + "(" + table.getPhase(entry).getCode() + ")";
+            }
+        }
+        this.equation = equation;
+        enthalpyChange = enthalpy;
+        entropyChange = entropy;
+        heatCapacityChange = heatCapacity;
+        missingHeatCapacity = missing;
+    }
+
+    /**
+     * Calculates the enthalpy change at a temperature.
+     *
+     * @param temperature The temperature, in K
+     * @return ΔH in kJ/mol
+     * @throws IllegalStateException If the temperature is not 298.15 K and ΔCp is unknown
+     */
+    public double getEnthalpyChange(double temperature) {
+        if (checkTemperature(temperature) == STANDARD_TEMPERATURE) {
+            return enthalpyChange;
+        }
+        return enthalpyChange + checkHeatCapacityChange() * (temperature - STANDARD_TEMPERATURE) / 1000;
+    }
+
+    /**
+     * Calculates the entropy change at a temperature.
+     *
+     * @param temperature The temperature, in K
+     * @return ΔS in J/(mol·K)
+     * @throws IllegalStateException If the temperature is not 298.15 K and ΔCp is unknown
+     */
+    public double getEntropyChange(double temperature) {
+        if (checkTemperature(temperature) == STANDARD_TEMPERATURE) {
+            return entropyChange;
+        }
+        return entropyChange + checkHeatCapacityChange() * Math.log(temperature / STANDARD_TEMPERATURE);
+    }
+
+    /**
+     * Calculates the Gibbs energy change at a temperature.
+     *
+     * @param temperature The temperature, in K
+     * @return ΔG in kJ/mol
+     * @throws IllegalStateException If the temperature is not 298.15 K and ΔCp is unknown
+     */
+    public double getGibbsEnergyChange(double temperature) {
+        return getEnthalpyChange(temperature) - temperature * getEntropyChange(temperature) / 1000;
+    }
+
+    /**
+     * Calculates the equilibrium constant at a temperature, K = exp(-ΔG / RT).
+     *
+     * @param temperature The temperature, in K
+     * @return The equilibrium constant
+     * @throws IllegalStateException If the temperature is not 298.15 K and ΔCp is unknown
+     */
+    public double getEquilibriumConstant(double temperature) {
+        return Math.exp(-getGibbsEnergyChange(temperature) * 1000 / (GAS_CONSTANT * temperature));
+    }
+
+    /**
+     * Gets the heat capacity change for a temperature correction.
+     *
+     * @return ΔCp in J/(mol·K)
+     * @throws IllegalStateException If a compound has no heat capacity in the table
+     */
+    double checkHeatCapacityChange() {
+        if (missingHeatCapacity != null) {
+            throw new IllegalStateException("No heat capacity for " + missingHeatCapacity
+                    + "; values are only known at " + STANDARD_TEMPERATURE + " K");
+        }
+        return heatCapacityChange;
+    }
+
+    /**
+     * Checks that a temperature is usable.
+     *
+     * @param temperature The temperature, in K
+     * @return The same temperature
+     * @throws IllegalArgumentException If it is not a positive, finite number
+     */
+    static double checkTemperature(double temperature) {
+        if (!(temperature > 0) || Double.isInfinite(temperature)) {
+            throw new IllegalArgumentException("Temperature must be positive: " + temperature);
+        }
+        return temperature;
+    }
+
+    // Getters
+
+    /**
+     * Gets the equation.
+     *
+     * @return The equation
+     */
+    public Equation getEquation() {
+        return equation;
+    }
+
+    /**
+     * Gets the standard enthalpy change at 298.15 K.
+     *
+     * @return ΔH° in kJ/mol
+     */
+    public double getEnthalpyChange() {
+        return enthalpyChange;
+    }
+
+    /**
+     * Gets the standard entropy change at 298.15 K.
+     *
+     * @return ΔS° in J/(mol·K)
+     */
+    public double getEntropyChange() {
+        return entropyChange;
+    }
+
+    /**
+     * Gets the standard Gibbs energy change at 298.15 K.
+     *
+     * @return ΔG° in kJ/mol
+     */
+    public double getGibbsEnergyChange() {
+        return enthalpyChange - STANDARD_TEMPERATURE * entropyChange / 1000;
+    }
+
+    /**
+     * Gets the heat capacity change.
+     *
+     * @return ΔCp in J/(mol·K), or NaN if a compound has no heat capacity in the table
+     */
+    public double getHeatCapacityChange() {
+        return heatCapacityChange;
+    }
+
+    /**
+     * Checks whether every compound has a heat capacity, so values away from 298.15 K
+     * can be calculated.
+     *
+     * @return true if ΔCp is known
+     */
+    public boolean hasHeatCapacityChange() {
+        return missingHeatCapacity == null;
+    }
+
+    /**
+     * Returns the equation with its standard enthalpy, entropy and Gibbs energy changes.
+     *
+     * @return A multi-line description
+     */
+    @Override
+    public String toString() {
+        return String.format("%s%nΔH° = %.2f kJ/mol%nΔS° = %.2f J/(mol·K)%nΔG° = %.2f kJ/mol",
+                equation, enthalpyChange, entropyChange, getGibbsEnergyChange());
+    }
+}
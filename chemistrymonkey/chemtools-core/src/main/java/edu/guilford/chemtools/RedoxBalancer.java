@@ -0,0 +1,380 @@
+package edu.guilford.chemtools;
+
+import edu.guilford.chemtools.math.Matrices;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * The RedoxBalancer class balances oxidation-reduction equations in acidic or basic
+ * solution, adding the water and hydrogen or hydroxide ions they need. Rather than
+ * searching multipliers, which grows twentyfold with each added species, it solves for
+ * the coefficients exactly with {@link Matrices#integerNullSpace(long[], int, int)}.
+ *
+ * The skeleton equation is first split into half-reactions by the oxidation states
+ * {@link OxidationStates} infers: a species goes in the oxidation half if an element in
+ * it ends up in a higher state on the other side, in the reduction half if in a lower
+ * one, and in both for disproportionations. Hydrogen in state +1 and oxygen in state
+ * -2 are left to the water and ions, so they do not make a species part of a half.
+ * Each half is balanced with water, the medium's ion and electrons, the electrons
+ * matching the change in the other elements' states, and the two halves are added so
+ * the electrons cancel. If the split leaves a species out (such as K^+ in a
+ * molecular equation) or a half cannot be balanced on its own, the whole equation is
+ * balanced as one system instead, which succeeds when that system has exactly one
+ * solution. The half-reactions settle the cases where it has more, such as
+ * permanganate oxidizing hydrogen peroxide.
+ *
+ * Water or the medium's ion already written in the skeleton is treated like the added
+ * species: it is moved to whichever side needs it, or removed if it is not needed.
+ */
+public final class RedoxBalancer {
+
+    private static final Formula WATER = new Formula("H_2O"); // Solvent added to both media, copied per use
+
+    /**
+     * The Medium enum lists the solutions a redox equation can be balanced in, with the
+     * ion each one supplies alongside water.
+     */
+    public enum Medium {
+        ACIDIC("H^+"),
+        BASIC("OH^-");
+
+        private final Formula ion; // Ion supplied, copied per use
+
+        /**
+         * Constructor that sets the ion supplied.
+         *
+         * @param ion The ion's formula
+         */
+        Medium(String ion) {
+            this.ion = new Formula(ion);
+        }
+
+        /**
+         * Gets the ion the medium supplies.
+         *
+         * @return The ion's formula (e.g., "H^+")
+         */
+        public String getIon() {
+            return ion.toString();
+        }
+    }
+
+    /**
+     * Prevents instantiation; all methods are static.
+     */
+    private RedoxBalancer() {
+    }
+
+    /**
+     * Balances a redox equation in place, setting every multiplier and adding water and
+     * the medium's ion to the sides that need them.
+     *
+     * @param equation The skeleton equation
+     * @param medium The solution the reaction takes place in
+     * @throws IllegalArgumentException If the equation has no balance with every species
+     *         on the side it is written, or more than one that the half-reactions cannot
+     *         choose between
+     */
+    public static void balance(Equation equation, Medium medium) {
+        long start = System.nanoTime();
+        ArrayList<Formula> left = equation.getLeftFormulas();
+        ArrayList<Formula> right = equation.getRightFormulas();
+
+        // Gather the species with their sides: -1 left, 1 right, 0 for water and the ion
+        Formula water = new Formula(WATER);
+        Formula ion = new Formula(medium.ion);
+        int count = left.size() + right.size();
+        Formula[] species = new Formula[count + 2];
+        int[] sides = new int[count + 2];
+        boolean hasWater = false;
+        boolean hasIon = false;
+        for (int i = 0; i < count; i++) {
+            Formula formula = i < left.size() ? left.get(i) : right.get(i - left.size());
+            species[i] = formula;
+            if (!hasWater && formula.isSameCompound(water)) {
+                hasWater = true;
+            } else if (!hasIon && formula.isSameCompound(ion)) {
+                hasIon = true;
+            } else {
+                sides[i] = i < left.size() ? -1 : 1;
+            }
+        }
+        if (!hasWater) {
+            species[count++] = water;
+        }
+        if (!hasIon) {
+            species[count++] = ion;
+        }
+
+        // One row per element present, then one for charge
+        int[] rowOf = new int[119];
+        Arrays.fill(rowOf, -1);
+        int rows = 0;
+        for (int i = 0; i < count; i++) {
+            for (int number : species[i].getCompositionNumbers()) {
+                if (rowOf[number] < 0) {
+                    rowOf[number] = rows++;
+                }
+            }
+        }
+        rows++;
+
+        long[] coefficients = balanceByHalfReactions(species, sides, count, rowOf, rows);
+        if (coefficients != null) {
+            CoreMetrics.REDOX_HALF_REACTIONS.increment();
+        } else {
+            int[] all = new int[count];
+            for (int i = 0; i < count; i++) {
+                all[i] = i;
+            }
+            coefficients = solve(species, sides, all, null, rowOf, rows);
+            if (coefficients == null) {
+                CoreMetrics.REDOX_FAILURES.increment();
+                throw new IllegalArgumentException("No unique balance in " + medium.name().toLowerCase()
+                        + " solution with every species on the side it is written");
+            }
+            CoreMetrics.REDOX_COMBINED.increment();
+        }
+
+        for (int i = 0; i < count; i++) {
+            long coefficient = coefficients[i];
+            if (sides[i] != 0) {
+                species[i].setMultiplier(Math.toIntExact(coefficient));
+                continue;
+            }
+            // Place water and the ion by the sign of their coefficient
+            left.remove(species[i]);
+            right.remove(species[i]);
+            if (coefficient != 0) {
+                species[i].setMultiplier(Math.toIntExact(Math.abs(coefficient)));
+                (coefficient > 0 ? right : left).add(species[i]);
+            }
+        }
+        CoreMetrics.REDOX_LATENCY.recordNanosSince(start);
+    }
+
+    /**
+     * Balances the equation as the sum of an oxidation and a reduction half-reaction.
+     *
+     * @param species The species, with water and the ion
+     * @param sides The side of each species, 0 for water and the ion
+     * @param count The number of species
+     * @param rowOf The matrix row of each atomic number
+     * @param rows The number of rows, including the charge row
+     * @return The coefficient of each species, or null if the equation does not split
+     *         into two halves that each have one balance
+     */
+    private static long[] balanceByHalfReactions(Formula[] species, int[] sides, int count, int[] rowOf, int rows) {
+        int[][] totals = new int[count][];
+        int[] changing = new int[count]; // Total state of the elements that are not ordinary
+        for (int i = 0; i < count; i++) {
+            if (sides[i] != 0) {
+                totals[i] = OxidationStates.totals(species[i]);
+                int[] numbers = species[i].getCompositionNumbers();
+                int[] counts = species[i].getCompositionCounts();
+                for (int e = 0; e < numbers.length; e++) {
+                    if (!isOrdinary(numbers[e], totals[i][e], counts[e])) {
+                        changing[i] += totals[i][e];
+                    }
+                }
+            }
+        }
+
+        // Compare each reactant with each product element by element
+        boolean[] oxidized = new boolean[count];
+        boolean[] reduced = new boolean[count];
+        for (int r = 0; r < count; r++) {
+            if (sides[r] != -1) {
+                continue;
+            }
+            for (int p = 0; p < count; p++) {
+                if (sides[p] != 1) {
+                    continue;
+                }
+                int change = compareStates(species[r], totals[r], species[p], totals[p]);
+                oxidized[r] |= (change & 1) != 0;
+                oxidized[p] |= (change & 1) != 0;
+                reduced[r] |= (change & 2) != 0;
+                reduced[p] |= (change & 2) != 0;
+            }
+        }
+
+        int[] oxidation = new int[count];
+        int[] reduction = new int[count];
+        int oxidationCount = 0;
+        int reductionCount = 0;
+        for (int i = 0; i < count; i++) {
+            if (sides[i] == 0) {
+                oxidation[oxidationCount++] = i;
+                reduction[reductionCount++] = i;
+            } else if (!oxidized[i] && !reduced[i]) {
+                return null; // A spectator the halves cannot place
+            } else {
+                if (oxidized[i]) {
+                    oxidation[oxidationCount++] = i;
+                }
+                if (reduced[i]) {
+                    reduction[reductionCount++] = i;
+                }
+            }
+        }
+
+        long[] oxidationHalf = solve(species, sides, Arrays.copyOf(oxidation, oxidationCount), changing, rowOf, rows);
+        long[] reductionHalf = solve(species, sides, Arrays.copyOf(reduction, reductionCount), changing, rowOf, rows);
+        if (oxidationHalf == null || reductionHalf == null) {
+            return null;
+        }
+        long electronsReleased = oxidationHalf[oxidationCount];
+        long electronsTaken = -reductionHalf[reductionCount];
+        if (electronsReleased <= 0 || electronsTaken <= 0) {
+            return null;
+        }
+
+        // Scale the halves so the electrons cancel, then add them
+        long divisor = Matrices.gcd(electronsReleased, electronsTaken);
+        long[] coefficients = new long[count];
+        try {
+            for (int k = 0; k < oxidationCount; k++) {
+                coefficients[oxidation[k]] += Math.multiplyExact(oxidationHalf[k], electronsTaken / divisor);
+            }
+            for (int k = 0; k < reductionCount; k++) {
+                coefficients[reduction[k]] += Math.multiplyExact(reductionHalf[k], electronsReleased / divisor);
+            }
+        } catch (ArithmeticException e) {
+            return null;
+        }
+        divisor = 0;
+        for (long coefficient : coefficients) {
+            divisor = Matrices.gcd(divisor, coefficient);
+        }
+        for (int i = 0; i < count; i++) {
+            coefficients[i] /= divisor;
+        }
+        return coefficients;
+    }
+
+    /**
+     * Compares the oxidation states of the elements a reactant and a product share,
+     * skipping hydrogen at +1 and oxygen at -2 in either.
+     *
+     * @param reactant The reactant
+     * @param reactantTotals The reactant's total oxidation states
+     * @param product The product
+     * @param productTotals The product's total oxidation states
+     * @return 1 if an element is oxidized, plus 2 if an element is reduced
+     */
+    private static int compareStates(Formula reactant, int[] reactantTotals, Formula product, int[] productTotals) {
+        int[] reactantNumbers = reactant.getCompositionNumbers();
+        int[] reactantCounts = reactant.getCompositionCounts();
+        int[] productNumbers = product.getCompositionNumbers();
+        int[] productCounts = product.getCompositionCounts();
+        int change = 0;
+        int a = 0;
+        int b = 0;
+        while (a < reactantNumbers.length && b < productNumbers.length) {
+            if (reactantNumbers[a] < productNumbers[b]) {
+                a++;
+            } else if (reactantNumbers[a] > productNumbers[b]) {
+                b++;
+            } else {
+                int number = reactantNumbers[a];
+                // Compare average states as fractions: total / count
+                long before = (long) reactantTotals[a] * productCounts[b];
+                long after = (long) productTotals[b] * reactantCounts[a];
+                if (!isOrdinary(number, reactantTotals[a], reactantCounts[a])
+                        && !isOrdinary(number, productTotals[b], productCounts[b])) {
+                    if (after > before) {
+                        change |= 1;
+                    } else if (after < before) {
+                        change |= 2;
+                    }
+                }
+                a++;
+                b++;
+            }
+        }
+        return change;
+    }
+
+    /**
+     * Checks whether an element is hydrogen at +1 or oxygen at -2, the states water and
+     * the medium's ion carry.
+     *
+     * @param atomicNumber The element's atomic number
+     * @param total The element's total oxidation state
+     * @param count The element's atom count
+     * @return true if the state is the ordinary one
+     */
+    private static boolean isOrdinary(int atomicNumber, int total, int count) {
+        return (atomicNumber == 1 && total == count) || (atomicNumber == 8 && total == -2 * count);
+    }
+
+    /**
+     * Solves for the one balance of some of the species, whole numbers with no common
+     * divisor.
+     *
+     * @param species The species, with water and the ion
+     * @param sides The side of each species, 0 for water and the ion
+     * @param selected The species to balance
+     * @param changing For a half-reaction, the total state of each species' elements that
+     *        are not in their ordinary state; this adds an electron column after the
+     *        selected species and a row making the electrons match the change in those
+     *        states. Null for a whole equation.
+     * @param rowOf The matrix row of each atomic number
+     * @param rows The number of element rows plus one for charge
+     * @return The coefficient of each selected species, then of the electrons if added,
+     *         positive for the right side; or null if there is not exactly one balance,
+     *         or it puts a species on the side it is not written or leaves it out
+     */
+    private static long[] solve(Formula[] species, int[] sides, int[] selected, int[] changing, int[] rowOf,
+            int rows) {
+        boolean half = changing != null;
+        int columns = selected.length + (half ? 1 : 0);
+        int allRows = rows + (half ? 1 : 0);
+        long[] matrix = new long[allRows * columns];
+        for (int k = 0; k < selected.length; k++) {
+            Formula formula = species[selected[k]];
+            int sign = sides[selected[k]] == 0 ? 1 : sides[selected[k]];
+            int[] numbers = formula.getCompositionNumbers();
+            int[] counts = formula.getCompositionCounts();
+            for (int e = 0; e < numbers.length; e++) {
+                matrix[rowOf[numbers[e]] * columns + k] = sign * counts[e];
+            }
+            matrix[(rows - 1) * columns + k] = sign * formula.getCharge();
+            if (half) {
+                matrix[rows * columns + k] = sign * changing[selected[k]];
+            }
+        }
+        if (half) {
+            matrix[(rows - 1) * columns + selected.length] = -1;
+            matrix[rows * columns + selected.length] = -1;
+        }
+
+        long[][] basis;
+        try {
+            basis = Matrices.integerNullSpace(matrix, allRows, columns);
+        } catch (ArithmeticException e) {
+            return null;
+        }
+        if (basis.length != 1) {
+            return null;
+        }
+        long[] coefficients = basis[0];
+        boolean flip = false;
+        for (int k = 0; k < selected.length; k++) {
+            if (sides[selected[k]] != 0) {
+                flip = coefficients[k] < 0;
+                break;
+            }
+        }
+        for (int k = 0; k < columns; k++) {
+            if (flip) {
+                coefficients[k] = -coefficients[k];
+            }
+            if (k < selected.length && sides[selected[k]] != 0 && coefficients[k] <= 0) {
+                return null;
+            }
+        }
+        return coefficients;
+    }
+}
@@ -20,6 +20,30 @@ public class Sample extends Formula {
         super(formulaString);
     }
 
+    /**
+     * Constructor that creates a Sample object from an already parsed formula,
+     * without parsing the formula text again.
+     * 
+     * @param formula The parsed formula of the compound in the sample
+     */
+    public Sample(Formula formula) {
+        super(formula);
+    }
+
+    /**
+     * Constructor that restores a Sample with a stored mass and mole count, without
+     * recalculating one from the other.
+     * 
+     * @param formula The parsed formula of the compound in the sample
+     * @param sampleMass The mass of the sample in grams
+     * @param sampleMoles The number of moles of the sample
+     */
+    Sample(Formula formula, double sampleMass, double sampleMoles) {
+        super(formula);
+        this.sampleMass = sampleMass;
+        this.sampleMoles = sampleMoles;
+    }
+
     // Calculated setters
 
     /**
@@ -20,6 +20,20 @@ public class Solution {
         this.sample = sample;
     }
 
+    /**
+     * Constructor that restores a Solution with a stored volume and molarity, without
+     * recalculating either from the sample.
+     * 
+     * @param sample The Sample object representing the compound in the solution
+     * @param volume The volume of the solution in liters
+     * @param molarity The molarity of the solution in mol/L
+     */
+    Solution(Sample sample, double volume, double molarity) {
+        this.sample = sample;
+        this.volume = volume;
+        this.molarity = molarity;
+    }
+
     // Calculated setters
 
     /**
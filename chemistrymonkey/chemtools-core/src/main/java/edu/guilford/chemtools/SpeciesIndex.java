@@ -0,0 +1,80 @@
+package edu.guilford.chemtools;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The SpeciesIndex class numbers the distinct chemical species of a calculation, so
+ * that concentrations and other per-species values can live in plain arrays. Formulas
+ * describing the same compound (see {@link Formula#isSameCompound(Formula)}) share one
+ * index regardless of how they were written or their multipliers. Indices are assigned
+ * in the order species are first added.
+ */
+public class SpeciesIndex {
+
+    private final FormulaIndex index = new FormulaIndex(); // Composition hash to species index
+    private final ArrayList<Formula> species = new ArrayList<>(); // Formula of each species, by index
+
+    /**
+     * Adds a species if it is not already present.
+     *
+     * @param formula The species formula; its multiplier is ignored
+     * @return The species index
+     */
+    public int add(Formula formula) {
+        int existing = index.putIfAbsent(formula, species.size());
+        if (existing != FormulaIndex.NOT_FOUND) {
+            return existing;
+        }
+        species.add(formula);
+        return species.size() - 1;
+    }
+
+    /**
+     * Looks up a species.
+     *
+     * @param formula The species formula
+     * @return The species index, or -1 if the species has not been added
+     */
+    public int indexOf(Formula formula) {
+        return index.get(formula);
+    }
+
+    /**
+     * Gets the number of species.
+     *
+     * @return The number of distinct species added
+     */
+    public int size() {
+        return species.size();
+    }
+
+    /**
+     * Gets the formula a species was first added with.
+     *
+     * @param speciesIndex The species index
+     * @return The formula
+     */
+    public Formula getFormula(int speciesIndex) {
+        return species.get(speciesIndex);
+    }
+
+    /**
+     * Gets the display name of a species: its Hill formula.
+     *
+     * @param speciesIndex The species index
+     * @return The species name (e.g., "CO_2")
+     */
+    public String getName(int speciesIndex) {
+        return species.get(speciesIndex).getHillFormula();
+    }
+
+    /**
+     * Gets the formulas of all species, in index order.
+     *
+     * @return An unmodifiable list of the formulas
+     */
+    public List<Formula> getFormulas() {
+        return List.copyOf(species);
+    }
+}
@@ -0,0 +1,193 @@
+package edu.guilford.chemtools;
+
+import java.util.List;
+
+/**
+ * The ThermoSweep class evaluates the energetics of many reactions at many
+ * temperatures at once. With a constant heat capacity change, every quantity is a
+ * reaction constant times a function of temperature, summed:
+ *
+ * <pre>
+ * ΔG(T) = ΔH° - ΔS° (T / 1000) + ΔCp ((T - 298.15) - T ln(T / 298.15)) / 1000
+ * </pre>
+ *
+ * The temperature functions are calculated once, when the sweep is created, and each
+ * reaction's row is then a plain multiply-add loop over primitive arrays, which the JIT
+ * compiles to vector instructions. Results are flat arrays with one row per reaction:
+ * the value for reaction r at temperature t is at {@code r * temperatureCount + t}.
+ * Every reaction must have a known ΔCp; see {@link ReactionThermo#hasHeatCapacityChange()}.
+ */
+public class ThermoSweep {
+
+    private final int reactionCount; // Number of reactions
+    private final int temperatureCount; // Number of temperatures
+    private final double[] enthalpies; // ΔH° of each reaction, kJ/mol
+    private final double[] entropies; // ΔS° of each reaction, J/(mol·K)
+    private final double[] heatCapacities; // ΔCp of each reaction, J/(mol·K)
+
+    private final double[] temperatures; // Temperatures, K
+    private final double[] shifts; // (T - 298.15) / 1000, for enthalpy
+    private final double[] logRatios; // ln(T / 298.15), for entropy
+    private final double[] kiloTemperatures; // T / 1000, for Gibbs energy
+    private final double[] gibbsHeatTerms; // ((T - 298.15) - T ln(T / 298.15)) / 1000, for Gibbs energy
+    private final double[] inverseRT; // 1000 / (R T), from kJ/mol to ln K
+    private final double[] logHeatTerms; // Gibbs heat term times 1000 / (R T), for ln K
+
+    /**
+     * Constructor that prepares a sweep.
+     *
+     * @param reactions The reactions
+     * @param temperatures The temperatures, in K
+     * @throws IllegalArgumentException If a temperature is not positive, or a reaction has
+     *         a compound without a heat capacity
+     */
+    public ThermoSweep(List<ReactionThermo> reactions, double[] temperatures) {
+        reactionCount = reactions.size();
+        temperatureCount = temperatures.length;
+        enthalpies = new double[reactionCount];
+        entropies = new double[reactionCount];
+        heatCapacities = new double[reactionCount];
+        for (int r = 0; r < reactionCount; r++) {
+            ReactionThermo reaction = reactions.get(r);
+            enthalpies[r] = reaction.getEnthalpyChange();
+            entropies[r] = reaction.getEntropyChange();
+            try {
+                heatCapacities[r] = reaction.checkHeatCapacityChange();
+            } catch (IllegalStateException e) {
+                throw new IllegalArgumentException("Reaction " + r + ": " + e.getMessage(), e);
+            }
+        }
+
+        this.temperatures = temperatures.clone();
+        shifts = new double[temperatureCount];
+        logRatios = new double[temperatureCount];
+        kiloTemperatures = new double[temperatureCount];
+        gibbsHeatTerms = new double[temperatureCount];
+        inverseRT = new double[temperatureCount];
+        logHeatTerms = new double[temperatureCount];
+        for (int t = 0; t < temperatureCount; t++) {
+            double temperature = ReactionThermo.checkTemperature(temperatures[t]);
+            double shift = temperature - ReactionThermo.STANDARD_TEMPERATURE;
+            double logRatio = Math.log(temperature / ReactionThermo.STANDARD_TEMPERATURE);
+            shifts[t] = shift / 1000;
+            logRatios[t] = logRatio;
+            kiloTemperatures[t] = temperature / 1000;
+            gibbsHeatTerms[t] = (shift - temperature * logRatio) / 1000;
+            inverseRT[t] = 1000 / (ReactionThermo.GAS_CONSTANT * temperature);
+            logHeatTerms[t] = gibbsHeatTerms[t] * inverseRT[t];
+        }
+    }
+
+    /**
+     * Calculates ΔH for every reaction and temperature.
+     *
+     * @param out Filled with ΔH in kJ/mol; at least reactionCount * temperatureCount long
+     */
+    public void enthalpyChanges(double[] out) {
+        checkOutput(out);
+        for (int r = 0; r < reactionCount; r++) {
+            double enthalpy = enthalpies[r];
+            double heatCapacity = heatCapacities[r];
+            int row = r * temperatureCount;
+            for (int t = 0; t < temperatureCount; t++) {
+                out[row + t] = enthalpy + heatCapacity * shifts[t];
+            }
+        }
+    }
+
+    /**
+     * Calculates ΔS for every reaction and temperature.
+     *
+     * @param out Filled with ΔS in J/(mol·K); at least reactionCount * temperatureCount long
+     */
+    public void entropyChanges(double[] out) {
+        checkOutput(out);
+        for (int r = 0; r < reactionCount; r++) {
+            double entropy = entropies[r];
+            double heatCapacity = heatCapacities[r];
+            int row = r * temperatureCount;
+            for (int t = 0; t < temperatureCount; t++) {
+                out[row + t] = entropy + heatCapacity * logRatios[t];
+            }
+        }
+    }
+
+    /**
+     * Calculates ΔG for every reaction and temperature.
+     *
+     * @param out Filled with ΔG in kJ/mol; at least reactionCount * temperatureCount long
+     */
+    public void gibbsEnergyChanges(double[] out) {
+        checkOutput(out);
+        for (int r = 0; r < reactionCount; r++) {
+            double enthalpy = enthalpies[r];
+            double entropy = entropies[r];
+            double heatCapacity = heatCapacities[r];
+            int row = r * temperatureCount;
+            for (int t = 0; t < temperatureCount; t++) {
+                out[row + t] = enthalpy - entropy * kiloTemperatures[t] + heatCapacity * gibbsHeatTerms[t];
+            }
+        }
+    }
+
+    /**
+     * Calculates ln K = -ΔG / RT for every reaction and temperature. Logs are returned
+     * because K itself overflows a double for strongly favored reactions.
+     *
+     * @param out Filled with ln K; at least reactionCount * temperatureCount long
+     */
+    public void logEquilibriumConstants(double[] out) {
+        checkOutput(out);
+        for (int r = 0; r < reactionCount; r++) {
+            double enthalpy = enthalpies[r];
+            double entropyTerm = entropies[r] / ReactionThermo.GAS_CONSTANT; // T ΔS / RT, the same at every T
+            double heatCapacity = heatCapacities[r];
+            int row = r * temperatureCount;
+            for (int t = 0; t < temperatureCount; t++) {
+                out[row + t] = entropyTerm - enthalpy * inverseRT[t] - heatCapacity * logHeatTerms[t];
+            }
+        }
+    }
+
+    /**
+     * Checks that an output array is large enough.
+     *
+     * @param out The output array
+     * @throws IllegalArgumentException If it is too short
+     */
+    private void checkOutput(double[] out) {
+        if (out.length < reactionCount * temperatureCount) {
+            throw new IllegalArgumentException("Output needs " + reactionCount * temperatureCount + " entries");
+        }
+    }
+
+    // Getters
+
+    /**
+     * Gets the number of reactions, the number of rows in each result.
+     *
+     * @return The reaction count
+     */
+    public int getReactionCount() {
+        return reactionCount;
+    }
+
+    /**
+     * Gets the number of temperatures, the length of each result row.
+     *
+     * @return The temperature count
+     */
+    public int getTemperatureCount() {
+        return temperatureCount;
+    }
+
+    /**
+     * Gets a temperature of the sweep.
+     *
+     * @param index The temperature index
+     * @return The temperature, in K
+     */
+    public double getTemperature(int index) {
+        return temperatures[index];
+    }
+}
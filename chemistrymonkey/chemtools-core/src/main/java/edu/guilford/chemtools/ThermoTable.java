@@ -0,0 +1,242 @@
+package edu.guilford.chemtools;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The ThermoTable class stores standard thermochemical data at 298.15 K for compounds
+ * in given phases: enthalpy of formation (kJ/mol), standard entropy (J/(mol·K)) and
+ * heat capacity (J/(mol·K)). Entries are kept in parallel primitive arrays and found
+ * through {@link FormulaIndex}es keyed by composition, so a lookup allocates nothing
+ * and formulas written in any element order match.
+ *
+ * Each compound has a standard phase, the one its first entry was added with; the
+ * bundled table lists every compound's state at 25 °C first. Heat capacities missing
+ * from the data (common for aqueous ions) are stored as NaN, so a calculation that
+ * needs one cannot mistake it for a real zero; see {@link #hasHeatCapacity(int)}.
+ */
+public class ThermoTable {
+
+    // Bundled data resource (Formula, Phase, Name, DeltaHf, Entropy, HeatCapacity)
+    private static final String THERMO_FILE = "thermochemistry.csv";
+
+    // Shared table, loaded on first request
+    private static ThermoTable sharedTable;
+
+    private final FormulaIndex byPhase = new FormulaIndex(); // Composition and phase key to entry
+    private final FormulaIndex byCompound = new FormulaIndex(); // Composition to standard-phase entry
+    private Formula[] formulas = new Formula[16]; // Formula of each entry
+    private Phase[] phases = new Phase[16]; // Phase of each entry
+    private String[] names = new String[16]; // Compound name of each entry
+    private double[] enthalpies = new double[16]; // Enthalpy of formation, kJ/mol
+    private double[] entropies = new double[16]; // Standard entropy, J/(mol·K)
+    private double[] heatCapacities = new double[16]; // Heat capacity, J/(mol·K), or NaN if unknown
+    private int size; // Number of entries
+
+    /**
+     * Gets the table of bundled data, reading it on first use.
+     *
+     * @return The shared table
+     * @throws IllegalStateException If the bundled data cannot be read
+     */
+    public static synchronized ThermoTable shared() {
+        if (sharedTable == null) {
+            ThermoTable table = new ThermoTable();
+            try {
+                for (String[] line : CsvLines.readResource(THERMO_FILE)) {
+                    double heatCapacity = line.length > 5 && !line[5].isBlank() ? Double.parseDouble(line[5]) : Double.NaN;
+                    table.add(new Formula(line[0]), Phase.fromCode(line[1]), line[2],
+                            Double.parseDouble(line[3]), Double.parseDouble(line[4]), heatCapacity);
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot read " + THERMO_FILE, e);
+            }
+            sharedTable = table;
+        }
+        return sharedTable;
+    }
+
+    /**
+     * Adds an entry. An entry for the same compound and phase replaces the earlier one.
+     *
+     * @param formula The compound
+     * @param phase The phase
+     * @param name The compound name
+     * @param enthalpy The standard enthalpy of formation, in kJ/mol
+     * @param entropy The standard entropy, in J/(mol·K)
+     * @param heatCapacity The heat capacity, in J/(mol·K), or NaN if it is not known
+     * @return The entry index
+     */
+    public int add(Formula formula, Phase phase, String name, double enthalpy, double entropy,
+            double heatCapacity) {
+        int entry = byPhase.get(key(formula, phase));
+        if (entry == FormulaIndex.NOT_FOUND) {
+            entry = size++;
+            if (entry == formulas.length) {
+                int capacity = entry * 2;
+                formulas = Arrays.copyOf(formulas, capacity);
+                phases = Arrays.copyOf(phases, capacity);
+                names = Arrays.copyOf(names, capacity);
+                enthalpies = Arrays.copyOf(enthalpies, capacity);
+                entropies = Arrays.copyOf(entropies, capacity);
+                heatCapacities = Arrays.copyOf(heatCapacities, capacity);
+            }
+            byPhase.putIfAbsent(key(formula, phase), entry);
+            byCompound.putIfAbsent(formula, entry);
+        }
+        formulas[entry] = formula;
+        phases[entry] = phase;
+        names[entry] = name;
+        enthalpies[entry] = enthalpy;
+        entropies[entry] = entropy;
+        heatCapacities[entry] = heatCapacity;
+        return entry;
+    }
+
+    /**
+     * Combines a composition hash with a phase into one lookup key.
+     *
+     * @param formula The compound
+     * @param phase The phase
+     * @return The key
+     */
+    private static long key(Formula formula, Phase phase) {
+        return (formula.getCompositionHash() + phase.ordinal() + 1) * 0x9E3779B97F4A7C15L;
+    }
+
+    /**
+     * Finds the entry for a compound in a phase.
+     *
+     * @param formula The compound
+     * @param phase The phase, or null for the compound's standard phase
+     * @return The entry index, or -1 if there is no such entry
+     */
+    public int indexOf(Formula formula, Phase phase) {
+        return phase == null ? byCompound.get(formula) : byPhase.get(key(formula, phase));
+    }
+
+    /**
+     * Finds the entry for a compound in its standard phase.
+     *
+     * @param formula The compound
+     * @return The entry index, or -1 if the compound is not in the table
+     */
+    public int indexOf(Formula formula) {
+        return byCompound.get(formula);
+    }
+
+    /**
+     * Lists the phases the table holds data for, for a compound.
+     *
+     * @param formula The compound
+     * @return The phases, standard phase first
+     */
+    public List<Phase> getPhases(Formula formula) {
+        List<Phase> found = new ArrayList<>();
+        int standard = indexOf(formula);
+        if (standard >= 0) {
+            found.add(phases[standard]);
+            for (Phase phase : Phase.values()) {
+                if (phase != phases[standard] && indexOf(formula, phase) >= 0) {
+                    found.add(phase);
+                }
+            }
+        }
+        return found;
+    }
+
+    // Getters
+
+    /**
+     * Gets the number of entries.
+     *
+     * @return The entry count
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the formula of an entry.
+     *
+     * @param entry The entry index
+     * @return The formula
+     */
+    public Formula getFormula(int entry) {
+        return formulas[checkEntry(entry)];
+    }
+
+    /**
+     * Gets the phase of an entry.
+     *
+     * @param entry The entry index
+     * @return The phase
+     */
+    public Phase getPhase(int entry) {
+        return phases[checkEntry(entry)];
+    }
+
+    /**
+     * Gets the compound name of an entry.
+     *
+     * @param entry The entry index
+     * @return The name (e.g., "Water")
+     */
+    public String getName(int entry) {
+        return names[checkEntry(entry)];
+    }
+
+    /**
+     * Gets the standard enthalpy of formation of an entry.
+     *
+     * @param entry The entry index
+     * @return ΔHf° in kJ/mol
+     */
+    public double getEnthalpy(int entry) {
+        return enthalpies[checkEntry(entry)];
+    }
+
+    /**
+     * Gets the standard entropy of an entry.
+     *
+     * @param entry The entry index
+     * @return S° in J/(mol·K)
+     */
+    public double getEntropy(int entry) {
+        return entropies[checkEntry(entry)];
+    }
+
+    /**
+     * Gets the heat capacity of an entry.
+     *
+     * @param entry The entry index
+     * @return Cp in J/(mol·K), or NaN if the data has none
+     */
+    public double getHeatCapacity(int entry) {
+        return heatCapacities[checkEntry(entry)];
+    }
+
+    /**
+     * Checks whether the data gives a heat capacity for an entry.
+     *
+     * @param entry The entry index
+     * @return true if {@link #getHeatCapacity(int)} is a number
+     */
+    public boolean hasHeatCapacity(int entry) {
+        return !Double.isNaN(heatCapacities[checkEntry(entry)]);
+    }
+
+    /**
+     * Checks an entry index.
+     *
+     * @param entry The entry index
+     * @return The same index
+     * @throws IndexOutOfBoundsException If there is no such entry
+     */
+    private int checkEntry(int entry) {
+        return Objects.checkIndex(entry, size);
+    }
+}
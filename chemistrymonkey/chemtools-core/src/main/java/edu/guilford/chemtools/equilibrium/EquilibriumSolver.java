@@ -0,0 +1,378 @@
+package edu.guilford.chemtools.equilibrium;
+
+import edu.guilford.chemtools.math.DenseLU;
+import edu.guilford.chemtools.math.Matrices;
+import edu.guilford.chemtools.metrics.Counter;
+import edu.guilford.chemtools.metrics.MetricsRegistry;
+
+/**
+ * The EquilibriumSolver class finds the equilibrium concentrations of an
+ * {@link EquilibriumSystem} from starting concentrations. The unknowns are the natural
+ * logs of the concentrations, which keeps every concentration positive and makes each
+ * equilibrium expression linear: the sum of coefficient times log concentration equals
+ * ln K. The remaining equations say that every conserved quantity (each independent
+ * combination of species that no reaction changes, such as total acetate or charge)
+ * keeps its starting total. The conserved quantities span the null space of the
+ * stoichiometric matrix and are found once, when the solver is created.
+ *
+ * The system is solved with a damped Newton method. Steps are limited in size and
+ * halved until the residual falls, so a poor starting guess still converges. The
+ * Jacobian's factors are reused from one iteration to the next as long as each step
+ * cuts the residual at least fivefold, and rebuilt only when it does not. Each solve starts
+ * from the previous solution (a warm start) when there is one, which usually takes one
+ * or two iterations during a parameter sweep; if that fails it starts again from the
+ * starting concentrations.
+ *
+ * Workspaces are allocated when the solver is created. A solver may be reused for any
+ * number of solves of the same system, but not by two threads at once.
+ */
+public class EquilibriumSolver {
+
+    private static final double COLD_FLOOR = 1e-7; // Starting guess for species that start at zero, in mol/L
+    private static final double MAX_LOG_STEP = 5; // Largest change to one log concentration per iteration
+    private static final double CONTRACTION = 0.2; // Largest residual ratio per step that keeps the factors
+    private static final int MAX_ITERATIONS = 100; // Iterations before giving up on a start
+    private static final int MAX_HALVINGS = 30; // Step halvings before accepting a step
+
+    // Shared metrics for solver work in this process
+    private static final Counter SOLVES = MetricsRegistry.shared().counter("equilibrium.solves");
+    private static final Counter ITERATIONS = MetricsRegistry.shared().counter("equilibrium.iterations");
+
+    private final EquilibriumSystem system; // System being solved
+    private final int n; // Number of species
+    private final int reactions; // Number of reactions
+    private final int conserved; // Number of conserved quantities
+    private final double[] stoichiometry; // Reaction-by-species net coefficients, row-major
+    private final double[] conservation; // Conserved-quantity-by-species weights, row-major
+    private final double[] totals; // Starting total of each conserved quantity
+    private final double[] scales; // Residual scale of each conserved quantity
+    private final double[] initial; // Starting concentrations of the current solve
+    private final double[] logs; // Current log concentrations
+    private final double[] trialLogs; // Log concentrations after a trial step
+    private final double[] residual; // Scaled residual at the current logs
+    private final double[] trialResidual; // Scaled residual after a trial step
+    private final double[] step; // Newton step
+    private final double[] lastLogs; // Log concentrations of the last solution, for warm starts
+    private final DenseLU lu; // Factors of the Jacobian
+
+    private double tolerance = 1e-10; // Largest scaled residual accepted as converged
+    private boolean hasLast; // Whether lastLogs holds a solution
+    private int iterations; // Iterations in the last solve
+    private int factorizations; // Jacobians factored in the last solve
+
+    /**
+     * Constructor that creates a solver for a system's current reactions.
+     *
+     * @param system The system
+     * @throws IllegalArgumentException If the system has no reactions, or a reaction
+     *         is a combination of others
+     */
+    public EquilibriumSolver(EquilibriumSystem system) {
+        this.system = system;
+        n = system.getSpecies().size();
+        reactions = system.getReactionCount();
+        if (reactions == 0) {
+            throw new IllegalArgumentException("System has no reactions");
+        }
+        stoichiometry = system.stoichiometry();
+        if (Matrices.rank(stoichiometry, reactions, n) < reactions) {
+            throw new IllegalArgumentException("Reactions are not independent");
+        }
+        double[][] basis = Matrices.nullSpace(stoichiometry, reactions, n);
+        conserved = basis.length;
+        conservation = new double[conserved * n];
+        for (int k = 0; k < conserved; k++) {
+            System.arraycopy(basis[k], 0, conservation, k * n, n);
+        }
+
+        totals = new double[conserved];
+        scales = new double[conserved];
+        initial = new double[n];
+        logs = new double[n];
+        trialLogs = new double[n];
+        residual = new double[n];
+        trialResidual = new double[n];
+        step = new double[n];
+        lastLogs = new double[n];
+        lu = new DenseLU(n);
+    }
+
+    /**
+     * Finds the equilibrium concentrations, starting from the last solution if there is
+     * one.
+     *
+     * @param concentrations The starting concentration of each species, in mol/L
+     * @return The equilibrium concentration of each species, in a new array
+     * @throws IllegalArgumentException If the array does not match the species count,
+     *         a concentration is negative, or every concentration is zero
+     * @throws IllegalStateException If the system changed since the solver was created,
+     *         or no equilibrium was found
+     */
+    public double[] solve(double[] concentrations) {
+        if (system.getSpecies().size() != n || system.getReactionCount() != reactions) {
+            throw new IllegalStateException("System changed; create a new solver");
+        }
+        if (concentrations.length != n) {
+            throw new IllegalArgumentException("Expected " + n + " concentrations, got " + concentrations.length);
+        }
+        double sum = 0;
+        for (double c : concentrations) {
+            if (!(c >= 0) || Double.isInfinite(c)) {
+                throw new IllegalArgumentException("Concentrations must be non-negative numbers: " + c);
+            }
+            sum += c;
+        }
+        if (sum == 0) {
+            throw new IllegalArgumentException("Every concentration is zero");
+        }
+
+        System.arraycopy(concentrations, 0, initial, 0, n);
+        for (int k = 0; k < conserved; k++) {
+            double total = 0;
+            double largest = 0;
+            for (int i = 0; i < n; i++) {
+                total += conservation[k * n + i] * initial[i];
+                largest = Math.max(largest, Math.abs(conservation[k * n + i]));
+            }
+            totals[k] = total;
+            scales[k] = largest * sum;
+        }
+
+        iterations = 0;
+        factorizations = 0;
+        boolean converged = false;
+        if (hasLast) {
+            System.arraycopy(lastLogs, 0, logs, 0, n);
+            converged = newton();
+        }
+        if (!converged) {
+            for (int i = 0; i < n; i++) {
+                logs[i] = Math.log(Math.max(initial[i], COLD_FLOOR));
+            }
+            converged = newton();
+        }
+        SOLVES.increment();
+        ITERATIONS.add(iterations);
+        if (!converged) {
+            hasLast = false;
+            throw new IllegalStateException("No equilibrium found after " + iterations + " iterations");
+        }
+
+        System.arraycopy(logs, 0, lastLogs, 0, n);
+        hasLast = true;
+        double[] result = new double[n];
+        for (int i = 0; i < n; i++) {
+            result[i] = Math.exp(logs[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Solves the system for each value of one reaction's equilibrium constant in turn,
+     * each solve starting from the one before. The constant is restored afterwards.
+     *
+     * @param concentrations The starting concentration of each species, in mol/L
+     * @param reaction The reaction whose constant is varied
+     * @param constants The values of the constant to solve for
+     * @return The equilibrium concentrations for each value
+     * @throws IllegalArgumentException If the concentrations or a constant are invalid
+     * @throws IllegalStateException If no equilibrium was found for some value
+     */
+    public double[][] sweep(double[] concentrations, int reaction, double[] constants) {
+        double original = system.getEquilibriumConstant(reaction);
+        double[][] results = new double[constants.length][];
+        try {
+            for (int j = 0; j < constants.length; j++) {
+                system.setEquilibriumConstant(reaction, constants[j]);
+                results[j] = solve(concentrations);
+            }
+        } finally {
+            system.setEquilibriumConstant(reaction, original);
+        }
+        return results;
+    }
+
+    /**
+     * Runs damped Newton iterations from the current logs.
+     *
+     * @return true if the residual fell below the tolerance
+     */
+    private boolean newton() {
+        double norm = evaluate(logs, residual);
+        boolean factorsValid = false;
+        for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+            if (Double.isNaN(norm)) {
+                return false;
+            }
+            if (norm <= tolerance * tolerance) {
+                return true;
+            }
+            iterations++;
+
+            boolean fresh = !factorsValid;
+            if (fresh) {
+                buildJacobian();
+                factorizations++;
+                if (!lu.factor()) {
+                    return false;
+                }
+                factorsValid = true;
+            }
+            for (int i = 0; i < n; i++) {
+                step[i] = -residual[i];
+            }
+            lu.solve(step);
+
+            // Limit the largest change, then halve until the residual falls
+            double largest = 0;
+            for (int i = 0; i < n; i++) {
+                largest = Math.max(largest, Math.abs(step[i]));
+            }
+            double lambda = largest > MAX_LOG_STEP ? MAX_LOG_STEP / largest : 1;
+            double trialNorm = tryStep(lambda);
+            if (trialNorm <= CONTRACTION * CONTRACTION * norm) {
+                accept();
+                norm = trialNorm;
+                continue; // Good progress: keep the factors
+            }
+            if (!fresh) {
+                factorsValid = false; // Stale factors: rebuild them at the same point
+                continue;
+            }
+            for (int halving = 0; halving < MAX_HALVINGS && !(trialNorm < norm); halving++) {
+                lambda /= 2;
+                trialNorm = tryStep(lambda);
+            }
+            if (!(trialNorm < norm)) {
+                return false;
+            }
+            accept();
+            norm = trialNorm;
+            factorsValid = false;
+        }
+        return norm <= tolerance * tolerance;
+    }
+
+    /**
+     * Evaluates the residual at a trial step from the current logs.
+     *
+     * @param lambda The fraction of the Newton step to take
+     * @return The squared residual norm at the trial point
+     */
+    private double tryStep(double lambda) {
+        for (int i = 0; i < n; i++) {
+            trialLogs[i] = logs[i] + lambda * step[i];
+        }
+        return evaluate(trialLogs, trialResidual);
+    }
+
+    /**
+     * Moves to the last trial point.
+     */
+    private void accept() {
+        System.arraycopy(trialLogs, 0, logs, 0, n);
+        System.arraycopy(trialResidual, 0, residual, 0, n);
+    }
+
+    /**
+     * Calculates the scaled residual: for each conserved quantity, its change from the
+     * starting total relative to the total concentration; for each reaction, the log of
+     * its reaction quotient minus ln K.
+     *
+     * @param x The log concentrations
+     * @param out Filled with the residual
+     * @return The largest squared residual entry
+     */
+    private double evaluate(double[] x, double[] out) {
+        double largest = 0;
+        for (int k = 0; k < conserved; k++) {
+            double total = 0;
+            for (int i = 0; i < n; i++) {
+                double weight = conservation[k * n + i];
+                if (weight != 0) {
+                    total += weight * Math.exp(x[i]);
+                }
+            }
+            double value = (total - totals[k]) / scales[k];
+            out[k] = value;
+            largest = Math.max(largest, value * value);
+        }
+        for (int r = 0; r < reactions; r++) {
+            double quotient = -system.getLogConstant(r);
+            for (int i = 0; i < n; i++) {
+                quotient += stoichiometry[r * n + i] * x[i];
+            }
+            out[conserved + r] = quotient;
+            largest = Math.max(largest, quotient * quotient);
+        }
+        return largest;
+    }
+
+    /**
+     * Fills the factoring workspace with the Jacobian of the scaled residual at the
+     * current logs.
+     */
+    private void buildJacobian() {
+        double[] matrix = lu.getMatrix();
+        for (int k = 0; k < conserved; k++) {
+            for (int i = 0; i < n; i++) {
+                matrix[k * n + i] = conservation[k * n + i] * Math.exp(logs[i]) / scales[k];
+            }
+        }
+        System.arraycopy(stoichiometry, 0, matrix, conserved * n, reactions * n);
+    }
+
+    /**
+     * Forgets the last solution, so the next solve starts from its starting
+     * concentrations.
+     */
+    public void clearWarmStart() {
+        hasLast = false;
+    }
+
+    // Setters
+
+    /**
+     * Sets the convergence tolerance: the largest accepted error in each ln K equation,
+     * and in each conserved total relative to the total concentration.
+     *
+     * @param tolerance The tolerance
+     * @throws IllegalArgumentException If the tolerance is not positive
+     */
+    public void setTolerance(double tolerance) {
+        if (!(tolerance > 0)) {
+            throw new IllegalArgumentException("Tolerance must be positive: " + tolerance);
+        }
+        this.tolerance = tolerance;
+    }
+
+    // Getters
+
+    /**
+     * Gets the number of Newton iterations in the last solve, including any from a
+     * failed warm start.
+     *
+     * @return The iteration count
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * Gets the number of Jacobians factored in the last solve.
+     *
+     * @return The factorization count
+     */
+    public int getFactorizations() {
+        return factorizations;
+    }
+
+    /**
+     * Gets the system being solved.
+     *
+     * @return The system
+     */
+    public EquilibriumSystem getSystem() {
+        return system;
+    }
+}
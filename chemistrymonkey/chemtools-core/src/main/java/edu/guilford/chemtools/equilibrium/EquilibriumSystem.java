@@ -0,0 +1,239 @@
+package edu.guilford.chemtools.equilibrium;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+import edu.guilford.chemtools.Equation;
+import edu.guilford.chemtools.Formula;
+import edu.guilford.chemtools.Solution;
+import edu.guilford.chemtools.SpeciesIndex;
+
+/**
+ * The EquilibriumSystem class is a set of simultaneous equilibria, each a balanced
+ * equation with an equilibrium constant written in concentrations (mol/L). The solvent
+ * (water unless another is given) has an activity of 1, so it is left out of the
+ * species and out of every equilibrium expression, as in an ICE table. For example,
+ * acetic acid in water:
+ *
+ * <pre>
+ * EquilibriumSystem system = new EquilibriumSystem();
+ * system.addReaction(Equation.parse("HC_2H_3O_2 = H^+ + C_2H_3O_2^-"), 1.8e-5);
+ * system.addReaction(Equation.parse("H_2O = H^+ + OH^-"), 1.0e-14);
+ * </pre>
+ */
+public class EquilibriumSystem {
+
+    public static final String WATER = "H_2O"; // Default solvent
+
+    private final Formula solvent; // Solvent, or null for none
+    private final SpeciesIndex species = new SpeciesIndex(); // Species other than the solvent
+    private final ArrayList<int[]> reactionSpecies = new ArrayList<>(); // Species of each reaction
+    private final ArrayList<int[]> reactionCoefficients = new ArrayList<>(); // Net coefficients, products positive
+    private double[] logConstants = new double[4]; // Natural log of each equilibrium constant
+
+    /**
+     * Default constructor that creates an aqueous system, with water as the solvent.
+     */
+    public EquilibriumSystem() {
+        this(new Formula(WATER));
+    }
+
+    /**
+     * Constructor that creates a system with a given solvent.
+     *
+     * @param solvent The solvent, or null to treat every species as a solute
+     */
+    public EquilibriumSystem(Formula solvent) {
+        this.solvent = solvent;
+    }
+
+    /**
+     * Adds an equilibrium. Equations that are not yet balanced are balanced first.
+     *
+     * @param equation The equation
+     * @param equilibriumConstant The equilibrium constant, products over reactants
+     * @return The reaction index
+     * @throws IllegalArgumentException If the equation cannot be balanced, has no species
+     *         besides the solvent, or the constant is not a positive number
+     */
+    public int addReaction(Equation equation, double equilibriumConstant) {
+        checkConstant(equilibriumConstant);
+        if (!equation.isBalanced()) {
+            equation.balanceEquations();
+            if (!equation.isBalanced()) {
+                throw new IllegalArgumentException("Equation cannot be balanced");
+            }
+        }
+
+        int[] indices = new int[equation.getLeftFormulas().size() + equation.getRightFormulas().size()];
+        int[] coefficients = new int[indices.length];
+        int count = 0;
+        for (int side = -1; side <= 1; side += 2) {
+            List<Formula> formulas = side < 0 ? equation.getLeftFormulas() : equation.getRightFormulas();
+            for (Formula formula : formulas) {
+                if (solvent != null && formula.isSameCompound(solvent)) {
+                    continue;
+                }
+                int index = species.add(formula);
+                int existing = indexOf(indices, count, index);
+                if (existing < 0) {
+                    indices[count] = index;
+                    coefficients[count++] = side * formula.getMultiplier();
+                } else {
+                    coefficients[existing] += side * formula.getMultiplier();
+                }
+            }
+        }
+        if (count == 0) {
+            throw new IllegalArgumentException("Equation has no species besides the solvent");
+        }
+
+        int reaction = reactionSpecies.size();
+        if (reaction == logConstants.length) {
+            logConstants = Arrays.copyOf(logConstants, reaction * 2);
+        }
+        logConstants[reaction] = Math.log(equilibriumConstant);
+        reactionSpecies.add(Arrays.copyOf(indices, count));
+        reactionCoefficients.add(Arrays.copyOf(coefficients, count));
+        return reaction;
+    }
+
+    /**
+     * Finds a species among the first entries of an array.
+     *
+     * @param indices The species indices
+     * @param count The number of entries in use
+     * @param index The species to find
+     * @return The entry holding the species, or -1
+     */
+    private static int indexOf(int[] indices, int count, int index) {
+        for (int i = 0; i < count; i++) {
+            if (indices[i] == index) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Checks that an equilibrium constant is usable.
+     *
+     * @param equilibriumConstant The constant
+     * @throws IllegalArgumentException If it is not a positive, finite number
+     */
+    private static void checkConstant(double equilibriumConstant) {
+        if (!(equilibriumConstant > 0) || Double.isInfinite(equilibriumConstant)) {
+            throw new IllegalArgumentException("Equilibrium constant must be positive: " + equilibriumConstant);
+        }
+    }
+
+    /**
+     * Builds an initial concentration vector from solutions. Molarities of solutions of
+     * the same species are added; species without a solution start at zero, and
+     * solutions of the solvent are ignored.
+     *
+     * @param solutions The solutions
+     * @return The concentration of each species, in mol/L
+     * @throws IllegalArgumentException If a solution's compound is not in the system
+     */
+    public double[] initialConcentrations(List<Solution> solutions) {
+        double[] concentrations = new double[species.size()];
+        for (Solution solution : solutions) {
+            if (solvent != null && solution.getSample().isSameCompound(solvent)) {
+                continue;
+            }
+            int index = species.indexOf(solution.getSample());
+            if (index < 0) {
+                throw new IllegalArgumentException("Species not in system: " + solution.getSample());
+            }
+            concentrations[index] += solution.getMolarity();
+        }
+        return concentrations;
+    }
+
+    /**
+     * Builds the dense stoichiometric matrix, one row per reaction and one column per
+     * species, holding each species' net coefficient (products positive).
+     *
+     * @return The matrix, row-major
+     */
+    double[] stoichiometry() {
+        int n = species.size();
+        double[] matrix = new double[reactionSpecies.size() * n];
+        for (int r = 0; r < reactionSpecies.size(); r++) {
+            int[] indices = reactionSpecies.get(r);
+            int[] coefficients = reactionCoefficients.get(r);
+            for (int k = 0; k < indices.length; k++) {
+                matrix[r * n + indices[k]] = coefficients[k];
+            }
+        }
+        return matrix;
+    }
+
+    /**
+     * Gets the natural log of a reaction's equilibrium constant.
+     *
+     * @param reaction The reaction index
+     * @return ln K
+     */
+    double getLogConstant(int reaction) {
+        return logConstants[reaction];
+    }
+
+    // Setters
+
+    /**
+     * Sets the equilibrium constant of a reaction, for example during a sweep.
+     *
+     * @param reaction The reaction index
+     * @param equilibriumConstant The new constant
+     * @throws IllegalArgumentException If the constant is not a positive number
+     * @throws IndexOutOfBoundsException If there is no such reaction
+     */
+    public void setEquilibriumConstant(int reaction, double equilibriumConstant) {
+        checkConstant(equilibriumConstant);
+        logConstants[Objects.checkIndex(reaction, reactionSpecies.size())] = Math.log(equilibriumConstant);
+    }
+
+    // Getters
+
+    /**
+     * Gets the equilibrium constant of a reaction.
+     *
+     * @param reaction The reaction index
+     * @return The equilibrium constant
+     * @throws IndexOutOfBoundsException If there is no such reaction
+     */
+    public double getEquilibriumConstant(int reaction) {
+        return Math.exp(logConstants[Objects.checkIndex(reaction, reactionSpecies.size())]);
+    }
+
+    /**
+     * Gets the number of reactions.
+     *
+     * @return The number of reactions
+     */
+    public int getReactionCount() {
+        return reactionSpecies.size();
+    }
+
+    /**
+     * Gets the species of the system, which number the concentration arrays.
+     *
+     * @return The species index
+     */
+    public SpeciesIndex getSpecies() {
+        return species;
+    }
+
+    /**
+     * Gets the solvent.
+     *
+     * @return The solvent, or null if there is none
+     */
+    public Formula getSolvent() {
+        return solvent;
+    }
+}
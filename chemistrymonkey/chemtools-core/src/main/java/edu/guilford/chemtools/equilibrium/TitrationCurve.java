@@ -0,0 +1,403 @@
+package edu.guilford.chemtools.equilibrium;
+
+import java.util.Arrays;
+
+import edu.guilford.chemtools.Solution;
+import edu.guilford.chemtools.metrics.Counter;
+import edu.guilford.chemtools.metrics.MetricsRegistry;
+
+/**
+ * The TitrationCurve class calculates the pH of a polyprotic acid titrated with a strong
+ * base, or of its fully deprotonated base titrated with a strong acid, against the
+ * volume of titrant added. At each volume the pH solves the charge balance
+ *
+ * <pre>
+ * [H+] + cations = [OH-] + anions + C_A n(pH)
+ * </pre>
+ *
+ * where C_A is the diluted analyte concentration, n(pH) the average number of protons
+ * each analyte molecule has lost, and the cations and anions are the titrant's and the
+ * base's counter-ions. The left side falls and the right side rises with pH, so the
+ * root is bracketed between pH -2 and 16 and found by regula falsi with the Illinois
+ * modification, which converges superlinearly without leaving the bracket. Fractions
+ * of each protonation state are calculated from logs, so no term overflows or
+ * underflows even for strong acids or at extreme pH.
+ *
+ * Curves are sampled adaptively: the volume range starts as a few even intervals, and
+ * an interval is halved while its pH changes by more than a maximum step or its
+ * midpoint is further than a tolerance from the straight line between its ends. Flat
+ * buffer regions keep a few points, while the jump at each equivalence point is
+ * resolved down to a minimum spacing, so a curve looks like one sampled at tens of
+ * thousands of even points from a few hundred solves. Intervals are split depth first,
+ * so points come out in order of volume and can be streamed to a chart in chunks as
+ * they are found.
+ */
+public class TitrationCurve {
+
+    public static final double WATER_CONSTANT = 1.0e-14; // Kw at 25 °C
+    public static final double DEFAULT_PH_TOLERANCE = 0.01; // Largest pH error of straight lines between points
+    public static final double DEFAULT_MAX_PH_STEP = 0.2; // Largest pH change between points
+    public static final int DEFAULT_CHUNK_SIZE = 256; // Points per chunk passed to a listener
+
+    private static final double LOW_PH = -2; // Bottom of the root bracket
+    private static final double HIGH_PH = 16; // Top of the root bracket
+    private static final double ROOT_TOLERANCE = 1e-10; // pH accuracy of each point
+    private static final int MAX_ROOT_ITERATIONS = 200; // Iterations before the bracket is accepted
+    private static final int INITIAL_INTERVALS = 16; // Even intervals the volume range starts as
+    private static final double MIN_SPACING_FRACTION = 1e-7; // Smallest interval, as a fraction of the range
+    private static final double LN_10 = Math.log(10);
+
+    // Shared metrics for titration work in this process
+    private static final Counter POINTS = MetricsRegistry.shared().counter("equilibrium.titration.points");
+    private static final Counter SOLVES = MetricsRegistry.shared().counter("equilibrium.titration.solves");
+
+    private final boolean acidAnalyte; // Whether the analyte is the acid and the titrant a base
+    private final int protons; // Acidic protons of the fully protonated acid
+    private final double[] logBetas; // ln of the product of the first j acid constants, j = 0..protons
+    private final double analyteMoles; // Moles of analyte
+    private final double analyteVolume; // Starting volume in liters
+    private final double titrantMolarity; // Titrant concentration in mol/L
+
+    private double phTolerance = DEFAULT_PH_TOLERANCE; // Largest pH error of straight lines between points
+    private double maxPhStep = DEFAULT_MAX_PH_STEP; // Largest pH change between points
+    private volatile boolean cancelled; // Whether the running generation should stop
+    private long solves; // pH solves in the last generation
+
+    /**
+     * Constructor that prepares a titration.
+     *
+     * @param analyte The solution titrated; its molarity and volume are used
+     * @param acidConstants The acid's dissociation constants Ka1, Ka2, ... in order
+     * @param titrantMolarity The molarity of the strong titrant in mol/L
+     * @param acidAnalyte true if the analyte is the acid and the titrant a strong base;
+     *        false if the analyte is the fully deprotonated base (as its sodium salt,
+     *        say) and the titrant a strong acid
+     * @throws IllegalArgumentException If a constant, the analyte's molarity or volume,
+     *         or the titrant molarity is not positive
+     */
+    public TitrationCurve(Solution analyte, double[] acidConstants, double titrantMolarity, boolean acidAnalyte) {
+        if (acidConstants.length == 0) {
+            throw new IllegalArgumentException("At least one acid constant is needed");
+        }
+        if (!(analyte.getMolarity() > 0) || !(analyte.getVolume() > 0)) {
+            throw new IllegalArgumentException("Analyte needs a positive molarity and volume");
+        }
+        if (!(titrantMolarity > 0)) {
+            throw new IllegalArgumentException("Titrant molarity must be positive: " + titrantMolarity);
+        }
+        this.acidAnalyte = acidAnalyte;
+        protons = acidConstants.length;
+        logBetas = new double[protons + 1];
+        for (int j = 1; j <= protons; j++) {
+            if (!(acidConstants[j - 1] > 0) || Double.isInfinite(acidConstants[j - 1])) {
+                throw new IllegalArgumentException("Acid constant must be positive: " + acidConstants[j - 1]);
+            }
+            logBetas[j] = logBetas[j - 1] + Math.log(acidConstants[j - 1]);
+        }
+        analyteMoles = analyte.getMolarity() * analyte.getVolume();
+        analyteVolume = analyte.getVolume();
+        this.titrantMolarity = titrantMolarity;
+    }
+
+    /**
+     * Calculates the pH after adding a volume of titrant.
+     *
+     * @param titrantVolume The volume of titrant added in liters
+     * @return The pH
+     * @throws IllegalArgumentException If the volume is negative
+     * @throws IllegalStateException If the pH is outside -2 to 16
+     */
+    public double pH(double titrantVolume) {
+        if (!(titrantVolume >= 0)) {
+            throw new IllegalArgumentException("Titrant volume must not be negative: " + titrantVolume);
+        }
+        SOLVES.increment();
+        solves++;
+        double totalVolume = analyteVolume + titrantVolume;
+        double analyte = analyteMoles / totalVolume;
+        double titrant = titrantMolarity * titrantVolume / totalVolume;
+        double cations = acidAnalyte ? titrant : protons * analyte;
+        double anions = acidAnalyte ? 0 : titrant;
+
+        // Illinois regula falsi on the charge balance, which falls as pH rises
+        double low = LOW_PH;
+        double high = HIGH_PH;
+        double lowValue = chargeBalance(low, analyte, cations, anions);
+        double highValue = chargeBalance(high, analyte, cations, anions);
+        if (lowValue < 0 || highValue > 0) {
+            throw new IllegalStateException("pH is outside " + LOW_PH + " to " + HIGH_PH);
+        }
+        int side = 0; // Bracket end kept in the last step: -1 low, 1 high
+        for (int i = 0; i < MAX_ROOT_ITERATIONS && high - low > ROOT_TOLERANCE; i++) {
+            double x = (low * highValue - high * lowValue) / (highValue - lowValue);
+            double value = chargeBalance(x, analyte, cations, anions);
+            if (value == 0) {
+                return x;
+            }
+            if (value > 0) {
+                low = x;
+                lowValue = value;
+                if (side == 1) {
+                    highValue /= 2; // Kept the high end twice: halve it so it moves
+                }
+                side = 1;
+            } else {
+                high = x;
+                highValue = value;
+                if (side == -1) {
+                    lowValue /= 2;
+                }
+                side = -1;
+            }
+        }
+        return (low + high) / 2;
+    }
+
+    /**
+     * Evaluates the charge balance, positive charge less negative, at a pH.
+     *
+     * @param pH The pH
+     * @param analyte The analyte concentration in mol/L
+     * @param cations The counter-cation concentration in mol/L
+     * @param anions The counter-anion concentration in mol/L
+     * @return The net charge in mol/L
+     */
+    private double chargeBalance(double pH, double analyte, double cations, double anions) {
+        double logH = -pH * LN_10;
+        double hydrogen = Math.exp(logH);
+        double hydroxide = WATER_CONSTANT / hydrogen;
+
+        // Term j is beta_j [H+]^(n - j), for the species that has lost j protons
+        double largest = Double.NEGATIVE_INFINITY;
+        for (int j = 0; j <= protons; j++) {
+            largest = Math.max(largest, logBetas[j] + (protons - j) * logH);
+        }
+        double sum = 0;
+        double weighted = 0;
+        for (int j = 0; j <= protons; j++) {
+            double term = Math.exp(logBetas[j] + (protons - j) * logH - largest);
+            sum += term;
+            weighted += j * term;
+        }
+        return hydrogen + cations - hydroxide - anions - analyte * weighted / sum;
+    }
+
+    /**
+     * Calculates the curve from no titrant to a maximum volume.
+     *
+     * @param maxVolume The largest titrant volume in liters
+     * @return Two arrays: the titrant volumes in liters, in ascending order, and the pH
+     *         at each
+     * @throws IllegalArgumentException If the maximum volume is not positive
+     */
+    public double[][] generate(double maxVolume) {
+        double[][] curve = {new double[0], new double[0]};
+        generate(maxVolume, DEFAULT_CHUNK_SIZE, (volumes, pHs) -> {
+            int start = curve[0].length;
+            curve[0] = Arrays.copyOf(curve[0], start + volumes.length);
+            curve[1] = Arrays.copyOf(curve[1], start + pHs.length);
+            System.arraycopy(volumes, 0, curve[0], start, volumes.length);
+            System.arraycopy(pHs, 0, curve[1], start, pHs.length);
+        });
+        return curve;
+    }
+
+    /**
+     * Calculates the curve from no titrant to a maximum volume, passing points to a
+     * listener in chunks, in order of volume, as they are found. Each chunk's arrays
+     * are new, so the listener may keep them or hand them to another thread.
+     *
+     * @param maxVolume The largest titrant volume in liters
+     * @param chunkSize The number of points per chunk; the last chunk may be shorter
+     * @param listener Receives each chunk on the calling thread
+     * @return The number of points, or those passed on so far if cancelled
+     * @throws IllegalArgumentException If the maximum volume or chunk size is not positive
+     */
+    public int generate(double maxVolume, int chunkSize, ChunkListener listener) {
+        if (!(maxVolume > 0) || chunkSize < 1) {
+            throw new IllegalArgumentException("Maximum volume and chunk size must be positive");
+        }
+        cancelled = false;
+        solves = 0;
+        double minSpacing = maxVolume * MIN_SPACING_FRACTION;
+        Chunker chunker = new Chunker(chunkSize, listener);
+
+        // Right ends of the intervals still to do, innermost last
+        double[] stackVolumes = new double[64];
+        double[] stackPHs = new double[64];
+        double left = 0;
+        double leftPH = pH(0);
+        chunker.add(left, leftPH);
+        for (int i = 1; i <= INITIAL_INTERVALS && !cancelled; i++) {
+            double right = maxVolume * i / INITIAL_INTERVALS;
+            stackVolumes[0] = right;
+            stackPHs[0] = pH(right);
+            int depth = 1;
+            while (depth > 0 && !cancelled) {
+                double end = stackVolumes[depth - 1];
+                double endPH = stackPHs[depth - 1];
+                if (end - left > 2 * minSpacing && depth < stackVolumes.length) {
+                    double middle = (left + end) / 2;
+                    double middlePH = pH(middle);
+                    if (Math.abs(endPH - leftPH) > maxPhStep
+                            || Math.abs(middlePH - (leftPH + endPH) / 2) > phTolerance) {
+                        stackVolumes[depth] = middle;
+                        stackPHs[depth++] = middlePH;
+                        continue;
+                    }
+                    chunker.add(middle, middlePH); // Already solved, so keep it
+                }
+                chunker.add(end, endPH);
+                left = end;
+                leftPH = endPH;
+                depth--;
+            }
+        }
+        chunker.flush();
+        POINTS.add(chunker.total);
+        return chunker.total;
+    }
+
+    /**
+     * Stops a running generation after the point being calculated. Points already passed
+     * to the listener stay valid.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Gets the titrant volume at an equivalence point, where the titrant added matches
+     * the protons removed (or added) so far.
+     *
+     * @param number The equivalence point, from 1 to the number of acid constants
+     * @return The titrant volume in liters
+     * @throws IllegalArgumentException If there is no such equivalence point
+     */
+    public double getEquivalenceVolume(int number) {
+        if (number < 1 || number > protons) {
+            throw new IllegalArgumentException("No equivalence point " + number);
+        }
+        return number * analyteMoles / titrantMolarity;
+    }
+
+    // Setters
+
+    /**
+     * Sets the largest pH error allowed between a solved midpoint and the straight line
+     * between its neighbors.
+     *
+     * @param phTolerance The tolerance in pH units
+     * @throws IllegalArgumentException If it is not positive
+     */
+    public void setPhTolerance(double phTolerance) {
+        if (!(phTolerance > 0)) {
+            throw new IllegalArgumentException("Tolerance must be positive: " + phTolerance);
+        }
+        this.phTolerance = phTolerance;
+    }
+
+    /**
+     * Sets the largest pH change allowed between neighboring points, away from the
+     * minimum spacing.
+     *
+     * @param maxPhStep The largest step in pH units
+     * @throws IllegalArgumentException If it is not positive
+     */
+    public void setMaxPhStep(double maxPhStep) {
+        if (!(maxPhStep > 0)) {
+            throw new IllegalArgumentException("Step must be positive: " + maxPhStep);
+        }
+        this.maxPhStep = maxPhStep;
+    }
+
+    // Getters
+
+    /**
+     * Gets the number of acidic protons, which is also the number of equivalence points.
+     *
+     * @return The proton count
+     */
+    public int getProtonCount() {
+        return protons;
+    }
+
+    /**
+     * Gets the number of pH solves in the last generation, including points solved and
+     * then not kept.
+     *
+     * @return The solve count
+     */
+    public long getSolveCount() {
+        return solves;
+    }
+
+    /**
+     * The ChunkListener interface receives the points of a curve in chunks.
+     */
+    @FunctionalInterface
+    public interface ChunkListener {
+
+        /**
+         * Called with each chunk of points, in order of volume.
+         *
+         * @param volumes The titrant volumes in liters
+         * @param pHs The pH at each volume
+         */
+        void accept(double[] volumes, double[] pHs);
+    }
+
+    /**
+     * The Chunker class collects points into chunks and passes each one on when full.
+     */
+    private static final class Chunker {
+
+        private final int chunkSize; // Points per chunk
+        private final ChunkListener listener; // Receives each chunk
+        private double[] volumes; // Volumes of the current chunk
+        private double[] pHs; // pH of the current chunk's points
+        private int count; // Points in the current chunk
+        private int total; // Points passed on so far
+
+        /**
+         * Constructor that starts an empty chunk.
+         *
+         * @param chunkSize The points per chunk
+         * @param listener The listener
+         */
+        Chunker(int chunkSize, ChunkListener listener) {
+            this.chunkSize = chunkSize;
+            this.listener = listener;
+            volumes = new double[chunkSize];
+            pHs = new double[chunkSize];
+        }
+
+        /**
+         * Adds a point, passing the chunk on if it is full.
+         *
+         * @param volume The titrant volume
+         * @param pH The pH
+         */
+        void add(double volume, double pH) {
+            volumes[count] = volume;
+            pHs[count++] = pH;
+            if (count == chunkSize) {
+                flush();
+                volumes = new double[chunkSize];
+                pHs = new double[chunkSize];
+            }
+        }
+
+        /**
+         * Passes on the points collected so far, if there are any.
+         */
+        void flush() {
+            if (count > 0) {
+                listener.accept(count == chunkSize ? volumes : Arrays.copyOf(volumes, count),
+                        count == chunkSize ? pHs : Arrays.copyOf(pHs, count));
+                total += count;
+                count = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package edu.guilford.chemtools.flow;
+
+import java.util.List;
+
+import edu.guilford.chemtools.Element;
+import edu.guilford.chemtools.Equation;
+import edu.guilford.chemtools.Formula;
+import edu.guilford.chemtools.IncrementalFormula;
+
+/**
+ * The ChemStages class holds the chemistry functions for {@link FlowStage} pipelines.
+ * Each throws IllegalArgumentException for an invalid item, which makes the stage drop
+ * and count it. A formula feed and an equation feed look like this:
+ *
+ * <pre>
+ * FlowStage&lt;String, Formula&gt; parse = new FlowStage&lt;&gt;("formula.parse", ChemStages::parseFormula, 4, true);
+ * parse.then("formula.validate", ChemStages::validateFormula, 1, true)
+ *      .then("formula.molar.mass", ChemStages::molarMass, 1, true)
+ *      .subscribe(sink);
+ *
+ * FlowStage&lt;String, Equation&gt; equations = new FlowStage&lt;&gt;("equation.parse", ChemStages::parseEquation, 1, true);
+ * equations.then("equation.validate", ChemStages::validateEquation, 1, true)
+ *          .then("equation.balance", ChemStages::balance, 4, false)
+ *          .subscribe(sink);
+ * </pre>
+ *
+ * The source is any {@code Flow.Publisher<String>}; with a SubmissionPublisher,
+ * {@code submit} blocks once the first stage is full, which is how a slow balancing
+ * stage holds back the feed.
+ */
+public final class ChemStages {
+
+    // Parser per worker thread; consecutive similar formulas reuse its tokens
+    private static final ThreadLocal<IncrementalFormula> PARSERS = ThreadLocal.withInitial(IncrementalFormula::new);
+
+    /**
+     * Prevents instantiation; all methods are static.
+     */
+    private ChemStages() {
+    }
+
+    /**
+     * Parses formula text.
+     *
+     * @param text The formula text (e.g., "H_2O")
+     * @return The parsed formula
+     * @throws IllegalArgumentException If the text is not a valid formula
+     */
+    public static Formula parseFormula(String text) {
+        IncrementalFormula parser = PARSERS.get();
+        if (!parser.update(text)) {
+            throw new IllegalArgumentException("Invalid formula format: " + text);
+        }
+        return parser.toFormula();
+    }
+
+    /**
+     * Checks that a formula can be used in calculations: a positive multiplier and a
+     * positive molar mass.
+     *
+     * @param formula The formula
+     * @return The same formula
+     * @throws IllegalArgumentException If the formula is not usable
+     */
+    public static Formula validateFormula(Formula formula) {
+        if (formula.getMultiplier() <= 0) {
+            throw new IllegalArgumentException("Multiplier must be positive: " + formula.getMultiplier()
+                    + " for \"" + formula + "\"");
+        }
+        if (!(formula.getMolarMass() > 0)) {
+            throw new IllegalArgumentException("Formula has no molar mass: \"" + formula + "\"");
+        }
+        return formula;
+    }
+
+    /**
+     * Pairs a formula with its molar mass.
+     *
+     * @param formula The formula
+     * @return The formula and its molar mass
+     */
+    public static FormulaMass molarMass(Formula formula) {
+        return new FormulaMass(formula, formula.getMolarMass());
+    }
+
+    /**
+     * Parses equation text (e.g., "C_3H_8 + O_2 = CO_2 + H_2O").
+     *
+     * @param text The equation text
+     * @return The unbalanced equation
+     * @throws IllegalArgumentException If the text is not a valid equation
+     */
+    public static Equation parseEquation(String text) {
+        return Equation.parse(text);
+    }
+
+    /**
+     * Checks that an equation could balance before the expensive search runs. With
+     * every multiplier at least 1, each element must appear on both sides or neither,
+     * and a nonzero charge must be offset by a charge of the opposite sign once the
+     * right side is moved to the left.
+     *
+     * @param equation The equation
+     * @return The same equation
+     * @throws IllegalArgumentException If the equation cannot balance
+     */
+    public static Equation validateEquation(Equation equation) {
+        List<Formula> left = equation.getLeftFormulas();
+        List<Formula> right = equation.getRightFormulas();
+        if (left.isEmpty() || right.isEmpty()) {
+            throw new IllegalArgumentException("Equation needs formulas on both sides");
+        }
+
+        boolean[] onLeft = elementsOf(left);
+        boolean[] onRight = elementsOf(right);
+        for (int number = 1; number < onLeft.length; number++) {
+            if (onLeft[number] != onRight[number]) {
+                throw new IllegalArgumentException("Element " + number + " appears on only one side");
+            }
+        }
+
+        boolean positive = false;
+        boolean negative = false;
+        for (Formula formula : left) {
+            positive |= formula.getCharge() > 0;
+            negative |= formula.getCharge() < 0;
+        }
+        for (Formula formula : right) {
+            positive |= formula.getCharge() < 0;
+            negative |= formula.getCharge() > 0;
+        }
+        if (positive != negative) {
+            throw new IllegalArgumentException("Charges cannot balance");
+        }
+        return equation;
+    }
+
+    /**
+     * Balances an equation. The equation is passed on either way; check
+     * {@link Equation#isBalanced()} for whether a balance was found.
+     *
+     * @param equation The equation
+     * @return The same equation, with its multipliers set
+     */
+    public static Equation balance(Equation equation) {
+        equation.balanceEquations();
+        return equation;
+    }
+
+    /**
+     * Marks which elements appear in a list of formulas.
+     *
+     * @param formulas The formulas
+     * @return Flags indexed by atomic number
+     */
+    private static boolean[] elementsOf(List<Formula> formulas) {
+        boolean[] present = new boolean[119];
+        for (Formula formula : formulas) {
+            for (Element element : formula.getElementComponents()) {
+                present[element.getAtomicNumber()] = true;
+            }
+        }
+        return present;
+    }
+}
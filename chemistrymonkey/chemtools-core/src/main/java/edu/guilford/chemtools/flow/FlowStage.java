@@ -0,0 +1,536 @@
+package edu.guilford.chemtools.flow;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import edu.guilford.chemtools.metrics.Counter;
+import edu.guilford.chemtools.metrics.MetricsRegistry;
+
+/**
+ * The FlowStage class is one step of a push-based pipeline: a {@link Flow.Processor} that
+ * applies a function to each item on up to {@code parallelism} worker threads. A stage
+ * holds at most {@code capacity} items at a time (waiting, running, or finished but not
+ * yet taken downstream) and only requests more from upstream as items leave, so a slow
+ * stage or subscriber throttles everything before it instead of letting buffers grow.
+ *
+ * In ordered mode results are emitted in the order items arrived, held back in a ring of
+ * {@code capacity} slots until every earlier item is done; in unordered mode each result
+ * is emitted as soon as it is ready. A function that throws IllegalArgumentException
+ * (invalid input) or returns null drops that item and counts it as rejected; any other
+ * exception cancels upstream and fails the stream. Stages are chained with
+ * {@link #then(String, Function, int, boolean)}; each accepts a single subscriber.
+ *
+ * @param <T> The type of items received
+ * @param <R> The type of items emitted
+ */
+public class FlowStage<T, R> implements Flow.Processor<T, R> {
+
+    /** Items a stage holds when no capacity is given */
+    public static final int DEFAULT_CAPACITY = 64;
+
+    private static final Object DROPPED = new Object(); // Ordered slot of a rejected item
+
+    // Shared worker threads; each stage bounds its own use by its parallelism
+    private static final ExecutorService WORKERS = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "flow-stage-worker");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final String name; // Stage name, used in metric names and errors
+    private final Function<? super T, ? extends R> function; // Work done per item
+    private final int parallelism; // Most items processed at once
+    private final boolean ordered; // Whether results keep arrival order
+    private final int capacity; // Most items held at once
+    private final int refillBatch; // Smallest upstream request, to avoid one request per item
+    private final Executor executor; // Runs the workers
+    private final Counter processed; // Items the function returned a value for
+    private final Counter rejected; // Items dropped as invalid
+
+    private final AtomicInteger drainers = new AtomicInteger(); // Serializes downstream signals
+    private final Object lock = new Object(); // Guards the fields below
+
+    private Flow.Subscription upstream; // Subscription to the previous stage
+    private Flow.Subscriber<? super R> downstream; // Next stage or final subscriber
+    private boolean subscribed; // Whether a downstream subscriber was accepted
+    private final ArrayDeque<T> pending = new ArrayDeque<>(); // Received items not yet started
+    private final Object[] slots; // Ordered results by sequence number modulo capacity
+    private final ArrayDeque<R> completed = new ArrayDeque<>(); // Unordered results ready to emit
+    private long startedCount; // Sequence number of the next item a worker takes
+    private long emittedCount; // Ordered: sequence number of the next result to emit
+    private int workers; // Worker tasks running
+    private int held; // Items received and not yet emitted or dropped
+    private long upstreamRequested; // Items requested from upstream and not yet received
+    private long demand; // Items requested by downstream and not yet emitted
+    private boolean upstreamDone; // Whether upstream completed or failed
+    private Throwable error; // Failure to signal downstream
+    private boolean cancelled; // Whether downstream cancelled
+    private boolean terminated; // Whether onComplete or onError was signalled
+
+    /**
+     * Constructor that creates a stage with the default capacity on the shared workers.
+     *
+     * @param name The stage name (e.g., "formula.parse")
+     * @param function The work done per item
+     * @param parallelism The most items processed at once
+     * @param ordered true to emit results in arrival order
+     */
+    public FlowStage(String name, Function<? super T, ? extends R> function, int parallelism, boolean ordered) {
+        this(name, function, parallelism, ordered, Math.max(DEFAULT_CAPACITY, 4 * parallelism), WORKERS);
+    }
+
+    /**
+     * Constructor that creates a stage with an explicit capacity and executor.
+     *
+     * @param name The stage name (e.g., "formula.parse")
+     * @param function The work done per item
+     * @param parallelism The most items processed at once
+     * @param ordered true to emit results in arrival order
+     * @param capacity The most items held at once, at least parallelism
+     * @param executor The executor that runs the workers
+     * @throws IllegalArgumentException If parallelism is not positive or capacity is below it
+     */
+    public FlowStage(String name, Function<? super T, ? extends R> function, int parallelism, boolean ordered,
+            int capacity, Executor executor) {
+        if (parallelism < 1 || capacity < parallelism) {
+            throw new IllegalArgumentException("Invalid parallelism " + parallelism + " or capacity " + capacity);
+        }
+        this.name = Objects.requireNonNull(name);
+        this.function = Objects.requireNonNull(function);
+        this.parallelism = parallelism;
+        this.ordered = ordered;
+        this.capacity = capacity;
+        this.executor = Objects.requireNonNull(executor);
+        refillBatch = Math.max(1, capacity / 4);
+        slots = ordered ? new Object[capacity] : null;
+        MetricsRegistry metrics = MetricsRegistry.shared();
+        processed = metrics.counter("flow." + name + ".processed");
+        rejected = metrics.counter("flow." + name + ".rejected");
+    }
+
+    /**
+     * Creates the next stage, subscribes it to this one and returns it, so a pipeline
+     * can be written as a chain.
+     *
+     * @param <V> The type of items the next stage emits
+     * @param nextName The next stage's name
+     * @param nextFunction The work the next stage does per item
+     * @param nextParallelism The most items the next stage processes at once
+     * @param nextOrdered true if the next stage emits results in arrival order
+     * @return The next stage
+     */
+    public <V> FlowStage<R, V> then(String nextName, Function<? super R, ? extends V> nextFunction,
+            int nextParallelism, boolean nextOrdered) {
+        FlowStage<R, V> next = new FlowStage<>(nextName, nextFunction, nextParallelism, nextOrdered);
+        subscribe(next);
+        return next;
+    }
+
+    // Subscriber side
+
+    /**
+     * Accepts the upstream subscription and requests the first items.
+     *
+     * @param subscription The upstream subscription
+     */
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        boolean accepted;
+        synchronized (lock) {
+            accepted = upstream == null && !cancelled;
+            if (accepted) {
+                upstream = subscription;
+            }
+        }
+        if (accepted) {
+            drain();
+        } else {
+            subscription.cancel();
+        }
+    }
+
+    /**
+     * Queues an item and starts a worker if fewer than parallelism are running.
+     *
+     * @param item The item
+     */
+    @Override
+    public void onNext(T item) {
+        Objects.requireNonNull(item);
+        boolean startWorker;
+        boolean overflow;
+        synchronized (lock) {
+            if (terminated || cancelled || upstreamDone) {
+                return;
+            }
+            overflow = held == capacity;
+            if (!overflow) {
+                pending.add(item);
+                held++;
+                upstreamRequested--;
+            }
+            startWorker = !overflow && workers < parallelism;
+            if (startWorker) {
+                workers++;
+            }
+        }
+        if (overflow) {
+            fail(new IllegalStateException(name + " received more items than it requested"));
+        } else if (startWorker) {
+            startWorker();
+        }
+    }
+
+    /**
+     * Fails the stream, discarding items not yet emitted.
+     *
+     * @param throwable The upstream failure
+     */
+    @Override
+    public void onError(Throwable throwable) {
+        synchronized (lock) {
+            if (upstreamDone) {
+                return;
+            }
+            upstreamDone = true;
+            error = throwable;
+            pending.clear();
+        }
+        drain();
+    }
+
+    /**
+     * Completes the stream once every held item has been emitted.
+     */
+    @Override
+    public void onComplete() {
+        synchronized (lock) {
+            upstreamDone = true;
+        }
+        drain();
+    }
+
+    // Publisher side
+
+    /**
+     * Subscribes the next stage or final subscriber. A stage accepts one subscriber;
+     * later subscribers are failed with IllegalStateException.
+     *
+     * @param subscriber The subscriber
+     */
+    @Override
+    public void subscribe(Flow.Subscriber<? super R> subscriber) {
+        Objects.requireNonNull(subscriber);
+        boolean accepted;
+        synchronized (lock) {
+            accepted = !subscribed;
+            subscribed = true;
+        }
+        if (!accepted) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException(name + " already has a subscriber"));
+            return;
+        }
+
+        subscriber.onSubscribe(new DownstreamSubscription());
+        synchronized (lock) {
+            downstream = subscriber;
+        }
+        drain();
+    }
+
+    // Workers
+
+    /**
+     * Submits a worker task, failing the stream if the executor refuses it.
+     */
+    private void startWorker() {
+        try {
+            executor.execute(this::work);
+        } catch (RejectedExecutionException e) {
+            synchronized (lock) {
+                workers--;
+            }
+            fail(e);
+        }
+    }
+
+    /**
+     * Processes pending items until none are left.
+     */
+    @SuppressWarnings("unchecked")
+    private void work() {
+        while (true) {
+            T item;
+            long sequence;
+            synchronized (lock) {
+                if (terminated || cancelled || pending.isEmpty()) {
+                    workers--;
+                    return;
+                }
+                item = pending.poll();
+                sequence = startedCount++;
+            }
+
+            Object result;
+            try {
+                R value = function.apply(item);
+                if (value == null) {
+                    rejected.increment();
+                    result = DROPPED;
+                } else {
+                    processed.increment();
+                    result = value;
+                }
+            } catch (IllegalArgumentException e) {
+                rejected.increment();
+                result = DROPPED;
+            } catch (Throwable e) {
+                synchronized (lock) {
+                    workers--;
+                }
+                fail(e);
+                return;
+            }
+
+            synchronized (lock) {
+                if (ordered) {
+                    slots[(int) (sequence % capacity)] = result;
+                } else if (result == DROPPED) {
+                    held--;
+                } else {
+                    completed.add((R) result);
+                }
+            }
+            drain();
+        }
+    }
+
+    /**
+     * Fails the stream because of a problem inside this stage, cancelling upstream.
+     *
+     * @param throwable The failure
+     */
+    private void fail(Throwable throwable) {
+        Flow.Subscription source;
+        synchronized (lock) {
+            if (terminated || error != null) {
+                return;
+            }
+            error = throwable;
+            upstreamDone = true;
+            pending.clear();
+            source = upstream;
+        }
+        if (source != null) {
+            source.cancel();
+        }
+        drain();
+    }
+
+    // Emission
+
+    /**
+     * Emits ready results while downstream has demand, requests more items from upstream
+     * as space frees up, and signals completion or failure. Only one thread runs the loop
+     * at a time; a call made while another thread is draining makes that thread loop again.
+     */
+    private void drain() {
+        if (drainers.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        while (true) {
+            while (true) {
+                Flow.Subscriber<? super R> subscriber;
+                Flow.Subscription source;
+                long request = 0;
+                R next = null;
+                Throwable failure = null;
+                boolean complete = false;
+                synchronized (lock) {
+                    if (cancelled || terminated) {
+                        break;
+                    }
+                    subscriber = downstream;
+                    source = upstream;
+
+                    if (source != null && !upstreamDone) {
+                        long room = capacity - held - upstreamRequested;
+                        if (room >= refillBatch) {
+                            upstreamRequested += room;
+                            request = room;
+                        }
+                    }
+
+                    if (subscriber != null) {
+                        if (error != null) {
+                            terminated = true;
+                            failure = error;
+                            clear();
+                        } else {
+                            next = poll();
+                            if (next == null && upstreamDone && held == 0) {
+                                terminated = true;
+                                complete = true;
+                            }
+                        }
+                    }
+                }
+
+                if (request > 0) {
+                    source.request(request);
+                }
+                if (failure != null) {
+                    subscriber.onError(failure);
+                    break;
+                } else if (complete) {
+                    subscriber.onComplete();
+                    break;
+                } else if (next == null) {
+                    break;
+                }
+                subscriber.onNext(next);
+            }
+
+            missed = drainers.addAndGet(-missed);
+            if (missed == 0) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Takes the next result to emit, if downstream wants one. In ordered mode, dropped
+     * items at the head of the ring are skipped whether or not there is demand.
+     * Must be called while holding the lock.
+     *
+     * @return The result, or null if none can be emitted now
+     */
+    @SuppressWarnings("unchecked")
+    private R poll() {
+        if (!ordered) {
+            if (demand == 0 || completed.isEmpty()) {
+                return null;
+            }
+            demand--;
+            held--;
+            return completed.poll();
+        }
+
+        while (true) {
+            int slot = (int) (emittedCount % capacity);
+            Object result = slots[slot];
+            if (result == null || (result != DROPPED && demand == 0)) {
+                return null;
+            }
+            slots[slot] = null;
+            emittedCount++;
+            held--;
+            if (result != DROPPED) {
+                demand--;
+                return (R) result;
+            }
+        }
+    }
+
+    /**
+     * Discards every held item. Must be called while holding the lock.
+     */
+    private void clear() {
+        pending.clear();
+        completed.clear();
+        if (slots != null) {
+            Arrays.fill(slots, null);
+        }
+    }
+
+    // Getters
+
+    /**
+     * Gets the stage name.
+     *
+     * @return The name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the number of items the function returned a value for.
+     *
+     * @return The processed item count, shared by stages with the same name
+     */
+    public long getProcessedCount() {
+        return processed.sum();
+    }
+
+    /**
+     * Gets the number of items dropped as invalid.
+     *
+     * @return The rejected item count, shared by stages with the same name
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * The DownstreamSubscription class lets the subscriber of a stage signal demand
+     * and cancel.
+     */
+    private class DownstreamSubscription implements Flow.Subscription {
+
+        /**
+         * Adds demand and emits any results that are ready.
+         *
+         * @param n The number of additional items wanted, which must be positive
+         */
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                fail(new IllegalArgumentException(name + ": request must be positive, was " + n));
+                return;
+            }
+            synchronized (lock) {
+                demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+            }
+            drain();
+        }
+
+        /**
+         * Stops the stage, discarding held items and cancelling upstream.
+         */
+        @Override
+        public void cancel() {
+            Flow.Subscription source;
+            synchronized (lock) {
+                if (cancelled) {
+                    return;
+                }
+                cancelled = true;
+                upstreamDone = true;
+                clear();
+                source = upstream;
+            }
+            if (source != null) {
+                source.cancel();
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package edu.guilford.chemtools.flow;
+
+import edu.guilford.chemtools.Formula;
+
+/**
+ * The FormulaMass class is the output of the molar-mass stage: a parsed formula with
+ * its molar mass.
+ */
+public final class FormulaMass {
+
+    private final Formula formula; // Parsed formula
+    private final double molarMass; // Molar mass in grams per mole, without multiplier
+
+    /**
+     * Constructor that pairs a formula with its molar mass.
+     *
+     * @param formula The formula
+     * @param molarMass The molar mass in grams per mole
+     */
+    public FormulaMass(Formula formula, double molarMass) {
+        this.formula = formula;
+        this.molarMass = molarMass;
+    }
+
+    // Getters
+
+    /**
+     * Gets the formula.
+     *
+     * @return The formula
+     */
+    public Formula getFormula() {
+        return formula;
+    }
+
+    /**
+     * Gets the molar mass.
+     *
+     * @return The molar mass in grams per mole, without multiplier
+     */
+    public double getMolarMass() {
+        return molarMass;
+    }
+
+    /**
+     * Returns the formula and its molar mass.
+     *
+     * @return The formula followed by its molar mass
+     */
+    @Override
+    public String toString() {
+        return formula + " " + molarMass;
+    }
+}
@@ -0,0 +1,87 @@
+package edu.guilford.chemtools.history;
+
+/**
+ * The HistoryEntry class is one recorded calculation: when it happened, which kind of
+ * calculation it was, and its inputs and outputs as display text.
+ */
+public final class HistoryEntry {
+
+    private final long timestamp; // Milliseconds since the epoch
+    private final String kind; // Calculation kind (e.g., "mole", "equation")
+    private final String input; // Inputs as entered
+    private final String output; // Results as displayed
+
+    /**
+     * Constructor that creates an entry with an explicit timestamp.
+     *
+     * @param timestamp The time of the calculation, in milliseconds since the epoch
+     * @param kind The calculation kind
+     * @param input The inputs as text
+     * @param output The results as text
+     */
+    public HistoryEntry(long timestamp, String kind, String input, String output) {
+        this.timestamp = timestamp;
+        this.kind = kind;
+        this.input = input;
+        this.output = output;
+    }
+
+    /**
+     * Constructor that creates an entry timestamped now.
+     *
+     * @param kind The calculation kind
+     * @param input The inputs as text
+     * @param output The results as text
+     */
+    public HistoryEntry(String kind, String input, String output) {
+        this(System.currentTimeMillis(), kind, input, output);
+    }
+
+    // Getters
+
+    /**
+     * Gets the time of the calculation.
+     *
+     * @return Milliseconds since the epoch
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Gets the calculation kind.
+     *
+     * @return The kind
+     */
+    public String getKind() {
+        return kind;
+    }
+
+    /**
+     * Gets the inputs of the calculation.
+     *
+     * @return The inputs as text
+     */
+    public String getInput() {
+        return input;
+    }
+
+    /**
+     * Gets the results of the calculation.
+     *
+     * @return The results as text
+     */
+    public String getOutput() {
+        return output;
+    }
+
+    /**
+     * Returns a one-line description of the entry.
+     *
+     * @return The kind, inputs and outputs
+     */
+    @Override
+    public String toString() {
+        return "[" + kind + "] " + input + " -> " + output;
+    }
+}
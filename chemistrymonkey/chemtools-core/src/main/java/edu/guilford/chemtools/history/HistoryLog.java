@@ -0,0 +1,366 @@
+package edu.guilford.chemtools.history;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * The HistoryLog class is an append-only file of {@link HistoryEntry} records, written
+ * and read through a memory-mapped {@link FileChannel}. The file starts with an 8-byte
+ * header (magic and version) followed by records:
+ *
+ * <pre>
+ * int bodyLength | int crc32(body) | body = long timestamp | short kindLength | kind
+ *                                         | int inputLength | input | int outputLength | output
+ * </pre>
+ *
+ * Strings are UTF-8. The mapped region grows by doubling and the unused tail is zero, so
+ * a zero length marks the end of the log. The length is written last, after the body and
+ * checksum, so a crash mid-append leaves either a zero length or a record whose checksum
+ * fails; opening the log stops at the first such record and zeroes everything after it.
+ *
+ * Timestamps never decrease (an entry older than the previous one is stored with the
+ * previous timestamp), so a sparse in-memory index of every 64th entry is enough to find
+ * the start of a time range with a binary search and a short scan.
+ */
+public class HistoryLog implements AutoCloseable {
+
+    private static final int MAGIC = 0x434D484C; // "CMHL"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 8; // Magic and version
+    private static final int RECORD_HEADER_BYTES = 8; // Body length and checksum
+    private static final int INITIAL_CAPACITY = 1 << 20; // Bytes mapped for a new log
+    private static final int MAX_BODY_BYTES = 1 << 20; // Largest accepted record body
+    static final int INDEX_INTERVAL = 64; // Entries between sparse index points
+
+    private final FileChannel channel; // Open log file
+    private MappedByteBuffer buffer; // Mapping of the whole capacity
+    private int end; // Offset just past the last valid record
+    private int size; // Number of valid records
+    private long lastTimestamp = Long.MIN_VALUE; // Timestamp of the last record
+    private boolean recovered; // Whether opening discarded a torn record
+
+    // Sparse index: offset and timestamp of entries 0, 64, 128, ...
+    private int[] indexOffsets = new int[16];
+    private long[] indexTimestamps = new long[16];
+
+    /**
+     * Constructor that opens a log, creating it if it does not exist and recovering
+     * from a torn final record if the last append did not complete.
+     *
+     * @param file The log file
+     * @throws IOException If the file cannot be opened or is not a history log
+     */
+    public HistoryLog(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            long fileSize = channel.size();
+            if (fileSize > Integer.MAX_VALUE) {
+                throw new IOException("History log is too large: " + file);
+            }
+            map(Math.max(INITIAL_CAPACITY, (int) fileSize));
+
+            if (fileSize == 0) {
+                buffer.putInt(0, MAGIC);
+                buffer.putInt(4, VERSION);
+                end = HEADER_BYTES;
+            } else if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new IOException("Not a history log: " + file);
+            } else {
+                recover();
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Maps the first bytes of the file, extending the file if needed.
+     *
+     * @param capacity The number of bytes to map
+     * @throws IOException If the mapping fails
+     */
+    private void map(int capacity) throws IOException {
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+    }
+
+    /**
+     * Scans the records after the header, indexing each valid one. Scanning stops at
+     * the first zero length or damaged record, and the rest of the mapping is zeroed so
+     * later appends start from clean space.
+     */
+    private void recover() {
+        int capacity = buffer.capacity();
+        int position = HEADER_BYTES;
+        CRC32 crc = new CRC32();
+
+        while (position + RECORD_HEADER_BYTES <= capacity) {
+            int bodyLength = buffer.getInt(position);
+            if (bodyLength == 0) {
+                break;
+            }
+            if (bodyLength < 0 || bodyLength > MAX_BODY_BYTES
+                    || position + RECORD_HEADER_BYTES + bodyLength > capacity
+                    || checksum(crc, position + RECORD_HEADER_BYTES, bodyLength) != buffer.getInt(position + 4)) {
+                recovered = true;
+                break;
+            }
+            long timestamp = buffer.getLong(position + RECORD_HEADER_BYTES);
+            addRecord(position, timestamp);
+            position += RECORD_HEADER_BYTES + bodyLength;
+        }
+        end = position;
+
+        // Discard whatever a torn append left behind
+        if (recovered) {
+            for (int i = end; i < capacity; i++) {
+                buffer.put(i, (byte) 0);
+            }
+        }
+    }
+
+    /**
+     * Computes the CRC-32 of a region of the mapping.
+     *
+     * @param crc The checksum object to reuse
+     * @param offset The start of the region
+     * @param length The length of the region
+     * @return The checksum as an int
+     */
+    private int checksum(CRC32 crc, int offset, int length) {
+        crc.reset();
+        crc.update(buffer.slice(offset, length));
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Counts a valid record and indexes it if it starts a new index interval.
+     *
+     * @param offset The offset of the record
+     * @param timestamp The timestamp of the record
+     */
+    private void addRecord(int offset, long timestamp) {
+        if (size % INDEX_INTERVAL == 0) {
+            int slot = size / INDEX_INTERVAL;
+            if (slot == indexOffsets.length) {
+                indexOffsets = Arrays.copyOf(indexOffsets, slot * 2);
+                indexTimestamps = Arrays.copyOf(indexTimestamps, slot * 2);
+            }
+            indexOffsets[slot] = offset;
+            indexTimestamps[slot] = timestamp;
+        }
+        lastTimestamp = timestamp;
+        size++;
+    }
+
+    /**
+     * Appends an entry to the end of the log. The entry is visible to readers as soon
+     * as this returns; call {@link #force()} to make it durable.
+     *
+     * @param entry The entry to append
+     * @return The entry number (0 for the first entry)
+     * @throws IOException If the mapping cannot be grown
+     * @throws IllegalArgumentException If the entry is too large
+     */
+    public synchronized int append(HistoryEntry entry) throws IOException {
+        byte[] kind = entry.getKind().getBytes(StandardCharsets.UTF_8);
+        byte[] input = entry.getInput().getBytes(StandardCharsets.UTF_8);
+        byte[] output = entry.getOutput().getBytes(StandardCharsets.UTF_8);
+        long bodyLength = 8L + 2 + kind.length + 4 + input.length + 4 + output.length;
+        if (kind.length > Short.MAX_VALUE || bodyLength > MAX_BODY_BYTES) {
+            throw new IllegalArgumentException("History entry is too large: " + bodyLength + " bytes");
+        }
+
+        // Grow the mapping, keeping one zero length after the record as the end marker
+        long required = (long) end + RECORD_HEADER_BYTES + bodyLength + 4;
+        if (required > buffer.capacity()) {
+            long capacity = buffer.capacity();
+            while (capacity < required) {
+                capacity *= 2;
+            }
+            if (capacity > Integer.MAX_VALUE) {
+                throw new IOException("History log is full");
+            }
+            buffer.force();
+            map((int) capacity);
+        }
+
+        long timestamp = Math.max(entry.getTimestamp(), lastTimestamp);
+        int bodyStart = end + RECORD_HEADER_BYTES;
+        int position = bodyStart;
+        buffer.putLong(position, timestamp);
+        position += 8;
+        buffer.putShort(position, (short) kind.length);
+        buffer.put(position + 2, kind);
+        position += 2 + kind.length;
+        buffer.putInt(position, input.length);
+        buffer.put(position + 4, input);
+        position += 4 + input.length;
+        buffer.putInt(position, output.length);
+        buffer.put(position + 4, output);
+
+        // Checksum and end marker (over any bytes a torn append left there), then the
+        // length that makes the record visible after a crash
+        int nextEnd = bodyStart + (int) bodyLength;
+        buffer.putInt(end + 4, checksum(new CRC32(), bodyStart, (int) bodyLength));
+        buffer.putInt(nextEnd, 0);
+        buffer.putInt(end, (int) bodyLength);
+
+        int entryNumber = size;
+        addRecord(end, timestamp);
+        end = nextEnd;
+        return entryNumber;
+    }
+
+    /**
+     * Reads consecutive entries by entry number.
+     *
+     * @param first The number of the first entry to read
+     * @param count The largest number of entries to read
+     * @return The entries, oldest first (fewer than count at the end of the log)
+     */
+    public synchronized List<HistoryEntry> read(int first, int count) {
+        List<HistoryEntry> entries = new ArrayList<>();
+        if (first < 0 || first >= size || count <= 0) {
+            return entries;
+        }
+
+        // Jump to the nearest index point, then step over the records before first
+        int offset = indexOffsets[first / INDEX_INTERVAL];
+        for (int i = first - first % INDEX_INTERVAL; i < first; i++) {
+            offset += RECORD_HEADER_BYTES + buffer.getInt(offset);
+        }
+
+        int last = Math.min(size, first + count);
+        for (int i = first; i < last; i++) {
+            entries.add(decode(offset));
+            offset += RECORD_HEADER_BYTES + buffer.getInt(offset);
+        }
+        return entries;
+    }
+
+    /**
+     * Finds the first entry at or after a time, using the sparse index.
+     *
+     * @param timestamp The time, in milliseconds since the epoch
+     * @return The number of the first entry not older than timestamp, or
+     *         {@link #size()} if every entry is older
+     */
+    public synchronized int firstEntryAtOrAfter(long timestamp) {
+        if (size == 0) {
+            return 0;
+        }
+
+        // Last index point strictly before timestamp; the answer is in its interval or later
+        int slots = (size + INDEX_INTERVAL - 1) / INDEX_INTERVAL;
+        int low = 0;
+        int high = slots;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (indexTimestamps[middle] < timestamp) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        if (low == 0) {
+            return 0;
+        }
+
+        int entry = (low - 1) * INDEX_INTERVAL;
+        int offset = indexOffsets[low - 1];
+        while (entry < size && buffer.getLong(offset + RECORD_HEADER_BYTES) < timestamp) {
+            offset += RECORD_HEADER_BYTES + buffer.getInt(offset);
+            entry++;
+        }
+        return entry;
+    }
+
+    /**
+     * Decodes the record at an offset.
+     *
+     * @param offset The offset of the record
+     * @return The entry
+     */
+    private HistoryEntry decode(int offset) {
+        int position = offset + RECORD_HEADER_BYTES;
+        long timestamp = buffer.getLong(position);
+        position += 8;
+        int kindLength = buffer.getShort(position);
+        String kind = readString(position + 2, kindLength);
+        position += 2 + kindLength;
+        int inputLength = buffer.getInt(position);
+        String input = readString(position + 4, inputLength);
+        position += 4 + inputLength;
+        int outputLength = buffer.getInt(position);
+        String output = readString(position + 4, outputLength);
+        return new HistoryEntry(timestamp, kind, input, output);
+    }
+
+    /**
+     * Reads a UTF-8 string from the mapping.
+     *
+     * @param offset The offset of the first byte
+     * @param length The number of bytes
+     * @return The decoded string
+     */
+    private String readString(int offset, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes appended entries through to the storage device.
+     */
+    public synchronized void force() {
+        buffer.force();
+    }
+
+    /**
+     * Forces the log to storage and closes the file.
+     *
+     * @throws IOException If the file cannot be closed
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel.isOpen()) {
+            buffer.force();
+            channel.close();
+        }
+    }
+
+    // Getters
+
+    /**
+     * Gets the number of entries in the log.
+     *
+     * @return The entry count
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Checks whether opening the log discarded a torn record left by a crash.
+     *
+     * @return true if a damaged tail was discarded
+     */
+    public boolean wasRecovered() {
+        return recovered;
+    }
+}
@@ -0,0 +1,141 @@
+package edu.guilford.chemtools.history;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import edu.guilford.chemtools.metrics.Counter;
+import edu.guilford.chemtools.metrics.MetricsRegistry;
+
+/**
+ * The HistoryWriter class appends {@link HistoryEntry} records to a {@link HistoryLog}
+ * on its own background thread, so callers such as the UI thread never wait on the file.
+ * Submitting only offers the entry to a bounded queue; if the queue is full the entry is
+ * dropped and counted rather than blocking the caller. The writer forces the log to
+ * storage once the queue has been idle for a second, and again on close.
+ */
+public class HistoryWriter implements AutoCloseable {
+
+    private static final int QUEUE_CAPACITY = 10_000; // Entries waiting to be written
+    private static final long FORCE_DELAY_MILLIS = 1000; // Idle time before forcing to storage
+    private static final long CLOSE_TIMEOUT_MILLIS = 5000; // Longest wait for the queue to drain
+    private static final HistoryEntry CLOSE = new HistoryEntry(0, "", "", ""); // Queue marker that stops the writer
+
+    private final BlockingQueue<HistoryEntry> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final CompletableFuture<HistoryLog> log = new CompletableFuture<>(); // Log, once opened
+    private final Thread thread; // Background writer
+    private volatile boolean closed; // Whether close() has been called
+
+    // Shared metrics for written and dropped entries
+    private static final Counter WRITTEN = MetricsRegistry.shared().counter("history.written");
+    private static final Counter DROPPED = MetricsRegistry.shared().counter("history.dropped");
+
+    /**
+     * Constructor that starts a writer for a log file. The log is opened on the writer
+     * thread; {@link #getLog()} completes once it is ready.
+     *
+     * @param file The log file
+     */
+    public HistoryWriter(Path file) {
+        thread = new Thread(() -> run(file), "history-writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Queues an entry to be appended, without blocking.
+     *
+     * @param entry The entry to append
+     * @return true if the entry was queued, false if the writer is closed, the log
+     *         could not be opened, or the queue is full
+     */
+    public boolean submit(HistoryEntry entry) {
+        if (closed || log.isCompletedExceptionally() || !queue.offer(entry)) {
+            DROPPED.increment();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Gets the log being written, for reading entries back.
+     *
+     * @return A future completed with the log once it is open, or exceptionally if it
+     *         could not be opened
+     */
+    public CompletableFuture<HistoryLog> getLog() {
+        return log;
+    }
+
+    /**
+     * Opens the log, then appends queued entries until the close marker arrives.
+     *
+     * @param file The log file
+     */
+    private void run(Path file) {
+        HistoryLog historyLog;
+        try {
+            historyLog = new HistoryLog(file);
+        } catch (IOException | RuntimeException e) {
+            log.completeExceptionally(e);
+            return;
+        }
+        log.complete(historyLog);
+
+        boolean unforced = false; // Whether entries were appended since the last force
+        try {
+            while (true) {
+                HistoryEntry entry = queue.poll(FORCE_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+                if (entry == CLOSE) {
+                    break;
+                } else if (entry == null) {
+                    if (unforced) {
+                        historyLog.force();
+                        unforced = false;
+                    }
+                } else {
+                    try {
+                        historyLog.append(entry);
+                        WRITTEN.increment();
+                        unforced = true;
+                    } catch (IOException | IllegalArgumentException e) {
+                        DROPPED.increment();
+                        System.err.println("Error writing history: " + e.getMessage());
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            try {
+                historyLog.close();
+            } catch (IOException e) {
+                System.err.println("Error closing history: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Writes the entries already queued, then closes the log, waiting up to five seconds
+     * for the writer thread. Entries submitted after this call are dropped. If the
+     * calling thread is interrupted while waiting, the wait ends early and the thread's
+     * interrupt flag is set again; the writer still finishes in the background.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (queue.offer(CLOSE, CLOSE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                thread.join(CLOSE_TIMEOUT_MILLIS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package edu.guilford.chemtools.kinetics;
+
+import edu.guilford.chemtools.math.DenseLU;
+import edu.guilford.chemtools.metrics.Counter;
+import edu.guilford.chemtools.metrics.MetricsRegistry;
+
+/**
+ * The KineticsSolver class integrates the concentrations of a {@link Mechanism} over
+ * time with ROS2, a second-order, L-stable Rosenbrock method. Each step solves two
+ * linear systems with the same matrix I - γhJ, where J is the Jacobian, so stiff
+ * mechanisms (fast and slow reactions together) take steps sized by accuracy rather
+ * than by the fastest reaction. The difference between ROS2 and its embedded
+ * first-order solution estimates the error, which sets the next step size.
+ *
+ * ROS2 keeps its order with any approximation to the Jacobian, so while the step size
+ * holds steady the Jacobian and its factors are reused from step to step, and the
+ * factoring that dominates the cost of a large mechanism is skipped. They are rebuilt
+ * when the step size changes or a step is rejected.
+ *
+ * All state and workspace arrays, including the Jacobian and its factors, are
+ * allocated when the solver is created, so integrating allocates nothing. A solver
+ * may be reused for any number of runs of the same mechanism, but not by two threads
+ * at once.
+ */
+public class KineticsSolver {
+
+    private static final double GAMMA = 1 + 1 / Math.sqrt(2); // ROS2 diagonal coefficient
+    private static final double SAFETY = 0.9; // Fraction of the estimated best step taken
+    private static final double MIN_SCALE = 0.2; // Most a step may shrink at once
+    private static final double MAX_SCALE = 5; // Most a step may grow at once
+    private static final double HOLD_SCALE = 1.5; // Growth below this keeps the step and its factors
+
+    // Shared metrics for integration work in this process
+    private static final Counter ACCEPTED = MetricsRegistry.shared().counter("kinetics.steps.accepted");
+    private static final Counter REJECTED = MetricsRegistry.shared().counter("kinetics.steps.rejected");
+
+    private final Mechanism mechanism; // Mechanism being integrated
+    private final int n; // Number of species
+    private final double[] state; // Concentrations at the current time
+    private final double[] derivatives; // Rates of change at the current time
+    private final double[] stage1; // First stage, k1
+    private final double[] stage2; // Second stage, k2
+    private final double[] trial; // Intermediate state, then the proposed next state
+    private final double[] jacobian; // Jacobian at the current time, row-major
+    private final DenseLU lu; // Factors of I - γhJ
+
+    private double relativeTolerance = 1e-4; // Allowed error relative to each concentration
+    private double absoluteTolerance = 1e-10; // Allowed error for concentrations near zero, in mol/L
+    private long acceptedSteps; // Steps accepted in the last run
+    private long rejectedSteps; // Steps rejected in the last run
+    private long factorizations; // Matrices factored in the last run
+
+    /**
+     * Constructor that creates a solver sized for a mechanism's current species.
+     *
+     * @param mechanism The mechanism
+     */
+    public KineticsSolver(Mechanism mechanism) {
+        this.mechanism = mechanism;
+        n = mechanism.getSpecies().size();
+        state = new double[n];
+        derivatives = new double[n];
+        stage1 = new double[n];
+        stage2 = new double[n];
+        trial = new double[n];
+        jacobian = new double[n * n];
+        lu = new DenseLU(n);
+    }
+
+    /**
+     * Integrates from time zero to an end time, passing the concentrations to the
+     * listener at time zero and after every accepted step. The run stops early if the
+     * calling thread is interrupted.
+     *
+     * @param initial The concentration of each species at time zero, in mol/L
+     * @param endTime The time to stop at, in seconds
+     * @param listener Listener given each sample, or null for none
+     * @return The final concentrations, in a new array
+     * @throws IllegalArgumentException If the initial array does not match the species
+     *         count or the end time is negative
+     * @throws IllegalStateException If the mechanism gained species since the solver
+     *         was created, or the step size collapses
+     */
+    public double[] integrate(double[] initial, double endTime, SampleListener listener) {
+        if (mechanism.getSpecies().size() != n) {
+            throw new IllegalStateException("Mechanism changed size; create a new solver");
+        }
+        if (initial.length != n) {
+            throw new IllegalArgumentException("Expected " + n + " concentrations, got " + initial.length);
+        }
+        if (!(endTime >= 0)) {
+            throw new IllegalArgumentException("End time must not be negative: " + endTime);
+        }
+
+        System.arraycopy(initial, 0, state, 0, n);
+        acceptedSteps = 0;
+        rejectedSteps = 0;
+        factorizations = 0;
+        double time = 0;
+        if (listener != null) {
+            listener.sample(time, state);
+        }
+
+        mechanism.rates(state, derivatives);
+        mechanism.jacobian(state, jacobian);
+        boolean jacobianCurrent = true; // Whether the Jacobian was evaluated at the current state
+        double step = initialStep(endTime);
+        double factoredStep = Double.NaN; // Step size the current factors were built for
+        while (time < endTime && !Thread.currentThread().isInterrupted()) {
+            boolean last = step >= endTime - time;
+            double h = last ? endTime - time : step;
+            if (h <= Math.ulp(time) * 16) {
+                throw new IllegalStateException("Step size too small at t = " + time);
+            }
+
+            if (h != factoredStep) {
+                if (!jacobianCurrent) {
+                    mechanism.jacobian(state, jacobian);
+                    jacobianCurrent = true;
+                }
+                buildIterationMatrix(h);
+                factorizations++;
+                if (!lu.factor()) {
+                    step = h / 2;
+                    factoredStep = Double.NaN;
+                    continue;
+                }
+                factoredStep = h;
+            }
+
+            // (I - γhJ) k1 = f(y)
+            System.arraycopy(derivatives, 0, stage1, 0, n);
+            lu.solve(stage1);
+
+            // (I - γhJ) k2 = f(y + h k1) - 2 k1
+            for (int i = 0; i < n; i++) {
+                trial[i] = state[i] + h * stage1[i];
+            }
+            mechanism.rates(trial, stage2);
+            for (int i = 0; i < n; i++) {
+                stage2[i] -= 2 * stage1[i];
+            }
+            lu.solve(stage2);
+
+            // y' = y + 3/2 h k1 + 1/2 h k2; the first-order solution is y + h k1
+            double sum = 0;
+            for (int i = 0; i < n; i++) {
+                double next = state[i] + 1.5 * h * stage1[i] + 0.5 * h * stage2[i];
+                double scale = absoluteTolerance + relativeTolerance * Math.max(Math.abs(state[i]), Math.abs(next));
+                double error = 0.5 * h * (stage1[i] + stage2[i]) / scale;
+                sum += error * error;
+                trial[i] = next;
+            }
+            double error = n == 0 ? 0 : Math.sqrt(sum / n);
+
+            double scale;
+            if (error <= 1) {
+                time = last ? endTime : time + h;
+                System.arraycopy(trial, 0, state, 0, n);
+                acceptedSteps++;
+                if (listener != null) {
+                    listener.sample(time, state);
+                }
+                if (time < endTime) {
+                    mechanism.rates(state, derivatives);
+                    jacobianCurrent = false;
+                }
+                scale = error == 0 ? MAX_SCALE : Math.min(MAX_SCALE, SAFETY / Math.sqrt(error));
+                if (scale >= 1 && scale < HOLD_SCALE && !last) {
+                    continue; // Keep the step size and reuse the factors
+                }
+            } else {
+                // Retry with a fresh Jacobian in case a stale one caused the error
+                rejectedSteps++;
+                if (!jacobianCurrent) {
+                    mechanism.jacobian(state, jacobian);
+                    jacobianCurrent = true;
+                    factoredStep = Double.NaN;
+                }
+                scale = Double.isNaN(error) ? MIN_SCALE : SAFETY / Math.sqrt(error);
+            }
+            step = h * Math.min(MAX_SCALE, Math.max(MIN_SCALE, scale));
+        }
+
+        ACCEPTED.add(acceptedSteps);
+        REJECTED.add(rejectedSteps);
+        return state.clone();
+    }
+
+    /**
+     * Fills the factoring workspace with I - γhJ.
+     *
+     * @param h The step size
+     */
+    private void buildIterationMatrix(double h) {
+        double[] matrix = lu.getMatrix();
+        double factor = -GAMMA * h;
+        for (int i = 0; i < n * n; i++) {
+            matrix[i] = factor * jacobian[i];
+        }
+        for (int i = 0; i < n; i++) {
+            matrix[i * n + i] += 1;
+        }
+    }
+
+    /**
+     * Estimates a first step size from how fast the concentrations change relative to
+     * their size.
+     *
+     * @param endTime The end time
+     * @return The first step size
+     */
+    private double initialStep(double endTime) {
+        double stateNorm = 0;
+        double rateNorm = 0;
+        for (int i = 0; i < n; i++) {
+            double scale = absoluteTolerance + relativeTolerance * Math.abs(state[i]);
+            stateNorm += (state[i] / scale) * (state[i] / scale);
+            rateNorm += (derivatives[i] / scale) * (derivatives[i] / scale);
+        }
+        double step = stateNorm < 1e-10 || rateNorm < 1e-10 ? 1e-6 : 0.01 * Math.sqrt(stateNorm / rateNorm);
+        return Math.min(step, endTime);
+    }
+
+    // Setters
+
+    /**
+     * Sets the error tolerances. A step is accepted when the error in each concentration
+     * c is about relative * |c| + absolute or less.
+     *
+     * @param relative The relative tolerance
+     * @param absolute The absolute tolerance, in mol/L
+     * @throws IllegalArgumentException If a tolerance is not positive
+     */
+    public void setTolerances(double relative, double absolute) {
+        if (!(relative > 0) || !(absolute > 0)) {
+            throw new IllegalArgumentException("Tolerances must be positive");
+        }
+        relativeTolerance = relative;
+        absoluteTolerance = absolute;
+    }
+
+    // Getters
+
+    /**
+     * Gets the number of steps accepted in the last run.
+     *
+     * @return The accepted step count
+     */
+    public long getAcceptedSteps() {
+        return acceptedSteps;
+    }
+
+    /**
+     * Gets the number of steps rejected for too large an error in the last run.
+     *
+     * @return The rejected step count
+     */
+    public long getRejectedSteps() {
+        return rejectedSteps;
+    }
+
+    /**
+     * Gets the number of matrices factored in the last run, at most one per step.
+     *
+     * @return The factorization count
+     */
+    public long getFactorizations() {
+        return factorizations;
+    }
+
+    /**
+     * The SampleListener interface receives the concentrations as a run progresses.
+     */
+    @FunctionalInterface
+    public interface SampleListener {
+
+        /**
+         * Called at time zero and after each accepted step. The array is the solver's
+         * own state and is overwritten by the next step, so copy any values to keep.
+         *
+         * @param time The time, in seconds
+         * @param concentrations The concentration of each species, in mol/L
+         */
+        void sample(double time, double[] concentrations);
+    }
+}
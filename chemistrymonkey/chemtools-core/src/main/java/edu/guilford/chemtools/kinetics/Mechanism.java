@@ -0,0 +1,316 @@
+package edu.guilford.chemtools.kinetics;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+import edu.guilford.chemtools.Equation;
+import edu.guilford.chemtools.Formula;
+import edu.guilford.chemtools.Solution;
+import edu.guilford.chemtools.SpeciesIndex;
+
+/**
+ * The Mechanism class is a set of elementary reactions with mass-action rate laws,
+ * built from balanced equations. Each reaction's rate is its rate constant times the
+ * concentration of each reactant raised to its coefficient, and it changes each
+ * species' concentration by the species' net coefficient (products minus reactants)
+ * times the rate. A reversible equation is stored as a forward and a reverse reaction.
+ *
+ * Reactions are kept in flat arrays indexed by reaction, so {@link #rates} and
+ * {@link #jacobian} allocate nothing. Rate constants can be changed in place between
+ * simulations, for example while a user drags a slider.
+ */
+public class Mechanism {
+
+    private final SpeciesIndex species = new SpeciesIndex(); // Species of all reactions
+    private double[] rateConstants = new double[8]; // Rate constant of each reaction
+    private int reactionCount; // Number of reactions
+
+    // Reactants of reaction r are entries reactantStart[r] until reactantStart[r + 1]
+    private int[] reactantStart = new int[9];
+    private int[] reactantSpecies = new int[16]; // Species index of each reactant entry
+    private int[] reactantOrders = new int[16]; // Coefficient of each reactant entry
+
+    // Net changes of reaction r are entries changeStart[r] until changeStart[r + 1]
+    private int[] changeStart = new int[9];
+    private int[] changeSpecies = new int[32]; // Species index of each change entry
+    private int[] changeAmounts = new int[32]; // Net coefficient of each change entry
+
+    /**
+     * Adds an irreversible reaction from left to right.
+     *
+     * @param equation The balanced equation; its multipliers are the coefficients
+     * @param rateConstant The rate constant, in units matching the reaction order
+     * @return The reaction index
+     * @throws IllegalArgumentException If the equation is not balanced or the rate
+     *         constant is negative or not finite
+     */
+    public int addReaction(Equation equation, double rateConstant) {
+        if (!equation.isBalanced()) {
+            throw new IllegalArgumentException("Equation is not balanced");
+        }
+        return add(equation.getLeftFormulas(), equation.getRightFormulas(), rateConstant);
+    }
+
+    /**
+     * Adds a reversible reaction as a forward reaction followed by a reverse one.
+     *
+     * @param equation The balanced equation; its multipliers are the coefficients
+     * @param forwardRate The rate constant from left to right
+     * @param reverseRate The rate constant from right to left
+     * @return The index of the forward reaction; the reverse reaction follows it
+     * @throws IllegalArgumentException If the equation is not balanced or a rate
+     *         constant is negative or not finite
+     */
+    public int addReversibleReaction(Equation equation, double forwardRate, double reverseRate) {
+        if (!equation.isBalanced()) {
+            throw new IllegalArgumentException("Equation is not balanced");
+        }
+        checkRateConstant(reverseRate);
+        int forward = add(equation.getLeftFormulas(), equation.getRightFormulas(), forwardRate);
+        add(equation.getRightFormulas(), equation.getLeftFormulas(), reverseRate);
+        return forward;
+    }
+
+    /**
+     * Appends one irreversible reaction to the arrays.
+     *
+     * @param reactants The formulas consumed, with their multipliers
+     * @param products The formulas produced, with their multipliers
+     * @param rateConstant The rate constant
+     * @return The reaction index
+     */
+    private int add(List<Formula> reactants, List<Formula> products, double rateConstant) {
+        checkRateConstant(rateConstant);
+        int r = reactionCount;
+        if (r + 1 == rateConstants.length) {
+            rateConstants = Arrays.copyOf(rateConstants, rateConstants.length * 2);
+            reactantStart = Arrays.copyOf(reactantStart, reactantStart.length * 2);
+            changeStart = Arrays.copyOf(changeStart, changeStart.length * 2);
+        }
+        rateConstants[r] = rateConstant;
+
+        // Reactant orders, merging a species written more than once
+        int start = reactantStart[r];
+        int end = start;
+        for (Formula formula : reactants) {
+            end = addEntry(start, end, species.add(formula), formula.getMultiplier(), true);
+        }
+        reactantStart[r + 1] = end;
+
+        // Net changes: products minus reactants, dropping species that cancel
+        start = changeStart[r];
+        end = start;
+        for (Formula formula : reactants) {
+            end = addEntry(start, end, species.add(formula), -formula.getMultiplier(), false);
+        }
+        for (Formula formula : products) {
+            end = addEntry(start, end, species.add(formula), formula.getMultiplier(), false);
+        }
+        int kept = start;
+        for (int i = start; i < end; i++) {
+            if (changeAmounts[i] != 0) {
+                changeSpecies[kept] = changeSpecies[i];
+                changeAmounts[kept] = changeAmounts[i];
+                kept++;
+            }
+        }
+        changeStart[r + 1] = kept;
+
+        reactionCount++;
+        return r;
+    }
+
+    /**
+     * Adds an amount to a species' entry in the current reaction, creating the entry if
+     * the species has none yet.
+     *
+     * @param start The first entry of the current reaction
+     * @param end The entry just past the current reaction's last entry
+     * @param speciesIndex The species
+     * @param amount The amount to add
+     * @param reactant true for the reactant arrays, false for the change arrays
+     * @return The new end of the current reaction's entries
+     */
+    private int addEntry(int start, int end, int speciesIndex, int amount, boolean reactant) {
+        int[] entrySpecies = reactant ? reactantSpecies : changeSpecies;
+        int[] entryAmounts = reactant ? reactantOrders : changeAmounts;
+        for (int i = start; i < end; i++) {
+            if (entrySpecies[i] == speciesIndex) {
+                entryAmounts[i] += amount;
+                return end;
+            }
+        }
+        if (end == entrySpecies.length) {
+            entrySpecies = Arrays.copyOf(entrySpecies, end * 2);
+            entryAmounts = Arrays.copyOf(entryAmounts, end * 2);
+            if (reactant) {
+                reactantSpecies = entrySpecies;
+                reactantOrders = entryAmounts;
+            } else {
+                changeSpecies = entrySpecies;
+                changeAmounts = entryAmounts;
+            }
+        }
+        entrySpecies[end] = speciesIndex;
+        entryAmounts[end] = amount;
+        return end + 1;
+    }
+
+    /**
+     * Checks that a rate constant is usable.
+     *
+     * @param rateConstant The rate constant
+     * @throws IllegalArgumentException If it is negative or not finite
+     */
+    private static void checkRateConstant(double rateConstant) {
+        if (!(rateConstant >= 0) || Double.isInfinite(rateConstant)) {
+            throw new IllegalArgumentException("Rate constant must be a non-negative number: " + rateConstant);
+        }
+    }
+
+    /**
+     * Builds an initial concentration vector from solutions. Molarities of solutions of
+     * the same species are added; species without a solution start at zero.
+     *
+     * @param solutions The solutions
+     * @return The concentration of each species, in mol/L
+     * @throws IllegalArgumentException If a solution's compound is not in the mechanism
+     */
+    public double[] initialConcentrations(List<Solution> solutions) {
+        double[] concentrations = new double[species.size()];
+        for (Solution solution : solutions) {
+            int index = species.indexOf(solution.getSample());
+            if (index < 0) {
+                throw new IllegalArgumentException("Species not in mechanism: " + solution.getSample());
+            }
+            concentrations[index] += solution.getMolarity();
+        }
+        return concentrations;
+    }
+
+    /**
+     * Calculates the rate of change of every concentration.
+     *
+     * @param concentrations The concentration of each species
+     * @param derivatives Filled with the rate of change of each species
+     */
+    public void rates(double[] concentrations, double[] derivatives) {
+        Arrays.fill(derivatives, 0, species.size(), 0.0);
+        for (int r = 0; r < reactionCount; r++) {
+            double rate = rateConstants[r];
+            for (int i = reactantStart[r]; i < reactantStart[r + 1] && rate != 0; i++) {
+                rate *= power(concentrations[reactantSpecies[i]], reactantOrders[i]);
+            }
+            if (rate != 0) {
+                for (int i = changeStart[r]; i < changeStart[r + 1]; i++) {
+                    derivatives[changeSpecies[i]] += changeAmounts[i] * rate;
+                }
+            }
+        }
+    }
+
+    /**
+     * Calculates the Jacobian of {@link #rates}: entry (i, j) is the derivative of
+     * species i's rate of change with respect to species j's concentration.
+     *
+     * @param concentrations The concentration of each species
+     * @param jacobian Filled row-major with the n-by-n Jacobian, n being the species count
+     */
+    public void jacobian(double[] concentrations, double[] jacobian) {
+        int n = species.size();
+        Arrays.fill(jacobian, 0, n * n, 0.0);
+        for (int r = 0; r < reactionCount; r++) {
+            int first = reactantStart[r];
+            int last = reactantStart[r + 1];
+            for (int j = first; j < last; j++) {
+                // Derivative of the rate with respect to reactant j's concentration
+                int order = reactantOrders[j];
+                double partial = rateConstants[r] * order * power(concentrations[reactantSpecies[j]], order - 1);
+                for (int i = first; i < last && partial != 0; i++) {
+                    if (i != j) {
+                        partial *= power(concentrations[reactantSpecies[i]], reactantOrders[i]);
+                    }
+                }
+                if (partial != 0) {
+                    int column = reactantSpecies[j];
+                    for (int i = changeStart[r]; i < changeStart[r + 1]; i++) {
+                        jacobian[changeSpecies[i] * n + column] += changeAmounts[i] * partial;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Raises a concentration to a small whole-number power by repeated multiplication.
+     *
+     * @param base The concentration
+     * @param exponent The power, zero or more
+     * @return base raised to exponent
+     */
+    private static double power(double base, int exponent) {
+        double result = 1;
+        for (int i = 0; i < exponent; i++) {
+            result *= base;
+        }
+        return result;
+    }
+
+    // Setters
+
+    /**
+     * Sets the rate constant of a reaction.
+     *
+     * @param reaction The reaction index
+     * @param rateConstant The new rate constant
+     * @throws IllegalArgumentException If the rate constant is negative or not finite
+     * @throws IndexOutOfBoundsException If there is no such reaction
+     */
+    public void setRateConstant(int reaction, double rateConstant) {
+        checkRateConstant(rateConstant);
+        rateConstants[checkReaction(reaction)] = rateConstant;
+    }
+
+    // Getters
+
+    /**
+     * Gets the rate constant of a reaction.
+     *
+     * @param reaction The reaction index
+     * @return The rate constant
+     * @throws IndexOutOfBoundsException If there is no such reaction
+     */
+    public double getRateConstant(int reaction) {
+        return rateConstants[checkReaction(reaction)];
+    }
+
+    /**
+     * Gets the number of reactions, counting each direction of a reversible one.
+     *
+     * @return The number of reactions
+     */
+    public int getReactionCount() {
+        return reactionCount;
+    }
+
+    /**
+     * Gets the species of the mechanism, which number the concentration arrays.
+     *
+     * @return The species index
+     */
+    public SpeciesIndex getSpecies() {
+        return species;
+    }
+
+    /**
+     * Checks a reaction index.
+     *
+     * @param reaction The reaction index
+     * @return The same index
+     * @throws IndexOutOfBoundsException If there is no such reaction
+     */
+    private int checkReaction(int reaction) {
+        return Objects.checkIndex(reaction, reactionCount);
+    }
+}
@@ -0,0 +1,161 @@
+package edu.guilford.chemtools.math;
+
+/**
+ * The DenseLU class factors a square matrix into lower and upper triangular parts with
+ * partial pivoting, then solves linear systems with the factors. The matrix and pivot
+ * arrays are allocated once, so a solver that factors a new matrix every step (such as
+ * an implicit integrator or a Newton iteration) allocates nothing after construction.
+ * Matrices are stored row-major in a flat array: element (i, j) is at {@code i * n + j}.
+ */
+public final class DenseLU {
+
+    private final int n; // Matrix dimension
+    private final double[] lu; // Matrix before factoring; L below the diagonal and U on and above it after
+    private final int[] pivots; // Row swapped into each position while factoring
+    private boolean factored; // Whether lu holds valid factors
+
+    /**
+     * Constructor that allocates workspace for n-by-n matrices.
+     *
+     * @param n The matrix dimension
+     * @throws IllegalArgumentException If n is negative
+     */
+    public DenseLU(int n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("Dimension must not be negative: " + n);
+        }
+        this.n = n;
+        lu = new double[n * n];
+        pivots = new int[n];
+    }
+
+    /**
+     * Copies a matrix into the workspace and factors it.
+     *
+     * @param matrix The matrix, row-major, with at least n * n entries
+     * @return true if the matrix was factored, false if it is singular
+     */
+    public boolean factor(double[] matrix) {
+        System.arraycopy(matrix, 0, lu, 0, n * n);
+        return factor();
+    }
+
+    /**
+     * Factors the matrix currently held in the workspace (see {@link #getMatrix()}).
+     *
+     * @return true if the matrix was factored, false if it is singular
+     */
+    public boolean factor() {
+        factored = false;
+        for (int k = 0; k < n; k++) {
+            // Choose the largest remaining entry in column k as the pivot
+            int pivot = k;
+            double largest = Math.abs(lu[k * n + k]);
+            for (int i = k + 1; i < n; i++) {
+                double size = Math.abs(lu[i * n + k]);
+                if (size > largest) {
+                    largest = size;
+                    pivot = i;
+                }
+            }
+            if (!(largest > 0) || !Double.isFinite(largest)) {
+                return false;
+            }
+            pivots[k] = pivot;
+            if (pivot != k) {
+                swapRows(k, pivot);
+            }
+
+            // Eliminate below the pivot, one row at a time
+            int rowK = k * n;
+            double inverse = 1.0 / lu[rowK + k];
+            for (int i = k + 1; i < n; i++) {
+                int rowI = i * n;
+                double factor = lu[rowI + k] * inverse;
+                lu[rowI + k] = factor;
+                if (factor != 0) {
+                    for (int j = k + 1; j < n; j++) {
+                        lu[rowI + j] -= factor * lu[rowK + j];
+                    }
+                }
+            }
+        }
+        factored = true;
+        return true;
+    }
+
+    /**
+     * Solves A x = b using the last factors, overwriting b with x.
+     *
+     * @param b The right-hand side, with at least n entries; replaced by the solution
+     * @throws IllegalStateException If no matrix has been factored successfully
+     */
+    public void solve(double[] b) {
+        if (!factored) {
+            throw new IllegalStateException("No factored matrix");
+        }
+        // Apply the row swaps, then forward substitution with the unit lower triangle
+        for (int k = 0; k < n; k++) {
+            int pivot = pivots[k];
+            if (pivot != k) {
+                double swap = b[k];
+                b[k] = b[pivot];
+                b[pivot] = swap;
+            }
+        }
+        for (int i = 1; i < n; i++) {
+            int row = i * n;
+            double sum = b[i];
+            for (int j = 0; j < i; j++) {
+                sum -= lu[row + j] * b[j];
+            }
+            b[i] = sum;
+        }
+        // Back substitution with the upper triangle
+        for (int i = n - 1; i >= 0; i--) {
+            int row = i * n;
+            double sum = b[i];
+            for (int j = i + 1; j < n; j++) {
+                sum -= lu[row + j] * b[j];
+            }
+            b[i] = sum / lu[row + i];
+        }
+    }
+
+    /**
+     * Swaps two rows of the workspace.
+     *
+     * @param a The first row
+     * @param b The second row
+     */
+    private void swapRows(int a, int b) {
+        int rowA = a * n;
+        int rowB = b * n;
+        for (int j = 0; j < n; j++) {
+            double swap = lu[rowA + j];
+            lu[rowA + j] = lu[rowB + j];
+            lu[rowB + j] = swap;
+        }
+    }
+
+    // Getters
+
+    /**
+     * Gets the matrix dimension.
+     *
+     * @return The dimension
+     */
+    public int getSize() {
+        return n;
+    }
+
+    /**
+     * Gets the workspace, for filling a matrix in place before calling {@link #factor()}
+     * without a copy. Factoring overwrites it.
+     *
+     * @return The row-major workspace array
+     */
+    public double[] getMatrix() {
+        return lu;
+    }
+}
@@ -0,0 +1,228 @@
+package edu.guilford.chemtools.math;
+
+import java.util.Arrays;
+
+/**
+ * The Matrices class holds dense matrix routines shared by the solvers. Matrices are
+ * stored row-major in flat arrays, as in {@link DenseLU}. Entries smaller than a
+ * tolerance scaled to the largest entry are treated as zero, so results are reliable
+ * for matrices of small whole numbers such as stoichiometric coefficients. Where an
+ * answer must be exact, {@link #integerNullSpace(long[], int, int)} works in integers.
+ */
+public final class Matrices {
+
+    private static final double RELATIVE_TOLERANCE = 1e-10; // Size below which a pivot counts as zero
+
+    /**
+     * Prevents instantiation; all methods are static.
+     */
+    private Matrices() {
+    }
+
+    /**
+     * Reduces a matrix in place to reduced row echelon form with partial pivoting.
+     *
+     * @param matrix The matrix, row-major; replaced by its reduced form
+     * @param rows The number of rows
+     * @param columns The number of columns
+     * @param pivotColumns Filled with the pivot column of each nonzero row of the result
+     * @return The rank, which is the number of entries of pivotColumns filled
+     */
+    private static int reduce(double[] matrix, int rows, int columns, int[] pivotColumns) {
+        double largest = 0;
+        for (int i = 0; i < rows * columns; i++) {
+            largest = Math.max(largest, Math.abs(matrix[i]));
+        }
+        double tolerance = largest * RELATIVE_TOLERANCE * Math.max(rows, columns);
+
+        int rank = 0;
+        for (int column = 0; column < columns && rank < rows; column++) {
+            int pivot = rank;
+            for (int i = rank + 1; i < rows; i++) {
+                if (Math.abs(matrix[i * columns + column]) > Math.abs(matrix[pivot * columns + column])) {
+                    pivot = i;
+                }
+            }
+            if (Math.abs(matrix[pivot * columns + column]) <= tolerance) {
+                for (int i = rank; i < rows; i++) {
+                    matrix[i * columns + column] = 0;
+                }
+                continue;
+            }
+            if (pivot != rank) {
+                for (int j = 0; j < columns; j++) {
+                    double swap = matrix[pivot * columns + j];
+                    matrix[pivot * columns + j] = matrix[rank * columns + j];
+                    matrix[rank * columns + j] = swap;
+                }
+            }
+            double inverse = 1.0 / matrix[rank * columns + column];
+            for (int j = column; j < columns; j++) {
+                matrix[rank * columns + j] *= inverse;
+            }
+            for (int i = 0; i < rows; i++) {
+                double factor = matrix[i * columns + column];
+                if (i != rank && factor != 0) {
+                    for (int j = column; j < columns; j++) {
+                        matrix[i * columns + j] -= factor * matrix[rank * columns + j];
+                    }
+                }
+            }
+            pivotColumns[rank++] = column;
+        }
+        return rank;
+    }
+
+    /**
+     * Calculates the rank of a matrix.
+     *
+     * @param matrix The matrix, row-major; not modified
+     * @param rows The number of rows
+     * @param columns The number of columns
+     * @return The rank
+     */
+    public static int rank(double[] matrix, int rows, int columns) {
+        return reduce(Arrays.copyOf(matrix, rows * columns), rows, columns, new int[Math.min(rows, columns)]);
+    }
+
+    /**
+     * Finds a basis for the null space of a matrix: the vectors x with A x = 0. Each
+     * basis vector has a 1 in one column that has no pivot and 0 in the others.
+     *
+     * @param matrix The matrix, row-major; not modified
+     * @param rows The number of rows
+     * @param columns The number of columns
+     * @return The basis vectors, each with one entry per column; empty if only the zero
+     *         vector solves A x = 0
+     */
+    public static double[][] nullSpace(double[] matrix, int rows, int columns) {
+        double[] reduced = Arrays.copyOf(matrix, rows * columns);
+        int[] pivotColumns = new int[Math.min(rows, columns)];
+        int rank = reduce(reduced, rows, columns, pivotColumns);
+
+        boolean[] isPivot = new boolean[columns];
+        for (int k = 0; k < rank; k++) {
+            isPivot[pivotColumns[k]] = true;
+        }
+        double[][] basis = new double[columns - rank][];
+        int next = 0;
+        for (int free = 0; free < columns; free++) {
+            if (isPivot[free]) {
+                continue;
+            }
+            double[] vector = new double[columns];
+            vector[free] = 1;
+            for (int k = 0; k < rank; k++) {
+                vector[pivotColumns[k]] = -reduced[k * columns + free];
+            }
+            basis[next++] = vector;
+        }
+        return basis;
+    }
+
+    /**
+     * Finds a basis for the null space of an integer matrix exactly, by fraction-free
+     * Gauss-Jordan elimination: each row update multiplies by the pivot instead of
+     * dividing, and rows are divided by the greatest common divisor of their entries to
+     * keep them small. Each basis vector is made of whole numbers with no common
+     * divisor, nonzero in one column that has no pivot and 0 in the others.
+     *
+     * @param matrix The matrix, row-major; not modified
+     * @param rows The number of rows
+     * @param columns The number of columns
+     * @return The basis vectors, each with one entry per column; empty if only the zero
+     *         vector solves A x = 0
+     * @throws ArithmeticException If an intermediate value overflows a long
+     */
+    public static long[][] integerNullSpace(long[] matrix, int rows, int columns) {
+        long[] reduced = Arrays.copyOf(matrix, rows * columns);
+        int[] pivotColumns = new int[Math.min(rows, columns)];
+        int rank = 0;
+        for (int column = 0; column < columns && rank < rows; column++) {
+            // Pivot on the smallest nonzero entry, which keeps the products smallest
+            int pivot = -1;
+            for (int i = rank; i < rows; i++) {
+                long entry = reduced[i * columns + column];
+                if (entry != 0 && (pivot < 0 || Math.abs(entry) < Math.abs(reduced[pivot * columns + column]))) {
+                    pivot = i;
+                }
+            }
+            if (pivot < 0) {
+                continue;
+            }
+            if (pivot != rank) {
+                for (int j = 0; j < columns; j++) {
+                    long swap = reduced[pivot * columns + j];
+                    reduced[pivot * columns + j] = reduced[rank * columns + j];
+                    reduced[rank * columns + j] = swap;
+                }
+            }
+            long pivotValue = reduced[rank * columns + column];
+            for (int i = 0; i < rows; i++) {
+                long factor = reduced[i * columns + column];
+                if (i == rank || factor == 0) {
+                    continue;
+                }
+                long divisor = 0;
+                for (int j = 0; j < columns; j++) {
+                    long value = Math.subtractExact(Math.multiplyExact(reduced[i * columns + j], pivotValue),
+                            Math.multiplyExact(reduced[rank * columns + j], factor));
+                    reduced[i * columns + j] = value;
+                    divisor = gcd(divisor, value);
+                }
+                if (divisor > 1) {
+                    for (int j = 0; j < columns; j++) {
+                        reduced[i * columns + j] /= divisor;
+                    }
+                }
+            }
+            pivotColumns[rank++] = column;
+        }
+
+        boolean[] isPivot = new boolean[columns];
+        long scale = 1; // Least common multiple of the pivots, so every entry is whole
+        for (int k = 0; k < rank; k++) {
+            isPivot[pivotColumns[k]] = true;
+            long pivotValue = Math.abs(reduced[k * columns + pivotColumns[k]]);
+            scale = Math.multiplyExact(scale / gcd(scale, pivotValue), pivotValue);
+        }
+        long[][] basis = new long[columns - rank][];
+        int next = 0;
+        for (int free = 0; free < columns; free++) {
+            if (isPivot[free]) {
+                continue;
+            }
+            long[] vector = new long[columns];
+            vector[free] = scale;
+            long divisor = scale;
+            for (int k = 0; k < rank; k++) {
+                long value = -Math.multiplyExact(reduced[k * columns + free], scale / reduced[k * columns + pivotColumns[k]]);
+                vector[pivotColumns[k]] = value;
+                divisor = gcd(divisor, value);
+            }
+            for (int j = 0; j < columns; j++) {
+                vector[j] /= divisor;
+            }
+            basis[next++] = vector;
+        }
+        return basis;
+    }
+
+    /**
+     * Calculates the greatest common divisor of two whole numbers.
+     *
+     * @param a The first number
+     * @param b The second number
+     * @return The greatest common divisor, never negative; 0 only if both are 0
+     */
+    public static long gcd(long a, long b) {
+        a = Math.abs(a);
+        b = Math.abs(b);
+        while (b != 0) {
+            long remainder = a % b;
+            a = b;
+            b = remainder;
+        }
+        return a;
+    }
+}
@@ -0,0 +1,45 @@
+package edu.guilford.chemtools.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The Counter class is a monotonically increasing count. It is backed by a
+ * {@link LongAdder}, which spreads concurrent updates over per-thread cells, so
+ * threads incrementing the same counter do not contend on one memory location.
+ */
+public final class Counter {
+
+    private final LongAdder count = new LongAdder(); // Striped running total
+
+    /**
+     * Constructor that creates a counter at zero. Counters are normally obtained
+     * from {@link MetricsRegistry#counter(String)}.
+     */
+    Counter() {
+    }
+
+    /**
+     * Adds one to the count.
+     */
+    public void increment() {
+        count.increment();
+    }
+
+    /**
+     * Adds an amount to the count.
+     *
+     * @param amount The amount to add (non-negative)
+     */
+    public void add(long amount) {
+        count.add(amount);
+    }
+
+    /**
+     * Gets the current count. Concurrent updates may or may not be included.
+     *
+     * @return The sum of all increments
+     */
+    public long sum() {
+        return count.sum();
+    }
+}
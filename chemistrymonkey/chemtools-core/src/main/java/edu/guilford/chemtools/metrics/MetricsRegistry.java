@@ -0,0 +1,169 @@
+package edu.guilford.chemtools.metrics;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * The MetricsRegistry class holds named counters, histograms and gauges. Instruments
+ * are created on first request and then shared, so hot paths look an instrument up
+ * once (typically into a static final field) and update it without further locking.
+ * The whole registry can be written in a plain-text format, one instrument per line:
+ *
+ * <pre>
+ * counter formula.parse.regex 1520
+ * gauge jvm.heap.used.bytes 48123904
+ * histogram balance.latency.nanos count=12 mean=3051277.5 p50=2097151 p90=6291455 p99=8388607 max=8012345
+ * </pre>
+ */
+public class MetricsRegistry {
+
+    // Registry used by chemtools itself, with JVM heap gauges
+    private static final MetricsRegistry SHARED = createShared();
+
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>(); // Counters by name
+    private final Map<String, Histogram> histograms = new ConcurrentHashMap<>(); // Histograms by name
+    private final Map<String, LongSupplier> gauges = new ConcurrentHashMap<>(); // Gauges by name
+
+    /**
+     * Constructor that creates an empty registry.
+     */
+    public MetricsRegistry() {
+    }
+
+    /**
+     * Gets the registry that chemtools records into.
+     *
+     * @return The shared registry
+     */
+    public static MetricsRegistry shared() {
+        return SHARED;
+    }
+
+    /**
+     * Creates the shared registry with heap usage gauges.
+     *
+     * @return The new registry
+     */
+    private static MetricsRegistry createShared() {
+        MetricsRegistry registry = new MetricsRegistry();
+        Runtime runtime = Runtime.getRuntime();
+        registry.gauge("jvm.heap.used.bytes", () -> runtime.totalMemory() - runtime.freeMemory());
+        registry.gauge("jvm.heap.committed.bytes", runtime::totalMemory);
+        registry.gauge("jvm.heap.max.bytes", runtime::maxMemory);
+        return registry;
+    }
+
+    /**
+     * Gets the counter with a name, creating it on first request.
+     *
+     * @param name The counter name
+     * @return The counter
+     */
+    public Counter counter(String name) {
+        return counters.computeIfAbsent(name, key -> new Counter());
+    }
+
+    /**
+     * Gets the histogram with a name, creating it on first request.
+     *
+     * @param name The histogram name
+     * @return The histogram
+     */
+    public Histogram histogram(String name) {
+        return histograms.computeIfAbsent(name, key -> new Histogram());
+    }
+
+    /**
+     * Registers a gauge, replacing any gauge with the same name. The supplier is
+     * called each time the registry is read, so it must be cheap and thread-safe.
+     *
+     * @param name The gauge name
+     * @param value Supplier of the current value
+     */
+    public void gauge(String name, LongSupplier value) {
+        gauges.put(name, value);
+    }
+
+    // Getters
+
+    /**
+     * Gets a sorted snapshot of all counter values.
+     *
+     * @return Counter sums by name
+     */
+    public Map<String, Long> getCounterValues() {
+        Map<String, Long> values = new TreeMap<>();
+        counters.forEach((name, counter) -> values.put(name, counter.sum()));
+        return values;
+    }
+
+    /**
+     * Gets a sorted snapshot of all gauge values.
+     *
+     * @return Gauge readings by name
+     */
+    public Map<String, Long> getGaugeValues() {
+        Map<String, Long> values = new TreeMap<>();
+        gauges.forEach((name, gauge) -> values.put(name, gauge.getAsLong()));
+        return values;
+    }
+
+    /**
+     * Gets all histograms sorted by name.
+     *
+     * @return Histograms by name
+     */
+    public Map<String, Histogram> getHistograms() {
+        return new TreeMap<>(histograms);
+    }
+
+    /**
+     * Writes every instrument in the plain-text format, counters first, then gauges,
+     * then histograms, each sorted by name.
+     *
+     * @param out Destination of the text
+     * @throws IOException If the destination fails
+     */
+    public void writeText(Appendable out) throws IOException {
+        for (Map.Entry<String, Long> entry : getCounterValues().entrySet()) {
+            out.append("counter ").append(entry.getKey()).append(' ')
+                    .append(Long.toString(entry.getValue())).append('\n');
+        }
+        for (Map.Entry<String, Long> entry : getGaugeValues().entrySet()) {
+            out.append("gauge ").append(entry.getKey()).append(' ')
+                    .append(Long.toString(entry.getValue())).append('\n');
+        }
+        for (Map.Entry<String, Histogram> entry : getHistograms().entrySet()) {
+            Histogram histogram = entry.getValue();
+            out.append("histogram ").append(entry.getKey())
+                    .append(" count=").append(Long.toString(histogram.getCount()))
+                    .append(" mean=").append(String.format(Locale.ROOT, "%.1f", histogram.getMean()))
+                    .append(" p50=").append(Long.toString(histogram.getValueAtPercentile(50)))
+                    .append(" p90=").append(Long.toString(histogram.getValueAtPercentile(90)))
+                    .append(" p99=").append(Long.toString(histogram.getValueAtPercentile(99)))
+                    .append(" max=").append(Long.toString(histogram.getMax()))
+                    .append('\n');
+        }
+    }
+
+    /**
+     * Returns every instrument in the plain-text format.
+     *
+     * @return The text export
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        try {
+            writeText(sb);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // StringBuilder never throws
+        }
+        return sb.toString();
+    }
+}
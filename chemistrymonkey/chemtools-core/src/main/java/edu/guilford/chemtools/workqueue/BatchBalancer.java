@@ -0,0 +1,180 @@
+package edu.guilford.chemtools.workqueue;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The BatchBalancer class is the command line for balancing a file of equations across
+ * several processes. The coordinator splits the input onto a queue directory and,
+ * optionally, starts local workers; more workers can be started by hand, on this
+ * machine or another that shares the directory:
+ *
+ * <pre>
+ * BatchBalancer coordinator &lt;queue-dir&gt; &lt;input&gt; &lt;output&gt; [--workers N] [--list-size N]
+ *                           [--range-size N] [--lease-seconds N]
+ * BatchBalancer worker &lt;queue-dir&gt; [--lease-seconds N]
+ * </pre>
+ *
+ * The input holds one equation per line; blank lines are skipped. Each output line is
+ * the input equation, a tab, and the result. Running the coordinator again on the same
+ * queue directory resumes the earlier run.
+ */
+public final class BatchBalancer {
+
+    private static final long DEFAULT_LEASE_SECONDS = 30; // Lease before a silent worker's shard is requeued
+    private static final long POLL_MILLIS = 500; // Wait between coordinator checks
+
+    /**
+     * Prevents instantiation; all methods are static.
+     */
+    private BatchBalancer() {
+    }
+
+    /**
+     * Runs the coordinator or a worker.
+     *
+     * @param args The command line
+     * @throws IOException If the queue, input or output cannot be used
+     * @throws InterruptedException If interrupted while waiting
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length >= 4 && args[0].equals("coordinator")) {
+            coordinator(args);
+        } else if (args.length >= 2 && args[0].equals("worker")) {
+            worker(args);
+        } else {
+            System.err.println("Usage: BatchBalancer coordinator <queue-dir> <input> <output> [--workers N]"
+                    + " [--list-size N] [--range-size N] [--lease-seconds N]");
+            System.err.println("       BatchBalancer worker <queue-dir> [--lease-seconds N]");
+            System.exit(2);
+        }
+    }
+
+    /**
+     * Submits the input, starts any local workers, waits, and writes the output.
+     *
+     * @param args The command line
+     * @throws IOException If the queue, input or output cannot be used
+     * @throws InterruptedException If interrupted while waiting
+     */
+    private static void coordinator(String[] args) throws IOException, InterruptedException {
+        Path queueDir = Path.of(args[1]);
+        int workers = (int) option(args, "--workers", 0);
+        int listSize = (int) option(args, "--list-size", BatchCoordinator.DEFAULT_LIST_SIZE);
+        long rangeSize = option(args, "--range-size", BatchCoordinator.DEFAULT_RANGE_SIZE);
+        long leaseSeconds = option(args, "--lease-seconds", DEFAULT_LEASE_SECONDS);
+
+        List<String> equations = new ArrayList<>();
+        for (String line : Files.readAllLines(Path.of(args[2]), StandardCharsets.UTF_8)) {
+            if (!line.isBlank()) {
+                equations.add(line.strip());
+            }
+        }
+
+        BatchCoordinator coordinator = new BatchCoordinator(new WorkQueue(queueDir));
+        int shards = coordinator.submit(equations, listSize, rangeSize);
+        System.out.println(shards > 0 ? "Submitted " + shards + " shards" : "Resuming earlier submission");
+
+        List<Process> processes = new ArrayList<>();
+        for (int i = 0; i < workers; i++) {
+            processes.add(startWorker(queueDir, leaseSeconds));
+        }
+        try {
+            coordinator.awaitCompletion(leaseSeconds * 1000, POLL_MILLIS);
+        } finally {
+            processes.forEach(Process::destroy);
+        }
+
+        Files.write(Path.of(args[3]), coordinator.merge(), StandardCharsets.UTF_8);
+        System.out.println("Wrote " + equations.size() + " results to " + args[3]);
+    }
+
+    /**
+     * Works on the queue until it is finished.
+     *
+     * @param args The command line
+     * @throws IOException If the queue cannot be used
+     * @throws InterruptedException If interrupted while waiting
+     */
+    private static void worker(String[] args) throws IOException, InterruptedException {
+        long leaseSeconds = option(args, "--lease-seconds", DEFAULT_LEASE_SECONDS);
+        BatchWorker worker = new BatchWorker(new WorkQueue(Path.of(args[1])), workerId(), leaseSeconds * 1000);
+        Runtime.getRuntime().addShutdownHook(new Thread(worker::stop));
+        int completed = worker.run();
+        System.out.println("Worker " + workerId() + " completed " + completed + " shards");
+    }
+
+    /**
+     * Starts a worker process with the same Java and class or module path as this one.
+     *
+     * @param queueDir The queue directory
+     * @param leaseSeconds The lease time in seconds
+     * @return The started process
+     * @throws IOException If the process cannot be started
+     */
+    private static Process startWorker(Path queueDir, long leaseSeconds) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        Module module = BatchBalancer.class.getModule();
+        if (module.isNamed()) {
+            command.add("--module-path");
+            command.add(System.getProperty("jdk.module.path"));
+            command.add("--module");
+            command.add(module.getName() + "/" + BatchBalancer.class.getName());
+        } else {
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add(BatchBalancer.class.getName());
+        }
+        command.add("worker");
+        command.add(queueDir.toAbsolutePath().toString());
+        command.add("--lease-seconds");
+        command.add(Long.toString(leaseSeconds));
+        return new ProcessBuilder(command).inheritIO().start();
+    }
+
+    /**
+     * Builds an id for this process from the host name and process id.
+     *
+     * @return The worker id, containing only letters, digits, '.', '_' and '-'
+     */
+    private static String workerId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (IOException e) {
+            host = "localhost";
+        }
+        return (host + "-" + ProcessHandle.current().pid()).replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+
+    /**
+     * Reads a numeric option such as "--workers 4".
+     *
+     * @param args The command line
+     * @param name The option name
+     * @param defaultValue The value if the option is absent
+     * @return The option value
+     * @throws IllegalArgumentException If the value is missing or not a positive number
+     */
+    private static long option(String[] args, String name, long defaultValue) {
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals(name)) {
+                if (i + 1 == args.length) {
+                    throw new IllegalArgumentException("Missing value for " + name);
+                }
+                long value = Long.parseLong(args[i + 1]);
+                if (value < 0 || (value == 0 && !name.equals("--workers"))) {
+                    throw new IllegalArgumentException("Invalid value for " + name + ": " + value);
+                }
+                return value;
+            }
+        }
+        return defaultValue;
+    }
+}
@@ -0,0 +1,241 @@
+package edu.guilford.chemtools.workqueue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import edu.guilford.chemtools.Equation;
+
+/**
+ * The BatchCoordinator class splits a list of equations into shards on a
+ * {@link WorkQueue}, waits for workers to finish them, and merges the results back into
+ * input order. Small equations are grouped into list shards; an equation whose search
+ * space is larger than the range size has its search split into range shards instead,
+ * so several workers share it. The first balance found by the lowest range is the one a
+ * single search would find.
+ *
+ * The split is recorded in the queue's manifest, so a coordinator restarted on the
+ * same queue picks up the existing shards and results rather than submitting again.
+ */
+public class BatchCoordinator {
+
+    public static final int DEFAULT_LIST_SIZE = 16; // Equations per list shard
+    public static final long DEFAULT_RANGE_SIZE = 4_000_000; // Combinations per range shard
+
+    private static final int MAX_RANGES = 10_000; // Most range shards for one equation
+
+    private final WorkQueue queue; // Queue shared with the workers
+
+    /**
+     * Constructor that creates a coordinator for a queue.
+     *
+     * @param queue The queue
+     */
+    public BatchCoordinator(WorkQueue queue) {
+        this.queue = queue;
+    }
+
+    /**
+     * Splits the equations into shards and submits them, unless the queue already holds
+     * a manifest from an earlier run.
+     *
+     * @param equations The equation texts, one per input line
+     * @param listSize The most equations in one list shard
+     * @param rangeSize The most combinations in one range shard; equations with more
+     *        combinations than this are split
+     * @return The number of shards submitted, or 0 if an earlier submission was resumed
+     * @throws IOException If the queue cannot be written
+     * @throws IllegalArgumentException If listSize or rangeSize is not positive
+     */
+    public int submit(List<String> equations, int listSize, long rangeSize) throws IOException {
+        if (listSize <= 0 || rangeSize <= 0) {
+            throw new IllegalArgumentException("Shard sizes must be positive");
+        }
+        if (queue.readManifest() != null) {
+            queue.markSubmitted();
+            return 0;
+        }
+
+        Properties manifest = new Properties();
+        manifest.setProperty("count", Integer.toString(equations.size()));
+        int shards = 0;
+        Properties list = null;
+        String listId = null;
+        int listCount = 0;
+
+        for (int i = 0; i < equations.size(); i++) {
+            String text = equations.get(i);
+            manifest.setProperty("line." + i, text);
+
+            long combinations = rangeCombinations(text, rangeSize);
+            if (combinations > 0) {
+                long size = Math.max(rangeSize, ceilDiv(combinations, MAX_RANGES));
+                int count = (int) ceilDiv(combinations, size);
+                for (int k = 0; k < count; k++) {
+                    Properties range = new Properties();
+                    range.setProperty("type", BatchWorker.RANGE);
+                    range.setProperty("job", "job" + i);
+                    range.setProperty("index", Integer.toString(k));
+                    range.setProperty("equation", text);
+                    range.setProperty("first", Long.toString(k * size));
+                    range.setProperty("end", Long.toString(k == count - 1 ? combinations : (k + 1) * size));
+                    queue.submit(shardId(shards + k), range);
+                }
+                manifest.setProperty("range." + i, shards + "," + count);
+                shards += count;
+                continue;
+            }
+
+            if (list == null) {
+                list = new Properties();
+                list.setProperty("type", BatchWorker.LIST);
+                listId = shardId(shards++);
+                listCount = 0;
+            }
+            list.setProperty("equation." + listCount, text);
+            manifest.setProperty("list." + i, listId + "," + listCount);
+            listCount++;
+            if (listCount == listSize) {
+                list.setProperty("count", Integer.toString(listCount));
+                queue.submit(listId, list);
+                list = null;
+            }
+        }
+        if (list != null) {
+            list.setProperty("count", Integer.toString(listCount));
+            queue.submit(listId, list);
+        }
+
+        queue.writeManifest(manifest);
+        queue.markSubmitted();
+        return shards;
+    }
+
+    /**
+     * Waits until every shard has a result, returning expired claims to the queue along
+     * the way so that work held by a killed worker is picked up by another.
+     *
+     * @param leaseMillis The lease time used by the workers
+     * @param pollMillis How often to check the queue
+     * @throws IOException If the queue cannot be read
+     * @throws InterruptedException If interrupted while waiting
+     */
+    public void awaitCompletion(long leaseMillis, long pollMillis) throws IOException, InterruptedException {
+        while (true) {
+            queue.requeueExpired(leaseMillis);
+            if (queue.isIdle()) {
+                return;
+            }
+            Thread.sleep(pollMillis);
+        }
+    }
+
+    /**
+     * Collects the results in input order, one line per input line: the input text, a
+     * tab, and the balanced equation, "no solution", or "invalid: " and the reason.
+     *
+     * @return The output lines
+     * @throws IOException If the manifest or a result is missing or cannot be read
+     */
+    public List<String> merge() throws IOException {
+        Properties manifest = queue.readManifest();
+        if (manifest == null) {
+            throw new IOException("No manifest in " + queue.getDirectory());
+        }
+        int count = Integer.parseInt(manifest.getProperty("count"));
+        List<String> lines = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String result;
+            String list = manifest.getProperty("list." + i);
+            if (list != null) {
+                int comma = list.indexOf(',');
+                result = result(list.substring(0, comma)).getProperty("result." + list.substring(comma + 1));
+            } else {
+                String[] range = manifest.getProperty("range." + i).split(",");
+                result = mergeRange(Integer.parseInt(range[0]), Integer.parseInt(range[1]));
+            }
+            lines.add(manifest.getProperty("line." + i) + "\t" + result);
+        }
+        return lines;
+    }
+
+    /**
+     * Picks the result of a split search: the balance found by the lowest range.
+     *
+     * @param firstShard The number of the first range shard
+     * @param count The number of range shards
+     * @return The balanced equation, or "no solution"
+     * @throws IOException If a result is missing or cannot be read
+     */
+    private String mergeRange(int firstShard, int count) throws IOException {
+        for (int k = 0; k < count; k++) {
+            Properties result = result(shardId(firstShard + k));
+            String found = result.getProperty("found");
+            if (!found.equals("skipped") && Long.parseLong(found) >= 0) {
+                return result.getProperty("equation");
+            }
+        }
+        return "no solution";
+    }
+
+    /**
+     * Reads the result of a shard.
+     *
+     * @param shardId The shard id
+     * @return The result
+     * @throws IOException If the shard has no result yet or it cannot be read
+     */
+    private Properties result(String shardId) throws IOException {
+        Properties result = queue.readResult(shardId);
+        if (result == null) {
+            throw new IOException("Shard " + shardId + " has not finished");
+        }
+        return result;
+    }
+
+    /**
+     * Decides whether an equation's search should be split into ranges. Equations that
+     * do not parse or are already balanced go into list shards, where the worker
+     * reports them as a full search would.
+     *
+     * @param text The equation text
+     * @param rangeSize The most combinations in one range shard
+     * @return The number of combinations to split, or 0 to keep the equation whole
+     */
+    private static long rangeCombinations(String text, long rangeSize) {
+        Equation equation;
+        try {
+            equation = Equation.parse(text);
+        } catch (IllegalArgumentException e) {
+            return 0;
+        }
+        if (equation.isBalanced()) {
+            return 0;
+        }
+        int formulaCount = equation.getLeftFormulas().size() + equation.getRightFormulas().size();
+        long combinations = Equation.getCombinationCount(formulaCount);
+        return combinations > rangeSize ? combinations : 0;
+    }
+
+    /**
+     * Divides and rounds up.
+     *
+     * @param value The dividend
+     * @param divisor The divisor
+     * @return The quotient, rounded up
+     */
+    private static long ceilDiv(long value, long divisor) {
+        return value / divisor + (value % divisor == 0 ? 0 : 1);
+    }
+
+    /**
+     * Formats a shard number as a shard id that sorts in submission order.
+     *
+     * @param number The shard number
+     * @return The shard id
+     */
+    private static String shardId(int number) {
+        return String.format("%08d", number);
+    }
+}
@@ -0,0 +1,280 @@
+package edu.guilford.chemtools.workqueue;
+
+import java.io.IOException;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import edu.guilford.chemtools.Equation;
+
+/**
+ * The BatchWorker class processes shards from a {@link WorkQueue} until the coordinator
+ * has submitted everything and no work is left. Two kinds of shard are handled:
+ *
+ * <ul>
+ * <li>"list" shards hold several equations, each balanced in full; progress is saved
+ * after each equation, at most once per checkpoint interval.</li>
+ * <li>"range" shards hold one equation and a range of multiplier combinations from a
+ * search split across shards; progress is saved as the position in the range.</li>
+ * </ul>
+ *
+ * A resumed shard continues from its checkpoint. While working, the worker renews its
+ * claim on a background thread; if the claim is lost (the lease expired and another
+ * worker took the shard) it abandons the shard. A range shard is also abandoned as soon
+ * as an earlier shard of the same search finds a balance.
+ */
+public class BatchWorker {
+
+    public static final String LIST = "list"; // Shard type holding whole equations
+    public static final String RANGE = "range"; // Shard type holding part of one search
+
+    private static final long CHECKPOINT_INTERVAL_MILLIS = 1000; // Least time between checkpoints
+    private static final long IDLE_POLL_MILLIS = 200; // Wait between claims when the queue is empty
+
+    private final WorkQueue queue; // Queue to work on
+    private final String workerId; // Name used in claim files
+    private final long leaseMillis; // Lease time; claims are renewed three times per lease
+    private volatile AtomicBoolean claimLost = new AtomicBoolean(); // Whether the current claim was lost; one per claim
+    private volatile boolean stopped; // Whether stop() was called
+
+    /**
+     * Constructor that creates a worker for a queue.
+     *
+     * @param queue The queue
+     * @param workerId The worker id, unique among the queue's workers and valid in a file name without '~'
+     * @param leaseMillis How long a claim stays valid without renewal
+     */
+    public BatchWorker(WorkQueue queue, String workerId, long leaseMillis) {
+        this.queue = queue;
+        this.workerId = workerId;
+        this.leaseMillis = leaseMillis;
+    }
+
+    /**
+     * Claims and processes shards until the queue is finished or {@link #stop()} is called.
+     * Expired claims left by killed workers are requeued along the way.
+     *
+     * @return The number of shards completed by this worker
+     * @throws IOException If the queue cannot be read or written
+     * @throws InterruptedException If interrupted while waiting for work
+     */
+    public int run() throws IOException, InterruptedException {
+        ScheduledExecutorService renewer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "batch-worker-lease");
+            thread.setDaemon(true);
+            return thread;
+        });
+        int completed = 0;
+        try {
+            while (!stopped) {
+                queue.requeueExpired(leaseMillis);
+                WorkQueue.Claim claim = queue.claim(workerId);
+                if (claim == null) {
+                    if (queue.isSubmitted() && queue.isIdle()) {
+                        break;
+                    }
+                    Thread.sleep(IDLE_POLL_MILLIS);
+                    continue;
+                }
+
+                // A fresh flag per claim: cancel(false) lets a renewal already running
+                // finish, and it must not mark this claim lost on the previous one's behalf
+                AtomicBoolean lost = new AtomicBoolean();
+                claimLost = lost;
+                long renewMillis = Math.max(1, leaseMillis / 3);
+                var renewal = renewer.scheduleAtFixedRate(() -> {
+                    if (!claim.renew()) {
+                        lost.set(true);
+                    }
+                }, renewMillis, renewMillis, TimeUnit.MILLISECONDS);
+                try {
+                    if (process(claim)) {
+                        completed++;
+                    }
+                } finally {
+                    renewal.cancel(false);
+                }
+            }
+        } finally {
+            renewer.shutdownNow();
+        }
+        return completed;
+    }
+
+    /**
+     * Asks the worker to stop after the current shard's next checkpoint.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * Processes one claimed shard.
+     *
+     * @param claim The claim
+     * @return true if the shard was completed, false if it was abandoned or its claim lost
+     * @throws IOException If the queue cannot be written
+     */
+    private boolean process(WorkQueue.Claim claim) throws IOException {
+        Properties shard = claim.getShard();
+        Properties checkpoint = queue.readCheckpoint(claim.getShardId());
+        Properties result = switch (shard.getProperty("type", "")) {
+            case LIST -> processList(claim, shard, checkpoint == null ? new Properties() : checkpoint);
+            case RANGE -> processRange(claim, shard, checkpoint == null ? new Properties() : checkpoint);
+            default -> throw new IOException("Unknown shard type in " + claim.getShardId());
+        };
+        if (result == null) {
+            if (!claimLost.get()) {
+                queue.release(claim);
+            }
+            return false;
+        }
+        return queue.complete(claim, result);
+    }
+
+    /**
+     * Balances each equation of a list shard, starting after the last checkpointed one.
+     * The checkpoint holds the results so far and the index of the next equation. The
+     * claim is checked before each equation and before each checkpoint, so a worker that
+     * lost it stops at the next equation and never overwrites the new claimer's progress.
+     *
+     * @param claim The claim
+     * @param shard The shard description
+     * @param progress The last checkpoint, or an empty one
+     * @return The results, or null if the shard was abandoned
+     * @throws IOException If a checkpoint cannot be written
+     */
+    private Properties processList(WorkQueue.Claim claim, Properties shard, Properties progress) throws IOException {
+        int count = Integer.parseInt(shard.getProperty("count"));
+        int next = Integer.parseInt(progress.getProperty("next", "0"));
+        long lastCheckpoint = System.currentTimeMillis();
+
+        for (int i = next; i < count; i++) {
+            String balanced = stopped || claimLost.get() ? null : balance(shard.getProperty("equation." + i));
+            if (balanced == null) {
+                if (!claimLost.get()) {
+                    queue.writeCheckpoint(claim.getShardId(), progress);
+                }
+                return null;
+            }
+            progress.setProperty("result." + i, balanced);
+            progress.setProperty("next", Integer.toString(i + 1));
+            if (claimLost.get()) {
+                return null;
+            }
+            if (System.currentTimeMillis() - lastCheckpoint >= CHECKPOINT_INTERVAL_MILLIS) {
+                queue.writeCheckpoint(claim.getShardId(), progress);
+                lastCheckpoint = System.currentTimeMillis();
+            }
+        }
+        progress.remove("next");
+        return progress;
+    }
+
+    /**
+     * Balances one equation in full.
+     *
+     * @param text The equation text
+     * @return The balanced equation, "no solution", or "invalid: " and the reason, or
+     *         null if the thread was interrupted before the search finished
+     */
+    private String balance(String text) {
+        Equation equation;
+        try {
+            equation = Equation.parse(text);
+        } catch (IllegalArgumentException e) {
+            return "invalid: " + e.getMessage();
+        }
+        equation.balanceEquations();
+        if (equation.isBalanced()) {
+            return coefficients(equation);
+        } else if (Thread.currentThread().isInterrupted()) {
+            stopped = true;
+            return null;
+        }
+        return "no solution";
+    }
+
+    /**
+     * Searches the combination range of a range shard, starting from the last
+     * checkpointed position. The checkpoint holds the next combination to test.
+     *
+     * @param claim The claim
+     * @param shard The shard description
+     * @param progress The last checkpoint, or an empty one
+     * @return The result, or null if the shard was abandoned
+     * @throws IOException If a checkpoint cannot be written
+     */
+    private Properties processRange(WorkQueue.Claim claim, Properties shard, Properties progress) throws IOException {
+        String jobId = shard.getProperty("job");
+        int index = Integer.parseInt(shard.getProperty("index"));
+        long first = Long.parseLong(progress.getProperty("next", shard.getProperty("first")));
+        long end = Long.parseLong(shard.getProperty("end"));
+
+        Properties result = new Properties();
+        if (queue.isSolvedBefore(jobId, index)) {
+            result.setProperty("found", "skipped");
+            return result;
+        }
+
+        Equation equation = Equation.parse(shard.getProperty("equation"));
+        long[] lastCheckpoint = {System.currentTimeMillis()};
+        boolean[] abandoned = {false};
+        IOException[] checkpointFailure = {null};
+        long found = equation.balanceCombinations(first, end, (checked, total) -> {
+            if (System.currentTimeMillis() - lastCheckpoint[0] < CHECKPOINT_INTERVAL_MILLIS) {
+                return;
+            }
+            lastCheckpoint[0] = System.currentTimeMillis();
+            try {
+                if (!claimLost.get()) {
+                    progress.setProperty("next", Long.toString(first + checked));
+                    queue.writeCheckpoint(claim.getShardId(), progress);
+                }
+                abandoned[0] = stopped || claimLost.get() || queue.isSolvedBefore(jobId, index);
+            } catch (IOException e) {
+                checkpointFailure[0] = e;
+                abandoned[0] = true;
+            }
+            if (abandoned[0]) {
+                Thread.currentThread().interrupt(); // Ends the search at its next check
+            }
+        });
+
+        if (!abandoned[0] && found < 0 && Thread.currentThread().isInterrupted()) {
+            stopped = true; // Interrupted from outside: leave the shard to be resumed
+            return null;
+        }
+        if (abandoned[0]) {
+            Thread.interrupted(); // Clear the interrupt used to end the search
+            if (checkpointFailure[0] != null) {
+                throw checkpointFailure[0];
+            }
+            if (stopped || claimLost.get()) {
+                return null;
+            }
+            result.setProperty("found", "skipped"); // An earlier shard found a balance
+            return result;
+        }
+
+        result.setProperty("found", Long.toString(found));
+        if (found >= 0) {
+            result.setProperty("equation", coefficients(equation));
+            queue.markSolved(jobId, index);
+        }
+        return result;
+    }
+
+    /**
+     * Formats an equation with its multipliers, without the balanced/not balanced line.
+     *
+     * @param equation The equation
+     * @return The equation with coefficients (e.g., "2H_2 + 1O_2 = 2H_2O")
+     */
+    static String coefficients(Equation equation) {
+        String text = equation.toString();
+        return text.substring(text.indexOf('\n') + 1);
+    }
+}
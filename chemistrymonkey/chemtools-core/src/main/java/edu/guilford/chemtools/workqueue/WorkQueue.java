@@ -0,0 +1,465 @@
+package edu.guilford.chemtools.workqueue;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.UUID;
+
+import edu.guilford.chemtools.metrics.Counter;
+import edu.guilford.chemtools.metrics.MetricsRegistry;
+
+/**
+ * The WorkQueue class is a queue of shards kept as files in a directory, shared by one
+ * coordinator and any number of worker processes. Shards, checkpoints and results are
+ * small properties files:
+ *
+ * <pre>
+ * pending/&lt;shard&gt;                      shards waiting for a worker
+ * claimed/&lt;shard&gt;~&lt;worker&gt;~&lt;token&gt;     shards being worked on; the modification time is the lease
+ * completing/&lt;shard&gt;~&lt;worker&gt;~&lt;token&gt;  shards whose claimer is storing the result
+ * checkpoints/&lt;shard&gt;                  progress saved by the current or last claimer
+ * results/&lt;shard&gt;                      finished shards
+ * solved/&lt;job&gt;.&lt;index&gt;                 markers for split searches that found a balance
+ * manifest, submitted                 the coordinator's record of the input
+ * </pre>
+ *
+ * A worker claims a shard by renaming it from pending to claimed; the rename is atomic,
+ * so exactly one of several competing workers succeeds. The claimer touches its claimed
+ * file while it works, and any process may return a claim whose file has not been
+ * touched within the lease time to pending, where another worker resumes it from its
+ * checkpoint. Each claim has its own random lease token in its file name, so a worker
+ * whose claim expired can never mistake a later claim of the same shard for its own;
+ * to complete, it first renames its claimed file out of the claimed directory, which
+ * succeeds only while the claim is still its own and stops it being requeued while the
+ * result is stored. Every file is written to a temporary name and renamed into place, so
+ * readers never see a partial file. The same scheme works on a shared filesystem with
+ * atomic renames (such as NFS), provided the hosts' clocks agree to well within the lease.
+ */
+public class WorkQueue {
+
+    private static final String SHARD_SUFFIX = ".shard";
+    private static final char CLAIM_SEPARATOR = '~';
+
+    // Shared metrics for queue activity in this process
+    private static final Counter CLAIMED = MetricsRegistry.shared().counter("workqueue.shards.claimed");
+    private static final Counter COMPLETED = MetricsRegistry.shared().counter("workqueue.shards.completed");
+    private static final Counter REQUEUED = MetricsRegistry.shared().counter("workqueue.shards.requeued");
+
+    private final Path directory; // Queue directory
+    private final Path pending, claimed, completing, checkpoints, results, solved, temporary; // Subdirectories
+
+    /**
+     * Constructor that opens a queue directory, creating it and its subdirectories if
+     * they do not exist.
+     *
+     * @param directory The queue directory
+     * @throws IOException If the directories cannot be created
+     */
+    public WorkQueue(Path directory) throws IOException {
+        this.directory = directory;
+        pending = Files.createDirectories(directory.resolve("pending"));
+        claimed = Files.createDirectories(directory.resolve("claimed"));
+        completing = Files.createDirectories(directory.resolve("completing"));
+        checkpoints = Files.createDirectories(directory.resolve("checkpoints"));
+        results = Files.createDirectories(directory.resolve("results"));
+        solved = Files.createDirectories(directory.resolve("solved"));
+        temporary = Files.createDirectories(directory.resolve("tmp"));
+    }
+
+    // Coordinator side
+
+    /**
+     * Adds a shard to the pending directory.
+     *
+     * @param shardId The shard id, which must be a valid file name without '~'
+     * @param shard The shard description
+     * @throws IOException If the shard cannot be written
+     */
+    public void submit(String shardId, Properties shard) throws IOException {
+        write(pending.resolve(shardId + SHARD_SUFFIX), shard);
+    }
+
+    /**
+     * Saves the coordinator's record of the input.
+     *
+     * @param manifest The manifest
+     * @throws IOException If the manifest cannot be written
+     */
+    public void writeManifest(Properties manifest) throws IOException {
+        write(directory.resolve("manifest"), manifest);
+    }
+
+    /**
+     * Reads the coordinator's record of the input.
+     *
+     * @return The manifest, or null if none has been written
+     * @throws IOException If the manifest cannot be read
+     */
+    public Properties readManifest() throws IOException {
+        return readIfExists(directory.resolve("manifest"));
+    }
+
+    /**
+     * Records that every shard has been submitted, so idle workers may exit once the
+     * queue is empty.
+     *
+     * @throws IOException If the marker cannot be written
+     */
+    public void markSubmitted() throws IOException {
+        write(directory.resolve("submitted"), new Properties());
+    }
+
+    /**
+     * Checks whether every shard has been submitted.
+     *
+     * @return true if the coordinator has finished submitting
+     */
+    public boolean isSubmitted() {
+        return Files.exists(directory.resolve("submitted"));
+    }
+
+    /**
+     * Checks whether no shard is pending, claimed or being completed.
+     *
+     * @return true if there is no work left
+     * @throws IOException If the directories cannot be listed
+     */
+    public boolean isIdle() throws IOException {
+        return list(pending).isEmpty() && list(claimed).isEmpty() && list(completing).isEmpty();
+    }
+
+    /**
+     * Returns claims whose lease has expired to the pending directory, including those
+     * of workers that stopped part way through completing. Any process may call this;
+     * if two race for the same claim, one rename fails and is ignored.
+     *
+     * @param leaseMillis How long a claim may go untouched before it is returned
+     * @return The number of claims returned
+     * @throws IOException If the claimed or completing directory cannot be listed
+     */
+    public int requeueExpired(long leaseMillis) throws IOException {
+        long now = System.currentTimeMillis();
+        int requeued = 0;
+        List<Path> claims = list(claimed);
+        claims.addAll(list(completing));
+        for (Path claim : claims) {
+            try {
+                if (now - Files.getLastModifiedTime(claim).toMillis() > leaseMillis) {
+                    String name = claim.getFileName().toString();
+                    String shardId = name.substring(0, name.indexOf(CLAIM_SEPARATOR));
+                    Files.move(claim, pending.resolve(shardId + SHARD_SUFFIX), StandardCopyOption.ATOMIC_MOVE);
+                    REQUEUED.increment();
+                    requeued++;
+                }
+            } catch (NoSuchFileException | FileAlreadyExistsException e) {
+                // Completed or requeued by another process in the meantime
+            }
+        }
+        return requeued;
+    }
+
+    // Worker side
+
+    /**
+     * Claims the pending shard with the lowest id that no other worker claims first.
+     * A shard that already has a result (finished by a worker whose lease had expired)
+     * is discarded instead of being claimed.
+     *
+     * @param workerId The claiming worker's id, which must be a valid file name without '~'
+     * @return The claim, or null if no shard is pending
+     * @throws IOException If the directories cannot be read or written
+     */
+    public Claim claim(String workerId) throws IOException {
+        for (Path shardFile : list(pending)) {
+            String name = shardFile.getFileName().toString();
+            String shardId = name.substring(0, name.length() - SHARD_SUFFIX.length());
+            Path claimFile = claimed.resolve(shardId + CLAIM_SEPARATOR + workerId + CLAIM_SEPARATOR
+                    + UUID.randomUUID());
+            try {
+                Files.move(shardFile, claimFile, StandardCopyOption.ATOMIC_MOVE);
+            } catch (NoSuchFileException | FileAlreadyExistsException e) {
+                continue; // Another worker claimed it first
+            }
+
+            // The rename keeps the submission time, so start the lease before anything else
+            Claim claim;
+            try {
+                Files.setLastModifiedTime(claimFile, FileTime.fromMillis(System.currentTimeMillis()));
+                claim = new Claim(shardId, claimFile, read(claimFile));
+            } catch (NoSuchFileException e) {
+                continue; // Requeued as expired before the lease was started
+            }
+
+            if (hasResult(shardId)) {
+                Files.deleteIfExists(claimFile);
+                continue;
+            }
+            CLAIMED.increment();
+            return claim;
+        }
+        return null;
+    }
+
+    /**
+     * Reads the last checkpoint saved for a shard.
+     *
+     * @param shardId The shard id
+     * @return The checkpoint, or null if none has been saved
+     * @throws IOException If the checkpoint cannot be read
+     */
+    public Properties readCheckpoint(String shardId) throws IOException {
+        return readIfExists(checkpoints.resolve(shardId));
+    }
+
+    /**
+     * Saves progress on a shard, replacing the previous checkpoint.
+     *
+     * @param shardId The shard id
+     * @param checkpoint The progress to save
+     * @throws IOException If the checkpoint cannot be written
+     */
+    public void writeCheckpoint(String shardId, Properties checkpoint) throws IOException {
+        write(checkpoints.resolve(shardId), checkpoint);
+    }
+
+    /**
+     * Stores a shard's result and releases the claim and checkpoint, if the claim is
+     * still held. The claimed file is first renamed into the completing directory with
+     * a fresh lease; the rename fails if the lease expired and the shard was requeued,
+     * in which case nothing is written, so a later claimer's checkpoint and result are
+     * left alone.
+     *
+     * @param claim The claim
+     * @param result The result
+     * @return true if the result was stored, false if the claim had been lost
+     * @throws IOException If the result cannot be written
+     */
+    public boolean complete(Claim claim, Properties result) throws IOException {
+        Path completingFile = completing.resolve(claim.file.getFileName());
+        try {
+            Files.move(claim.file, completingFile, StandardCopyOption.ATOMIC_MOVE);
+            Files.setLastModifiedTime(completingFile, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (NoSuchFileException e) {
+            return false; // Requeued as expired; the token is no longer in use
+        }
+        write(results.resolve(claim.getShardId()), result);
+        Files.deleteIfExists(checkpoints.resolve(claim.getShardId()));
+        Files.deleteIfExists(completingFile);
+        COMPLETED.increment();
+        return true;
+    }
+
+    /**
+     * Returns a claimed shard to pending without finishing it, so another worker can
+     * resume it from its checkpoint straight away.
+     *
+     * @param claim The claim
+     * @throws IOException If the shard cannot be moved
+     */
+    public void release(Claim claim) throws IOException {
+        try {
+            Files.move(claim.file, pending.resolve(claim.getShardId() + SHARD_SUFFIX), StandardCopyOption.ATOMIC_MOVE);
+        } catch (NoSuchFileException e) {
+            // Already requeued as expired
+        }
+    }
+
+    /**
+     * Checks whether a shard has a result.
+     *
+     * @param shardId The shard id
+     * @return true if the shard is finished
+     */
+    public boolean hasResult(String shardId) {
+        return Files.exists(results.resolve(shardId));
+    }
+
+    /**
+     * Reads a shard's result.
+     *
+     * @param shardId The shard id
+     * @return The result, or null if the shard is not finished
+     * @throws IOException If the result cannot be read
+     */
+    public Properties readResult(String shardId) throws IOException {
+        return readIfExists(results.resolve(shardId));
+    }
+
+    /**
+     * Records that a split search found a balance in one of its shards.
+     *
+     * @param jobId The split search's id
+     * @param shardIndex The index of the shard within the search
+     * @throws IOException If the marker cannot be written
+     */
+    public void markSolved(String jobId, int shardIndex) throws IOException {
+        write(solved.resolve(jobId + "." + shardIndex), new Properties());
+    }
+
+    /**
+     * Checks whether a split search found a balance in a shard before a given one, in
+     * which case that shard's result can never be used.
+     *
+     * @param jobId The split search's id
+     * @param shardIndex The index of the shard within the search
+     * @return true if an earlier shard found a balance
+     * @throws IOException If the solved directory cannot be listed
+     */
+    public boolean isSolvedBefore(String jobId, int shardIndex) throws IOException {
+        String prefix = jobId + ".";
+        for (Path marker : list(solved)) {
+            String name = marker.getFileName().toString();
+            if (name.startsWith(prefix) && Integer.parseInt(name.substring(prefix.length())) < shardIndex) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Files
+
+    /**
+     * Lists a directory sorted by file name.
+     *
+     * @param dir The directory
+     * @return The entries
+     * @throws IOException If the directory cannot be listed
+     */
+    private static List<Path> list(Path dir) throws IOException {
+        List<Path> entries = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            for (Path entry : stream) {
+                entries.add(entry);
+            }
+        }
+        Collections.sort(entries);
+        return entries;
+    }
+
+    /**
+     * Writes a properties file to a temporary name and renames it into place.
+     *
+     * @param target The file to write
+     * @param properties The contents
+     * @throws IOException If the file cannot be written
+     */
+    private void write(Path target, Properties properties) throws IOException {
+        Path staging = temporary.resolve(target.getFileName() + "." + UUID.randomUUID());
+        try (Writer writer = Files.newBufferedWriter(staging, StandardCharsets.UTF_8)) {
+            properties.store(writer, null);
+        }
+        Files.move(staging, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Reads a properties file.
+     *
+     * @param file The file
+     * @return The contents
+     * @throws IOException If the file cannot be read
+     */
+    private static Properties read(Path file) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        return properties;
+    }
+
+    /**
+     * Reads a properties file that may not exist.
+     *
+     * @param file The file
+     * @return The contents, or null if the file does not exist
+     * @throws IOException If the file cannot be read
+     */
+    private static Properties readIfExists(Path file) throws IOException {
+        try {
+            return read(file);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    // Getters
+
+    /**
+     * Gets the queue directory.
+     *
+     * @return The directory
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * The Claim class is a shard claimed by one worker. The worker keeps the claim by
+     * calling {@link #renew()} well within the lease time. The claimed file's name holds
+     * the claim's lease token, so once the claim is lost the file is gone for good.
+     */
+    public static final class Claim {
+
+        private final String shardId; // Claimed shard
+        private final Path file; // Claimed shard file named with the lease token; its modification time is the lease
+        private final Properties shard; // Shard description
+
+        /**
+         * Constructor that records a successful claim.
+         *
+         * @param shardId The shard id
+         * @param file The claimed shard file
+         * @param shard The shard description
+         */
+        private Claim(String shardId, Path file, Properties shard) {
+            this.shardId = shardId;
+            this.file = file;
+            this.shard = shard;
+        }
+
+        /**
+         * Extends the lease by touching the claimed file.
+         *
+         * @return true if the claim is still held, false if it expired and was requeued
+         */
+        public boolean renew() {
+            try {
+                Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+                return true;
+            } catch (IOException e) {
+                return false;
+            }
+        }
+
+        // Getters
+
+        /**
+         * Gets the shard id.
+         *
+         * @return The shard id
+         */
+        public String getShardId() {
+            return shardId;
+        }
+
+        /**
+         * Gets the shard description.
+         *
+         * @return The shard's properties
+         */
+        public Properties getShard() {
+            return shard;
+        }
+    }
+}
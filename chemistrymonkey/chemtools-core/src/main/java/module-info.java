@@ -0,0 +1,13 @@
+module edu.guilford.chemtools {
+    requires static com.opencsv;
+    requires jdk.jfr;
+
+    exports edu.guilford.chemtools;
+    exports edu.guilford.chemtools.equilibrium;
+    exports edu.guilford.chemtools.flow;
+    exports edu.guilford.chemtools.history;
+    exports edu.guilford.chemtools.kinetics;
+    exports edu.guilford.chemtools.math;
+    exports edu.guilford.chemtools.metrics;
+    exports edu.guilford.chemtools.workqueue;
+}
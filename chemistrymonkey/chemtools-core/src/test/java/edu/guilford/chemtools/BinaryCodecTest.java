@@ -0,0 +1,164 @@
+package edu.guilford.chemtools;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The BinaryCodecTest class checks that every value {@link BinaryCodec} writes reads back
+ * unchanged, that the documented sizes hold, and that the varint and zig-zag helpers
+ * behave at the edges of the int range.
+ */
+class BinaryCodecTest {
+
+    /**
+     * Checks a plain formula and a charged ion with a multiplier survive a round trip.
+     */
+    @Test
+    void formulaRoundTrip() {
+        Formula water = new Formula("H_2O");
+        Formula decoded = BinaryCodec.decodeFormula(BinaryCodec.encode(water));
+        assertTrue(decoded.isSameCompound(water));
+        assertEquals(water.getMolarMass(), decoded.getMolarMass(), 1e-12);
+
+        Formula iron = new Formula("Fe^3+");
+        iron.setMultiplier(4);
+        decoded = BinaryCodec.decodeFormula(BinaryCodec.encode(iron));
+        assertTrue(decoded.isSameCompound(iron));
+        assertEquals(3, decoded.getCharge());
+        assertEquals(4, decoded.getMultiplier());
+    }
+
+    /**
+     * Checks samples and solutions keep their amounts, read back with the generic reader
+     * from one buffer in either byte order.
+     */
+    @Test
+    void sampleAndSolutionRoundTrip() {
+        Sample salt = new Sample("NaCl");
+        salt.setSampleMass(5.844);
+        Solution acid = new Solution(new Sample("HCl"));
+        acid.setMolarity(0.25);
+        acid.setVolume(0.5);
+
+        for (ByteOrder order : List.of(ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN)) {
+            ByteBuffer buffer = ByteBuffer.allocate(BinaryCodec.sizeOf(salt) + BinaryCodec.sizeOf(acid)).order(order);
+            BinaryCodec.write(buffer, salt);
+            BinaryCodec.write(buffer, acid);
+            assertEquals(buffer.capacity(), buffer.position());
+            buffer.flip();
+
+            assertEquals(BinaryCodec.SAMPLE, BinaryCodec.peekType(buffer));
+            Sample sample = (Sample) BinaryCodec.read(buffer);
+            assertTrue(sample.isSameCompound(salt));
+            assertEquals(salt.getSampleMass(), sample.getSampleMass());
+            assertEquals(salt.getSampleMoles(), sample.getSampleMoles());
+
+            assertEquals(BinaryCodec.SOLUTION, BinaryCodec.peekType(buffer));
+            Solution solution = (Solution) BinaryCodec.read(buffer);
+            assertTrue(solution.getSample().isSameCompound(acid.getSample()));
+            assertEquals(acid.getVolume(), solution.getVolume());
+            assertEquals(acid.getMolarity(), solution.getMolarity());
+            assertEquals(acid.getSample().getSampleMoles(), solution.getSample().getSampleMoles());
+            assertEquals(0, buffer.remaining());
+        }
+    }
+
+    /**
+     * Checks a balanced equation keeps its coefficients and the documented sizes hold.
+     */
+    @Test
+    void equationRoundTripAndSizes() {
+        assertEquals(5, BinaryCodec.encode(new Formula("H_2O")).length);
+
+        Equation propane = Equation.parse("C_3H_8 + O_2 = CO_2 + H_2O");
+        propane.balanceEquations();
+        byte[] bytes = BinaryCodec.encode(propane);
+        assertEquals(25, bytes.length);
+        assertEquals(BinaryCodec.sizeOf(propane), bytes.length);
+
+        Equation decoded = BinaryCodec.decodeEquation(bytes);
+        assertEquals(propane.toString(), decoded.toString());
+        assertTrue(decoded.isBalanced());
+    }
+
+    /**
+     * Checks varints at every length boundary, including values treated as unsigned.
+     */
+    @Test
+    void varintEdges() {
+        int[] values = {0, 1, 127, 128, 16383, 16384, 2097151, 2097152, Integer.MAX_VALUE, -1, Integer.MIN_VALUE};
+        int[] sizes = {1, 1, 1, 2, 2, 3, 3, 4, 5, 5, 5};
+        for (int i = 0; i < values.length; i++) {
+            ByteBuffer buffer = ByteBuffer.allocate(5);
+            BinaryCodec.writeVarint(buffer, values[i]);
+            assertEquals(sizes[i], buffer.position(), "bytes written for " + values[i]);
+            assertEquals(sizes[i], BinaryCodec.varintSize(values[i]), "size of " + values[i]);
+            buffer.flip();
+            assertEquals(values[i], BinaryCodec.readVarint(buffer));
+            assertEquals(0, buffer.remaining());
+        }
+
+        // Low seven bits first, continuation bit set on all but the last byte
+        ByteBuffer buffer = ByteBuffer.allocate(2);
+        BinaryCodec.writeVarint(buffer, 300);
+        assertArrayEquals(new byte[] {(byte) 0xAC, 0x02}, buffer.array());
+    }
+
+    /**
+     * Checks zig-zag maps small magnitudes of either sign to small values and round
+     * trips the extremes.
+     */
+    @Test
+    void zigZagEdges() {
+        assertEquals(0, BinaryCodec.zigZag(0));
+        assertEquals(1, BinaryCodec.zigZag(-1));
+        assertEquals(2, BinaryCodec.zigZag(1));
+        assertEquals(3, BinaryCodec.zigZag(-2));
+        assertEquals(-1, BinaryCodec.zigZag(Integer.MIN_VALUE));
+        assertEquals(-2, BinaryCodec.zigZag(Integer.MAX_VALUE));
+        for (int value : new int[] {0, 1, -1, 63, -64, Integer.MAX_VALUE, Integer.MIN_VALUE}) {
+            assertEquals(value, BinaryCodec.unZigZag(BinaryCodec.zigZag(value)));
+        }
+    }
+
+    /**
+     * Checks an overlong varint and an unknown format version are rejected.
+     */
+    @Test
+    void rejectsBadInput() {
+        ByteBuffer overlong = ByteBuffer.wrap(new byte[] {(byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80,
+                (byte) 0x80, 0x01});
+        assertThrows(IllegalArgumentException.class, () -> BinaryCodec.readVarint(overlong));
+
+        byte[] bytes = BinaryCodec.encode(new Formula("H_2O"));
+        bytes[0] = (byte) ((BinaryCodec.VERSION + 1) << 4 | BinaryCodec.FORMULA);
+        assertThrows(IllegalArgumentException.class, () -> BinaryCodec.decodeFormula(bytes));
+    }
+
+    /**
+     * Checks formulas with symbols the element table does not know, which the parser
+     * accepts, are refused when encoding rather than written in a form that cannot be
+     * read back, and that nothing is written for them.
+     */
+    @Test
+    void rejectsUnknownElements() {
+        for (String text : new String[] {"Xx_2", "HXx"}) {
+            Formula formula = new Formula(text);
+            assertThrows(IllegalArgumentException.class, () -> BinaryCodec.encode(formula), text);
+        }
+
+        Equation equation = new Equation(new ArrayList<>(List.of(new Formula("H_2"), new Formula("Xx"))),
+                new ArrayList<>(List.of(new Formula("H_2Xx"))));
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        assertThrows(IllegalArgumentException.class, () -> BinaryCodec.write(buffer, equation));
+        assertEquals(0, buffer.position());
+    }
+}
@@ -0,0 +1,72 @@
+package edu.guilford.chemtools;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The DilutionPlannerTest class plans wells from independent stocks and checks that
+ * stocks which are dilutions or mixes of each other are rejected, whatever their
+ * concentrations.
+ */
+class DilutionPlannerTest {
+
+    /**
+     * Checks a two-solute target is made from two single-solute stocks and solvent.
+     */
+    @Test
+    void plansFromIndependentStocks() {
+        DilutionPlanner planner = new DilutionPlanner(List.of(stock(1.0, "NaCl"), stock(2.0, "KCl")));
+        Mixture target = new Mixture();
+        target.addSolvent(0.1);
+        target.addSolute(new Formula("NaCl"), 0.01);
+        target.addSolute(new Formula("KCl"), 0.02);
+
+        double[] volumes = planner.plan(target);
+        assertEquals(0.01, volumes[0], 1e-12);
+        assertEquals(0.01, volumes[1], 1e-12);
+        assertEquals(0.08, volumes[2], 1e-12);
+    }
+
+    /**
+     * Checks stocks of one solute at different strengths are rejected, including
+     * strengths whose Gram matrix is only singular up to rounding.
+     */
+    @Test
+    void rejectsDilutionsOfOneSolute() {
+        double[][] pairs = {{1.0, 0.1}, {0.3, 0.7}, {0.6, 0.2}, {2.5, 0.37}};
+        for (double[] pair : pairs) {
+            List<Mixture> stocks = List.of(stock(pair[0], "NaCl"), stock(pair[1], "NaCl"));
+            assertThrows(IllegalArgumentException.class, () -> new DilutionPlanner(stocks),
+                    pair[0] + " M and " + pair[1] + " M");
+        }
+    }
+
+    /**
+     * Checks a stock that is a mix of two others is rejected.
+     */
+    @Test
+    void rejectsMixOfOtherStocks() {
+        Mixture sodium = stock(0.3, "NaCl");
+        Mixture potassium = stock(0.7, "KCl");
+        Mixture mix = new Mixture(sodium);
+        mix.mix(potassium);
+        assertThrows(IllegalArgumentException.class, () -> new DilutionPlanner(List.of(sodium, potassium, mix)));
+    }
+
+    /**
+     * Makes a one-liter stock of one solute.
+     *
+     * @param molarity The molarity in mol/L
+     * @param solute The solute formula
+     * @return The stock
+     */
+    private static Mixture stock(double molarity, String solute) {
+        Mixture stock = new Mixture();
+        stock.addSolvent(1.0);
+        stock.addSolute(new Formula(solute), molarity);
+        return stock;
+    }
+}
@@ -0,0 +1,67 @@
+package edu.guilford.chemtools;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * The FormulaIndexTest class checks that {@link FormulaIndex} matches formulas by
+ * composition and charge from its compact copies, through growth and clearing.
+ */
+class FormulaIndexTest {
+
+    /**
+     * Checks formulas written differently for the same compound share an entry, and
+     * an ion does not match its neutral counterpart.
+     */
+    @Test
+    void matchesByCompositionAndCharge() {
+        FormulaIndex index = new FormulaIndex();
+        assertEquals(FormulaIndex.NOT_FOUND, index.putIfAbsent(new Formula("H_2O"), 0));
+        assertEquals(0, index.putIfAbsent(new Formula("OH_2"), 1));
+        assertEquals(0, index.get(new Formula("2H_2O")));
+
+        assertEquals(FormulaIndex.NOT_FOUND, index.get(new Formula("OH^-")));
+        assertEquals(FormulaIndex.NOT_FOUND, index.putIfAbsent(new Formula("OH^-"), 1));
+        assertEquals(FormulaIndex.NOT_FOUND, index.putIfAbsent(new Formula("OH"), 2));
+        assertEquals(1, index.get(new Formula("HO^-")));
+        assertEquals(2, index.get(new Formula("HO")));
+        assertEquals(3, index.size());
+    }
+
+    /**
+     * Checks entries keep matching after the table has grown many times.
+     */
+    @Test
+    void keepsEntriesThroughGrowth() {
+        FormulaIndex index = new FormulaIndex(2);
+        for (int n = 1; n <= 2000; n++) {
+            assertEquals(FormulaIndex.NOT_FOUND, index.putIfAbsent(new Formula("C_" + n + "H_" + (2 * n + 2)), n));
+        }
+        for (int n = 1; n <= 2000; n++) {
+            assertEquals(n, index.get(new Formula("H_" + (2 * n + 2) + "C_" + n)));
+        }
+        assertEquals(FormulaIndex.NOT_FOUND, index.get(new Formula("C_2001H_4004")));
+        assertEquals(2000, index.size());
+    }
+
+    /**
+     * Checks a raw key matches any formula with that hash, and that a slot reused by a
+     * raw key after clearing does not keep the composition of its earlier entry.
+     */
+    @Test
+    void rawKeysAndClear() {
+        Formula water = new Formula("H_2O");
+        FormulaIndex index = new FormulaIndex();
+        index.putIfAbsent(new Formula("CO_2"), 7);
+        index.clear();
+        assertEquals(0, index.size());
+        assertEquals(FormulaIndex.NOT_FOUND, index.get(new Formula("CO_2")));
+
+        assertEquals(FormulaIndex.NOT_FOUND, index.putIfAbsent(water.getCompositionHash(), 3));
+        assertEquals(3, index.get(water));
+        assertEquals(3, index.putIfAbsent(new Formula("OH_2"), 4));
+        assertEquals(FormulaIndex.NOT_FOUND, index.putIfAbsent(new Formula("CO_2"), 5));
+        assertEquals(5, index.get(new Formula("O_2C")));
+    }
+}
@@ -0,0 +1,113 @@
+package edu.guilford.chemtools;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The RedoxBalancerTest class balances textbook redox reactions in acidic and basic
+ * solution and checks the coefficients, including the water and H^+ or OH^- the
+ * balancer adds.
+ */
+class RedoxBalancerTest {
+
+    /**
+     * Checks permanganate oxidizing hydrogen peroxide in acid.
+     */
+    @Test
+    void permanganateInAcid() {
+        Equation equation = balance("MnO_4^- + H_2O_2 = Mn^2+ + O_2", RedoxBalancer.Medium.ACIDIC);
+        assertEquals(2, coefficient(equation.getLeftFormulas(), "MnO_4^-"));
+        assertEquals(5, coefficient(equation.getLeftFormulas(), "H_2O_2"));
+        assertEquals(6, coefficient(equation.getLeftFormulas(), "H^+"));
+        assertEquals(2, coefficient(equation.getRightFormulas(), "Mn^2+"));
+        assertEquals(5, coefficient(equation.getRightFormulas(), "O_2"));
+        assertEquals(8, coefficient(equation.getRightFormulas(), "H_2O"));
+    }
+
+    /**
+     * Checks dichromate oxidizing iron(II) in acid, where charge alone fixes the ratio.
+     */
+    @Test
+    void dichromateInAcid() {
+        Equation equation = balance("Cr_2O_7^2- + Fe^2+ = Cr^3+ + Fe^3+", RedoxBalancer.Medium.ACIDIC);
+        assertEquals(1, coefficient(equation.getLeftFormulas(), "Cr_2O_7^2-"));
+        assertEquals(6, coefficient(equation.getLeftFormulas(), "Fe^2+"));
+        assertEquals(14, coefficient(equation.getLeftFormulas(), "H^+"));
+        assertEquals(2, coefficient(equation.getRightFormulas(), "Cr^3+"));
+        assertEquals(6, coefficient(equation.getRightFormulas(), "Fe^3+"));
+        assertEquals(7, coefficient(equation.getRightFormulas(), "H_2O"));
+    }
+
+    /**
+     * Checks permanganate oxidizing iodide in base, where water is a reactant.
+     */
+    @Test
+    void permanganateInBase() {
+        Equation equation = balance("MnO_4^- + I^- = MnO_2 + I_2", RedoxBalancer.Medium.BASIC);
+        assertEquals(2, coefficient(equation.getLeftFormulas(), "MnO_4^-"));
+        assertEquals(6, coefficient(equation.getLeftFormulas(), "I^-"));
+        assertEquals(4, coefficient(equation.getLeftFormulas(), "H_2O"));
+        assertEquals(2, coefficient(equation.getRightFormulas(), "MnO_2"));
+        assertEquals(3, coefficient(equation.getRightFormulas(), "I_2"));
+        assertEquals(8, coefficient(equation.getRightFormulas(), "OH^-"));
+    }
+
+    /**
+     * Checks a disproportionation in base, where one element is both oxidized and
+     * reduced.
+     */
+    @Test
+    void chlorineDisproportionatesInBase() {
+        Equation equation = balance("Cl_2 = Cl^- + ClO_3^-", RedoxBalancer.Medium.BASIC);
+        assertEquals(3, coefficient(equation.getLeftFormulas(), "Cl_2"));
+        assertEquals(6, coefficient(equation.getLeftFormulas(), "OH^-"));
+        assertEquals(5, coefficient(equation.getRightFormulas(), "Cl^-"));
+        assertEquals(1, coefficient(equation.getRightFormulas(), "ClO_3^-"));
+        assertEquals(3, coefficient(equation.getRightFormulas(), "H_2O"));
+    }
+
+    /**
+     * Checks a half-reaction, which cannot balance its charge without electrons, is
+     * rejected.
+     */
+    @Test
+    void rejectsHalfReaction() {
+        Equation equation = Equation.parse("Fe^2+ = Fe^3+");
+        assertThrows(IllegalArgumentException.class, () -> equation.balanceRedox(RedoxBalancer.Medium.ACIDIC));
+    }
+
+    /**
+     * Parses and balances a redox equation, checking it reports itself balanced.
+     *
+     * @param text The equation without water, H^+ or OH^-
+     * @param medium The solution the reaction runs in
+     * @return The balanced equation
+     */
+    private static Equation balance(String text, RedoxBalancer.Medium medium) {
+        Equation equation = Equation.parse(text);
+        equation.balanceRedox(medium);
+        assertTrue(equation.isBalanced(), equation.toString());
+        return equation;
+    }
+
+    /**
+     * Finds the coefficient of a species on one side of an equation.
+     *
+     * @param side The formulas on that side
+     * @param species The species
+     * @return The coefficient
+     */
+    private static int coefficient(List<Formula> side, String species) {
+        Formula wanted = new Formula(species);
+        for (Formula formula : side) {
+            if (formula.isSameCompound(wanted)) {
+                return formula.getMultiplier();
+            }
+        }
+        throw new AssertionError(species + " is missing from " + side);
+    }
+}
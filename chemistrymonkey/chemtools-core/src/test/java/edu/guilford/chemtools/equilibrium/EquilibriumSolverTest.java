@@ -0,0 +1,95 @@
+package edu.guilford.chemtools.equilibrium;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.guilford.chemtools.Equation;
+import edu.guilford.chemtools.Formula;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The EquilibriumSolverTest class solves a weak acid in water with the log-space Newton
+ * solver of {@link EquilibriumSolver} and checks the textbook pH, the mass and charge
+ * balances, and that warm starts save iterations.
+ */
+class EquilibriumSolverTest {
+
+    private static final double KA = 1.8e-5; // Acetic acid dissociation constant
+    private static final double KW = 1.0e-14; // Water autoionization constant
+    private static final double ACID = 0.1; // Initial acetic acid, mol/L
+
+    private EquilibriumSystem system; // Acetic acid and water
+    private int acid; // Index of HC_2H_3O_2
+    private int hydrogen; // Index of H^+
+    private int acetate; // Index of C_2H_3O_2^-
+    private int hydroxide; // Index of OH^-
+
+    /**
+     * Builds the acetic acid system.
+     */
+    @BeforeEach
+    void buildSystem() {
+        system = new EquilibriumSystem();
+        system.addReaction(Equation.parse("HC_2H_3O_2 = H^+ + C_2H_3O_2^-"), KA);
+        system.addReaction(Equation.parse("H_2O = H^+ + OH^-"), KW);
+        acid = system.getSpecies().indexOf(new Formula("HC_2H_3O_2"));
+        hydrogen = system.getSpecies().indexOf(new Formula("H^+"));
+        acetate = system.getSpecies().indexOf(new Formula("C_2H_3O_2^-"));
+        hydroxide = system.getSpecies().indexOf(new Formula("OH^-"));
+    }
+
+    /**
+     * Checks 0.1 M acetic acid has a pH of about 2.87 and satisfies both constants and
+     * the balances.
+     */
+    @Test
+    void aceticAcidPH() {
+        EquilibriumSolver solver = new EquilibriumSolver(system);
+        double[] c = solver.solve(initial(ACID));
+
+        assertEquals(2.87, -Math.log10(c[hydrogen]), 0.01);
+        assertEquals(KA, c[hydrogen] * c[acetate] / c[acid], KA * 1e-6);
+        assertEquals(KW, c[hydrogen] * c[hydroxide], KW * 1e-6);
+        assertEquals(ACID, c[acid] + c[acetate], ACID * 1e-9);
+        assertEquals(c[hydrogen], c[acetate] + c[hydroxide], c[hydrogen] * 1e-9);
+    }
+
+    /**
+     * Checks re-solving the same problem from the warm start takes no iterations, and a
+     * sweep over a range of constants converges at every point with pH rising as the
+     * acid weakens.
+     */
+    @Test
+    void warmStartAndSweep() {
+        EquilibriumSolver solver = new EquilibriumSolver(system);
+        solver.solve(initial(ACID));
+        int cold = solver.getIterations();
+        solver.solve(initial(ACID));
+        assertTrue(solver.getIterations() < cold, "warm " + solver.getIterations() + ", cold " + cold);
+
+        double[] constants = {1e-3, 1e-4, 1e-5, 1e-6, 1e-7};
+        double[][] results = solver.sweep(initial(ACID), 0, constants);
+        double previousPH = 0;
+        for (int i = 0; i < constants.length; i++) {
+            double[] c = results[i];
+            assertEquals(constants[i], c[hydrogen] * c[acetate] / c[acid], constants[i] * 1e-6);
+            assertEquals(ACID, c[acid] + c[acetate], ACID * 1e-9);
+            double pH = -Math.log10(c[hydrogen]);
+            assertTrue(pH > previousPH, "pH " + pH + " after " + previousPH);
+            previousPH = pH;
+        }
+    }
+
+    /**
+     * Creates initial concentrations with only acetic acid present.
+     *
+     * @param concentration The acid concentration in mol/L
+     * @return The initial concentrations
+     */
+    private double[] initial(double concentration) {
+        double[] c = new double[system.getSpecies().size()];
+        c[acid] = concentration;
+        return c;
+    }
+}
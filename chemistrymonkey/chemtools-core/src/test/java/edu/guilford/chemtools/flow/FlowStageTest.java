@@ -0,0 +1,326 @@
+package edu.guilford.chemtools.flow;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The FlowStageTest class runs items through {@link FlowStage}s and checks the order
+ * results come out in, how much the stages ask for upstream, and how dropped items and
+ * failures reach the subscriber. Stage names are unique per test because each name owns
+ * its counters in the shared metrics registry.
+ */
+class FlowStageTest {
+
+    private static final long TIMEOUT_SECONDS = 10; // Longest wait for a stream to finish
+
+    private ExecutorService executor; // Workers for the stages under test
+
+    /**
+     * Creates the workers for a test.
+     */
+    @BeforeEach
+    void startExecutor() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    /**
+     * Stops the workers after a test.
+     */
+    @AfterEach
+    void stopExecutor() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Checks an ordered stage emits results in input order even when later items finish
+     * first.
+     *
+     * @throws InterruptedException If the wait is interrupted
+     */
+    @Test
+    void orderedStageKeepsInputOrder() throws InterruptedException {
+        FlowStage<Integer, Integer> stage = new FlowStage<>("test.ordered", n -> {
+            sleepQuietly(ThreadLocalRandom.current().nextInt(3));
+            return n * 2;
+        }, 4, true, 8, executor);
+        Collector<Integer> collector = new Collector<>(Long.MAX_VALUE);
+        stage.subscribe(collector);
+
+        publish(stage, 200);
+        collector.await();
+
+        assertNull(collector.error);
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            expected.add(i * 2);
+        }
+        assertEquals(expected, collector.items);
+        assertEquals(200, stage.getProcessedCount());
+    }
+
+    /**
+     * Checks a stage never asks upstream for more than it can hold, and passes on
+     * exactly what the subscriber asks for.
+     *
+     * @throws InterruptedException If a wait is interrupted
+     */
+    @Test
+    void demandIsBounded() throws InterruptedException {
+        int capacity = 8;
+        FlowStage<Integer, Integer> stage = new FlowStage<>("test.demand", n -> n, 2, true, capacity, executor);
+        CountingSubscription upstream = new CountingSubscription();
+        stage.onSubscribe(upstream);
+        assertEquals(capacity, upstream.requested.get());
+
+        // With nobody downstream, the stage fills up and stops asking
+        for (int i = 0; i < capacity; i++) {
+            stage.onNext(i);
+        }
+        await(() -> stage.getProcessedCount() == capacity);
+        assertEquals(capacity, upstream.requested.get());
+
+        Collector<Integer> collector = new Collector<>(3);
+        stage.subscribe(collector);
+        await(() -> collector.items.size() == 3);
+        Thread.sleep(50);
+        assertEquals(List.of(0, 1, 2), collector.items);
+
+        // Only the emitted items' slots may be asked for again
+        long requested = upstream.requested.get();
+        assertTrue(requested <= capacity + 3, "requested " + requested);
+        for (long i = capacity; i < requested; i++) {
+            stage.onNext((int) i);
+        }
+        collector.subscription.request(Long.MAX_VALUE);
+        stage.onComplete();
+        collector.await();
+        assertEquals((int) requested, collector.items.size());
+        assertNull(collector.error);
+    }
+
+    /**
+     * Checks an item beyond what the stage asked for fails the stream.
+     *
+     * @throws InterruptedException If the wait is interrupted
+     */
+    @Test
+    void overflowFailsStream() throws InterruptedException {
+        int capacity = 4;
+        FlowStage<Integer, Integer> stage = new FlowStage<>("test.overflow", n -> n, 1, true, capacity, executor);
+        stage.onSubscribe(new CountingSubscription());
+        for (int i = 0; i <= capacity; i++) {
+            stage.onNext(i);
+        }
+        Collector<Integer> collector = new Collector<>(Long.MAX_VALUE);
+        stage.subscribe(collector);
+        collector.await();
+        assertInstanceOf(IllegalStateException.class, collector.error);
+    }
+
+    /**
+     * Checks items rejected with IllegalArgumentException or mapped to null are dropped
+     * and counted, while the rest carry on in order.
+     *
+     * @throws InterruptedException If the wait is interrupted
+     */
+    @Test
+    void rejectedItemsAreDropped() throws InterruptedException {
+        FlowStage<Integer, Integer> stage = new FlowStage<>("test.rejected", n -> {
+            if (n % 3 == 1) {
+                throw new IllegalArgumentException("Rejected " + n);
+            }
+            return n % 3 == 2 ? null : n;
+        }, 3, true, 8, executor);
+        Collector<Integer> collector = new Collector<>(Long.MAX_VALUE);
+        stage.subscribe(collector);
+
+        publish(stage, 30);
+        collector.await();
+
+        assertNull(collector.error);
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 30; i += 3) {
+            expected.add(i);
+        }
+        assertEquals(expected, collector.items);
+        assertEquals(20, stage.getRejectedCount());
+    }
+
+    /**
+     * Checks any other exception from the function fails the stream with that exception,
+     * including when it is raised in the second stage of a chain.
+     *
+     * @throws InterruptedException If the wait is interrupted
+     */
+    @Test
+    void failurePropagates() throws InterruptedException {
+        FlowStage<Integer, Integer> first = new FlowStage<>("test.failure.first", n -> n + 1, 2, true, 8, executor);
+        FlowStage<Integer, Integer> second = first.then("test.failure.second", n -> 100 / (n - 5), 2, true);
+        Collector<Integer> collector = new Collector<>(Long.MAX_VALUE);
+        second.subscribe(collector);
+
+        publish(first, 20);
+        collector.await();
+
+        assertInstanceOf(ArithmeticException.class, collector.error);
+        assertTrue(collector.items.size() < 20);
+    }
+
+    /**
+     * Publishes the numbers from 0 up to a count, then completes.
+     *
+     * @param stage The first stage
+     * @param count The number of items
+     */
+    private static void publish(FlowStage<Integer, ?> stage, int count) {
+        try (SubmissionPublisher<Integer> publisher = new SubmissionPublisher<>()) {
+            publisher.subscribe(stage);
+            for (int i = 0; i < count; i++) {
+                publisher.submit(i);
+            }
+        }
+    }
+
+    /**
+     * Waits for a condition to hold.
+     *
+     * @param condition The condition
+     * @throws InterruptedException If the wait is interrupted
+     */
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(condition.getAsBoolean(), "condition not reached");
+    }
+
+    /**
+     * Sleeps, ignoring interruption.
+     *
+     * @param millis The time to sleep in milliseconds
+     */
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * The CountingSubscription class stands in for an upstream publisher and records
+     * how many items have been asked for.
+     */
+    private static final class CountingSubscription implements Flow.Subscription {
+
+        private final AtomicLong requested = new AtomicLong(); // Items asked for so far
+
+        /**
+         * Records a request.
+         *
+         * @param n The number of items asked for
+         */
+        @Override
+        public void request(long n) {
+            requested.addAndGet(n);
+        }
+
+        /**
+         * Ignores cancellation.
+         */
+        @Override
+        public void cancel() {
+        }
+    }
+
+    /**
+     * The Collector class is a subscriber that keeps everything it receives.
+     *
+     * @param <T> The item type
+     */
+    private static final class Collector<T> implements Flow.Subscriber<T> {
+
+        private final long initialRequest; // Items asked for on subscribing
+        private final List<T> items = new CopyOnWriteArrayList<>(); // Items received, in order
+        private final CountDownLatch done = new CountDownLatch(1); // Released on completion or failure
+        private volatile Flow.Subscription subscription; // Subscription to the stage
+        private volatile Throwable error; // Failure received, or null
+
+        /**
+         * Constructor that sets how many items to ask for at first.
+         *
+         * @param initialRequest The first request
+         */
+        Collector(long initialRequest) {
+            this.initialRequest = initialRequest;
+        }
+
+        /**
+         * Keeps the subscription and makes the first request.
+         *
+         * @param subscription The subscription
+         */
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(initialRequest);
+        }
+
+        /**
+         * Keeps an item.
+         *
+         * @param item The item
+         */
+        @Override
+        public void onNext(T item) {
+            items.add(item);
+        }
+
+        /**
+         * Keeps the failure and ends the wait.
+         *
+         * @param throwable The failure
+         */
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            done.countDown();
+        }
+
+        /**
+         * Ends the wait.
+         */
+        @Override
+        public void onComplete() {
+            done.countDown();
+        }
+
+        /**
+         * Waits for the stream to finish.
+         *
+         * @throws InterruptedException If the wait is interrupted
+         */
+        void await() throws InterruptedException {
+            assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS), "stream did not finish");
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package edu.guilford.chemtools.history;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * The HistoryLogTest class damages the last record of a closed {@link HistoryLog} the
+ * way a crash mid-append would and checks that reopening keeps every complete entry,
+ * drops the torn one and lets appends carry on.
+ */
+class HistoryLogTest {
+
+    private static final int HEADER_BYTES = 8; // Magic and version
+    private static final int RECORD_HEADER_BYTES = 8; // Body length and checksum
+
+    private static final List<HistoryEntry> ENTRIES = List.of(
+            new HistoryEntry(1000, "molar-mass", "H_2O", "18.015 g/mol"),
+            new HistoryEntry(2000, "balance", "H_2 + O_2 = H_2O", "2H_2 + 1O_2 = 2H_2O"),
+            new HistoryEntry(3000, "molar-mass", "C_6H_12O_6", "180.156 g/mol"));
+
+    @TempDir
+    Path directory; // Fresh directory for each test's log
+
+    /**
+     * Checks a record whose body no longer matches its checksum is discarded on open,
+     * and that the next append takes its place.
+     *
+     * @throws IOException If the log cannot be written or read
+     */
+    @Test
+    void recoversFromDamagedRecord() throws IOException {
+        Path file = directory.resolve("history.log");
+        writeEntries(file);
+
+        // A torn append that wrote the length but not all of the body
+        long last = recordOffset(2);
+        overwrite(file, last + RECORD_HEADER_BYTES + 12, new byte[] {'X', 'X', 'X'});
+
+        try (HistoryLog log = new HistoryLog(file)) {
+            assertTrue(log.wasRecovered());
+            assertEquals(2, log.size());
+            assertEntries(ENTRIES.subList(0, 2), log.read(0, 10));
+            assertEquals(2, log.append(new HistoryEntry(4000, "sample", "NaCl", "0.1 mol")));
+        }
+
+        try (HistoryLog log = new HistoryLog(file)) {
+            assertFalse(log.wasRecovered());
+            assertEquals(3, log.size());
+            assertEquals("NaCl", log.read(2, 1).get(0).getInput());
+        }
+    }
+
+    /**
+     * Checks a record whose length was never written is treated as the end of the log
+     * without counting as a recovery.
+     *
+     * @throws IOException If the log cannot be written or read
+     */
+    @Test
+    void ignoresRecordWithoutLength() throws IOException {
+        Path file = directory.resolve("history.log");
+        writeEntries(file);
+
+        // The body and checksum are in place, but the length that publishes them is not
+        overwrite(file, recordOffset(2), new byte[4]);
+
+        try (HistoryLog log = new HistoryLog(file)) {
+            assertFalse(log.wasRecovered());
+            assertEquals(2, log.size());
+            assertEquals(2, log.append(new HistoryEntry(4000, "sample", "KCl", "0.2 mol")));
+            assertEquals(3, log.size());
+        }
+
+        try (HistoryLog log = new HistoryLog(file)) {
+            assertEquals(3, log.size());
+            assertEntries(ENTRIES.subList(0, 2), log.read(0, 2));
+            assertEquals("KCl", log.read(2, 1).get(0).getInput());
+        }
+    }
+
+    /**
+     * Checks entries survive a clean close and reopen unchanged.
+     *
+     * @throws IOException If the log cannot be written or read
+     */
+    @Test
+    void reopensCleanLog() throws IOException {
+        Path file = directory.resolve("history.log");
+        writeEntries(file);
+
+        try (HistoryLog log = new HistoryLog(file)) {
+            assertFalse(log.wasRecovered());
+            assertEntries(ENTRIES, log.read(0, 10));
+            assertEquals(1, log.firstEntryAtOrAfter(1500));
+        }
+    }
+
+    /**
+     * Writes the test entries to a new log and closes it.
+     *
+     * @param file The log file
+     * @throws IOException If the log cannot be written
+     */
+    private static void writeEntries(Path file) throws IOException {
+        try (HistoryLog log = new HistoryLog(file)) {
+            for (HistoryEntry entry : ENTRIES) {
+                log.append(entry);
+            }
+        }
+    }
+
+    /**
+     * Calculates where a test entry's record starts in the file.
+     *
+     * @param index The entry number
+     * @return The offset of the record's length field
+     */
+    private static long recordOffset(int index) {
+        long offset = HEADER_BYTES;
+        for (int i = 0; i < index; i++) {
+            HistoryEntry entry = ENTRIES.get(i);
+            offset += RECORD_HEADER_BYTES + 8 + 2 + utf8Length(entry.getKind()) + 4 + utf8Length(entry.getInput())
+                    + 4 + utf8Length(entry.getOutput());
+        }
+        return offset;
+    }
+
+    /**
+     * Gets the UTF-8 length of a string.
+     *
+     * @param text The string
+     * @return The number of bytes
+     */
+    private static int utf8Length(String text) {
+        return text.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    /**
+     * Overwrites bytes of a closed log file.
+     *
+     * @param file The log file
+     * @param offset The first byte to overwrite
+     * @param bytes The new bytes
+     * @throws IOException If the file cannot be written
+     */
+    private static void overwrite(Path file, long offset, byte[] bytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(bytes), offset);
+        }
+    }
+
+    /**
+     * Checks entries read back match the ones written.
+     *
+     * @param expected The entries written
+     * @param actual The entries read
+     */
+    private static void assertEntries(List<HistoryEntry> expected, List<HistoryEntry> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getTimestamp(), actual.get(i).getTimestamp());
+            assertEquals(expected.get(i).getKind(), actual.get(i).getKind());
+            assertEquals(expected.get(i).getInput(), actual.get(i).getInput());
+            assertEquals(expected.get(i).getOutput(), actual.get(i).getOutput());
+        }
+    }
+}
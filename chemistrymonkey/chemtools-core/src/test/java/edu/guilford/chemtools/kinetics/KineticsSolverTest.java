@@ -0,0 +1,77 @@
+package edu.guilford.chemtools.kinetics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.guilford.chemtools.Equation;
+import edu.guilford.chemtools.Formula;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The KineticsSolverTest class checks the Rosenbrock integrator of {@link KineticsSolver}
+ * against a decay with a known solution and against a stiff reversible reaction that
+ * must settle at equilibrium without tiny steps.
+ */
+class KineticsSolverTest {
+
+    /**
+     * Checks first-order decay N_2O_4 -> 2 NO_2 follows the exponential and conserves
+     * nitrogen.
+     */
+    @Test
+    void firstOrderDecayMatchesExponential() {
+        double k = 2.0;
+        Mechanism mechanism = new Mechanism();
+        mechanism.addReaction(balanced("N_2O_4 = NO_2"), k);
+        int dimer = mechanism.getSpecies().indexOf(new Formula("N_2O_4"));
+        int monomer = mechanism.getSpecies().indexOf(new Formula("NO_2"));
+
+        KineticsSolver solver = new KineticsSolver(mechanism);
+        solver.setTolerances(1e-6, 1e-12);
+        double[] initial = new double[mechanism.getSpecies().size()];
+        initial[dimer] = 1.0;
+        double[] result = solver.integrate(initial, 1.0, null);
+
+        assertEquals(Math.exp(-k), result[dimer], 1e-5);
+        assertEquals(2.0, 2 * result[dimer] + result[monomer], 1e-9);
+        assertEquals(1.0, initial[dimer]);
+    }
+
+    /**
+     * Checks a fast reversible reaction reaches kf [N_2O_4] = kr [NO_2]^2 over a long
+     * span in a modest number of steps, as an implicit method should.
+     */
+    @Test
+    void stiffReversibleReachesEquilibrium() {
+        double kf = 1e6;
+        double kr = 1e6;
+        Mechanism mechanism = new Mechanism();
+        mechanism.addReversibleReaction(balanced("N_2O_4 = NO_2"), kf, kr);
+        int dimer = mechanism.getSpecies().indexOf(new Formula("N_2O_4"));
+        int monomer = mechanism.getSpecies().indexOf(new Formula("NO_2"));
+
+        KineticsSolver solver = new KineticsSolver(mechanism);
+        double[] initial = new double[mechanism.getSpecies().size()];
+        initial[dimer] = 1.0;
+        double[] result = solver.integrate(initial, 100.0, null);
+
+        double forward = kf * result[dimer];
+        double reverse = kr * result[monomer] * result[monomer];
+        assertEquals(0, (forward - reverse) / forward, 1e-4);
+        assertEquals(2.0, 2 * result[dimer] + result[monomer], 1e-9);
+        assertTrue(solver.getAcceptedSteps() < 2000, "accepted steps: " + solver.getAcceptedSteps());
+        assertTrue(solver.getFactorizations() > 0);
+    }
+
+    /**
+     * Parses and balances an equation.
+     *
+     * @param text The equation
+     * @return The balanced equation
+     */
+    private static Equation balanced(String text) {
+        Equation equation = Equation.parse(text);
+        equation.balanceEquations();
+        return equation;
+    }
+}
@@ -0,0 +1,157 @@
+package edu.guilford.chemtools.workqueue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Properties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * The WorkQueueTest class hands a shard from a worker whose lease expired to a second
+ * worker and checks the first can no longer renew, checkpoint over or complete it.
+ */
+class WorkQueueTest {
+
+    private static final long LEASE_MILLIS = 60_000; // Lease used by the tests
+
+    @TempDir
+    Path directory; // Fresh queue directory for each test
+
+    private WorkQueue queue; // Queue under test
+
+    /**
+     * Opens the queue and submits one shard.
+     *
+     * @throws IOException If the queue cannot be written
+     */
+    @BeforeEach
+    void submitShard() throws IOException {
+        queue = new WorkQueue(directory);
+        Properties shard = new Properties();
+        shard.setProperty("first", "0");
+        shard.setProperty("end", "1000");
+        queue.submit("job-0", shard);
+    }
+
+    /**
+     * Checks a live claim can be renewed and completed, and the shard is then done.
+     *
+     * @throws IOException If the queue cannot be read or written
+     */
+    @Test
+    void claimAndComplete() throws IOException {
+        WorkQueue.Claim claim = queue.claim("worker-a");
+        assertNotNull(claim);
+        assertEquals("1000", claim.getShard().getProperty("end"));
+        assertNull(queue.claim("worker-b"));
+        assertTrue(claim.renew());
+        assertEquals(0, queue.requeueExpired(LEASE_MILLIS));
+
+        assertTrue(queue.complete(claim, result("found")));
+        assertTrue(queue.hasResult("job-0"));
+        assertTrue(queue.isIdle());
+    }
+
+    /**
+     * Lets the first worker's lease run out, hands the shard to a second worker, and
+     * checks the first worker's late renew and complete fail without touching the second
+     * worker's checkpoint or result.
+     *
+     * @throws IOException If the queue cannot be read or written
+     */
+    @Test
+    void expiredLeaseIsHandedOver() throws IOException {
+        WorkQueue.Claim stale = queue.claim("worker-a");
+        assertNotNull(stale);
+        queue.writeCheckpoint("job-0", checkpoint(100));
+
+        expireClaims();
+        assertEquals(1, queue.requeueExpired(LEASE_MILLIS));
+        assertFalse(queue.isIdle());
+
+        WorkQueue.Claim current = queue.claim("worker-b");
+        assertNotNull(current);
+        assertEquals("100", queue.readCheckpoint("job-0").getProperty("next"));
+        queue.writeCheckpoint("job-0", checkpoint(500));
+
+        // The first worker wakes up and tries to carry on
+        assertFalse(stale.renew());
+        assertFalse(queue.complete(stale, result("stale")));
+        assertFalse(queue.hasResult("job-0"));
+        assertEquals("500", queue.readCheckpoint("job-0").getProperty("next"));
+
+        assertTrue(current.renew());
+        assertTrue(queue.complete(current, result("current")));
+        assertEquals("current", queue.readResult("job-0").getProperty("outcome"));
+        assertNull(queue.readCheckpoint("job-0"));
+        assertTrue(queue.isIdle());
+    }
+
+    /**
+     * Checks a released shard is claimed again straight away, resuming from its
+     * checkpoint.
+     *
+     * @throws IOException If the queue cannot be read or written
+     */
+    @Test
+    void releasedShardIsReclaimed() throws IOException {
+        WorkQueue.Claim first = queue.claim("worker-a");
+        queue.writeCheckpoint("job-0", checkpoint(250));
+        queue.release(first);
+        assertFalse(first.renew());
+
+        WorkQueue.Claim second = queue.claim("worker-b");
+        assertNotNull(second);
+        assertEquals("job-0", second.getShardId());
+        assertEquals("250", queue.readCheckpoint("job-0").getProperty("next"));
+    }
+
+    /**
+     * Moves the modification time of every claim back past the lease, as if the
+     * claiming worker had stalled.
+     *
+     * @throws IOException If the claims cannot be touched
+     */
+    private void expireClaims() throws IOException {
+        FileTime past = FileTime.fromMillis(System.currentTimeMillis() - 2 * LEASE_MILLIS);
+        try (DirectoryStream<Path> claims = Files.newDirectoryStream(directory.resolve("claimed"))) {
+            for (Path claim : claims) {
+                Files.setLastModifiedTime(claim, past);
+            }
+        }
+    }
+
+    /**
+     * Creates a checkpoint.
+     *
+     * @param next The next combination to try
+     * @return The checkpoint
+     */
+    private static Properties checkpoint(long next) {
+        Properties checkpoint = new Properties();
+        checkpoint.setProperty("next", Long.toString(next));
+        return checkpoint;
+    }
+
+    /**
+     * Creates a result.
+     *
+     * @param outcome The outcome recorded
+     * @return The result
+     */
+    private static Properties result(String outcome) {
+        Properties result = new Properties();
+        result.setProperty("outcome", outcome);
+        return result;
+    }
+}
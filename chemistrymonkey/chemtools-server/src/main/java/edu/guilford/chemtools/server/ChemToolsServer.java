@@ -0,0 +1,440 @@
+package edu.guilford.chemtools.server;
+
+import com.sun.net.httpserver.HttpServer;
+import edu.guilford.chemtools.Equation;
+import edu.guilford.chemtools.Formula;
+import edu.guilford.chemtools.IncrementalFormula;
+import edu.guilford.chemtools.Sample;
+import edu.guilford.chemtools.Solution;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The ChemToolsServer class exposes the chemtools calculations as JSON over HTTP using
+ * the JDK's built-in server. Every request runs on its own virtual thread, so cheap
+ * calculations scale with connections rather than with a fixed pool. Equation balancing
+ * is a CPU-bound brute-force search, and virtual threads are not time-sliced, so searches
+ * run on a small pool of platform threads instead (keeping carrier threads free for the
+ * cheap endpoints). Requests that find no free search thread are rejected rather than
+ * queued, and each search is interrupted once its time budget is spent. A search
+ * holds its slot until it has actually stopped, so searches that outlive their
+ * request never push the number running past the limit.
+ *
+ * <p>Endpoints (all GET; /balance also accepts the equation as a POST body):
+ * <ul>
+ * <li>/molar-mass?formula=H_2O</li>
+ * <li>/sample?formula=H_2O&amp;grams=18 (or moles=)</li>
+ * <li>/solution?formula=NaCl&amp;moles=0.5&amp;volume=2 (any two of grams or moles, volume, molarity)</li>
+ * <li>/balance?equation=C_3H_8 + O_2 = CO_2 + H_2O</li>
+ * <li>/health</li>
+ * </ul>
+ * A '+' in a query string decodes to a space, so charges in query parameters must be
+ * sent as %2B.
+ */
+public class ChemToolsServer {
+
+    public static final int DEFAULT_PORT = 8080; // Port used when none is given
+    public static final long DEFAULT_BALANCE_TIMEOUT_MILLIS = 5000; // Time budget for one balancing search
+    private static final int BACKLOG = 1024; // Pending connections queued by the OS
+    private static final long PERMIT_WAIT_MILLIS = 100; // How long to wait for a free balancing slot
+    private static final String CONNECTION_TIMEOUT_SECONDS = "30"; // Read and write timeout for standalone use
+
+    private final HttpServer server; // Underlying JDK server
+    private final ExecutorService executor; // Virtual thread per request
+    private final ExecutorService balanceExecutor; // Platform threads for balancing searches
+    private final Semaphore balancePermits; // Free balancing slots
+    private final long balanceTimeoutMillis; // Time budget for one balancing search
+
+    /**
+     * Constructor that creates a server bound to an address. Port 0 picks a free port,
+     * which can then be read with {@link #getPort()}.
+     *
+     * @param address The address and port to bind
+     * @param balanceConcurrency The maximum number of balancing searches running at once
+     * @param balanceTimeoutMillis The time budget for one balancing search, in milliseconds
+     * @throws IOException If the address cannot be bound
+     */
+    public ChemToolsServer(InetSocketAddress address, int balanceConcurrency, long balanceTimeoutMillis)
+            throws IOException {
+        this.balanceTimeoutMillis = balanceTimeoutMillis;
+        balancePermits = new Semaphore(balanceConcurrency);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        balanceExecutor = Executors.newFixedThreadPool(balanceConcurrency,
+                Thread.ofPlatform().name("equation-balancer-", 1).daemon(true).factory());
+
+        server = HttpServer.create(address, BACKLOG);
+        server.setExecutor(executor);
+        server.createContext("/molar-mass", new JsonHandler(this::molarMass, false));
+        server.createContext("/sample", new JsonHandler(this::sample, false));
+        server.createContext("/solution", new JsonHandler(this::solution, false));
+        server.createContext("/balance", new JsonHandler(this::balance, true));
+        server.createContext("/health", new JsonHandler((parameters, json) -> json.field("status", "ok"), false));
+    }
+
+    /**
+     * Starts the server with the port from the first argument (default 8080). One
+     * balancing search runs per two processors.
+     *
+     * @param args Optional port number
+     * @throws IOException If the port cannot be bound
+     */
+    public static void main(String[] args) throws IOException {
+        // Drop connections that stall while sending a request or reading a response
+        if (System.getProperty("sun.net.httpserver.maxReqTime") == null) {
+            System.setProperty("sun.net.httpserver.maxReqTime", CONNECTION_TIMEOUT_SECONDS);
+        }
+        if (System.getProperty("sun.net.httpserver.maxRspTime") == null) {
+            System.setProperty("sun.net.httpserver.maxRspTime", CONNECTION_TIMEOUT_SECONDS);
+        }
+
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int balanceConcurrency = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        ChemToolsServer chemToolsServer = new ChemToolsServer(new InetSocketAddress(port),
+                balanceConcurrency, DEFAULT_BALANCE_TIMEOUT_MILLIS);
+        chemToolsServer.start();
+        System.out.println("ChemTools server listening on port " + chemToolsServer.getPort());
+    }
+
+    /**
+     * Starts accepting requests.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops accepting requests, waits up to the given delay for open exchanges to
+     * finish, then interrupts any remaining work.
+     *
+     * @param delaySeconds The longest time to wait for open exchanges, in seconds
+     */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdownNow();
+        balanceExecutor.shutdownNow();
+    }
+
+    /**
+     * Gets the port the server is bound to.
+     *
+     * @return The local port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Gets the number of balancing slots not held by a running search.
+     *
+     * @return The free slot count
+     */
+    int getFreeBalanceSlots() {
+        return balancePermits.availablePermits();
+    }
+
+    // Endpoints
+
+    /**
+     * Reports the molar mass, Hill formula and charge of a formula.
+     *
+     * @param parameters Request parameters (formula)
+     * @param json Writer receiving the response fields
+     * @throws RequestException If the formula is missing or invalid
+     */
+    private void molarMass(Map<String, String> parameters, JsonWriter json) throws RequestException {
+        Formula formula = parseFormula(requireParameter(parameters, "formula"));
+        json.field("formula", formula.toString())
+                .field("hill", formula.getHillFormula())
+                .field("molarMass", formula.getMolarMass())
+                .field("charge", formula.getCharge());
+    }
+
+    /**
+     * Converts between grams and moles of a compound.
+     *
+     * @param parameters Request parameters (formula, and grams or moles)
+     * @param json Writer receiving the response fields
+     * @throws RequestException If the formula or amount is missing or invalid
+     */
+    private void sample(Map<String, String> parameters, JsonWriter json) throws RequestException {
+        Sample sample = new Sample(parseFormula(requireParameter(parameters, "formula")));
+        if (!setAmount(sample, parameters)) {
+            throw new RequestException(400, "One of 'grams' or 'moles' is required");
+        }
+        json.field("formula", sample.toString())
+                .field("molarMass", sample.getMolarMass())
+                .field("grams", sample.getSampleMass())
+                .field("moles", sample.getSampleMoles());
+    }
+
+    /**
+     * Solves a solution from any two of its amount, volume and molarity.
+     *
+     * @param parameters Request parameters (formula, and two of grams or moles, volume, molarity)
+     * @param json Writer receiving the response fields
+     * @throws RequestException If the formula is invalid or not exactly two quantities are given
+     */
+    private void solution(Map<String, String> parameters, JsonWriter json) throws RequestException {
+        Sample sample = new Sample(parseFormula(requireParameter(parameters, "formula")));
+        boolean hasAmount = setAmount(sample, parameters);
+        boolean hasVolume = parameters.containsKey("volume");
+        boolean hasMolarity = parameters.containsKey("molarity");
+        int given = (hasAmount ? 1 : 0) + (hasVolume ? 1 : 0) + (hasMolarity ? 1 : 0);
+        if (given != 2) {
+            throw new RequestException(400, "Exactly two of 'grams' or 'moles', 'volume' and 'molarity' are required");
+        }
+
+        Solution solution = new Solution(sample);
+        if (hasVolume) {
+            solution.setVolume(positiveParameter(parameters, "volume"));
+        }
+        if (hasMolarity) {
+            solution.setMolarity(positiveParameter(parameters, "molarity"));
+        }
+        json.field("formula", sample.toString())
+                .field("molarMass", sample.getMolarMass())
+                .field("grams", sample.getSampleMass())
+                .field("moles", sample.getSampleMoles())
+                .field("volume", solution.getVolume())
+                .field("molarity", solution.getMolarity());
+    }
+
+    /**
+     * Balances an equation, waiting briefly for a free balancing slot and interrupting
+     * the search once the time budget is spent.
+     *
+     * @param parameters Request parameters (equation, or the POST body)
+     * @param json Writer receiving the response fields
+     * @throws RequestException If the equation is invalid, no slot is free, the search
+     *         times out, or no balance exists within the coefficient limit
+     */
+    private void balance(Map<String, String> parameters, JsonWriter json) throws RequestException {
+        String text = parameters.containsKey(JsonHandler.BODY_PARAMETER)
+                ? parameters.get(JsonHandler.BODY_PARAMETER)
+                : requireParameter(parameters, "equation");
+        Equation equation;
+        try {
+            equation = Equation.parse(text);
+        } catch (IllegalArgumentException e) {
+            throw new RequestException(400, e.getMessage());
+        }
+
+        try {
+            if (!balancePermits.tryAcquire(PERMIT_WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+                throw new RequestException(503, "Too many balancing requests in progress");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RequestException(503, "Server is shutting down");
+        }
+
+        // Search on a platform thread so it can be interrupted on timeout. The search
+        // itself releases the slot once it has stopped, so a timed-out search that is
+        // still winding down keeps counting against the concurrency bound
+        AtomicBoolean started = new AtomicBoolean(); // Set by whichever side owns the slot first
+        Future<Boolean> search;
+        try {
+            search = balanceExecutor.submit(() -> {
+                if (!started.compareAndSet(false, true)) {
+                    return false; // Abandoned before it started; the handler released the slot
+                }
+                try {
+                    equation.balanceEquations();
+                    return equation.isBalanced();
+                } finally {
+                    balancePermits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            balancePermits.release();
+            throw new RequestException(503, "Server is shutting down");
+        }
+
+        boolean balanced;
+        try {
+            balanced = search.get(balanceTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            abandon(search, started);
+            throw new RequestException(504, "Balancing took longer than " + balanceTimeoutMillis + " ms");
+        } catch (InterruptedException e) {
+            abandon(search, started);
+            Thread.currentThread().interrupt();
+            throw new RequestException(503, "Server is shutting down");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+
+        if (!balanced) {
+            throw new RequestException(422, "No balance found with coefficients up to " + Equation.MULTIPLIER_MAX);
+        }
+        json.field("equation", formatEquation(equation))
+                .stringArray("reactants", formulaTexts(equation.getLeftFormulas()))
+                .intArray("reactantCoefficients", coefficients(equation.getLeftFormulas()))
+                .stringArray("products", formulaTexts(equation.getRightFormulas()))
+                .intArray("productCoefficients", coefficients(equation.getRightFormulas()));
+    }
+
+    /**
+     * Interrupts a balancing search that is no longer wanted. A search that has started
+     * releases its own slot when it stops; one that never started is released here.
+     *
+     * @param search The search
+     * @param started The flag the search sets when it starts
+     */
+    private void abandon(Future<Boolean> search, AtomicBoolean started) {
+        search.cancel(true);
+        if (started.compareAndSet(false, true)) {
+            balancePermits.release();
+        }
+    }
+
+    // Request helpers
+
+    /**
+     * Gets a parameter that must be present and non-blank.
+     *
+     * @param parameters Request parameters
+     * @param name The parameter name
+     * @return The parameter value
+     * @throws RequestException If the parameter is missing or blank
+     */
+    private static String requireParameter(Map<String, String> parameters, String name) throws RequestException {
+        String value = parameters.get(name);
+        if (value == null || value.isBlank()) {
+            throw new RequestException(400, "Missing parameter '" + name + "'");
+        }
+        return value;
+    }
+
+    /**
+     * Gets a parameter that must be a positive finite number.
+     *
+     * @param parameters Request parameters
+     * @param name The parameter name
+     * @return The parameter value
+     * @throws RequestException If the parameter is missing or not a positive number
+     */
+    private static double positiveParameter(Map<String, String> parameters, String name) throws RequestException {
+        String text = requireParameter(parameters, name);
+        double value;
+        try {
+            value = Double.parseDouble(text);
+        } catch (NumberFormatException e) {
+            throw new RequestException(400, "Parameter '" + name + "' is not a number: " + text);
+        }
+        if (!(value > 0) || Double.isInfinite(value)) {
+            throw new RequestException(400, "Parameter '" + name + "' must be positive: " + text);
+        }
+        return value;
+    }
+
+    /**
+     * Parses a formula without the regex parser, rejecting invalid text.
+     *
+     * @param text The formula text
+     * @return The parsed formula
+     * @throws RequestException If the formula is invalid
+     */
+    private static Formula parseFormula(String text) throws RequestException {
+        IncrementalFormula parser = new IncrementalFormula();
+        if (!parser.update(text)) {
+            throw new RequestException(400, "Invalid formula format: " + text.trim());
+        }
+        return parser.toFormula();
+    }
+
+    /**
+     * Sets the sample amount from the grams or moles parameter, if either is present.
+     *
+     * @param sample The sample to update
+     * @param parameters Request parameters
+     * @return true if an amount was given
+     * @throws RequestException If both are given or the value is not a positive number
+     */
+    private static boolean setAmount(Sample sample, Map<String, String> parameters) throws RequestException {
+        boolean hasGrams = parameters.containsKey("grams");
+        boolean hasMoles = parameters.containsKey("moles");
+        if (hasGrams && hasMoles) {
+            throw new RequestException(400, "Only one of 'grams' or 'moles' may be given");
+        }
+        if (hasGrams) {
+            sample.setSampleMass(positiveParameter(parameters, "grams"));
+        } else if (hasMoles) {
+            sample.setSampleMoles(positiveParameter(parameters, "moles"));
+        }
+        return hasGrams || hasMoles;
+    }
+
+    /**
+     * Formats a balanced equation, omitting coefficients of 1.
+     *
+     * @param equation The balanced equation
+     * @return The equation text (e.g., "C_3H_8 + 5O_2 = 3CO_2 + 4H_2O")
+     */
+    private static String formatEquation(Equation equation) {
+        StringBuilder sb = new StringBuilder();
+        appendSide(sb, equation.getLeftFormulas());
+        sb.append(" = ");
+        appendSide(sb, equation.getRightFormulas());
+        return sb.toString();
+    }
+
+    /**
+     * Appends one side of an equation with its coefficients.
+     *
+     * @param sb The builder to append to
+     * @param formulas The formulas on that side
+     */
+    private static void appendSide(StringBuilder sb, List<Formula> formulas) {
+        for (int i = 0; i < formulas.size(); i++) {
+            if (i > 0) {
+                sb.append(" + ");
+            }
+            Formula formula = formulas.get(i);
+            if (formula.getMultiplier() != 1) {
+                sb.append(formula.getMultiplier());
+            }
+            sb.append(formula);
+        }
+    }
+
+    /**
+     * Collects the text of each formula.
+     *
+     * @param formulas The formulas
+     * @return The formula strings without multipliers
+     */
+    private static List<String> formulaTexts(List<Formula> formulas) {
+        List<String> texts = new ArrayList<>(formulas.size());
+        for (Formula formula : formulas) {
+            texts.add(formula.toString());
+        }
+        return texts;
+    }
+
+    /**
+     * Collects the multiplier of each formula.
+     *
+     * @param formulas The formulas
+     * @return The coefficients in order
+     */
+    private static int[] coefficients(List<Formula> formulas) {
+        int[] values = new int[formulas.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = formulas.get(i).getMultiplier();
+        }
+        return values;
+    }
+}
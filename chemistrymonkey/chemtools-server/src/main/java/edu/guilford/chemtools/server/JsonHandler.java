@@ -0,0 +1,141 @@
+package edu.guilford.chemtools.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The JsonHandler class adapts an {@link Endpoint} to the JDK HTTP server. It collects
+ * the query parameters (and, for POST, the request body), runs the endpoint and writes
+ * its result or error as a JSON object with a fixed Content-Length.
+ */
+final class JsonHandler implements HttpHandler {
+
+    static final String BODY_PARAMETER = "body"; // Parameter name holding a POST body
+    private static final int MAX_BODY_BYTES = 4096; // Largest accepted POST body
+
+    private final Endpoint endpoint; // Calculation behind this path
+    private final boolean acceptsPost; // Whether POST bodies are allowed
+
+    /**
+     * Constructor that creates a handler for an endpoint.
+     *
+     * @param endpoint The endpoint to run for each request
+     * @param acceptsPost true to accept POST requests as well as GET
+     */
+    JsonHandler(Endpoint endpoint, boolean acceptsPost) {
+        this.endpoint = endpoint;
+        this.acceptsPost = acceptsPost;
+    }
+
+    /**
+     * Handles one exchange on the calling (virtual) thread.
+     *
+     * @param exchange The HTTP exchange
+     * @throws IOException If the response cannot be written
+     */
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        int status = 200;
+        String body;
+        try {
+            Map<String, String> parameters = readParameters(exchange);
+            JsonWriter json = new JsonWriter();
+            endpoint.handle(parameters, json);
+            body = json.toString();
+        } catch (RequestException e) {
+            status = e.getStatus();
+            body = new JsonWriter().field("error", e.getMessage()).toString();
+        } catch (RuntimeException e) {
+            status = 500;
+            body = new JsonWriter().field("error", "Internal error").toString();
+        }
+
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        if (status == 503) {
+            exchange.getResponseHeaders().set("Retry-After", "1");
+        }
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Checks the request method and collects the query parameters and POST body.
+     *
+     * @param exchange The HTTP exchange
+     * @return Parameter values by name
+     * @throws RequestException If the method is not allowed or the body is too large
+     * @throws IOException If the body cannot be read
+     */
+    private Map<String, String> readParameters(HttpExchange exchange) throws RequestException, IOException {
+        String method = exchange.getRequestMethod();
+        boolean post = method.equals("POST");
+        if (!method.equals("GET") && !(post && acceptsPost)) {
+            throw new RequestException(405, "Method not allowed: " + method);
+        }
+
+        Map<String, String> parameters = parseQuery(exchange.getRequestURI().getRawQuery());
+        if (post) {
+            try (InputStream in = exchange.getRequestBody()) {
+                byte[] bytes = in.readNBytes(MAX_BODY_BYTES + 1);
+                if (bytes.length > MAX_BODY_BYTES) {
+                    throw new RequestException(413, "Request body is larger than " + MAX_BODY_BYTES + " bytes");
+                }
+                parameters.put(BODY_PARAMETER, new String(bytes, StandardCharsets.UTF_8));
+            }
+        }
+        return parameters;
+    }
+
+    /**
+     * Splits a raw query string into decoded parameter values. Note that a '+' in a
+     * query decodes to a space, so charges must be sent as %2B.
+     *
+     * @param rawQuery The raw query string, or null if there is none
+     * @return Parameter values by name (the last value wins)
+     * @throws RequestException If the query is not validly encoded
+     */
+    static Map<String, String> parseQuery(String rawQuery) throws RequestException {
+        Map<String, String> parameters = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return parameters;
+        }
+        try {
+            for (String pair : rawQuery.split("&")) {
+                int equals = pair.indexOf('=');
+                String name = equals < 0 ? pair : pair.substring(0, equals);
+                String value = equals < 0 ? "" : pair.substring(equals + 1);
+                parameters.put(URLDecoder.decode(name, StandardCharsets.UTF_8),
+                        URLDecoder.decode(value, StandardCharsets.UTF_8));
+            }
+        } catch (IllegalArgumentException e) {
+            throw new RequestException(400, "Malformed query string");
+        }
+        return parameters;
+    }
+
+    /**
+     * The Endpoint interface computes the JSON response for one request.
+     */
+    @FunctionalInterface
+    interface Endpoint {
+
+        /**
+         * Computes the response fields for a request.
+         *
+         * @param parameters Decoded query parameters, plus the POST body if any
+         * @param json Writer receiving the response fields
+         * @throws RequestException If the request cannot be answered
+         */
+        void handle(Map<String, String> parameters, JsonWriter json) throws RequestException;
+    }
+}
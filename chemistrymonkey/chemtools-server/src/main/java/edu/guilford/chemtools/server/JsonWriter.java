@@ -0,0 +1,162 @@
+package edu.guilford.chemtools.server;
+
+import java.util.List;
+
+/**
+ * The JsonWriter class builds a single flat JSON object one field at a time.
+ * Responses from the calculation service are small and have a fixed shape, so
+ * fields are appended straight into a StringBuilder instead of going through a
+ * general-purpose JSON library.
+ */
+final class JsonWriter {
+
+    private final StringBuilder sb = new StringBuilder(128).append('{'); // Object text so far
+    private boolean empty = true; // Whether no field has been written yet
+
+    /**
+     * Adds a string field.
+     *
+     * @param name The field name
+     * @param value The field value
+     * @return This writer
+     */
+    JsonWriter field(String name, String value) {
+        appendName(name);
+        appendString(value);
+        return this;
+    }
+
+    /**
+     * Adds a number field. Non-finite values are written as null.
+     *
+     * @param name The field name
+     * @param value The field value
+     * @return This writer
+     */
+    JsonWriter field(String name, double value) {
+        appendName(name);
+        if (Double.isFinite(value)) {
+            sb.append(value);
+        } else {
+            sb.append("null");
+        }
+        return this;
+    }
+
+    /**
+     * Adds an integer field.
+     *
+     * @param name The field name
+     * @param value The field value
+     * @return This writer
+     */
+    JsonWriter field(String name, long value) {
+        appendName(name);
+        sb.append(value);
+        return this;
+    }
+
+    /**
+     * Adds a boolean field.
+     *
+     * @param name The field name
+     * @param value The field value
+     * @return This writer
+     */
+    JsonWriter field(String name, boolean value) {
+        appendName(name);
+        sb.append(value);
+        return this;
+    }
+
+    /**
+     * Adds an array of strings.
+     *
+     * @param name The field name
+     * @param values The array elements
+     * @return This writer
+     */
+    JsonWriter stringArray(String name, List<String> values) {
+        appendName(name);
+        sb.append('[');
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            appendString(values.get(i));
+        }
+        sb.append(']');
+        return this;
+    }
+
+    /**
+     * Adds an array of integers.
+     *
+     * @param name The field name
+     * @param values The array elements
+     * @return This writer
+     */
+    JsonWriter intArray(String name, int[] values) {
+        appendName(name);
+        sb.append('[');
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(values[i]);
+        }
+        sb.append(']');
+        return this;
+    }
+
+    /**
+     * Closes the object and returns its text.
+     *
+     * @return The JSON object text
+     */
+    @Override
+    public String toString() {
+        return sb.toString() + '}';
+    }
+
+    /**
+     * Appends a separator if needed and the quoted field name.
+     *
+     * @param name The field name
+     */
+    private void appendName(String name) {
+        if (!empty) {
+            sb.append(',');
+        }
+        empty = false;
+        appendString(name);
+        sb.append(':');
+    }
+
+    /**
+     * Appends a quoted string, escaping quotes, backslashes and control characters.
+     *
+     * @param value The string to append
+     */
+    private void appendString(String value) {
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        sb.append('"');
+    }
+}
@@ -0,0 +1,31 @@
+package edu.guilford.chemtools.server;
+
+/**
+ * The RequestException class reports a request that cannot be answered, along with
+ * the HTTP status code to send back to the client.
+ */
+class RequestException extends Exception {
+
+    private static final long serialVersionUID = 1L; // Serialized form version
+    private final int status; // HTTP status code for the response
+
+    /**
+     * Constructor that creates a RequestException with a status code and message.
+     *
+     * @param status The HTTP status code
+     * @param message The error message sent to the client
+     */
+    RequestException(int status, String message) {
+        super(message);
+        this.status = status;
+    }
+
+    /**
+     * Gets the HTTP status code for the response.
+     *
+     * @return The status code
+     */
+    int getStatus() {
+        return status;
+    }
+}
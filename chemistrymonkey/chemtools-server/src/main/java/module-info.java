@@ -0,0 +1,6 @@
+module edu.guilford.chemtools.server {
+    requires edu.guilford.chemtools;
+    requires jdk.httpserver;
+
+    exports edu.guilford.chemtools.server;
+}
@@ -0,0 +1,221 @@
+package edu.guilford.chemtools.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The ChemToolsServerTest class sends real requests to a {@link ChemToolsServer} bound
+ * to a free localhost port and checks the status codes and bodies that come back.
+ */
+class ChemToolsServerTest {
+
+    // No balance exists (no hydrogen on the left), and 20^6 combinations take seconds to rule out
+    private static final String SLOW_EQUATION = "Fe + O_2 + N_2 + S + C = H_2O";
+
+    private ChemToolsServer server; // Server under test, stopped after each test
+
+    /**
+     * Stops the server started by the test.
+     */
+    @AfterEach
+    void stopServer() {
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    /**
+     * Starts a server on a free localhost port.
+     *
+     * @param balanceConcurrency The maximum number of balancing searches at once
+     * @param balanceTimeoutMillis The time budget for one search
+     * @throws IOException If the server cannot be bound
+     */
+    private void startServer(int balanceConcurrency, long balanceTimeoutMillis) throws IOException {
+        server = new ChemToolsServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+                balanceConcurrency, balanceTimeoutMillis);
+        server.start();
+    }
+
+    /**
+     * Sends a GET request to the server.
+     *
+     * @param path The path, e.g. "/molar-mass"
+     * @param name The query parameter name, or null for none
+     * @param value The query parameter value, encoded here
+     * @return The status code and body
+     * @throws IOException If the request fails
+     */
+    private Response get(String path, String name, String value) throws IOException {
+        String query = name == null ? "" : "?" + name + "=" + URLEncoder.encode(value, StandardCharsets.UTF_8);
+        URI uri = URI.create("http://127.0.0.1:" + server.getPort() + path + query);
+        HttpURLConnection connection = (HttpURLConnection) uri.toURL().openConnection();
+        try {
+            int status = connection.getResponseCode();
+            try (InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+                return new Response(status, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    /**
+     * Checks a valid formula gets its molar mass and Hill formula.
+     *
+     * @throws IOException If the request fails
+     */
+    @Test
+    void molarMassOfWater() throws IOException {
+        startServer(1, 2000);
+        Response response = get("/molar-mass", "formula", "H_2O");
+        assertEquals(200, response.status, response.body);
+        assertTrue(response.body.contains("\"hill\":\"H_2O\""), response.body);
+        assertTrue(response.body.contains("\"molarMass\":18.01"), response.body);
+    }
+
+    /**
+     * Checks malformed formulas, missing or conflicting amounts and bad numbers get 400.
+     *
+     * @throws IOException If a request fails
+     */
+    @Test
+    void badInputIs400() throws IOException {
+        startServer(1, 2000);
+        assertEquals(400, get("/molar-mass", "formula", "H_2O_").status);
+        assertEquals(400, get("/molar-mass", "formula", "Xq_2").status);
+        assertEquals(400, get("/molar-mass", null, null).status);
+        assertEquals(400, get("/sample", "formula", "NaCl").status);
+        assertEquals(400, get("/solution?moles=-1&volume=1&formula=NaCl", null, null).status);
+        assertEquals(400, get("/balance", "equation", "H_2 + = H_2O").status);
+    }
+
+    /**
+     * Checks an equation with no balance inside the coefficient limit gets 422.
+     *
+     * @throws IOException If the request fails
+     */
+    @Test
+    void unbalanceableIs422() throws IOException {
+        startServer(1, 2000);
+        Response response = get("/balance", "equation", "H_2 = O_2");
+        assertEquals(422, response.status, response.body);
+        assertTrue(response.body.contains("\"error\""), response.body);
+    }
+
+    /**
+     * Checks a balanceable equation gets its coefficients.
+     *
+     * @throws IOException If the request fails
+     */
+    @Test
+    void balancesPropane() throws IOException {
+        startServer(1, 2000);
+        Response response = get("/balance", "equation", "C_3H_8 + O_2 = CO_2 + H_2O");
+        assertEquals(200, response.status, response.body);
+        assertTrue(response.body.contains("\"reactantCoefficients\":[1,5]"), response.body);
+        assertTrue(response.body.contains("\"productCoefficients\":[3,4]"), response.body);
+    }
+
+    /**
+     * Checks a search that outlives its time budget gets 504 and gives its slot back
+     * once it has stopped.
+     *
+     * @throws Exception If a request fails or the wait is interrupted
+     */
+    @Test
+    void slowSearchIs504() throws Exception {
+        startServer(1, 100);
+        Response response = get("/balance", "equation", SLOW_EQUATION);
+        assertEquals(504, response.status, response.body);
+        awaitFreeSlots(1);
+        assertEquals(200, get("/balance", "equation", "H_2 + O_2 = H_2O").status);
+    }
+
+    /**
+     * Sends slow balancing requests and cheap requests at once. Cheap requests must all
+     * succeed, every slow one must be timed out or turned away, no more searches may
+     * hold slots than the limit, and every slot must come back afterwards.
+     *
+     * @throws Exception If a request fails or the wait is interrupted
+     */
+    @Test
+    void concurrentLoad() throws Exception {
+        int concurrency = 2;
+        startServer(concurrency, 150);
+        List<Future<Response>> slow = new ArrayList<>();
+        List<Future<Response>> cheap = new ArrayList<>();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 12; i++) {
+                slow.add(clients.submit(() -> get("/balance", "equation", SLOW_EQUATION)));
+                cheap.add(clients.submit(() -> get("/molar-mass", "formula", "C_6H_12O_6")));
+            }
+            // While the load runs, the slots in use never exceed the limit
+            for (int i = 0; i < 20; i++) {
+                int free = server.getFreeBalanceSlots();
+                assertTrue(free >= 0 && free <= concurrency, "free slots: " + free);
+                Thread.sleep(10);
+            }
+        }
+
+        for (Future<Response> response : cheap) {
+            assertEquals(200, response.get().status, response.get().body);
+        }
+        for (Future<Response> response : slow) {
+            int status = response.get().status;
+            assertTrue(status == 503 || status == 504, "unexpected status " + status);
+        }
+        awaitFreeSlots(concurrency);
+        assertEquals(200, get("/balance", "equation", "H_2 + O_2 = H_2O").status);
+    }
+
+    /**
+     * Waits for abandoned searches to stop and release their slots.
+     *
+     * @param expected The number of slots that should be free
+     * @throws InterruptedException If the wait is interrupted
+     */
+    private void awaitFreeSlots(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (server.getFreeBalanceSlots() != expected && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, server.getFreeBalanceSlots());
+    }
+
+    /**
+     * The Response class holds one HTTP response.
+     */
+    private static final class Response {
+
+        private final int status; // HTTP status code
+        private final String body; // Response body
+
+        /**
+         * Constructor that wraps a response.
+         *
+         * @param status The HTTP status code
+         * @param body The response body
+         */
+        Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+}